@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+# Empaqueta la aplicación en modo arranque rápido:
+#   1) jar con las definiciones de beans generadas por Spring AOT (perfil Maven "arranque-rapido");
+#   2) jar extraído en target/arranque (carga de clases más rápida que desde el fat jar);
+#   3) archivo CDS (app.jsa) a partir de una corrida de entrenamiento que arranca el
+#      contexto y sale (spring.context.exit=onRefresh). Necesita la base de datos accesible.
+#
+# Ejecutar después:
+#   cd target/arranque && java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar <jar>
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+./mvnw -B -q -Parranque-rapido -DskipTests package
+
+JAR=$(ls target/*.jar | grep -v -- '-plain.jar' | head -n 1)
+DESTINO=target/arranque
+
+rm -rf "$DESTINO"
+java -Djarmode=tools -jar "$JAR" extract --destination "$DESTINO"
+
+cd "$DESTINO"
+java -XX:ArchiveClassesAtExit=app.jsa \
+     -Dspring.aot.enabled=true \
+     -Dspring.context.exit=onRefresh \
+     -jar "$(basename "$JAR")"
+
+echo "Listo: $DESTINO/$(basename "$JAR") con $DESTINO/app.jsa"
@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta estar listo en cada modo de arranque: la primera respuesta 200 de
+# /actuator/health/readiness, que pasa a UP recién al terminar el calentamiento (lo mismo
+# que espera el balanceador; /login responde antes).
+# Requiere haber corrido antes scripts/arranque-rapido.sh y tener la base de datos accesible.
+#
+# Uso: scripts/medir-arranque.sh [repeticiones] [puerto]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+REPETICIONES=${1:-3}
+PUERTO=${2:-8080}
+DIR=target/arranque
+JAR=$(ls "$DIR"/*.jar | head -n 1)
+FAT_JAR=$(ls target/*.jar | grep -v -- '-plain.jar' | head -n 1)
+
+declare -A MODOS=(
+  ["1-fat-jar"]="java -jar $FAT_JAR"
+  ["2-extraido"]="java -jar $JAR"
+  ["3-extraido+cds"]="java -XX:SharedArchiveFile=$DIR/app.jsa -jar $JAR"
+  ["4-extraido+cds+aot"]="java -XX:SharedArchiveFile=$DIR/app.jsa -Dspring.aot.enabled=true -jar $JAR"
+)
+
+medir() {
+  local comando=$1
+  local inicio fin pid
+  inicio=$(date +%s%N)
+  $comando --server.port="$PUERTO" > /dev/null 2>&1 &
+  pid=$!
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PUERTO/actuator/health/readiness" || true)" = "200" ]; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "error"
+      return
+    fi
+    sleep 0.05
+  done
+  fin=$(date +%s%N)
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo $(( (fin - inicio) / 1000000 ))
+}
+
+printf "%-22s %s\n" "modo" "ms hasta listo (cada repetición)"
+for modo in $(printf "%s\n" "${!MODOS[@]}" | sort); do
+  tiempos=()
+  for _ in $(seq "$REPETICIONES"); do
+    tiempos+=("$(medir "${MODOS[$modo]}")")
+  done
+  printf "%-22s %s\n" "$modo" "${tiempos[*]}"
+done
@@ -0,0 +1,32 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/ArranqueConfig.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ajustes de arranque: los beans de uso ocasional que arma Spring Boot se crean
+ * recién la primera vez que alguien los usa (los puntos de inyección llevan @Lazy).
+ *
+ * Con AOT (perfil Maven "arranque-rapido") la marca queda en las definiciones generadas.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ArranqueConfig {
+
+    // JavaMailSender: solo lo usa CorreoService (también perezoso)
+    private static final Set<String> BEANS_PEREZOSOS = Set.of("mailSender");
+
+    @Bean
+    static BeanFactoryPostProcessor inicializacionPerezosa() {
+        return beanFactory -> {
+            for (String nombre : BEANS_PEREZOSOS) {
+                if (beanFactory.containsBeanDefinition(nombre)) {
+                    beanFactory.getBeanDefinition(nombre).setLazyInit(true);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/EventosJfrAspect.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.util.Collection;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
+import com.co.gestiondecitasmedicas.jfr.ConsultaHistorialEvento;
+import com.co.gestiondecitasmedicas.jfr.OperacionCitaEvento;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.service.HorarioOcupadoException;
+
+/**
+ * Eventos JFR de las operaciones sobre citas y de las consultas de historiales, para
+ * que una grabación de Flight Recorder muestre qué operación de negocio corría cuando
+ * hubo una pausa de GC o un bloqueo.
+ *
+ * Con los eventos desactivados (sin grabación o sin el perfil jfr/gestiondecitas.jfc)
+ * solo queda el begin/end de un objeto que el JIT descarta.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class EventosJfrAspect {
+
+    @Around("execution(* com.co.gestiondecitasmedicas.service.CitaService.reservarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.cancelarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.modificarFechaCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.realizarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.facturarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.eliminarCitaDeClinica(..))")
+    public Object operacionCita(ProceedingJoinPoint pjp) throws Throwable {
+        OperacionCitaEvento evento = new OperacionCitaEvento();
+        evento.begin();
+        Object valor = null;
+        String resultado = "error";
+        Integer clinicaId = null;
+        try {
+            valor = pjp.proceed();
+            resultado = "ok";
+            return valor;
+        } catch (HorarioOcupadoException ex) {
+            resultado = "conflicto";
+            clinicaId = ex.getClinicaId();
+            throw ex;
+        } catch (RuntimeException ex) {
+            resultado = "rechazada";
+            throw ex;
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                Object[] args = pjp.getArgs();
+                evento.operacion = pjp.getSignature().getName();
+                evento.resultado = resultado;
+                if (valor instanceof Cita cita) {
+                    evento.citaId = cita.getId();
+                    clinicaId = cita.getClinica().getId();
+                } else if (args.length > 0 && args[0] instanceof Integer citaId) {
+                    evento.citaId = citaId;
+                }
+                if (clinicaId == null && args.length > 1 && args[1] instanceof Integer id
+                        && pjp.getSignature().getName().equals("eliminarCitaDeClinica")) {
+                    clinicaId = id;
+                }
+                evento.clinicaId = clinicaId == null ? 0 : clinicaId;
+                evento.commit();
+            }
+        }
+    }
+
+    @Around("execution(* com.co.gestiondecitasmedicas.service.HistorialMedicoService.*(..))")
+    public Object consultaHistorial(ProceedingJoinPoint pjp) throws Throwable {
+        ConsultaHistorialEvento evento = new ConsultaHistorialEvento();
+        evento.begin();
+        Object valor = null;
+        try {
+            valor = pjp.proceed();
+            return valor;
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                Object[] args = pjp.getArgs();
+                evento.consulta = pjp.getSignature().getName();
+                evento.id = args.length > 0 && args[0] instanceof Integer id ? id : 0;
+                evento.filas = filas(valor);
+                evento.commit();
+            }
+        }
+    }
+
+    private static int filas(Object valor) {
+        if (valor instanceof Collection<?> lista) {
+            return lista.size();
+        }
+        if (valor instanceof PaginaApiDto<?> pagina) {
+            return pagina.items().size();
+        }
+        return valor == null ? 0 : 1;
+    }
+}
@@ -0,0 +1,76 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/GrabacionJfr.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Grabación continua de Flight Recorder iniciada por la propia aplicación: el perfil
+ * "default" del JDK (GC, bloqueos, E/S, con ~1 % de costo) más los eventos de
+ * jfr/gestiondecitas.jfc. Guarda en disco las últimas "app.jfr.max-edad-min" minutos
+ * (hasta "app.jfr.max-mb"); se vuelca a "app.jfr.destino" al detener la aplicación o
+ * en cualquier momento con "jcmd <pid> JFR.dump name=gestiondecitas filename=...".
+ */
+@Component
+@ConditionalOnProperty(name = "app.jfr.grabacion", havingValue = "true")
+public class GrabacionJfr {
+
+    private static final Logger log = LoggerFactory.getLogger(GrabacionJfr.class);
+
+    private static final String PERFIL = "jfr/gestiondecitas.jfc";
+
+    @Value("${app.jfr.max-edad-min:360}")
+    private long maxEdadMin;
+
+    @Value("${app.jfr.max-mb:250}")
+    private long maxMb;
+
+    @Value("${app.jfr.destino:gestiondecitas.jfr}")
+    private String destino;
+
+    private Recording grabacion;
+
+    @PostConstruct
+    void iniciar() throws IOException, ParseException {
+        Map<String, String> ajustes = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader perfil = new InputStreamReader(new ClassPathResource(PERFIL).getInputStream(), StandardCharsets.UTF_8)) {
+            ajustes.putAll(Configuration.create(perfil).getSettings());
+        }
+        grabacion = new Recording(ajustes);
+        grabacion.setName("gestiondecitas");
+        grabacion.setToDisk(true);
+        grabacion.setMaxAge(Duration.ofMinutes(maxEdadMin));
+        grabacion.setMaxSize(maxMb * 1024 * 1024);
+        grabacion.setDestination(Path.of(destino));
+        grabacion.setDumpOnExit(true);
+        grabacion.start();
+        log.info("Grabación JFR continua iniciada (perfil default + {}), destino {}", PERFIL, destino);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (grabacion != null) {
+            grabacion.stop(); // escribe en el destino
+            grabacion.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/IdempotenciaInterceptor.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import com.co.gestiondecitasmedicas.service.IdempotenciaService;
+import com.co.gestiondecitasmedicas.service.IdempotenciaService.Resultado;
+import com.co.gestiondecitasmedicas.service.SolicitudEnCursoException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Idempotencia de los formularios que cambian datos.
+ *
+ * - Cada vista HTML recibe "claveIdempotencia"; sus formularios POST la mandan en el
+ *   campo oculto "idempotencia". La clave vale por usuario, ruta y contenido del
+ *   formulario: una misma página puede tener varios formularios (uno por cita) y, si se
+ *   vuelve atrás y se envían otros datos, es un envío nuevo.
+ * - El primer envío hace el trabajo; si termina en redirección se guardan la URL y los
+ *   mensajes flash. Un envío repetido (doble clic, F5, atrás) recibe esa misma
+ *   redirección con los mismos mensajes, sin volver a reservar, facturar ni enviar correo.
+ * - Si el primero sigue en curso, el repetido lo espera; pasada la espera, 409.
+ * - POST sin clave o sin usuario autenticado siguen como antes.
+ */
+public class IdempotenciaInterceptor implements HandlerInterceptor {
+
+    public static final String CAMPO = "idempotencia";
+    public static final String ATRIBUTO_MODELO = "claveIdempotencia";
+
+    private static final String TOMADA = IdempotenciaInterceptor.class.getName() + ".TOMADA";
+    private static final String REDIRECCION = "redirect:";
+    private static final int LARGO_MAXIMO = 64;
+
+    private record Tomada(Integer usuarioId, String clave, String ruta) { }
+
+    private final IdempotenciaService idempotencia;
+
+    public IdempotenciaInterceptor(IdempotenciaService idempotencia) {
+        this.idempotencia = idempotencia;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String clave = request.getParameter(CAMPO);
+        Integer usuarioId = usuarioId();
+        if (clave == null || clave.isBlank() || clave.length() > LARGO_MAXIMO || usuarioId == null) {
+            return true;
+        }
+        String ruta = request.getRequestURI().substring(request.getContextPath().length()) + "#" + huella(request);
+        Optional<Resultado> previo;
+        try {
+            previo = idempotencia.tomar(usuarioId, clave, ruta);
+        } catch (SolicitudEnCursoException ex) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            response.setCharacterEncoding("UTF-8");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(ex.getMessage());
+            return false;
+        }
+        if (previo.isPresent()) {
+            repetir(previo.get(), request, response);
+            return false;
+        }
+        request.setAttribute(TOMADA, new Tomada(usuarioId, clave, ruta));
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView mav) {
+        Tomada tomada = (Tomada) request.getAttribute(TOMADA);
+        String vista = mav == null ? null : mav.getViewName();
+        if (tomada != null) {
+            request.removeAttribute(TOMADA);
+            if (vista != null && vista.startsWith(REDIRECCION)) {
+                FlashMap flash = RequestContextUtils.getOutputFlashMap(request);
+                idempotencia.terminar(tomada.usuarioId(), tomada.clave(), tomada.ruta(), new Resultado(
+                    vista.substring(REDIRECCION.length()), texto(flash.get("successMsg")), texto(flash.get("errorMsg"))));
+            } else {
+                // Una vista renderizada (formulario con errores) no se puede repetir
+                idempotencia.soltar(tomada.usuarioId(), tomada.clave(), tomada.ruta());
+            }
+        }
+        if (vista != null && !vista.startsWith(REDIRECCION) && !mav.getModel().containsKey(ATRIBUTO_MODELO)) {
+            mav.addObject(ATRIBUTO_MODELO, idempotencia.nuevaClave());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        // El controlador lanzó una excepción: la clave queda libre para reintentar
+        Tomada tomada = (Tomada) request.getAttribute(TOMADA);
+        if (tomada != null) {
+            request.removeAttribute(TOMADA);
+            idempotencia.soltar(tomada.usuarioId(), tomada.clave(), tomada.ruta());
+        }
+    }
+
+    private static void repetir(Resultado resultado, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        FlashMap flash = RequestContextUtils.getOutputFlashMap(request);
+        if (resultado.successMsg() != null) {
+            flash.put("successMsg", resultado.successMsg());
+        }
+        if (resultado.errorMsg() != null) {
+            flash.put("errorMsg", resultado.errorMsg());
+        }
+        String destino = request.getContextPath() + resultado.redireccion();
+        RequestContextUtils.saveOutputFlashMap(destino, request, response);
+        response.sendRedirect(response.encodeRedirectURL(destino));
+    }
+
+    /**
+     * Resumen corto (SHA-256, 8 bytes) de los campos del formulario, sin la clave.
+     */
+    private static String huella(HttpServletRequest request) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        for (Map.Entry<String, String[]> campo : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            if (CAMPO.equals(campo.getKey())) {
+                continue;
+            }
+            for (String valor : campo.getValue()) {
+                sha.update((campo.getKey() + "=" + valor + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(sha.digest(), 0, 8);
+    }
+
+    private static Integer usuarioId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof UsuarioAutenticado u ? u.getId() : null;
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? null : valor.toString();
+    }
+}
@@ -0,0 +1,153 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/LimiteSolicitudesFilter.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.co.gestiondecitasmedicas.service.LimiteSolicitudesService;
+import com.co.gestiondecitasmedicas.service.LimiteSolicitudesService.Grupo;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Aplica las cuotas de LimiteSolicitudesService a los endpoints caros (reservas, PDF,
+ * facturación, exportaciones y login). Al pasarse responde 429 con Retry-After.
+ *
+ * - La clave es el usuario autenticado; en el login, la IP y, dentro de ella, el login
+ *   intentado. El login solo no sirve de clave: quien lo manda lo elige, y con él
+ *   podría agotar la cuota de otra persona y dejarla sin poder entrar.
+ * - La cuota de clínica se aplica a la clínica que resuelve el servidor: la del usuario
+ *   de clínica o médico; para un paciente, la de la cita de la ruta (PDF) o la del médico
+ *   que reserva. Un "clinicaId" mandado por el cliente no cuenta.
+ *
+ * Igual que TokenApiFilter, no es un @Component: SecurityConfig lo agrega a cada cadena
+ * en el punto en que ya se sabe quién es el usuario.
+ */
+public class LimiteSolicitudesFilter extends OncePerRequestFilter {
+
+    private final LimiteSolicitudesService limites;
+
+    public LimiteSolicitudesFilter(LimiteSolicitudesService limites) {
+        this.limites = limites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Grupo grupo = grupoDe(request);
+        if (grupo == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long espera = grupo == Grupo.LOGIN ? consumirLogin(request) : consumir(grupo, request);
+        if (espera > 0) {
+            rechazar(request, response, espera);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private long consumirLogin(HttpServletRequest request) {
+        long espera = limites.consumirUsuario(Grupo.LOGIN_IP, request.getRemoteAddr());
+        String login = request.getParameter("usuariologin");
+        if (espera == 0 && login != null && !login.isBlank()) {
+            espera = limites.consumirUsuario(Grupo.LOGIN,
+                "login:" + request.getRemoteAddr() + "/" + login.trim().toLowerCase());
+        }
+        return espera;
+    }
+
+    private long consumir(Grupo grupo, HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UsuarioAutenticado usuario)) {
+            return 0; // sin usuario la petición termina en el login o en un 401
+        }
+        long espera = limites.consumirUsuario(grupo, "u:" + usuario.getId());
+        if (espera == 0) {
+            Integer citaId = grupo == Grupo.PDF || grupo == Grupo.FACTURACION ? ultimoNumero(request) : null;
+            Integer medicoId = grupo == Grupo.RESERVA ? numero(request.getParameter("medicoId")) : null;
+            Integer clinicaId = limites.clinicaDe(grupo, usuario.getId(), citaId, medicoId);
+            if (clinicaId != null) {
+                espera = limites.consumirClinica(grupo, clinicaId);
+            }
+        }
+        return espera;
+    }
+
+    // Id de la cita al final de la ruta (/.../pdf/{id}, /clinica/citas/factura/{id}, ...)
+    private static Integer ultimoNumero(HttpServletRequest request) {
+        String ruta = request.getRequestURI();
+        return numero(ruta.substring(ruta.lastIndexOf('/') + 1));
+    }
+
+    private static Integer numero(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(texto);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Grupo del endpoint, o null si la ruta no tiene límite. Solo comparaciones de cadenas.
+     */
+    private static Grupo grupoDe(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        boolean post = "POST".equals(request.getMethod());
+        if (post) {
+            if (ruta.equals("/login")) {
+                return Grupo.LOGIN;
+            }
+            if (ruta.equals("/paciente/nueva-cita") || ruta.equals("/api/v1/paciente/citas")) {
+                return Grupo.RESERVA;
+            }
+            if (ruta.startsWith("/clinica/citas/facturar/")) {
+                return Grupo.FACTURACION;
+            }
+            return null;
+        }
+        if (!"GET".equals(request.getMethod())) {
+            return null;
+        }
+        if (ruta.contains("/pdf/") || ruta.startsWith("/clinica/citas/factura/")) {
+            return Grupo.PDF;
+        }
+        if (ruta.equals("/clinica/ingresos/datos")) {
+            return Grupo.EXPORTACION;
+        }
+        if (ruta.equals("/api/v1/medico/citas") || ruta.equals("/api/v1/clinica/citas")) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE) ? Grupo.EXPORTACION : null;
+        }
+        return null;
+    }
+
+    private static void rechazar(HttpServletRequest request, HttpServletResponse response, long esperaNanos)
+            throws IOException {
+        long segundos = Math.max(1, (esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setCharacterEncoding("UTF-8");
+        String mensaje = "Demasiadas solicitudes; intente de nuevo en " + segundos + " s.";
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/api/")) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"" + mensaje + "\"}");
+        } else {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(mensaje);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.co.gestiondecitasmedicas.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * El pool de BCrypt no tiene lugar (cola llena o espera vencida). No dice nada de las
+ * credenciales: SecurityConfig lo responde con 503 y Retry-After, no como login inválido.
+ */
+public class LoginOcupadoException extends AuthenticationServiceException {
+
+    public LoginOcupadoException(Throwable causa) {
+        super("Hay demasiados inicios de sesión en curso; intente de nuevo en unos segundos.", causa);
+    }
+}
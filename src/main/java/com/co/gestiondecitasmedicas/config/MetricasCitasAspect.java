@@ -0,0 +1,132 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/MetricasCitasAspect.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.service.ConflictoConcurrenciaException;
+import com.co.gestiondecitasmedicas.service.HorarioOcupadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas del ciclo de vida de las citas.
+ *
+ * - citas.operacion (histograma): duración de cada operación de CitaService, con
+ *   operacion y resultado (ok, conflicto, concurrencia, rechazada, error). Envuelve a la
+ *   transacción, así incluye el commit y los reintentos por concurrencia.
+ * - citas.conflictos: reservas o cambios de fecha rechazados por horario ocupado, por clínica.
+ * - citas.transiciones: transiciones confirmadas (after commit), por tipo y clínica.
+ *
+ * La etiqueta clinica se limita a las primeras "app.metricas.clinicas-max" clínicas
+ * que aparecen; el resto va como "otras", así la cantidad de series no crece con los datos.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricasCitasAspect {
+
+    private static final String OTRAS = "otras";
+
+    private static final Map<String, String> OPERACIONES = Map.of(
+        "reservarCita", "reservar",
+        "cancelarCita", "cancelar",
+        "modificarFechaCita", "modificar",
+        "realizarCita", "realizar",
+        "facturarCita", "facturar",
+        "eliminarCitaDeClinica", "eliminar"
+    );
+
+    private final MeterRegistry registry;
+    private final Set<Integer> clinicasConEtiqueta = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.metricas.clinicas-max:50}")
+    private int clinicasMax;
+
+    public MetricasCitasAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* com.co.gestiondecitasmedicas.service.CitaService.reservarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.cancelarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.modificarFechaCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.realizarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.facturarCita(..))"
+        + " || execution(* com.co.gestiondecitasmedicas.service.CitaService.eliminarCitaDeClinica(..))")
+    public Object medir(ProceedingJoinPoint pjp) throws Throwable {
+        String operacion = OPERACIONES.get(pjp.getSignature().getName());
+        Timer.Sample muestra = Timer.start(registry);
+        String resultado = "error";
+        try {
+            Object valor = pjp.proceed();
+            resultado = "ok";
+            return valor;
+        } catch (HorarioOcupadoException ex) {
+            resultado = "conflicto";
+            Counter.builder("citas.conflictos")
+                .description("Operaciones rechazadas porque el horario ya estaba ocupado")
+                .tag("operacion", operacion)
+                .tag("clinica", etiquetaClinica(ex.getClinicaId()))
+                .register(registry)
+                .increment();
+            throw ex;
+        } catch (ConflictoConcurrenciaException ex) {
+            // Otra persona cambió la cita y se agotaron los reintentos
+            resultado = "concurrencia";
+            throw ex;
+        } catch (DataAccessException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            // Validaciones del servicio: estado, permisos, cita inexistente
+            resultado = "rechazada";
+            throw ex;
+        } finally {
+            muestra.stop(Timer.builder("citas.operacion")
+                .description("Duración de las operaciones sobre citas, incluido el commit")
+                .tag("operacion", operacion)
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+    }
+
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        Counter.builder("citas.transiciones")
+            .description("Transiciones de citas confirmadas")
+            .tag("tipo", evento.tipo().name())
+            .tag("clinica", etiquetaClinica(evento.clinicaId()))
+            .register(registry)
+            .increment();
+    }
+
+    private String etiquetaClinica(Integer clinicaId) {
+        if (clinicaId == null) {
+            return OTRAS;
+        }
+        if (clinicasConEtiqueta.contains(clinicaId)) {
+            return clinicaId.toString();
+        }
+        synchronized (clinicasConEtiqueta) {
+            if (clinicasConEtiqueta.size() < clinicasMax) {
+                clinicasConEtiqueta.add(clinicaId);
+                return clinicaId.toString();
+            }
+        }
+        return OTRAS;
+    }
+}
@@ -0,0 +1,13 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/ProgramacionConfig.java
+package com.co.gestiondecitasmedicas.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas (@Scheduled) de los servicios.
+ */
+@Configuration
+@EnableScheduling
+public class ProgramacionConfig {
+}
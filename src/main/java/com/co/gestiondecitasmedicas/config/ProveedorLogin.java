@@ -0,0 +1,60 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/ProveedorLogin.java
+package com.co.gestiondecitasmedicas.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * DaoAuthenticationProvider que mide cuánto tarda cada autenticación (formulario
+ * o HTTP Basic) en el histograma "login.duracion", por resultado:
+ * ok, credenciales (usuario o contraseña inválidos), ocupado (pool BCrypt lleno) o error.
+ */
+public class ProveedorLogin extends DaoAuthenticationProvider {
+
+    private final Timer ok;
+    private final Timer credenciales;
+    private final Timer ocupado;
+    private final Timer error;
+
+    public ProveedorLogin(PasswordEncoder passwordEncoder, MeterRegistry registry) {
+        super(passwordEncoder);
+        this.ok = timer(registry, "ok");
+        this.credenciales = timer(registry, "credenciales");
+        this.ocupado = timer(registry, "ocupado");
+        this.error = timer(registry, "error");
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Timer.Sample muestra = Timer.start();
+        Timer resultado = error;
+        try {
+            Authentication auth = super.authenticate(authentication);
+            resultado = ok;
+            return auth;
+        } catch (BadCredentialsException ex) {
+            resultado = credenciales;
+            throw ex;
+        } catch (AuthenticationServiceException ex) {
+            resultado = ocupado;
+            throw ex;
+        } finally {
+            muestra.stop(resultado);
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String resultado) {
+        return Timer.builder("login.duracion")
+            .description("Duración de la autenticación con usuario y contraseña")
+            .tag("resultado", resultado)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+}
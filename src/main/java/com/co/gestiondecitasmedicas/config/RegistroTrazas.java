@@ -0,0 +1,207 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/RegistroTrazas.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Trazas al estilo OpenTelemetry sobre la API de Observation de Micrometer, sin
+ * servicios externos: cada observación (petición HTTP, llamada a repositorio, fase de
+ * un informe, envío de correo) muestreada se guarda como un tramo con traceId, spanId,
+ * tramo padre, duración y atributos.
+ *
+ * - Muestreo en la raíz: una observación sin padre entra con probabilidad
+ *   "app.trazas.muestreo" y sus descendientes heredan la decisión. Lo no muestreado
+ *   solo cuesta una consulta al contexto por observación.
+ * - Los últimos "app.trazas.memoria" tramos quedan en un anillo en memoria
+ *   (/actuator/trazas). Si "app.trazas.archivo" tiene una ruta, además se agregan allí
+ *   como JSON por línea, desde un hilo propio; si la cola se llena, se descartan.
+ */
+@Component
+public class RegistroTrazas implements ObservationHandler<Observation.Context> {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroTrazas.class);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * Tramo terminado. Los tiempos van en microsegundos desde la época.
+     */
+    public record Tramo(String traceId, String spanId, String parentSpanId, String nombre,
+                        long inicioMicros, long duracionMicros, Map<String, String> atributos,
+                        String error) { }
+
+    // Estado de un tramo en curso, guardado en el contexto de la observación
+    private record Activo(String traceId, String spanId, String parentSpanId,
+                          long inicioMicros, long inicioNanos) { }
+
+    @Value("${app.trazas.muestreo:0.05}")
+    private double muestreo;
+
+    @Value("${app.trazas.memoria:2000}")
+    private int capacidad;
+
+    @Value("${app.trazas.archivo:}")
+    private String archivo;
+
+    private Tramo[] anillo;
+    private final AtomicLong escritos = new AtomicLong();
+
+    private final BlockingQueue<Tramo> porEscribir = new ArrayBlockingQueue<>(10_000);
+    private final AtomicLong descartados = new AtomicLong();
+    private final ObjectMapper json = new ObjectMapper();
+    private Thread escritor;
+
+    @PostConstruct
+    void iniciar() {
+        anillo = new Tramo[capacidad];
+        if (!archivo.isBlank()) {
+            escritor = new Thread(this::escribirArchivo, "trazas-archivo");
+            escritor.setDaemon(true);
+            escritor.start();
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        if (escritor != null) {
+            escritor.interrupt();
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return true;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        ObservationView padre = context.getParentObservation();
+        Activo activoPadre = padre == null ? null : padre.getContextView().get(Activo.class);
+        String traceId;
+        if (activoPadre != null) {
+            traceId = activoPadre.traceId();
+        } else if (padre != null || ThreadLocalRandom.current().nextDouble() >= muestreo) {
+            return; // la raíz no se muestreó (o esta es una raíz que no entra)
+        } else {
+            traceId = id(16);
+        }
+        context.put(Activo.class, new Activo(traceId, id(8),
+            activoPadre == null ? null : activoPadre.spanId(),
+            ahoraMicros(), System.nanoTime()));
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Activo activo = context.get(Activo.class);
+        if (activo == null) {
+            return;
+        }
+        Map<String, String> atributos = new LinkedHashMap<>();
+        for (KeyValue kv : context.getLowCardinalityKeyValues()) {
+            atributos.put(kv.getKey(), kv.getValue());
+        }
+        for (KeyValue kv : context.getHighCardinalityKeyValues()) {
+            atributos.put(kv.getKey(), kv.getValue());
+        }
+        String nombre = context.getContextualName() != null ? context.getContextualName() : context.getName();
+        Throwable error = context.getError();
+        guardar(new Tramo(activo.traceId(), activo.spanId(), activo.parentSpanId(), nombre,
+            activo.inicioMicros(), (System.nanoTime() - activo.inicioNanos()) / 1000, atributos,
+            error == null ? null : error.getClass().getSimpleName() + ": " + error.getMessage()));
+    }
+
+    /**
+     * Los últimos tramos guardados, del más viejo al más nuevo.
+     */
+    public List<Tramo> recientes(int maximo) {
+        long fin = escritos.get();
+        long inicio = Math.max(0, Math.max(fin - capacidad, fin - maximo));
+        List<Tramo> lista = new ArrayList<>((int) (fin - inicio));
+        for (long i = inicio; i < fin; i++) {
+            Tramo t = anillo[(int) (i % capacidad)];
+            if (t != null) {
+                lista.add(t);
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Los tramos de una traza que aún están en memoria.
+     */
+    public List<Tramo> traza(String traceId) {
+        return recientes(capacidad).stream().filter(t -> t.traceId().equals(traceId)).toList();
+    }
+
+    private void guardar(Tramo tramo) {
+        long i = escritos.getAndIncrement();
+        anillo[(int) (i % capacidad)] = tramo;
+        if (escritor != null && !porEscribir.offer(tramo)) {
+            descartados.incrementAndGet();
+        }
+    }
+
+    private void escribirArchivo() {
+        Path ruta = Path.of(archivo);
+        try (BufferedWriter out = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Tramo tramo = porEscribir.poll(1, TimeUnit.SECONDS);
+                if (tramo == null) {
+                    out.flush();
+                    continue;
+                }
+                out.write(json.writeValueAsString(tramo));
+                out.newLine();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.error("No se pudo escribir el archivo de trazas {}", ruta, ex);
+        }
+        if (descartados.get() > 0) {
+            log.warn("Tramos descartados por cola de archivo llena: {}", descartados.get());
+        }
+    }
+
+    private static long ahoraMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private static String id(int bytes) {
+        byte[] b = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(b);
+        return HEX.formatHex(b);
+    }
+}
@@ -1,73 +1,167 @@
 package com.co.gestiondecitasmedicas.config;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 
-import com.co.gestiondecitasmedicas.models.Rol;
-import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.dto.CredencialLoginDto;
 import com.co.gestiondecitasmedicas.repository.UsuarioRepository;
+import com.co.gestiondecitasmedicas.service.LimiteSolicitudesService;
+import com.co.gestiondecitasmedicas.service.TokenApiService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Configuration
 public class SecurityConfig {
 
-    // 1) Bean para cargar usuarios desde la BD en Spring Security
+    // 1) Bean para cargar usuarios desde la BD en Spring Security.
+    //    Usa una proyección (id, login, hash, roles): no carga la entidad ni su clínica.
     @Bean
     public UserDetailsService userDetailsService(UsuarioRepository repo) {
         return username -> {
-            Usuario u = repo.findByUsuariologin(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+            List<CredencialLoginDto> filas = repo.credencialesDeLogin(username);
+            if (filas.isEmpty()) {
+                throw new UsernameNotFoundException("Usuario no encontrado: " + username);
+            }
+            CredencialLoginDto u = filas.get(0);
 
-            var authorities = u.getRoles().stream()
-                .map(Rol::getNombre)
+            var authorities = filas.stream()
+                .map(CredencialLoginDto::rol)
+                .filter(Objects::nonNull)
                 .map(r -> "ROLE_" + r)
                 .map(org.springframework.security.core.authority.SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
 
-            return User.builder()
-                .username(u.getUsuariologin())
-                .password(u.getPassword())
-                .authorities(authorities)
-                .build();
+            return new UsuarioAutenticado(u.id(), u.usuariologin(), u.password(), authorities);
         };
     }
 
-    // 2) Bean para codificar y verificar contraseñas con BCrypt
+    // 2) Bean para codificar y verificar contraseñas con BCrypt, en un pool acotado
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public VerificadorBcrypt passwordEncoder(
+            @Value("${app.login.bcrypt-fuerza:10}") int fuerza,
+            @Value("${app.login.bcrypt-hilos:4}") int hilos,
+            @Value("${app.login.bcrypt-cola:8}") int cola,
+            @Value("${app.login.bcrypt-espera-ms:1000}") long esperaMs,
+            MeterRegistry registry) {
+        return new VerificadorBcrypt(fuerza, hilos, cola, esperaMs, registry);
+    }
+
+    // 2b) Al iniciar sesión con un hash de otra fuerza de BCrypt se guarda el nuevo hash
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService(UsuarioRepository repo) {
+        return (user, nuevoHash) -> {
+            repo.actualizarPassword(user.getUsername(), nuevoHash);
+            Integer id = user instanceof UsuarioAutenticado u ? u.getId() : null;
+            return new UsuarioAutenticado(id, user.getUsername(), nuevoHash, user.getAuthorities());
+        };
     }
 
     // 3) Configuramos un proveedor de autenticación con nuestro UserDetailsService
     @Bean
-    public AuthenticationProvider authenticationProvider(UsuarioRepository repo) {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setUserDetailsService(userDetailsService(repo));
-        provider.setPasswordEncoder(passwordEncoder());
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                         PasswordEncoder passwordEncoder,
+                                                         UserDetailsPasswordService userDetailsPasswordService,
+                                                         MeterRegistry registry) {
+        DaoAuthenticationProvider provider = new ProveedorLogin(passwordEncoder, registry);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
         return provider;
     }
 
-    // 4) Seguridad HTTP: filtros, rutas, login y logout
+    // 4) API REST (/api/**): sin sesión ni formulario; token Bearer o HTTP Basic.
+    //    Los roles se exigen por prefijo de ruta, igual que en las vistas de cada rol.
+    //    Los límites de solicitudes se aplican ya autenticado (token o Basic).
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationProvider authProvider) throws Exception {
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http, AuthenticationProvider authProvider,
+                                              TokenApiService tokenApiService,
+                                              LimiteSolicitudesService limites) throws Exception {
+        AuthenticationEntryPoint sinCredenciales = new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED);
         http
+            .securityMatcher("/api/**")
             .csrf(csrf -> csrf.disable())
-            .authenticationProvider(authProvider)
+            .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            // Sin gestor padre: un login fallido no se vuelve a intentar (ni a pasar por BCrypt) en el global
+            .authenticationManager(new ProviderManager(authProvider))
+            .addFilterBefore(new TokenApiFilter(tokenApiService), BasicAuthenticationFilter.class)
+            .addFilterAfter(new LimiteSolicitudesFilter(limites), BasicAuthenticationFilter.class)
+            .authorizeHttpRequests(auth -> auth
+                // El streaming NDJSON termina en un dispatch ASYNC ya autorizado en la petición original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                .requestMatchers("/api/v1/paciente/**").hasRole("PACIENTE")
+                .requestMatchers("/api/v1/medico/**").hasRole("MEDICO")
+                .requestMatchers("/api/v1/clinica/**").hasRole("CLINICA")
+                .anyRequest().authenticated()
+            )
+            .httpBasic(basic -> basic.authenticationEntryPoint((request, response, ex) -> {
+                if (ex instanceof LoginOcupadoException) {
+                    responderOcupado(request, response, ex);
+                } else {
+                    sinCredenciales.commence(request, response, ex);
+                }
+            }))
+            .exceptionHandling(e -> e.authenticationEntryPoint(sinCredenciales));
+
+        return http.build();
+    }
+
+    // 5) Seguridad HTTP: filtros, rutas, login y logout.
+    //    Los límites van antes del login para frenar también los intentos de contraseña.
+    @Bean
+    @Order(2)
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationProvider authProvider,
+                                           LimiteSolicitudesService limites,
+                                           @Value("${app.metricas.redes:127.0.0.1/32,::1/128}") List<String> redesMetricas)
+            throws Exception {
+        List<IpAddressMatcher> scrapers = redesMetricas.stream().map(String::trim).map(IpAddressMatcher::new).toList();
+        AuthenticationFailureHandler loginInvalido = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        http
+            .csrf(csrf -> csrf.disable())
+            // Igual que en la API: sin gestor padre
+            .authenticationManager(new ProviderManager(authProvider))
+            .addFilterBefore(new LimiteSolicitudesFilter(limites), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(
                     "/", "/index", "/login", "/registro", "/css/**", "/js/**", "/images/**"
                 ).permitAll()
+                // Sondas de liveness/readiness del orquestador
+                .requestMatchers("/actuator/health/**").permitAll()
+                // Prometheus y trazas, solo desde las redes configuradas (sin login)
+                .requestMatchers("/actuator/prometheus", "/actuator/trazas/**").access((autenticacion, contexto) ->
+                    new AuthorizationDecision(scrapers.stream().anyMatch(m -> m.matches(contexto.getRequest()))))
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
@@ -76,17 +170,39 @@ public class SecurityConfig {
                 .usernameParameter("usuariologin")    // coincide con tu campo del formulario
                 .passwordParameter("password")
                 .defaultSuccessUrl("/home", true)
-                .failureUrl("/login?error")
+                // Pool de BCrypt saturado: 503, no "usuario o contraseña inválidos"
+                .failureHandler((request, response, ex) -> {
+                    if (ex instanceof LoginOcupadoException) {
+                        responderOcupado(request, response, ex);
+                    } else {
+                        loginInvalido.onAuthenticationFailure(request, response, ex);
+                    }
+                })
                 .permitAll()
             )
             .logout(logout -> logout
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/login")
                 .invalidateHttpSession(true)
-                .deleteCookies("JSESSIONID")
+                .deleteCookies("SESSION")
                 .permitAll()
             );
 
         return http.build();
     }
+
+    // Login rechazado por el pool de BCrypt lleno: 503 con Retry-After, sin tocar las credenciales
+    private static void responderOcupado(HttpServletRequest request, HttpServletResponse response,
+                                         AuthenticationException ex) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setCharacterEncoding("UTF-8");
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/api/")) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"" + ex.getMessage() + "\"}");
+        } else {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(ex.getMessage());
+        }
+    }
 }
@@ -0,0 +1,101 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/SesionesConfig.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+/**
+ * Almacén de las sesiones HTTP, según "app.sesiones.almacen".
+ *
+ * - jdbc (por defecto): Spring Session JDBC sobre la misma base MariaDB (tablas
+ *   SPRING_SESSION*), así cualquier instancia detrás del balanceador atiende a
+ *   cualquier usuario y un reinicio no cierra las sesiones.
+ * - memoria: un mapa en esta instancia; para desarrollo o un único nodo.
+ *
+ * En ambos casos las sesiones vencidas se borran en lotes desde aquí.
+ */
+@Configuration
+public class SesionesConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SesionesConfig.class);
+
+    /**
+     * Sesiones en la base. El repositorio lo arma Spring Boot (spring.session.jdbc.*);
+     * aquí solo se reemplaza su limpieza, que borra todo lo vencido en un único DELETE.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "app.sesiones.almacen", havingValue = "jdbc", matchIfMissing = true)
+    static class EnBaseDeDatos {
+
+        private static final String SQL_BORRAR_VENCIDAS =
+            "DELETE FROM SPRING_SESSION WHERE EXPIRY_TIME < ? LIMIT ?";
+
+        private final JdbcTemplate jdbcTemplate;
+
+        @Value("${app.sesiones.limpieza-lote:1000}")
+        private int lote;
+
+        EnBaseDeDatos(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        /**
+         * Borra de a "app.sesiones.limpieza-lote" filas (los atributos caen por la FK en
+         * cascada), así cada transacción es corta y no bloquea el índice de vencimiento.
+         * Puede correr en todas las instancias a la vez: cada una borra lo que encuentre.
+         */
+        @Scheduled(fixedDelayString = "${app.sesiones.limpieza-ms:300000}",
+                   initialDelayString = "${app.sesiones.limpieza-ms:300000}")
+        public void borrarVencidas() {
+            long ahora = System.currentTimeMillis();
+            int total = 0;
+            int borradas;
+            do {
+                borradas = jdbcTemplate.update(SQL_BORRAR_VENCIDAS, ahora, lote);
+                total += borradas;
+            } while (borradas == lote);
+            if (total > 0) {
+                log.debug("Sesiones vencidas borradas: {}", total);
+            }
+        }
+    }
+
+    /**
+     * Sesiones en memoria de esta instancia. Como hay un SessionRepository propio,
+     * la autoconfiguración de Spring Session JDBC no se activa.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "app.sesiones.almacen", havingValue = "memoria")
+    @EnableSpringHttpSession
+    static class EnMemoria {
+
+        private final Map<String, Session> sesiones = new ConcurrentHashMap<>();
+
+        @Bean
+        public MapSessionRepository sessionRepository(@Value("${spring.session.timeout:30m}") Duration timeout) {
+            MapSessionRepository repositorio = new MapSessionRepository(sesiones);
+            repositorio.setDefaultMaxInactiveInterval(timeout);
+            return repositorio;
+        }
+
+        // MapSessionRepository solo descarta una sesión vencida cuando alguien vuelve a pedirla
+        @Scheduled(fixedDelayString = "${app.sesiones.limpieza-ms:300000}",
+                   initialDelayString = "${app.sesiones.limpieza-ms:300000}")
+        public void borrarVencidas() {
+            sesiones.values().removeIf(Session::isExpired);
+        }
+    }
+}
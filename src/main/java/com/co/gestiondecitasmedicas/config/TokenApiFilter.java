@@ -0,0 +1,66 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/TokenApiFilter.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.co.gestiondecitasmedicas.service.TokenApiService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Autentica las llamadas a /api/** que traen "Authorization: Bearer <token>".
+ * Sin esa cabecera la petición sigue su curso (HTTP Basic o 401 de la cadena de la API).
+ *
+ * No es un @Component para que Spring Boot no lo registre también como filtro
+ * de todas las peticiones; lo agrega SecurityConfig solo a la cadena de la API.
+ */
+public class TokenApiFilter extends OncePerRequestFilter {
+
+    /** Atributo de la petición que marca que se autenticó con un token Bearer (y no con Basic o sesión). */
+    public static final String CON_TOKEN = "com.co.gestiondecitasmedicas.config.TokenApiFilter.CON_TOKEN";
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenApiService tokenApiService;
+
+    public TokenApiFilter(TokenApiService tokenApiService) {
+        this.tokenApiService = tokenApiService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera == null || !cabecera.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<UserDetails> usuario = tokenApiService.autenticar(cabecera.substring(BEARER.length()).trim());
+        if (usuario.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\":\"Token inválido, vencido o revocado.\"}");
+            return;
+        }
+        UserDetails ud = usuario.get();
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(ud, null, ud.getAuthorities()));
+        SecurityContextHolder.setContext(contexto);
+        request.setAttribute(CON_TOKEN, Boolean.TRUE);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,35 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/TrazasEndpoint.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/trazas: los últimos tramos en memoria; /actuator/trazas/{traceId}: una traza.
+ */
+@Component
+@Endpoint(id = "trazas")
+public class TrazasEndpoint {
+
+    private static final int MAXIMO = 500;
+
+    private final RegistroTrazas registro;
+
+    public TrazasEndpoint(RegistroTrazas registro) {
+        this.registro = registro;
+    }
+
+    @ReadOperation
+    public List<RegistroTrazas.Tramo> recientes() {
+        return registro.recientes(MAXIMO);
+    }
+
+    @ReadOperation
+    public List<RegistroTrazas.Tramo> traza(@Selector String traceId) {
+        return registro.traza(traceId);
+    }
+}
@@ -0,0 +1,64 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/TrazasRepositoriosAspect.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Una observación "repositorio" (tramo y timer) por cada llamada a un repositorio
+ * Spring Data, con el nombre "CitaRepository.findById". Solo dentro de una observación
+ * en curso (una petición, un envío): las consultas sueltas de tareas programadas no
+ * abren trazas propias.
+ */
+@Aspect
+@Component
+public class TrazasRepositoriosAspect {
+
+    private static final String PAQUETE = "com.co.gestiondecitasmedicas.repository";
+
+    private final ObservationRegistry registry;
+    private final Map<Class<?>, String> nombres = new ConcurrentHashMap<>();
+
+    public TrazasRepositoriosAspect(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object trazar(ProceedingJoinPoint pjp) throws Throwable {
+        if (registry.getCurrentObservation() == null) {
+            return pjp.proceed();
+        }
+        String metodo = nombres.computeIfAbsent(pjp.getThis().getClass(), TrazasRepositoriosAspect::repositorio)
+            + "." + pjp.getSignature().getName();
+        Observation observacion = Observation.createNotStarted("repositorio", registry)
+            .contextualName(metodo)
+            .lowCardinalityKeyValue("metodo", metodo)
+            .start();
+        try (Observation.Scope scope = observacion.openScope()) {
+            return pjp.proceed();
+        } catch (Throwable ex) {
+            observacion.error(ex);
+            throw ex;
+        } finally {
+            observacion.stop();
+        }
+    }
+
+    // Interfaz propia que implementa el proxy del repositorio
+    private static String repositorio(Class<?> proxy) {
+        for (Class<?> interfaz : proxy.getInterfaces()) {
+            if (interfaz.getName().startsWith(PAQUETE)) {
+                return interfaz.getSimpleName();
+            }
+        }
+        return proxy.getSimpleName();
+    }
+}
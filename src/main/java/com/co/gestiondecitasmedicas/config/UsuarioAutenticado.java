@@ -0,0 +1,46 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/UsuarioAutenticado.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Usuario de Spring Security que además lleva el id de la tabla usuarios,
+ * así los controladores pueden usarlo sin volver a buscar el usuario por login.
+ *
+ * Viaja en la sesión (tabla SPRING_SESSION): al serializarse se reemplaza por su
+ * forma compacta (id, login y roles), sin el hash de la contraseña.
+ */
+public class UsuarioAutenticado extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer id;
+
+    public UsuarioAutenticado(Integer id, String username, String password,
+                              Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Integer getId() { return id; }
+
+    private Object writeReplace() {
+        String[] roles = getAuthorities().stream().map(GrantedAuthority::getAuthority).toArray(String[]::new);
+        return new Compacto(id, getUsername(), roles);
+    }
+
+    private record Compacto(Integer id, String username, String[] roles) implements Serializable {
+
+        private Object readResolve() {
+            // La contraseña no hace falta después del login; User no acepta null
+            return new UsuarioAutenticado(id, username, "",
+                Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/VerificadorBcrypt.java
+package com.co.gestiondecitasmedicas.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * PasswordEncoder BCrypt que hace el trabajo caro (encode y matches) en un pool propio
+ * de tamaño fijo, así una avalancha de logins usa como máximo esos hilos de CPU y el
+ * resto de las peticiones sigue atendiéndose.
+ *
+ * - La cola es acotada y chica (del orden de 2 × hilos, muy por debajo de los hilos de
+ *   Tomcat) y la espera máxima es corta: si la cola está llena o la verificación no
+ *   termina a tiempo, el login falla enseguida con LoginOcupadoException (503) en vez de
+ *   dejar hilos de Tomcat esperando. Como mucho hilos + cola peticiones esperan aquí.
+ * - upgradeEncoding compara la fuerza del hash guardado con la configurada; con eso
+ *   DaoAuthenticationProvider rehace el hash al iniciar sesión.
+ * - Las tareas llevan el contexto del hilo que las encola (la observación del login).
+ */
+public class VerificadorBcrypt implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService conContexto;
+    private final long esperaMaximaMs;
+    private final Timer enCola;
+
+    public VerificadorBcrypt(int fuerza, int hilos, int cola, long esperaMaximaMs, MeterRegistry registry) {
+        this.bcrypt = new BCryptPasswordEncoder(fuerza);
+        this.esperaMaximaMs = esperaMaximaMs;
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(cola), r -> {
+                Thread hilo = new Thread(r, "bcrypt-" + numero.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.conContexto = ContextExecutorService.wrap(pool, ContextSnapshotFactory.builder().build());
+        this.enCola = Timer.builder("login.bcrypt.cola")
+            .description("Espera de una verificación BCrypt antes de tener hilo")
+            .publishPercentileHistogram()
+            .register(registry);
+        Gauge.builder("login.bcrypt.pendientes", pool, p -> p.getQueue().size())
+            .description("Verificaciones BCrypt esperando hilo")
+            .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    // Spring lo llama al cerrar el contexto (método "close" de un @Bean)
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        long encolado = System.nanoTime();
+        Future<T> futuro;
+        try {
+            futuro = conContexto.submit(() -> {
+                enCola.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                return tarea.call();
+            });
+        } catch (RejectedExecutionException ex) {
+            throw new LoginOcupadoException(ex);
+        }
+        try {
+            return futuro.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            futuro.cancel(true);
+            throw new LoginOcupadoException(ex);
+        } catch (InterruptedException ex) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginOcupadoException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
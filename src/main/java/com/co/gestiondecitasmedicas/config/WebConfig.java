@@ -0,0 +1,37 @@
+// src/main/java/com/co/gestiondecitasmedicas/config/WebConfig.java
+package com.co.gestiondecitasmedicas.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.co.gestiondecitasmedicas.service.IdempotenciaService;
+
+/**
+ * Interceptores de Spring MVC. La API (/api/**) no usa formularios ni mensajes flash.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new IdempotenciaInterceptor(idempotenciaService))
+            .excludePathPatterns("/api/**", "/actuator/**", "/css/**", "/js/**", "/images/**");
+    }
+
+    /**
+     * Boot lo aplica al applicationTaskExecutor, que atiende el async de MVC (las
+     * respuestas NDJSON): lo que se observa en ese hilo queda en la traza de la petición.
+     */
+    @Bean
+    public TaskDecorator contextoEnAsync() {
+        return new ContextPropagatingTaskDecorator();
+    }
+}
@@ -0,0 +1,222 @@
+// src/main/java/com/co/gestiondecitasmedicas/controller/ApiCitasController.java
+package com.co.gestiondecitasmedicas.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.dto.CitaApiDto;
+import com.co.gestiondecitasmedicas.dto.CitaDto;
+import com.co.gestiondecitasmedicas.dto.CitaProximaDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
+import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.repository.ClinicaRepository;
+import com.co.gestiondecitasmedicas.service.CitaService;
+import com.co.gestiondecitasmedicas.service.NoEncontradoException;
+import com.co.gestiondecitasmedicas.service.UsuarioService;
+import com.co.gestiondecitasmedicas.service.VentanaCitasService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+// -------------------------------------------------------------
+// API REST de citas (/api/v1). Los roles se validan en SecurityConfig
+// por prefijo: /paciente, /medico y /clinica.
+//
+// - GET con application/json → página por cursor (?cursor=&limite=).
+// - GET con Accept: application/x-ndjson (médico y clínica) → todas las
+//   citas, una por línea, escritas a medida que se leen de la BD.
+// - GET .../agenda?dias= → citas no canceladas desde hoy, por fecha, leídas
+//   de la ventana de citas en memoria (sin ir a la BD).
+// -------------------------------------------------------------
+@RestController
+@RequestMapping("/api/v1")
+public class ApiCitasController {
+
+    // Líneas NDJSON que se acumulan antes de forzar el envío al cliente
+    private static final int LINEAS_POR_FLUSH = 200;
+
+    // Días máximos de una agenda; más allá de la ventana en memoria se lee de la BD
+    private static final int DIAS_AGENDA_MAX = 90;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private VentanaCitasService ventanaCitas;
+
+    @Autowired
+    private ClinicaRepository clinicaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // ---------- Paciente ----------
+
+    @GetMapping(value = "/paciente/citas", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PaginaApiDto<CitaApiDto> citasPaciente(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "50") int limite
+    ) {
+        return citaService.paginaCitasPorPaciente(usuario(ud).getId(), cursor, limite);
+    }
+
+    @PostMapping("/paciente/citas")
+    public ResponseEntity<CitaApiDto> reservar(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestBody CitaDto dto
+    ) {
+        Usuario medico = usuarioService.buscarPorId(dto.getMedicoId())
+            .orElseThrow(() -> new NoEncontradoException("Médico no encontrado."));
+        if (dto.getFechaHora() == null) {
+            throw new RuntimeException("La fecha y hora son obligatorias.");
+        }
+        LocalDateTime fechaHora = LocalDateTime.parse(dto.getFechaHora(), DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
+        var cita = citaService.reservarCita(usuario(ud), medico, fechaHora, dto.getCorreoContacto(), dto.getMotivo());
+        return ResponseEntity.status(HttpStatus.CREATED).body(CitaApiDto.de(cita));
+    }
+
+    @PostMapping("/paciente/citas/{id}/cancelacion")
+    public CitaApiDto cancelarPaciente(@AuthenticationPrincipal UserDetails ud, @PathVariable("id") Integer citaId) {
+        return CitaApiDto.de(citaService.cancelarCita(citaId, usuario(ud)));
+    }
+
+    @GetMapping(value = "/paciente/agenda", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<CitaProximaDto> agendaPaciente(
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            @RequestParam(value = "dias", defaultValue = "7") int dias
+    ) {
+        return ventanaCitas.dePaciente(ua.getId(), hoy(), hasta(dias));
+    }
+
+    // ---------- Médico ----------
+
+    @GetMapping(value = "/medico/citas", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PaginaApiDto<CitaApiDto> citasMedico(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "50") int limite
+    ) {
+        return citaService.paginaCitasPorMedico(usuario(ud).getId(), cursor, limite);
+    }
+
+    @GetMapping(value = "/medico/citas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> citasMedicoNdjson(@AuthenticationPrincipal UserDetails ud) {
+        Integer medicoId = usuario(ud).getId();
+        return ndjson(destino -> citaService.recorrerCitasPorMedico(medicoId, destino));
+    }
+
+    @PostMapping("/medico/citas/{id}/cancelacion")
+    public CitaApiDto cancelarMedico(@AuthenticationPrincipal UserDetails ud, @PathVariable("id") Integer citaId) {
+        return CitaApiDto.de(citaService.cancelarCita(citaId, usuario(ud)));
+    }
+
+    @GetMapping(value = "/medico/agenda", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<CitaProximaDto> agendaMedico(
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            @RequestParam(value = "dias", defaultValue = "1") int dias
+    ) {
+        return ventanaCitas.deMedico(ua.getId(), hoy(), hasta(dias));
+    }
+
+    // ---------- Clínica ----------
+
+    @GetMapping(value = "/clinica/citas", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PaginaApiDto<CitaApiDto> citasClinica(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "50") int limite
+    ) {
+        return citaService.paginaCitasPorClinica(clinicaId(ud), cursor, limite);
+    }
+
+    @GetMapping(value = "/clinica/citas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> citasClinicaNdjson(@AuthenticationPrincipal UserDetails ud) {
+        Integer clinicaId = clinicaId(ud);
+        return ndjson(destino -> citaService.recorrerCitasPorClinica(clinicaId, destino));
+    }
+
+    @GetMapping(value = "/clinica/agenda", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<CitaProximaDto> agendaClinica(
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            @RequestParam(value = "dias", defaultValue = "1") int dias
+    ) {
+        Integer clinicaId = clinicaRepository.idPorUsuario(ua.getId())
+            .orElseThrow(() -> new NoEncontradoException("Clínica no encontrada."));
+        return ventanaCitas.deClinica(clinicaId, hoy(), hasta(dias));
+    }
+
+    // ---------- Utilidades ----------
+
+    /**
+     * Respuesta NDJSON: cada cita se serializa y se escribe apenas llega de la BD,
+     * sin armar la lista completa en memoria.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<CitaApiDto>> recorrido) {
+        StreamingResponseBody cuerpo = salida -> {
+            try (SequenceWriter escritor = objectMapper.writer().withRootValueSeparator("\n").writeValues(salida)) {
+                int[] lineas = {0};
+                recorrido.accept(cita -> {
+                    try {
+                        escritor.write(cita);
+                        if (++lineas[0] % LINEAS_POR_FLUSH == 0) {
+                            escritor.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex); // el cliente cortó la conexión
+                    }
+                });
+                escritor.flush();
+                if (lineas[0] > 0) {
+                    salida.write('\n'); // el separador solo va entre filas; cerrar la última
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+
+    private static LocalDateTime hoy() {
+        return LocalDate.now().atStartOfDay();
+    }
+
+    private static LocalDateTime hasta(int dias) {
+        if (dias < 1 || dias > DIAS_AGENDA_MAX) {
+            throw new RuntimeException("El parámetro dias debe estar entre 1 y " + DIAS_AGENDA_MAX + ".");
+        }
+        return hoy().plusDays(dias);
+    }
+
+    private Usuario usuario(UserDetails ud) {
+        return usuarioService.buscarPorLogin(ud.getUsername())
+            .orElseThrow(() -> new NoEncontradoException("Usuario no encontrado."));
+    }
+
+    private Integer clinicaId(UserDetails ud) {
+        return clinicaRepository.findByUsuarioId(usuario(ud).getId())
+            .orElseThrow(() -> new NoEncontradoException("Clínica no encontrada."))
+            .getId();
+    }
+}
@@ -0,0 +1,104 @@
+// src/main/java/com/co/gestiondecitasmedicas/controller/ApiCuentaController.java
+package com.co.gestiondecitasmedicas.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.co.gestiondecitasmedicas.config.TokenApiFilter;
+import com.co.gestiondecitasmedicas.dto.PerfilApiDto;
+import com.co.gestiondecitasmedicas.dto.ReferenciaApiDto;
+import com.co.gestiondecitasmedicas.dto.SolicitudTokenApiDto;
+import com.co.gestiondecitasmedicas.dto.TokenApiDto;
+import com.co.gestiondecitasmedicas.models.Rol;
+import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.service.NoEncontradoException;
+import com.co.gestiondecitasmedicas.service.SinPermisoException;
+import com.co.gestiondecitasmedicas.service.TokenApiService;
+import com.co.gestiondecitasmedicas.service.UsuarioService;
+
+// -------------------------------------------------------------
+// API REST de cuenta y catálogos (/api/v1), para cualquier usuario autenticado.
+//
+// - /yo          → perfil del usuario autenticado.
+// - /clinicas    → clínicas y sus médicos (para reservar desde la API).
+// - /tokens      → emitir, listar y revocar tokens Bearer. Lo normal es
+//                  emitir el primero con HTTP Basic y usar el token después.
+//                  Con un token no se emiten otros (403): si se filtra uno,
+//                  no sirve para crear tokens nuevos que sobrevivan a su revocación.
+// -------------------------------------------------------------
+@RestController
+@RequestMapping("/api/v1")
+public class ApiCuentaController {
+
+    private static final int DIAS_VIGENCIA_POR_DEFECTO = 90;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private TokenApiService tokenApiService;
+
+    @GetMapping("/yo")
+    public PerfilApiDto yo(@AuthenticationPrincipal UserDetails ud) {
+        Usuario u = usuario(ud);
+        List<String> roles = u.getRoles().stream().map(Rol::getNombre).sorted().toList();
+        return new PerfilApiDto(u.getId(), u.getNombre(), u.getUsuariologin(), u.getEmail(), roles);
+    }
+
+    @GetMapping("/clinicas")
+    public List<ReferenciaApiDto> clinicas() {
+        return usuarioService.listarTodasLasClinicas().stream()
+            .map(c -> new ReferenciaApiDto(c.getId(), c.getNombre()))
+            .toList();
+    }
+
+    @GetMapping("/clinicas/{id}/medicos")
+    public List<ReferenciaApiDto> medicosDeClinica(@PathVariable("id") Integer clinicaId) {
+        return usuarioService.listarMedicosDeClinica(clinicaId).stream()
+            .map(m -> new ReferenciaApiDto(m.getId(), m.getNombre()))
+            .toList();
+    }
+
+    @PostMapping("/tokens")
+    public ResponseEntity<TokenApiDto> emitirToken(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestBody SolicitudTokenApiDto solicitud,
+            @RequestAttribute(name = TokenApiFilter.CON_TOKEN, required = false) Boolean conToken
+    ) {
+        if (Boolean.TRUE.equals(conToken)) {
+            throw new SinPermisoException("Los tokens se emiten con usuario y clave (HTTP Basic) o desde la sesión, no con otro token.");
+        }
+        int dias = solicitud.diasVigencia() == null ? DIAS_VIGENCIA_POR_DEFECTO : solicitud.diasVigencia();
+        TokenApiDto token = tokenApiService.emitir(usuario(ud).getId(), solicitud.nombre(), dias);
+        return ResponseEntity.status(HttpStatus.CREATED).body(token);
+    }
+
+    @GetMapping("/tokens")
+    public List<TokenApiDto> tokens(@AuthenticationPrincipal UserDetails ud) {
+        return tokenApiService.listar(usuario(ud).getId());
+    }
+
+    @DeleteMapping("/tokens/{id}")
+    public ResponseEntity<Void> revocarToken(@AuthenticationPrincipal UserDetails ud, @PathVariable("id") Integer tokenId) {
+        tokenApiService.revocar(tokenId, usuario(ud).getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    private Usuario usuario(UserDetails ud) {
+        return usuarioService.buscarPorLogin(ud.getUsername())
+            .orElseThrow(() -> new NoEncontradoException("Usuario no encontrado."));
+    }
+}
@@ -0,0 +1,59 @@
+// src/main/java/com/co/gestiondecitasmedicas/controller/ApiErroresHandler.java
+package com.co.gestiondecitasmedicas.controller;
+
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.co.gestiondecitasmedicas.service.ConflictoConcurrenciaException;
+import com.co.gestiondecitasmedicas.service.NoEncontradoException;
+import com.co.gestiondecitasmedicas.service.SinPermisoException;
+
+/**
+ * Errores de la API REST como JSON {"error": "..."}.
+ * Los servicios lanzan RuntimeException con el mensaje para el usuario;
+ * en la API eso es un 400, igual que el errorMsg de las vistas, salvo lo que
+ * no existe (404) y lo que no le corresponde a quien lo pide (403).
+ */
+@RestControllerAdvice(assignableTypes = {
+    ApiCitasController.class, ApiHistorialesController.class, ApiCuentaController.class
+})
+public class ApiErroresHandler {
+
+    @ExceptionHandler(DateTimeParseException.class)
+    public ResponseEntity<Map<String, String>> fechaInvalida(DateTimeParseException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Formato de fecha inválido, se espera yyyy-MM-ddTHH:mm."));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, String>> cuerpoInvalido(HttpMessageNotReadableException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", "El cuerpo de la petición no es un JSON válido."));
+    }
+
+    // Otra persona cambió la cita al mismo tiempo: el cliente puede volver a leerla y reintentar
+    @ExceptionHandler(ConflictoConcurrenciaException.class)
+    public ResponseEntity<Map<String, String>> conflicto(ConflictoConcurrenciaException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(NoEncontradoException.class)
+    public ResponseEntity<Map<String, String>> noEncontrado(NoEncontradoException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(SinPermisoException.class)
+    public ResponseEntity<Map<String, String>> sinPermiso(SinPermisoException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Map<String, String>> error(RuntimeException ex) {
+        String mensaje = ex.getMessage() == null ? "Error inesperado." : ex.getMessage();
+        return ResponseEntity.badRequest().body(Map.of("error", mensaje));
+    }
+}
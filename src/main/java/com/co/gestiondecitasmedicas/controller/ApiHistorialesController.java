@@ -0,0 +1,55 @@
+// src/main/java/com/co/gestiondecitasmedicas/controller/ApiHistorialesController.java
+package com.co.gestiondecitasmedicas.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
+import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.service.HistorialMedicoService;
+import com.co.gestiondecitasmedicas.service.NoEncontradoException;
+import com.co.gestiondecitasmedicas.service.UsuarioService;
+
+// -------------------------------------------------------------
+// API REST de historiales médicos (/api/v1), paginada por cursor.
+// El paciente ve los suyos y el médico los de sus citas.
+// -------------------------------------------------------------
+@RestController
+@RequestMapping("/api/v1")
+public class ApiHistorialesController {
+
+    @Autowired
+    private HistorialMedicoService historialService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @GetMapping("/paciente/historiales")
+    public PaginaApiDto<HistorialApiDto> historialesPaciente(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "50") int limite
+    ) {
+        return historialService.paginaHistorialesPorPaciente(usuario(ud).getId(), cursor, limite);
+    }
+
+    @GetMapping("/medico/historiales")
+    public PaginaApiDto<HistorialApiDto> historialesMedico(
+            @AuthenticationPrincipal UserDetails ud,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "50") int limite
+    ) {
+        return historialService.paginaHistorialesPorMedico(usuario(ud).getId(), cursor, limite);
+    }
+
+    private Usuario usuario(UserDetails ud) {
+        return usuarioService.buscarPorLogin(ud.getUsername())
+            .orElseThrow(() -> new NoEncontradoException("Usuario no encontrado."));
+    }
+}
@@ -48,17 +48,20 @@
 package com.co.gestiondecitasmedicas.controller;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import jakarta.mail.internet.MimeMessage;                        // CORRECTO: usar Jakarta Mail
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -66,21 +69,31 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.dto.IngresoPeriodoDto;
+import com.co.gestiondecitasmedicas.dto.PacienteDirectorioDto;
 import com.co.gestiondecitasmedicas.dto.UsuarioDto;
 import com.co.gestiondecitasmedicas.models.Cita;
 import com.co.gestiondecitasmedicas.models.Clinica;
 import com.co.gestiondecitasmedicas.models.Usuario;
 import com.co.gestiondecitasmedicas.repository.ClinicaRepository;
+import com.co.gestiondecitasmedicas.service.AgendaEnVivoService;
 import com.co.gestiondecitasmedicas.service.CitaService;
+import com.co.gestiondecitasmedicas.service.ConflictoConcurrenciaException;
+import com.co.gestiondecitasmedicas.service.CorreoService;
+import com.co.gestiondecitasmedicas.service.DirectorioPacientesService;
+import com.co.gestiondecitasmedicas.service.EstadisticasCitasService;
 import com.co.gestiondecitasmedicas.service.HistorialMedicoService;
+import com.co.gestiondecitasmedicas.service.InformeService;
+import com.co.gestiondecitasmedicas.service.IngresosService;
 import com.co.gestiondecitasmedicas.service.RolService;
 import com.co.gestiondecitasmedicas.service.UsuarioService;
+import com.co.gestiondecitasmedicas.service.VersionesService;
 
-import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.util.JRLoader;
 
 @Controller
 @PreAuthorize("hasRole('CLINICA')")
@@ -91,11 +104,19 @@ public class ClinicaController {
     @Autowired private RolService rolService;
     @Autowired private ClinicaRepository clinicaRepository;
     @Autowired private CitaService citaService;
-    @Autowired private JavaMailSender mailSender;  // Para enviar correos
+    @Autowired @Lazy private CorreoService correoService;  // Envío por conexiones SMTP reutilizadas; se crea al primer envío
+    @Autowired private DirectorioPacientesService directorioPacientes;
+    @Autowired private EstadisticasCitasService estadisticasCitas;
+    @Autowired private IngresosService ingresosService;
+    @Autowired private VersionesService versiones;
+    @Autowired private GetCondicional getCondicional;
+    @Autowired private AgendaEnVivoService agendaEnVivo;
+    @Autowired @Lazy private InformeService informeService;  // Jasper se carga con el primer PDF
 
     @GetMapping("/dashboard")
-    public String dashClinica(@AuthenticationPrincipal UserDetails ud, Model model) {
+    public String dashClinica(@AuthenticationPrincipal UserDetails ud, HttpSession session, Model model) {
         model.addAttribute("nombreUsuario", ud.getUsername());
+        model.addAttribute("estadisticas", estadisticasCitas.resumenClinica(clinicaIdEnSesion(ud, session)));
         return "clinica/dashboard";
     }
 
@@ -148,16 +169,128 @@ public class ClinicaController {
         return "clinica/ver-citas";
     }
 
+    /**
+     * Buscador de pacientes para recepción (type-ahead): por documento o por
+     * el inicio de cualquier palabra del nombre. Responde JSON desde el índice
+     * en memoria; el id de la clínica se guarda en la sesión para no consultar
+     * la BD en cada tecla.
+     */
+    @GetMapping("/pacientes/buscar")
+    @ResponseBody
+    public List<PacienteDirectorioDto> buscarPacientes(
+        @RequestParam("q") String texto,
+        @RequestParam(value = "limite", defaultValue = "10") int limite,
+        @AuthenticationPrincipal UserDetails ud,
+        HttpSession session
+    ) {
+        return directorioPacientes.buscar(clinicaIdEnSesion(ud, session), texto, limite);
+    }
+
+    /**
+     * Agenda en vivo (SSE): reservas, cancelaciones y facturaciones de la clínica
+     * llegan a ver-citas sin recargar. Last-Event-ID lo manda el navegador al reconectar.
+     */
+    @GetMapping(value = "/citas/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter eventosAgenda(
+        @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId,
+        @AuthenticationPrincipal UserDetails ud,
+        HttpSession session
+    ) {
+        return agendaEnVivo.suscribirClinica(clinicaIdEnSesion(ud, session), ultimoEventoId);
+    }
+
+    /**
+     * Reporte de ingresos: rango de fechas, agrupación (día/semana/mes) y médico opcional.
+     * Por defecto muestra los últimos doce meses agrupados por mes.
+     */
+    @GetMapping("/ingresos")
+    public String verIngresos(
+        @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+        @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+        @RequestParam(value = "granularidad", defaultValue = "MES") IngresosService.Granularidad granularidad,
+        @RequestParam(value = "medicoId", required = false) Integer medicoId,
+        @AuthenticationPrincipal UserDetails ud,
+        HttpSession session,
+        Model model
+    ) {
+        Integer clinicaId = clinicaIdEnSesion(ud, session);
+        if (hasta == null) {
+            hasta = LocalDate.now();
+        }
+        if (desde == null) {
+            desde = hasta.minusMonths(11).withDayOfMonth(1);
+        }
+
+        List<IngresoPeriodoDto> ingresos = List.of();
+        try {
+            ingresos = ingresosService.consultar(clinicaId, medicoId, desde, hasta, granularidad);
+        } catch (RuntimeException ex) {
+            model.addAttribute("errorMsg", ex.getMessage());
+        }
+
+        model.addAttribute("ingresos", ingresos);
+        model.addAttribute("etiquetas", ingresos.stream().map(p -> p.inicio().toString()).toList());
+        model.addAttribute("valores", ingresos.stream().map(IngresoPeriodoDto::total).toList());
+        model.addAttribute("totalIngresos",
+            ingresos.stream().map(IngresoPeriodoDto::total).reduce(BigDecimal.ZERO, BigDecimal::add));
+        model.addAttribute("totalCitas", ingresos.stream().mapToLong(IngresoPeriodoDto::cantidad).sum());
+        model.addAttribute("medicos", usuarioService.listarMedicosDeClinica(clinicaId));
+        model.addAttribute("desde", desde);
+        model.addAttribute("hasta", hasta);
+        model.addAttribute("granularidad", granularidad);
+        model.addAttribute("medicoId", medicoId);
+        return "clinica/ingresos";
+    }
+
+    /**
+     * Los mismos datos del reporte de ingresos en JSON (para gráficos o integraciones).
+     */
+    @GetMapping("/ingresos/datos")
+    @ResponseBody
+    public List<IngresoPeriodoDto> datosIngresos(
+        @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+        @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+        @RequestParam(value = "granularidad", defaultValue = "DIA") IngresosService.Granularidad granularidad,
+        @RequestParam(value = "medicoId", required = false) Integer medicoId,
+        @AuthenticationPrincipal UserDetails ud,
+        HttpSession session
+    ) {
+        return ingresosService.consultar(clinicaIdEnSesion(ud, session), medicoId, desde, hasta, granularidad);
+    }
+
+    /**
+     * Id de la clínica del usuario logueado; se busca una vez y se guarda en la sesión.
+     */
+    private Integer clinicaIdEnSesion(UserDetails ud, HttpSession session) {
+        Integer clinicaId = (Integer) session.getAttribute("clinicaId");
+        if (clinicaId == null) {
+            Usuario usuLog = usuarioService.buscarPorLogin(ud.getUsername())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado."));
+            clinicaId = clinicaRepository.findByUsuarioId(usuLog.getId())
+                .orElseThrow(() -> new RuntimeException("Clínica no encontrada."))
+                .getId();
+            session.setAttribute("clinicaId", clinicaId);
+        }
+        return clinicaId;
+    }
+
     @PostMapping("/citas/eliminar/{id}")
     public String eliminarCita(
         @PathVariable("id") Integer citaId,
-        @AuthenticationPrincipal UserDetails ud
+        @AuthenticationPrincipal UserDetails ud,
+        RedirectAttributes ra
     ) {
         Usuario usuLog = usuarioService.buscarPorLogin(ud.getUsername())
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado."));
         Clinica clinica = clinicaRepository.findByUsuarioId(usuLog.getId())
             .orElseThrow(() -> new RuntimeException("Clínica no encontrada."));
-        citaService.eliminarCitaDeClinica(citaId, clinica.getId());
+        try {
+            citaService.eliminarCitaDeClinica(citaId, clinica.getId());
+        } catch (ConflictoConcurrenciaException ex) {
+            // Alguien la cambió mientras tanto: se vuelve a mostrar la lista para decidir de nuevo
+            ra.addFlashAttribute("errorMsg", ex.getMessage());
+        }
         return "redirect:/clinica/citas";
     }
 
@@ -202,11 +335,6 @@ public class ClinicaController {
             Cita facturada = citaService.facturarCita(citaId, valorPagar);
 
             // 2) Genera PDF en memoria
-            ClassPathResource jasperFile =
-                new ClassPathResource("informes/Facturacion.jasper");
-            JasperReport report = (JasperReport)
-                JRLoader.loadObject(jasperFile.getInputStream());
-
             Map<String,Object> row = new HashMap<>();
             row.put("clinicaNombre",  facturada.getClinicaNombre());
             row.put("fechaHora",      java.sql.Timestamp.valueOf(facturada.getFechaHora()));
@@ -216,20 +344,10 @@ public class ClinicaController {
             row.put("motivo",         facturada.getMotivo());
             row.put("valorPagar",     facturada.getValorPagar());
 
-            JRBeanCollectionDataSource ds =
-                new JRBeanCollectionDataSource(List.of(row));
-            JasperPrint jasperPrint = JasperFillManager.fillReport(
-                report, new HashMap<>(), ds
-            );
-
-            byte[] pdfBytes;
-            try (var baos = new java.io.ByteArrayOutputStream()) {
-                JasperExportManager.exportReportToPdfStream(jasperPrint, baos);
-                pdfBytes = baos.toByteArray();
-            }
+            byte[] pdfBytes = informeService.generarPdf(InformeService.FACTURACION, row);
 
             // 3) Envía correo al paciente
-            MimeMessage mensaje = mailSender.createMimeMessage();
+            MimeMessage mensaje = correoService.crearMensaje();
             MimeMessageHelper helper = new MimeMessageHelper(mensaje, true, "UTF-8");
             helper.setTo(facturada.getCorreoContacto());
             helper.setSubject("Factura de su Cita #" + citaId);
@@ -243,7 +361,7 @@ public class ClinicaController {
               "factura_cita_" + citaId + ".pdf",
               new ByteArrayResource(pdfBytes)
             );
-            mailSender.send(mensaje);
+            correoService.enviar(mensaje);
 
             ra.addFlashAttribute("successMsg",
                 "Cita facturada y factura enviada al correo de contacto."
@@ -263,11 +381,6 @@ public class ClinicaController {
     ) throws Exception {
         Cita cita = citaService.findById(citaId);
 
-        ClassPathResource jasperFile =
-            new ClassPathResource("informes/Facturacion.jasper");
-        JasperReport report = (JasperReport)
-            JRLoader.loadObject(jasperFile.getInputStream());
-
         Map<String,Object> row = new HashMap<>();
         row.put("clinicaNombre",  cita.getClinicaNombre());
         row.put("fechaHora",      java.sql.Timestamp.valueOf(cita.getFechaHora()));
@@ -277,19 +390,12 @@ public class ClinicaController {
         row.put("motivo",         cita.getMotivo());
         row.put("valorPagar",     cita.getValorPagar());
 
-        JRBeanCollectionDataSource ds =
-            new JRBeanCollectionDataSource(List.of(row));
-        JasperPrint jasperPrint = JasperFillManager.fillReport(report, new HashMap<>(), ds);
-
         response.setContentType("application/pdf");
         response.setHeader(
           "Content-Disposition",
           "inline; filename=factura_cita_" + citaId + ".pdf"
         );
-        JasperExportManager.exportReportToPdfStream(
-          jasperPrint,
-          response.getOutputStream()
-        );
+        informeService.escribirPdf(InformeService.FACTURACION, row, response.getOutputStream());
     }
     
     
@@ -300,17 +406,18 @@ public class ClinicaController {
     @GetMapping("/citas/historial/pdf/{id}")
     public void historialPdfClinica(
         @PathVariable("id") Integer citaId,
+        @AuthenticationPrincipal UsuarioAutenticado ud,
+        WebRequest request,
         HttpServletResponse response
     ) throws Exception {
+        if (getCondicional.noModificado(request, ud.getId(), versiones.selloCita(citaId), "clinica/historial.pdf", citaId)) {
+            return;
+        }
         // 1) Obtener el historial y la cita
         var historial = historialService.findByCitaId(citaId);
         var cita      = historial.getCita();
 
-        // 2) Cargar el .jasper
-        ClassPathResource jasperFile = new ClassPathResource("informes/HistorialMedico.jasper");
-        JasperReport report = (JasperReport) JRLoader.loadObject(jasperFile.getInputStream());
-
-        // 3) Llenar el mapa con los campos
+        // 2) Llenar el mapa con los campos
         Map<String,Object> row = new HashMap<>();
         row.put("pacienteNombre", cita.getPacienteNombre());
         row.put("medicoNombre",   cita.getMedicoNombre());
@@ -320,15 +427,11 @@ public class ClinicaController {
         row.put("diagnostico",    historial.getDiagnostico());
         row.put("receta",         historial.getReceta());
 
-        JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(List.of(row));
-
-        // 4) Rellenar y exportar
-        JasperPrint jp = JasperFillManager.fillReport(report, new HashMap<>(), ds);
-
+        // 3) Rellenar y exportar (el .jasper ya cargado queda en InformeService)
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition",
             "inline; filename=historial_cita_" + citaId + ".pdf");
-        JasperExportManager.exportReportToPdfStream(jp, response.getOutputStream());
+        informeService.escribirPdf(InformeService.HISTORIAL_MEDICO, row, response.getOutputStream());
     }
 
     
@@ -347,10 +450,14 @@ public class ClinicaController {
     @GetMapping("/citas/historial/{id}")
     public String verHistorialCita(
         @PathVariable("id") Integer citaId,
-        @AuthenticationPrincipal UserDetails ud,
+        @AuthenticationPrincipal UsuarioAutenticado ud,
+        WebRequest request,
         Model model,
         RedirectAttributes ra
     ) {
+        if (getCondicional.noModificado(request, ud.getId(), versiones.selloCita(citaId), "clinica/historial", citaId)) {
+            return null;
+        }
         Usuario usuLog = usuarioService.buscarPorLogin(ud.getUsername())
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado."));
         Clinica clinica = clinicaRepository.findByUsuarioId(usuLog.getId())
@@ -0,0 +1,77 @@
+// src/main/java/com/co/gestiondecitasmedicas/controller/GetCondicional.java
+package com.co.gestiondecitasmedicas.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import com.co.gestiondecitasmedicas.service.VersionesService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * GET condicional (If-None-Match / If-Modified-Since) para vistas y PDFs.
+ *
+ * La ETag es un HMAC de (usuario, página, versión) con un secreto aleatorio por
+ * arranque: no se puede adivinar la de otro usuario, así que un 304 solo se
+ * responde a quien ya recibió esa misma página, aunque la verificación de
+ * permisos del controlador venga después.
+ */
+@Component
+public class GetCondicional {
+
+    private final byte[] secreto = new byte[32];
+
+    public GetCondicional() {
+        new SecureRandom().nextBytes(secreto);
+    }
+
+    /**
+     * Pone ETag, Last-Modified y Cache-Control en la respuesta y devuelve true si
+     * ya se respondió 304 (el controlador debe terminar sin cargar nada más).
+     */
+    public boolean noModificado(WebRequest request, Integer usuarioId, VersionesService.Sello sello, Object... pagina) {
+        if (tieneMensajesFlash(request)) {
+            return false; // la página trae un successMsg/errorMsg de un solo uso
+        }
+        HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            // Reemplaza el "no-store" por defecto de Spring Security: se guarda, pero siempre se revalida
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        StringBuilder clave = new StringBuilder().append(usuarioId).append('|').append(sello.version());
+        for (Object parte : pagina) {
+            clave.append('|').append(parte);
+        }
+        return request.checkNotModified("W/\"" + firmar(clave.toString()) + "\"", sello.modificadoEn());
+    }
+
+    private static boolean tieneMensajesFlash(WebRequest request) {
+        HttpServletRequest servlet = ((NativeWebRequest) request).getNativeRequest(HttpServletRequest.class);
+        Map<String, ?> flash = servlet == null ? null : RequestContextUtils.getInputFlashMap(servlet);
+        return flash != null && !flash.isEmpty();
+    }
+
+    private String firmar(String texto) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secreto, "HmacSHA256"));
+            byte[] firma = mac.doFinal(texto.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(firma).substring(0, 22);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
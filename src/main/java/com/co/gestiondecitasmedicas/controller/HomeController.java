@@ -28,7 +28,9 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import com.co.gestiondecitasmedicas.dto.ResumenCitasDto;
 import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.service.EstadisticasCitasService;
 import com.co.gestiondecitasmedicas.service.UsuarioService;
 
 @Controller
@@ -37,6 +39,9 @@ public class HomeController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private EstadisticasCitasService estadisticasCitas;
+
     /**
      * Al entrar en /home revisamos cuántos roles tiene el usuario.
      * - Si tiene 1, redirige directo al dashboard de ese rol.
@@ -104,7 +109,12 @@ public class HomeController {
             @AuthenticationPrincipal UserDetails userDetails,
             Model model
     ) {
+        Usuario paciente = usuarioService.buscarPorLogin(userDetails.getUsername())
+            .orElseThrow(() -> new RuntimeException("Paciente no encontrado."));
+        ResumenCitasDto estadisticas = estadisticasCitas.resumenPaciente(paciente.getId());
         model.addAttribute("nombreUsuario", userDetails.getUsername());
+        model.addAttribute("estadisticas", estadisticas);
+        model.addAttribute("citasProximas", estadisticas.proximas());
         return "paciente/dashboard";
     }
 
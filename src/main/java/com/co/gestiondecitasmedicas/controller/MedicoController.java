@@ -16,9 +16,15 @@
 // 4. /cancelar-cita/{id} → Cancela una cita (solo si está RESERVADA).
 // 5. /realizar-cita/{id} → Permite atender una cita facturada,
 //    registrando diagnóstico y receta, y marcándola como REALIZADA.
+//    Muestra los historiales anteriores del paciente (resumen; el texto
+//    completo se pide en /realizar-cita/{id}/historiales/{historialId}).
 // 6. /citas/historial/{id} → Muestra el historial médico de una cita
 //    (solo si ya fue realizada).
 // 7. /historial-cita/pdf/{id} → Genera y muestra en PDF el historial médico de la cita.
+// 8. /agenda, /agenda/semana → Citas de un día o de una semana, con el
+//    siguiente paciente; /agenda/siguiente lleva directo a atenderlo.
+// 9. /historiales → Historiales de sus pacientes por páginas, más recientes
+//    primero, sin diagnóstico ni receta (se ven al abrir cada uno).
 //
 // En resumen:
 // Este código se encarga de que el médico pueda ver, modificar, cancelar,
@@ -28,37 +34,52 @@
 
 package com.co.gestiondecitasmedicas.controller;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
 import com.co.gestiondecitasmedicas.dto.HistorialDto;
+import com.co.gestiondecitasmedicas.dto.HistorialResumenDto;
+import com.co.gestiondecitasmedicas.dto.MisCitasDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
 import com.co.gestiondecitasmedicas.models.Cita;
 import com.co.gestiondecitasmedicas.models.HistorialMedico;
 import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.service.AgendaEnVivoService;
+import com.co.gestiondecitasmedicas.service.AgendaMedicoService;
 import com.co.gestiondecitasmedicas.service.CitaService;
+import com.co.gestiondecitasmedicas.service.EstadisticasCitasService;
 import com.co.gestiondecitasmedicas.service.HistorialMedicoService;
+import com.co.gestiondecitasmedicas.service.HistorialPrevioService;
+import com.co.gestiondecitasmedicas.service.InformeService;
+import com.co.gestiondecitasmedicas.service.MisCitasService;
 import com.co.gestiondecitasmedicas.service.UsuarioService;
+import com.co.gestiondecitasmedicas.service.VersionesService;
 
 import jakarta.servlet.http.HttpServletResponse;
-import net.sf.jasperreports.engine.JasperExportManager;
-import net.sf.jasperreports.engine.JasperFillManager;
-import net.sf.jasperreports.engine.JasperPrint;
-import net.sf.jasperreports.engine.JasperReport;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.util.JRLoader;
 
 @Controller
 @PreAuthorize("hasRole('MEDICO')")
@@ -68,31 +89,139 @@ public class MedicoController {
     @Autowired private UsuarioService usuarioService;
     @Autowired private CitaService citaService;
     @Autowired private HistorialMedicoService historialService;
+    @Autowired private EstadisticasCitasService estadisticasCitas;
+    @Autowired private MisCitasService misCitasService;
+    @Autowired private VersionesService versiones;
+    @Autowired private GetCondicional getCondicional;
+    @Autowired private AgendaEnVivoService agendaEnVivo;
+    @Autowired private AgendaMedicoService agendaMedico;
+    @Autowired private HistorialPrevioService historialPrevio;
+    @Autowired @Lazy private InformeService informeService;  // Jasper se carga con el primer PDF
 
     @GetMapping("/dashboard")
     public String dashMedico(
         @AuthenticationPrincipal UserDetails userDetails,
         Model model
     ) {
+        Usuario medico = usuarioService.buscarPorLogin(userDetails.getUsername())
+            .orElseThrow(() -> new RuntimeException("Médico no encontrado."));
         model.addAttribute("nombreUsuario", userDetails.getUsername());
+        model.addAttribute("estadisticas", estadisticasCitas.resumenMedico(medico.getId()));
+        model.addAttribute("citasHoy", agendaMedico.dia(medico.getId(), LocalDate.now()).stream()
+            .filter(c -> c.estado() != Cita.Estado.CANCELADA).count());
+        historialPrevio.precargarDeMedico(medico.getId());
         return "medico/dashboard";
     }
 
+    /**
+     * Agenda de un día (hoy si no se indica) y el siguiente paciente por atender.
+     */
+    @GetMapping("/agenda")
+    public String agendaDia(
+            @RequestParam(value = "dia", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia,
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            Model model
+    ) {
+        LocalDate elegido = dia == null ? LocalDate.now() : dia;
+        model.addAttribute("dia", elegido);
+        model.addAttribute("hoy", LocalDate.now());
+        model.addAttribute("citas", agendaMedico.dia(ua.getId(), elegido));
+        model.addAttribute("siguiente", agendaMedico.siguiente(ua.getId(), LocalDateTime.now()).orElse(null));
+        historialPrevio.precargarDeMedico(ua.getId());
+        return "medico/agenda-dia";
+    }
+
+    /**
+     * Agenda de la semana (lunes a domingo) que contiene "desde".
+     */
+    @GetMapping("/agenda/semana")
+    public String agendaSemana(
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            Model model
+    ) {
+        LocalDate lunes = (desde == null ? LocalDate.now() : desde).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        model.addAttribute("desde", lunes);
+        model.addAttribute("hoy", LocalDate.now());
+        model.addAttribute("semana", agendaMedico.semana(ua.getId(), lunes));
+        return "medico/agenda-semana";
+    }
+
+    /**
+     * Atajo al siguiente paciente: si la cita ya está facturada se abre el formulario para
+     * atenderla; si no, su día en la agenda.
+     */
+    @GetMapping("/agenda/siguiente")
+    public String siguientePaciente(@AuthenticationPrincipal UsuarioAutenticado ua, RedirectAttributes ra) {
+        Optional<CitaResumenDto> siguiente = agendaMedico.siguiente(ua.getId(), LocalDateTime.now());
+        if (siguiente.isEmpty()) {
+            ra.addFlashAttribute("successMsg", "No tienes pacientes por atender en los próximos días.");
+            return "redirect:/medico/agenda";
+        }
+        CitaResumenDto cita = siguiente.get();
+        if (cita.estado() == Cita.Estado.FACTURADA) {
+            return "redirect:/medico/realizar-cita/" + cita.id();
+        }
+        return "redirect:/medico/agenda?dia=" + cita.fechaHora().toLocalDate() + "#cita-" + cita.id();
+    }
+
     /**
      * Ver las citas asignadas al médico (todas las que existan, sin importar estado).
      */
     @GetMapping("/citas")
     public String verCitasAsignadas(
-            @AuthenticationPrincipal UserDetails ud,
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            WebRequest request,
             Model model
     ) {
-        Usuario medico = usuarioService.buscarPorLogin(ud.getUsername())
-            .orElseThrow(() -> new RuntimeException("Médico no encontrado."));
-        List<Cita> citas = citaService.listarCitasPorMedico(medico.getId());
-        model.addAttribute("citas", citas);
+        // El sello se lee antes que los datos: si cambian en medio, la ETag queda vieja y no al revés
+        VersionesService.Sello sello = versiones.selloUsuario(ua.getId());
+        MisCitasDto misCitas = misCitasService.citasDeMedico(ua.getId());
+        if (getCondicional.noModificado(request, ua.getId(), sello, "medico/citas", misCitas.proximas().size())) {
+            return null;
+        }
+        model.addAttribute("citas", misCitas.todas());
+        model.addAttribute("totalProximas", misCitas.proximas().size());
         return "medico/mis-citas";
     }
 
+    /**
+     * Historiales de las citas atendidas por el médico, por páginas (cursor por fecha de realización).
+     */
+    @GetMapping("/historiales")
+    public String verHistoriales(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "20") int limite,
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            Model model,
+            RedirectAttributes ra
+    ) {
+        PaginaApiDto<HistorialResumenDto> pagina;
+        try {
+            pagina = historialService.resumenesPorMedico(ua.getId(), cursor, limite);
+        } catch (RuntimeException ex) {
+            ra.addFlashAttribute("errorMsg", ex.getMessage());
+            return "redirect:/medico/historiales";
+        }
+        model.addAttribute("historiales", pagina.items());
+        model.addAttribute("siguienteCursor", pagina.siguienteCursor());
+        model.addAttribute("primeraPagina", cursor == null || cursor.isBlank());
+        return "medico/historiales";
+    }
+
+    /**
+     * Agenda en vivo (SSE) del médico: los cambios de sus citas llegan a "mis citas"
+     * sin recargar. Last-Event-ID lo manda el navegador al reconectar.
+     */
+    @GetMapping(value = "/citas/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter eventosAgenda(
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId,
+            @AuthenticationPrincipal UsuarioAutenticado ua
+    ) {
+        return agendaEnVivo.suscribirMedico(ua.getId(), ultimoEventoId);
+    }
+
     /**
      * Form para editar fecha de cita (solo si está RESERVADA).
      */
@@ -194,9 +323,33 @@ public class MedicoController {
 
         model.addAttribute("cita", cita);
         model.addAttribute("historialDto", new HistorialDto());
+        model.addAttribute("historialesPrevios", historialPrevio.dePaciente(cita.getPaciente().getId()));
+        // Mientras atiende esta, se dejan listos los pacientes que siguen
+        historialPrevio.precargarDeMedico(medico.getId());
         return "medico/realizar-cita";
     }
 
+    /**
+     * Diagnóstico y receta completos de un historial anterior del paciente de la cita
+     * que se está atendiendo. Solo para el médico asignado y con la cita FACTURADA.
+     */
+    @GetMapping("/realizar-cita/{id}/historiales/{historialId}")
+    @ResponseBody
+    public ResponseEntity<HistorialApiDto> historialPrevio(
+            @PathVariable("id") Integer citaId,
+            @PathVariable("historialId") Integer historialId,
+            @AuthenticationPrincipal UsuarioAutenticado ua
+    ) {
+        Cita cita = citaService.findById(citaId);
+        if (!cita.getMedico().getId().equals(ua.getId())
+            || !cita.getEstado().equals(Cita.Estado.FACTURADA)) {
+            return ResponseEntity.notFound().build();
+        }
+        return historialPrevio.detalle(cita.getPaciente().getId(), historialId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Procesar “realizar cita”: crea historial y cambia estado a REALIZADA.
      * Valida nuevamente que esté FACTURADA.
@@ -234,10 +387,14 @@ public class MedicoController {
     @GetMapping("/citas/historial/{id}")
     public String verHistorialCitaMedico(
         @PathVariable("id") Integer citaId,
-        @AuthenticationPrincipal UserDetails ud,
+        @AuthenticationPrincipal UsuarioAutenticado ud,
+        WebRequest request,
         Model model,
         RedirectAttributes ra
     ) {
+        if (getCondicional.noModificado(request, ud.getId(), versiones.selloCita(citaId), "medico/historial", citaId)) {
+            return null;
+        }
         Usuario medico = usuarioService.buscarPorLogin(ud.getUsername())
             .orElseThrow(() -> new RuntimeException("Médico no encontrado."));
         Cita cita = citaService.findById(citaId);
@@ -267,14 +424,16 @@ public class MedicoController {
     @GetMapping("/historial-cita/pdf/{id}")
     public void historialPdfMedico(
         @PathVariable("id") Integer citaId,
+        @AuthenticationPrincipal UsuarioAutenticado ud,
+        WebRequest request,
         HttpServletResponse response
     ) throws Exception {
+        if (getCondicional.noModificado(request, ud.getId(), versiones.selloCita(citaId), "medico/historial.pdf", citaId)) {
+            return;
+        }
         var historial = historialService.findByCitaId(citaId);
         var cita      = historial.getCita();
 
-        ClassPathResource jasperFile = new ClassPathResource("informes/HistorialMedico.jasper");
-        JasperReport report = (JasperReport) JRLoader.loadObject(jasperFile.getInputStream());
-
         Map<String,Object> row = new HashMap<>();
         row.put("pacienteNombre", cita.getPacienteNombre());
         row.put("medicoNombre",   cita.getMedicoNombre());
@@ -284,13 +443,10 @@ public class MedicoController {
         row.put("diagnostico",    historial.getDiagnostico());
         row.put("receta",         historial.getReceta());
 
-        JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(List.of(row));
-        JasperPrint jp = JasperFillManager.fillReport(report, new HashMap<>(), ds);
-
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition",
             "inline; filename=historial_cita_" + citaId + ".pdf");
-        JasperExportManager.exportReportToPdfStream(jp, response.getOutputStream());
+        informeService.escribirPdf(InformeService.HISTORIAL_MEDICO, row, response.getOutputStream());
     }
 
     
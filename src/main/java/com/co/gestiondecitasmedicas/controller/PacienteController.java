@@ -32,6 +32,9 @@
 // 8. /historial/pdf/{id} → Genera un archivo PDF con el historial médico de la cita,
 //    mostrando los datos del paciente, médico, clínica, diagnóstico y receta.
 //
+// 9. /historiales → Lista por páginas los historiales del paciente, más recientes
+//    primero, sin diagnóstico ni receta (se ven al abrir cada uno).
+//
 // En resumen:
 // Este código permite al paciente agendar, modificar, cancelar y visualizar
 // sus citas médicas, así como consultar o descargar en PDF el historial
@@ -48,31 +51,33 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
 import com.co.gestiondecitasmedicas.dto.CitaDto;
+import com.co.gestiondecitasmedicas.dto.HistorialResumenDto;
+import com.co.gestiondecitasmedicas.dto.MisCitasDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
 import com.co.gestiondecitasmedicas.models.Cita;
 import com.co.gestiondecitasmedicas.models.Clinica;
 import com.co.gestiondecitasmedicas.models.HistorialMedico;
 import com.co.gestiondecitasmedicas.models.Usuario;
 import com.co.gestiondecitasmedicas.service.CitaService;
 import com.co.gestiondecitasmedicas.service.HistorialMedicoService;
+import com.co.gestiondecitasmedicas.service.InformeService;
+import com.co.gestiondecitasmedicas.service.MisCitasService;
 import com.co.gestiondecitasmedicas.service.UsuarioService;
+import com.co.gestiondecitasmedicas.service.VersionesService;
 
 import jakarta.servlet.http.HttpServletResponse;
-import net.sf.jasperreports.engine.JasperExportManager;
-import net.sf.jasperreports.engine.JasperFillManager;
-import net.sf.jasperreports.engine.JasperPrint;
-import net.sf.jasperreports.engine.JasperReport;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.util.JRLoader;
 
 @Controller
 @PreAuthorize("hasRole('PACIENTE')")
@@ -88,6 +93,19 @@ public class PacienteController {
     @Autowired
     private HistorialMedicoService historialService;
 
+    @Autowired
+    private MisCitasService misCitasService;
+
+    @Autowired
+    private VersionesService versiones;
+
+    @Autowired
+    private GetCondicional getCondicional;
+
+    // Jasper se carga con el primer PDF
+    @Autowired @Lazy
+    private InformeService informeService;
+
     /**
      * Mostrar el formulario para agendar una nueva cita.
      * - Cargamos la lista de clínicas para el dropdown.
@@ -166,16 +184,46 @@ public class PacienteController {
      */
     @GetMapping("/mis-citas")
     public String verMisCitas(
-            @AuthenticationPrincipal UserDetails ud,
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            WebRequest request,
             Model model
     ) {
-        Usuario paciente = usuarioService.buscarPorLogin(ud.getUsername())
-            .orElseThrow(() -> new RuntimeException("Paciente no encontrado."));
-        List<Cita> citas = citaService.listarCitasPorPaciente(paciente.getId());
-        model.addAttribute("citas", citas);
+        // El sello se lee antes que los datos: si cambian en medio, la ETag queda vieja y no al revés
+        VersionesService.Sello sello = versiones.selloUsuario(ua.getId());
+        MisCitasDto misCitas = misCitasService.citasDePaciente(ua.getId());
+        // Las próximas entran en la ETag porque con el paso del tiempo pasan a "anteriores"
+        if (getCondicional.noModificado(request, ua.getId(), sello, "paciente/mis-citas", misCitas.proximas().size())) {
+            return null;
+        }
+        model.addAttribute("citas", misCitas.todas());
+        model.addAttribute("totalProximas", misCitas.proximas().size());
         return "paciente/mis-citas";
     }
 
+    /**
+     * Historiales del paciente por páginas (cursor por fecha de realización).
+     */
+    @GetMapping("/historiales")
+    public String verHistoriales(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", defaultValue = "20") int limite,
+            @AuthenticationPrincipal UsuarioAutenticado ua,
+            Model model,
+            RedirectAttributes ra
+    ) {
+        PaginaApiDto<HistorialResumenDto> pagina;
+        try {
+            pagina = historialService.resumenesPorPaciente(ua.getId(), cursor, limite);
+        } catch (RuntimeException ex) {
+            ra.addFlashAttribute("errorMsg", ex.getMessage());
+            return "redirect:/paciente/historiales";
+        }
+        model.addAttribute("historiales", pagina.items());
+        model.addAttribute("siguienteCursor", pagina.siguienteCursor());
+        model.addAttribute("primeraPagina", cursor == null || cursor.isBlank());
+        return "paciente/historiales";
+    }
+
     /**
      * Formulario para editar la fecha de una cita concreta (solo si está RESERVADA).
      */
@@ -266,10 +314,14 @@ public class PacienteController {
     @GetMapping("/citas/historial/{id}")
     public String verHistorialCitaPaciente(
         @PathVariable("id") Integer citaId,
-        @AuthenticationPrincipal UserDetails ud,
+        @AuthenticationPrincipal UsuarioAutenticado ud,
+        WebRequest request,
         Model model,
         RedirectAttributes ra
     ) {
+        if (getCondicional.noModificado(request, ud.getId(), versiones.selloCita(citaId), "paciente/historial", citaId)) {
+            return null;
+        }
         Usuario paciente = usuarioService.buscarPorLogin(ud.getUsername())
             .orElseThrow(() -> new RuntimeException("Paciente no encontrado."));
         Cita cita = citaService.findById(citaId);
@@ -298,14 +350,16 @@ public class PacienteController {
     @GetMapping("/historial/pdf/{id}")
     public void historialPdfPaciente(
         @PathVariable("id") Integer citaId,
+        @AuthenticationPrincipal UsuarioAutenticado ud,
+        WebRequest request,
         HttpServletResponse response
     ) throws Exception {
+        if (getCondicional.noModificado(request, ud.getId(), versiones.selloCita(citaId), "paciente/historial.pdf", citaId)) {
+            return;
+        }
         var historial = historialService.findByCitaId(citaId);
         var cita      = historial.getCita();
 
-        ClassPathResource jasperFile = new ClassPathResource("informes/HistorialMedico.jasper");
-        JasperReport report = (JasperReport) JRLoader.loadObject(jasperFile.getInputStream());
-
         Map<String,Object> row = new HashMap<>();
         row.put("pacienteNombre", cita.getPacienteNombre());
         row.put("medicoNombre",   cita.getMedicoNombre());
@@ -315,13 +369,10 @@ public class PacienteController {
         row.put("diagnostico",    historial.getDiagnostico());
         row.put("receta",         historial.getReceta());
 
-        JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(List.of(row));
-        JasperPrint jp = JasperFillManager.fillReport(report, new HashMap<>(), ds);
-
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition",
             "inline; filename=historial_cita_" + citaId + ".pdf");
-        JasperExportManager.exportReportToPdfStream(jp, response.getOutputStream());
+        informeService.escribirPdf(InformeService.HISTORIAL_MEDICO, row, response.getOutputStream());
     }
  
     
@@ -0,0 +1,16 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/CambioAgendaDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+/**
+ * Cambio de una cita que se empuja por SSE a las agendas abiertas de médico y clínica.
+ * Solo lleva lo necesario para avisar en pantalla; el detalle sale al recargar.
+ */
+public record CambioAgendaDto(
+    String tipo,
+    Integer citaId,
+    String estado,
+    String fechaTexto,
+    String pacienteNombre,
+    String medicoNombre
+) {
+}
@@ -0,0 +1,33 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/CitaApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Cita tal como la devuelve la API REST (/api/v1).
+ */
+public record CitaApiDto(
+    Integer id,
+    LocalDateTime fechaHora,
+    Cita.Estado estado,
+    Integer clinicaId,
+    String clinicaNombre,
+    Integer medicoId,
+    String medicoNombre,
+    Integer pacienteId,
+    String pacienteNombre,
+    String motivo,
+    BigDecimal valorPagar
+) {
+
+    public static CitaApiDto de(Cita c) {
+        return new CitaApiDto(c.getId(), c.getFechaHora(), c.getEstado(),
+            c.getClinica().getId(), c.getClinicaNombre(),
+            c.getMedico().getId(), c.getMedicoNombre(),
+            c.getPaciente().getId(), c.getPacienteNombre(),
+            c.getMotivo(), c.getValorPagar());
+    }
+}
@@ -0,0 +1,20 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/CitaProximaDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.time.LocalDateTime;
+
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Cita de los próximos días tal como la guarda la ventana de citas: solo ids, fecha y
+ * estado (registro de ancho fijo). Los nombres se resuelven aparte si hacen falta.
+ */
+public record CitaProximaDto(
+    Integer id,
+    LocalDateTime fechaHora,
+    Cita.Estado estado,
+    Integer clinicaId,
+    Integer medicoId,
+    Integer pacienteId
+) {
+}
@@ -0,0 +1,30 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/CitaResumenDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Fila de "mis citas" (paciente o médico) con los textos que muestra la vista ya armados.
+ */
+public record CitaResumenDto(
+    Integer id,
+    LocalDateTime fechaHora,
+    String fechaTexto,
+    Cita.Estado estado,
+    String pacienteNombre,
+    String medicoNombre,
+    String clinicaNombre
+) {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Usado por la proyección JPQL de CitaRepository y al aplicar eventos
+    public CitaResumenDto(Integer id, LocalDateTime fechaHora, Cita.Estado estado,
+                          String pacienteNombre, String medicoNombre, String clinicaNombre) {
+        this(id, fechaHora, fechaHora == null ? "" : FORMATO_FECHA.format(fechaHora),
+             estado, pacienteNombre, medicoNombre, clinicaNombre);
+    }
+}
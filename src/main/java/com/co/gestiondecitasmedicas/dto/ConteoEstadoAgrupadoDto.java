@@ -0,0 +1,20 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/ConteoEstadoAgrupadoDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.math.BigDecimal;
+
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Resultado de un GROUP BY clínica, médico, paciente y estado sobre citas: cantidad y
+ * suma de valorPagar. Permite recalcular varias claves de estadísticas en una consulta.
+ */
+public record ConteoEstadoAgrupadoDto(
+    Integer clinicaId,
+    Integer medicoId,
+    Integer pacienteId,
+    Cita.Estado estado,
+    Long cantidad,
+    BigDecimal total
+) {
+}
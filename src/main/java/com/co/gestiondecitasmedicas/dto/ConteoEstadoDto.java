@@ -0,0 +1,16 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/ConteoEstadoDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.math.BigDecimal;
+
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Resultado de un GROUP BY estado sobre citas: cantidad y suma de valorPagar.
+ */
+public record ConteoEstadoDto(
+    Cita.Estado estado,
+    Long cantidad,
+    BigDecimal total
+) {
+}
@@ -0,0 +1,13 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/CredencialLoginDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+/**
+ * Fila de la proyección que usa el login: una por cada rol del usuario
+ * (rol es null si no tiene ninguno). No carga la entidad Usuario ni su clínica.
+ */
+public record CredencialLoginDto(
+    Integer id,
+    String usuariologin,
+    String password,
+    String rol
+) { }
@@ -0,0 +1,19 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/HistorialApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historial médico tal como lo devuelve la API REST (/api/v1).
+ */
+public record HistorialApiDto(
+    Integer id,
+    Integer citaId,
+    LocalDateTime fechaRealizacion,
+    String pacienteNombre,
+    String medicoNombre,
+    String clinicaNombre,
+    String diagnostico,
+    String receta
+) {
+}
@@ -0,0 +1,18 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/HistorialPrevioDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historial anterior de un paciente tal como se muestra al atender una cita:
+ * solo el comienzo del diagnóstico. El texto completo y la receta se piden aparte.
+ */
+public record HistorialPrevioDto(
+    Integer id,
+    Integer citaId,
+    LocalDateTime fechaRealizacion,
+    String medicoNombre,
+    String clinicaNombre,
+    String diagnosticoResumen
+) {
+}
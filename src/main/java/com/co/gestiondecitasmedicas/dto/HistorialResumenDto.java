@@ -0,0 +1,18 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/HistorialResumenDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de un listado de historiales: sin diagnóstico ni receta (columnas TEXT),
+ * que solo se leen al abrir el detalle de la cita.
+ */
+public record HistorialResumenDto(
+    Integer id,
+    Integer citaId,
+    LocalDateTime fechaRealizacion,
+    String pacienteNombre,
+    String medicoNombre,
+    String clinicaNombre
+) {
+}
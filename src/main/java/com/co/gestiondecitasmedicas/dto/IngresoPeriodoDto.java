@@ -0,0 +1,15 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/IngresoPeriodoDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ingresos de un periodo (día, semana o mes que empieza en "inicio").
+ */
+public record IngresoPeriodoDto(
+    LocalDate inicio,
+    BigDecimal total,
+    Long cantidad
+) {
+}
@@ -0,0 +1,27 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/MisCitasDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Citas de un paciente o médico separadas en próximas (más cercana primero)
+ * y pasadas (más reciente primero).
+ */
+public record MisCitasDto(
+    List<CitaResumenDto> proximas,
+    List<CitaResumenDto> pasadas
+) {
+
+    // Próximas seguidas de pasadas, en el orden en que se listan
+    public List<CitaResumenDto> todas() {
+        List<CitaResumenDto> todas = new ArrayList<>(proximas.size() + pasadas.size());
+        todas.addAll(proximas);
+        todas.addAll(pasadas);
+        return todas;
+    }
+
+    public boolean vacio() {
+        return proximas.isEmpty() && pasadas.isEmpty();
+    }
+}
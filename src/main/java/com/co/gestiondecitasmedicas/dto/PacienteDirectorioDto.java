@@ -0,0 +1,13 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/PacienteDirectorioDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+/**
+ * Fila del directorio de pacientes de una clínica (resultado del buscador de recepción).
+ */
+public record PacienteDirectorioDto(
+    Integer clinicaId,
+    Integer pacienteId,
+    String nombre,
+    String documento
+) {
+}
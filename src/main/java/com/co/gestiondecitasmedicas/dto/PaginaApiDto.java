@@ -0,0 +1,112 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/PaginaApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de la API con paginación por cursor.
+ *
+ * El cursor es opaco para el cliente: codifica el id de la última fila entregada y
+ * la siguiente página sigue con "id > cursor", así pedir la página 1000 cuesta lo
+ * mismo que la primera. siguienteCursor es null cuando no hay más filas.
+ *
+ * Los listados ordenados por fecha (más reciente primero) usan un cursor con la
+ * fecha y el id de la última fila: la página sigue con "(fecha, id) < cursor".
+ */
+public record PaginaApiDto<T>(
+    List<T> items,
+    String siguienteCursor
+) {
+
+    public static final int LIMITE_MAXIMO = 200;
+
+    /**
+     * Posición de un cursor por fecha. PRINCIPIO está antes de cualquier fila real.
+     */
+    public record Posicion(LocalDateTime fecha, int id) {
+        public static final Posicion PRINCIPIO = new Posicion(LocalDateTime.of(9999, 12, 31, 23, 59), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Lleva el tamaño pedido por el cliente al rango 1..LIMITE_MAXIMO.
+     */
+    public static int acotar(int limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    /**
+     * Arma la página a partir de hasta limite + 1 filas: si llegó la fila extra hay otra página.
+     */
+    public static <T> PaginaApiDto<T> de(List<T> filas, int limite, Function<T, Integer> id) {
+        if (filas.size() <= limite) {
+            return new PaginaApiDto<>(filas, null);
+        }
+        List<T> items = filas.subList(0, limite);
+        return new PaginaApiDto<>(items, codificar(id.apply(items.get(limite - 1))));
+    }
+
+    /**
+     * Igual que de(), con cursor por fecha e id de la última fila.
+     */
+    public static <T> PaginaApiDto<T> dePorFecha(List<T> filas, int limite,
+                                                 Function<T, LocalDateTime> fecha, Function<T, Integer> id) {
+        if (filas.size() <= limite) {
+            return new PaginaApiDto<>(filas, null);
+        }
+        List<T> items = filas.subList(0, limite);
+        T ultima = items.get(limite - 1);
+        return new PaginaApiDto<>(items, codificar("fh:" + fecha.apply(ultima) + "|" + id.apply(ultima)));
+    }
+
+    public static String codificar(Integer ultimoId) {
+        return codificar("id:" + ultimoId);
+    }
+
+    private static String codificar(String texto) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Id desde el que sigue la página (0 si no hay cursor).
+     */
+    public static int decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!texto.startsWith("id:")) {
+                throw new IllegalArgumentException();
+            }
+            return Integer.parseInt(texto.substring(3));
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException("Cursor inválido.");
+        }
+    }
+
+    /**
+     * Posición desde la que sigue una página por fecha (PRINCIPIO si no hay cursor).
+     */
+    public static Posicion decodificarPorFecha(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Posicion.PRINCIPIO;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            if (!texto.startsWith("fh:") || separador < 0) {
+                throw new IllegalArgumentException();
+            }
+            return new Posicion(LocalDateTime.parse(texto.substring(3, separador)),
+                                Integer.parseInt(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new RuntimeException("Cursor inválido.");
+        }
+    }
+}
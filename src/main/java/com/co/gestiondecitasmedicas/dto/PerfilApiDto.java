@@ -0,0 +1,16 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/PerfilApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.util.List;
+
+/**
+ * Datos del usuario autenticado en la API (/api/v1/yo).
+ */
+public record PerfilApiDto(
+    Integer id,
+    String nombre,
+    String usuariologin,
+    String email,
+    List<String> roles
+) {
+}
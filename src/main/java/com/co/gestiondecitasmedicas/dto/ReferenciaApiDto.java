@@ -0,0 +1,11 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/ReferenciaApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+/**
+ * Par id/nombre para listados simples de la API (clínicas, médicos).
+ */
+public record ReferenciaApiDto(
+    Integer id,
+    String nombre
+) {
+}
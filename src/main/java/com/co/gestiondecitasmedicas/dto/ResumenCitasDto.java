@@ -0,0 +1,25 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/ResumenCitasDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Números de las tarjetas de los dashboards (clínica, médico o paciente).
+ */
+public record ResumenCitasDto(
+    long reservadas,
+    long facturadas,
+    long realizadas,
+    long canceladas,
+    BigDecimal totalFacturado
+) {
+
+    // Citas pendientes de atender: reservadas o ya facturadas
+    public long proximas() {
+        return reservadas + facturadas;
+    }
+
+    public long total() {
+        return reservadas + facturadas + realizadas + canceladas;
+    }
+}
@@ -0,0 +1,11 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/SolicitudTokenApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+/**
+ * Cuerpo de POST /api/v1/tokens. Si no se indica, la vigencia es de 90 días.
+ */
+public record SolicitudTokenApiDto(
+    String nombre,
+    Integer diasVigencia
+) {
+}
@@ -0,0 +1,17 @@
+// src/main/java/com/co/gestiondecitasmedicas/dto/TokenApiDto.java
+package com.co.gestiondecitasmedicas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token de la API. "token" solo trae el valor en claro en la respuesta de la emisión.
+ */
+public record TokenApiDto(
+    Integer id,
+    String nombre,
+    String token,
+    LocalDateTime creadoEn,
+    LocalDateTime expiraEn,
+    boolean revocado
+) {
+}
@@ -0,0 +1,79 @@
+// src/main/java/com/co/gestiondecitasmedicas/eventos/CitaEvento.java
+package com.co.gestiondecitasmedicas.eventos;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Evento que publica CitaServiceImpl en cada transición de una cita.
+ * Lleva una copia de los datos que necesitan los listeners, así no tienen
+ * que volver a cargar la entidad (que puede estar fuera de la transacción).
+ *
+ * - estadoAnterior es null en la reserva.
+ * - estado es null cuando la cita se elimina.
+ * - actor es el login de quien hizo el cambio ("sistema" si no hay usuario autenticado).
+ */
+public record CitaEvento(
+    Tipo tipo,
+    Integer citaId,
+    Integer clinicaId,
+    Integer medicoId,
+    Integer pacienteId,
+    String pacienteNombre,
+    String documento,
+    String medicoNombre,
+    String clinicaNombre,
+    Cita.Estado estadoAnterior,
+    Cita.Estado estado,
+    LocalDateTime fechaHoraAnterior,
+    LocalDateTime fechaHora,
+    BigDecimal valorPagar,
+    String actor,
+    LocalDateTime instante
+) {
+
+    private static final String ACTOR_SISTEMA = "sistema";
+
+    public enum Tipo {
+        RESERVADA,
+        CANCELADA,
+        FECHA_MODIFICADA,
+        FACTURADA,
+        REALIZADA,
+        ELIMINADA
+    }
+
+    /**
+     * Construye el evento a partir de la cita ya modificada.
+     */
+    public static CitaEvento de(Tipo tipo, Cita cita, Cita.Estado estadoAnterior, LocalDateTime fechaHoraAnterior) {
+        return new CitaEvento(
+            tipo,
+            cita.getId(),
+            cita.getClinica().getId(),
+            cita.getMedico().getId(),
+            cita.getPaciente().getId(),
+            cita.getPacienteNombre(),
+            cita.getDocumento(),
+            cita.getMedicoNombre(),
+            cita.getClinicaNombre(),
+            estadoAnterior,
+            tipo == Tipo.ELIMINADA ? null : cita.getEstado(),
+            fechaHoraAnterior,
+            cita.getFechaHora(),
+            cita.getValorPagar(),
+            actorActual(),
+            LocalDateTime.now()
+        );
+    }
+
+    private static String actorActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : ACTOR_SISTEMA;
+    }
+}
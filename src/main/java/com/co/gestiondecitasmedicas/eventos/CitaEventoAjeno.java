@@ -0,0 +1,14 @@
+// src/main/java/com/co/gestiondecitasmedicas/eventos/CitaEventoAjeno.java
+package com.co.gestiondecitasmedicas.eventos;
+
+/**
+ * Transición confirmada en otra instancia, leída de la bitácora. La publica
+ * BitacoraCitasServiceImpl (con @EventListener, fuera de toda transacción) para los
+ * modelos en memoria que reciben las propias con @TransactionalEventListener.
+ *
+ * - Los nombres y el documento son los actuales de la cita, no los del momento del cambio.
+ * - tardio indica que llegó después de otros eventos más nuevos (ver CursorBitacora):
+ *   lo seguro es invalidar en vez de aplicarlo.
+ */
+public record CitaEventoAjeno(long offset, CitaEvento evento, boolean tardio) {
+}
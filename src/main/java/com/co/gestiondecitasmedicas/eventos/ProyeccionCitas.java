@@ -0,0 +1,23 @@
+// src/main/java/com/co/gestiondecitasmedicas/eventos/ProyeccionCitas.java
+package com.co.gestiondecitasmedicas.eventos;
+
+/**
+ * Vista derivada que se construye aplicando, en orden, los eventos de la bitácora de citas.
+ */
+@FunctionalInterface
+public interface ProyeccionCitas {
+
+    /**
+     * Aplica un evento. "offset" es su posición en la bitácora (creciente).
+     */
+    void aplicar(long offset, CitaEvento evento);
+
+    /**
+     * Aplica un evento que llegó tarde: su offset es menor que otros ya aplicados (se
+     * confirmó después). Por omisión se aplica igual; una proyección que guarda el estado
+     * de la cita puede preferir releerla de la BD en vez de volver a un estado viejo.
+     */
+    default void aplicarTardio(long offset, CitaEvento evento) {
+        aplicar(offset, evento);
+    }
+}
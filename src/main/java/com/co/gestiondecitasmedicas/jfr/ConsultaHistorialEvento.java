@@ -0,0 +1,26 @@
+// src/main/java/com/co/gestiondecitasmedicas/jfr/ConsultaHistorialEvento.java
+package com.co.gestiondecitasmedicas.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gestiondecitas.ConsultaHistorial")
+@Label("Consulta de historiales")
+@Description("Lectura de historiales médicos por paciente, médico o cita, con las filas devueltas")
+@Category({"Gestión de citas", "Historiales"})
+@StackTrace(false)
+public class ConsultaHistorialEvento extends Event {
+
+    @Label("Consulta")
+    public String consulta;
+
+    @Label("Id consultado")
+    public int id;
+
+    @Label("Filas")
+    public int filas;
+}
@@ -0,0 +1,26 @@
+// src/main/java/com/co/gestiondecitasmedicas/jfr/EnvioCorreoEvento.java
+package com.co.gestiondecitasmedicas.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gestiondecitas.EnvioCorreo")
+@Label("Envío SMTP")
+@Description("Entrega de un correo al servidor SMTP por una conexión reutilizada")
+@Category({"Gestión de citas", "Correo"})
+@StackTrace(false)
+public class EnvioCorreoEvento extends Event {
+
+    @Label("Destinatarios")
+    public int destinatarios;
+
+    @Label("Resultado")
+    public String resultado;
+
+    @Label("Conexión nueva")
+    public boolean conexionNueva;
+}
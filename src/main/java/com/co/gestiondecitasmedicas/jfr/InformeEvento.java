@@ -0,0 +1,28 @@
+// src/main/java/com/co/gestiondecitasmedicas/jfr/InformeEvento.java
+package com.co.gestiondecitasmedicas.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gestiondecitas.Informe")
+@Label("Fase de informe Jasper")
+@Description("Llenado o exportación a PDF de un informe; en la exportación, los bytes escritos")
+@Category({"Gestión de citas", "Informes"})
+@StackTrace(false)
+public class InformeEvento extends Event {
+
+    @Label("Informe")
+    public String informe;
+
+    @Label("Fase")
+    public String fase;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
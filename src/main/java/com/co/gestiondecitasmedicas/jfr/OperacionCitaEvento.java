@@ -0,0 +1,29 @@
+// src/main/java/com/co/gestiondecitasmedicas/jfr/OperacionCitaEvento.java
+package com.co.gestiondecitasmedicas.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gestiondecitas.OperacionCita")
+@Label("Operación sobre cita")
+@Description("Reserva, cancelación, cambio de fecha, realización, facturación o borrado de una cita, con su transacción")
+@Category({"Gestión de citas", "Citas"})
+@StackTrace(false)
+public class OperacionCitaEvento extends Event {
+
+    @Label("Operación")
+    public String operacion;
+
+    @Label("Cita")
+    public int citaId;
+
+    @Label("Clínica")
+    public int clinicaId;
+
+    @Label("Resultado")
+    public String resultado;
+}
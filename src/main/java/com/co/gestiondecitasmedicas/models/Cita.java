@@ -4,6 +4,8 @@ package com.co.gestiondecitasmedicas.models;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -13,13 +15,21 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "citas")
+@Table(name = "citas", indexes = {
+    // Rango de "mis citas" de paciente y médico, ya ordenado por fecha
+    @Index(name = "idx_citas_paciente_fecha", columnList = "paciente_id, fecha_hora"),
+    @Index(name = "idx_citas_medico_fecha", columnList = "medico_id, fecha_hora"),
+    // Citas reservadas por rango de fecha (recordatorios)
+    @Index(name = "idx_citas_estado_fecha", columnList = "estado, fecha_hora")
+})
 public class Cita {
 
     public enum Estado {
@@ -85,12 +95,21 @@ public class Cita {
     @Column(name = "valor_pagar", precision = 12, scale = 2)
     private BigDecimal valorPagar;
 
+    // Concurrencia optimista: cada UPDATE exige la versión leída (médico y clínica
+    // cambiando la misma cita a la vez ya no se pisan en silencio)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
 
     // Getters y setters...
 
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
 
+    public Long getVersion() { return version; }
+
     public LocalDateTime getFechaHora() { return fechaHora; }
     public void setFechaHora(LocalDateTime fechaHora) { this.fechaHora = fechaHora; }
 
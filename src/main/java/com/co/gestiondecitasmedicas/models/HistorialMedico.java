@@ -3,18 +3,26 @@ package com.co.gestiondecitasmedicas.models;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "historiales_medicos")
+@Table(name = "historiales_medicos", indexes = {
+    // Listados por páginas, más recientes primero: el cursor (fecha, id) es un rango del índice
+    @Index(name = "idx_historiales_paciente_fecha", columnList = "paciente_id, fecha_realizacion, id"),
+    @Index(name = "idx_historiales_medico_fecha", columnList = "medico_id, fecha_realizacion, id")
+})
 public class HistorialMedico {
 
     @Id
@@ -26,6 +34,14 @@ public class HistorialMedico {
     @JoinColumn(name = "cita_id", nullable = false, unique = true)
     private Cita cita;
 
+    // Copia del paciente y el médico de la cita (no cambian después de realizarla), para
+    // filtrar y ordenar los listados con un índice de esta tabla
+    @Column(name = "paciente_id")
+    private Integer pacienteId;
+
+    @Column(name = "medico_id")
+    private Integer medicoId;
+
     // Fecha en que se guarda el historial
     @Column(name = "fecha_realizacion", nullable = false)
     private LocalDateTime fechaRealizacion = LocalDateTime.now();
@@ -38,13 +54,28 @@ public class HistorialMedico {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String receta;
 
+    // Concurrencia optimista, igual que en Cita
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Getters y setters...
 
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
 
+    public Long getVersion() { return version; }
+
     public Cita getCita() { return cita; }
-    public void setCita(Cita cita) { this.cita = cita; }
+    public void setCita(Cita cita) {
+        this.cita = cita;
+        this.pacienteId = cita.getPaciente().getId();
+        this.medicoId = cita.getMedico().getId();
+    }
+
+    public Integer getPacienteId() { return pacienteId; }
+    public Integer getMedicoId() { return medicoId; }
 
     public LocalDateTime getFechaRealizacion() { return fechaRealizacion; }
     public void setFechaRealizacion(LocalDateTime fechaRealizacion) { this.fechaRealizacion = fechaRealizacion; }
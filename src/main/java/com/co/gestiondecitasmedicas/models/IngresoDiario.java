@@ -0,0 +1,68 @@
+// src/main/java/com/co/gestiondecitasmedicas/models/IngresoDiario.java
+package com.co.gestiondecitasmedicas.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Acumulado de facturación por (clínica, médico, día).
+ * Se actualiza al facturar y al eliminar citas; los reportes de ingresos
+ * se calculan sobre esta tabla y nunca sobre citas.
+ */
+@Entity
+@Table(
+    name = "ingresos_diarios",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_ingresos_clinica_medico_dia", columnNames = {"clinica_id", "medico_id", "dia"}),
+    indexes = @Index(name = "idx_ingresos_clinica_dia", columnList = "clinica_id, dia")
+)
+public class IngresoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "clinica_id", nullable = false)
+    private Integer clinicaId;
+
+    @Column(name = "medico_id", nullable = false)
+    private Integer medicoId;
+
+    // Día de la cita facturada
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    // Número de citas facturadas ese día
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad = 0;
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public Integer getClinicaId() { return clinicaId; }
+    public void setClinicaId(Integer clinicaId) { this.clinicaId = clinicaId; }
+
+    public Integer getMedicoId() { return medicoId; }
+    public void setMedicoId(Integer medicoId) { this.medicoId = medicoId; }
+
+    public LocalDate getDia() { return dia; }
+    public void setDia(LocalDate dia) { this.dia = dia; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+
+    public Integer getCantidad() { return cantidad; }
+    public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+}
@@ -0,0 +1,66 @@
+// src/main/java/com/co/gestiondecitasmedicas/models/TokenApi.java
+package com.co.gestiondecitasmedicas.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Token de acceso a la API (/api/v1) para clientes máquina.
+ * Solo se guarda el SHA-256 del token; el valor en claro se muestra una única vez al emitirlo.
+ */
+@Entity
+@Table(name = "tokens_api", indexes = @Index(name = "idx_tokens_api_usuario", columnList = "usuario_id"))
+public class TokenApi {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Integer usuarioId;
+
+    // Nombre que le da el usuario (p. ej. "integración facturación")
+    @Column(name = "nombre", nullable = false, length = 100)
+    private String nombre;
+
+    // SHA-256 en hexadecimal
+    @Column(name = "hash", nullable = false, length = 64, unique = true)
+    private String hash;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn = LocalDateTime.now();
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "revocado", nullable = false)
+    private boolean revocado;
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public Integer getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Integer usuarioId) { this.usuarioId = usuarioId; }
+
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public LocalDateTime getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(LocalDateTime creadoEn) { this.creadoEn = creadoEn; }
+
+    public LocalDateTime getExpiraEn() { return expiraEn; }
+    public void setExpiraEn(LocalDateTime expiraEn) { this.expiraEn = expiraEn; }
+
+    public boolean isRevocado() { return revocado; }
+    public void setRevocado(boolean revocado) { this.revocado = revocado; }
+}
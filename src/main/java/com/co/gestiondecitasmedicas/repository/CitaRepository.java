@@ -2,11 +2,20 @@
 package com.co.gestiondecitasmedicas.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.co.gestiondecitasmedicas.dto.CitaApiDto;
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+import com.co.gestiondecitasmedicas.dto.ConteoEstadoAgrupadoDto;
+import com.co.gestiondecitasmedicas.dto.ConteoEstadoDto;
+import com.co.gestiondecitasmedicas.dto.PacienteDirectorioDto;
 import com.co.gestiondecitasmedicas.models.Cita;
 
 public interface CitaRepository extends JpaRepository<Cita, Integer> {
@@ -20,6 +29,11 @@ public interface CitaRepository extends JpaRepository<Cita, Integer> {
     // Listar todas las citas de una clínica
     List<Cita> findByClinicaId(Integer clinicaId);
 
+    // Igual, con el historial en la misma consulta: del lado inverso del 1:1 Hibernate no
+    // puede dejarlo perezoso y sin el join haría una consulta por cita
+    @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.historial WHERE c.clinica.id = :clinicaId")
+    List<Cita> findByClinicaIdConHistorial(@Param("clinicaId") Integer clinicaId);
+
     /**
      * Busca la primera cita en la misma clínica y fechaHora, cuyo estado NO sea CANCELADA.
      * Esto nos sirve para validar solapamiento. 
@@ -30,4 +44,70 @@ public interface CitaRepository extends JpaRepository<Cita, Integer> {
         LocalDateTime fechaHora,
         Cita.Estado estado
     );
+
+    // Pacientes distintos que tienen (o tuvieron) citas en una clínica, para el directorio de recepción
+    @Query("SELECT DISTINCT new com.co.gestiondecitasmedicas.dto.PacienteDirectorioDto(c.clinica.id, p.id, p.nombre, p.documento) "
+         + "FROM Cita c JOIN c.paciente p WHERE c.clinica.id = :clinicaId")
+    List<PacienteDirectorioDto> findPacientesDeClinica(@Param("clinicaId") Integer clinicaId);
+
+    // Conteos por estado (y suma de valorPagar) para las estadísticas de los dashboards
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.ConteoEstadoDto(c.estado, COUNT(c), SUM(c.valorPagar)) "
+         + "FROM Cita c WHERE c.clinica.id = :clinicaId GROUP BY c.estado")
+    List<ConteoEstadoDto> contarPorEstadoDeClinica(@Param("clinicaId") Integer clinicaId);
+
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.ConteoEstadoDto(c.estado, COUNT(c), SUM(c.valorPagar)) "
+         + "FROM Cita c WHERE c.medico.id = :medicoId GROUP BY c.estado")
+    List<ConteoEstadoDto> contarPorEstadoDeMedico(@Param("medicoId") Integer medicoId);
+
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.ConteoEstadoDto(c.estado, COUNT(c), SUM(c.valorPagar)) "
+         + "FROM Cita c WHERE c.paciente.id = :pacienteId GROUP BY c.estado")
+    List<ConteoEstadoDto> contarPorEstadoDePaciente(@Param("pacienteId") Integer pacienteId);
+
+    // Los mismos conteos para muchas clínicas, médicos y pacientes a la vez (reconciliación)
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.ConteoEstadoAgrupadoDto("
+         + "c.clinica.id, c.medico.id, c.paciente.id, c.estado, COUNT(c), SUM(c.valorPagar)) "
+         + "FROM Cita c WHERE c.clinica.id IN :clinicaIds OR c.medico.id IN :medicoIds OR c.paciente.id IN :pacienteIds "
+         + "GROUP BY c.clinica.id, c.medico.id, c.paciente.id, c.estado")
+    List<ConteoEstadoAgrupadoDto> contarPorEstadoAgrupado(@Param("clinicaIds") Collection<Integer> clinicaIds,
+                                                          @Param("medicoIds") Collection<Integer> medicoIds,
+                                                          @Param("pacienteIds") Collection<Integer> pacienteIds);
+
+    // Filas de "mis citas" leídas directo de las columnas de citas (sin hidratar entidades ni joins)
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CitaResumenDto(c.id, c.fechaHora, c.estado, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre) "
+         + "FROM Cita c WHERE c.paciente.id = :pacienteId ORDER BY c.fechaHora")
+    List<CitaResumenDto> resumenesDePaciente(@Param("pacienteId") Integer pacienteId);
+
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CitaResumenDto(c.id, c.fechaHora, c.estado, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre) "
+         + "FROM Cita c WHERE c.medico.id = :medicoId ORDER BY c.fechaHora")
+    List<CitaResumenDto> resumenesDeMedico(@Param("medicoId") Integer medicoId);
+
+    // Agenda de un médico en [desde, hasta): un rango del índice (medico_id, fecha_hora), sin importar su historia
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CitaResumenDto(c.id, c.fechaHora, c.estado, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre) "
+         + "FROM Cita c WHERE c.medico.id = :medicoId AND c.fechaHora >= :desde AND c.fechaHora < :hasta "
+         + "ORDER BY c.fechaHora, c.id")
+    List<CitaResumenDto> resumenesDeMedicoEntre(@Param("medicoId") Integer medicoId,
+                                                @Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta);
+
+    // Páginas de la API por cursor: "id > despuesDe" recorre el índice de la PK sin OFFSET
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CitaApiDto(c.id, c.fechaHora, c.estado, c.clinica.id, "
+         + "c.clinicaNombre, c.medico.id, c.medicoNombre, c.paciente.id, c.pacienteNombre, c.motivo, c.valorPagar) "
+         + "FROM Cita c WHERE c.paciente.id = :pacienteId AND c.id > :despuesDe ORDER BY c.id")
+    List<CitaApiDto> paginaApiDePaciente(@Param("pacienteId") Integer pacienteId,
+                                         @Param("despuesDe") Integer despuesDe, Pageable pagina);
+
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CitaApiDto(c.id, c.fechaHora, c.estado, c.clinica.id, "
+         + "c.clinicaNombre, c.medico.id, c.medicoNombre, c.paciente.id, c.pacienteNombre, c.motivo, c.valorPagar) "
+         + "FROM Cita c WHERE c.medico.id = :medicoId AND c.id > :despuesDe ORDER BY c.id")
+    List<CitaApiDto> paginaApiDeMedico(@Param("medicoId") Integer medicoId,
+                                       @Param("despuesDe") Integer despuesDe, Pageable pagina);
+
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CitaApiDto(c.id, c.fechaHora, c.estado, c.clinica.id, "
+         + "c.clinicaNombre, c.medico.id, c.medicoNombre, c.paciente.id, c.pacienteNombre, c.motivo, c.valorPagar) "
+         + "FROM Cita c WHERE c.clinica.id = :clinicaId AND c.id > :despuesDe ORDER BY c.id")
+    List<CitaApiDto> paginaApiDeClinica(@Param("clinicaId") Integer clinicaId,
+                                        @Param("despuesDe") Integer despuesDe, Pageable pagina);
 }
@@ -2,8 +2,14 @@ package com.co.gestiondecitasmedicas.repository;
 
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.co.gestiondecitasmedicas.models.Clinica;
 
 public interface ClinicaRepository extends JpaRepository<Clinica, Integer> {
     Optional<Clinica> findByUsuarioId(Integer usuarioId);
+
+    // Solo el id de la clínica del usuario, sin cargar la entidad ni su usuario
+    @Query("SELECT c.id FROM Clinica c WHERE c.usuario.id = :usuarioId")
+    Optional<Integer> idPorUsuario(@Param("usuarioId") Integer usuarioId);
 }
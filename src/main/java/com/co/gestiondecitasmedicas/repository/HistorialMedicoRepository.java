@@ -1,12 +1,18 @@
 // src/main/java/com/co/gestiondecitasmedicas/repository/HistorialMedicoRepository.java
 package com.co.gestiondecitasmedicas.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
+import com.co.gestiondecitasmedicas.dto.HistorialPrevioDto;
+import com.co.gestiondecitasmedicas.dto.HistorialResumenDto;
 import com.co.gestiondecitasmedicas.models.HistorialMedico;
 
 public interface HistorialMedicoRepository extends JpaRepository<HistorialMedico, Integer> {
@@ -14,11 +20,49 @@ public interface HistorialMedicoRepository extends JpaRepository<HistorialMedico
     // Encontrar historial por cita
     HistorialMedico findByCitaId(Integer citaId);
 
-    // Listar todos los historiales de un paciente (vía JPQL)
-    @Query("SELECT h FROM HistorialMedico h WHERE h.cita.paciente.id = :pacienteId")
-    List<HistorialMedico> findAllByPacienteId(@Param("pacienteId") Integer pacienteId);
+    // Listados por páginas, más recientes primero, sin las columnas TEXT (siguen con (fecha, id) < cursor).
+    // El filtro va sobre las copias de historiales_medicos: índice (usuario, fecha_realizacion, id)
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.HistorialResumenDto(h.id, c.id, h.fechaRealizacion, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre) "
+         + "FROM HistorialMedico h JOIN h.cita c WHERE h.pacienteId = :pacienteId "
+         + "AND (h.fechaRealizacion < :fecha OR (h.fechaRealizacion = :fecha AND h.id < :id)) "
+         + "ORDER BY h.fechaRealizacion DESC, h.id DESC")
+    List<HistorialResumenDto> resumenesDePaciente(@Param("pacienteId") Integer pacienteId,
+                                                  @Param("fecha") LocalDateTime fecha,
+                                                  @Param("id") Integer id, Pageable pagina);
 
-    // Listar todos los historiales asociados a las citas de un médico
-    @Query("SELECT h FROM HistorialMedico h WHERE h.cita.medico.id = :medicoId")
-    List<HistorialMedico> findAllByMedicoId(@Param("medicoId") Integer medicoId);
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.HistorialResumenDto(h.id, c.id, h.fechaRealizacion, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre) "
+         + "FROM HistorialMedico h JOIN h.cita c WHERE h.medicoId = :medicoId "
+         + "AND (h.fechaRealizacion < :fecha OR (h.fechaRealizacion = :fecha AND h.id < :id)) "
+         + "ORDER BY h.fechaRealizacion DESC, h.id DESC")
+    List<HistorialResumenDto> resumenesDeMedico(@Param("medicoId") Integer medicoId,
+                                                @Param("fecha") LocalDateTime fecha,
+                                                @Param("id") Integer id, Pageable pagina);
+
+    // Páginas de la API por cursor (id > despuesDe)
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.HistorialApiDto(h.id, c.id, h.fechaRealizacion, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre, h.diagnostico, h.receta) "
+         + "FROM HistorialMedico h JOIN h.cita c WHERE c.paciente.id = :pacienteId AND h.id > :despuesDe ORDER BY h.id")
+    List<HistorialApiDto> paginaApiDePaciente(@Param("pacienteId") Integer pacienteId,
+                                              @Param("despuesDe") Integer despuesDe, Pageable pagina);
+
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.HistorialApiDto(h.id, c.id, h.fechaRealizacion, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre, h.diagnostico, h.receta) "
+         + "FROM HistorialMedico h JOIN h.cita c WHERE c.medico.id = :medicoId AND h.id > :despuesDe ORDER BY h.id")
+    List<HistorialApiDto> paginaApiDeMedico(@Param("medicoId") Integer medicoId,
+                                            @Param("despuesDe") Integer despuesDe, Pageable pagina);
+
+    // Historiales anteriores de un paciente, más recientes primero, con solo el comienzo del diagnóstico
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.HistorialPrevioDto(h.id, c.id, h.fechaRealizacion, "
+         + "c.medicoNombre, c.clinicaNombre, SUBSTRING(h.diagnostico, 1, 160)) "
+         + "FROM HistorialMedico h JOIN h.cita c WHERE h.pacienteId = :pacienteId "
+         + "ORDER BY h.fechaRealizacion DESC, h.id DESC")
+    List<HistorialPrevioDto> previosDePaciente(@Param("pacienteId") Integer pacienteId, Pageable pagina);
+
+    // Texto completo de un historial, solo si es del paciente indicado
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.HistorialApiDto(h.id, c.id, h.fechaRealizacion, "
+         + "c.pacienteNombre, c.medicoNombre, c.clinicaNombre, h.diagnostico, h.receta) "
+         + "FROM HistorialMedico h JOIN h.cita c WHERE h.id = :id AND c.paciente.id = :pacienteId")
+    Optional<HistorialApiDto> detalleDePaciente(@Param("id") Integer id, @Param("pacienteId") Integer pacienteId);
 }
@@ -0,0 +1,51 @@
+// src/main/java/com/co/gestiondecitasmedicas/repository/IngresoDiarioRepository.java
+package com.co.gestiondecitasmedicas.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.co.gestiondecitasmedicas.dto.IngresoPeriodoDto;
+import com.co.gestiondecitasmedicas.models.IngresoDiario;
+
+public interface IngresoDiarioRepository extends JpaRepository<IngresoDiario, Integer> {
+
+    /**
+     * Suma (o resta, con valores negativos) al acumulado del día.
+     * Crea la fila si es la primera factura de ese médico ese día.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO ingresos_diarios (clinica_id, medico_id, dia, total, cantidad) "
+                 + "VALUES (:clinicaId, :medicoId, :dia, :total, :cantidad) "
+                 + "ON DUPLICATE KEY UPDATE total = total + VALUES(total), cantidad = cantidad + VALUES(cantidad)",
+           nativeQuery = true)
+    int acumular(@Param("clinicaId") Integer clinicaId,
+                 @Param("medicoId") Integer medicoId,
+                 @Param("dia") LocalDate dia,
+                 @Param("total") BigDecimal total,
+                 @Param("cantidad") int cantidad);
+
+    // Totales por día de una clínica (todos los médicos) en un rango
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.IngresoPeriodoDto(i.dia, SUM(i.total), SUM(i.cantidad)) "
+         + "FROM IngresoDiario i WHERE i.clinicaId = :clinicaId AND i.dia BETWEEN :desde AND :hasta "
+         + "GROUP BY i.dia ORDER BY i.dia")
+    List<IngresoPeriodoDto> totalesPorDia(@Param("clinicaId") Integer clinicaId,
+                                          @Param("desde") LocalDate desde,
+                                          @Param("hasta") LocalDate hasta);
+
+    // Totales por día de un médico de la clínica en un rango
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.IngresoPeriodoDto(i.dia, SUM(i.total), SUM(i.cantidad)) "
+         + "FROM IngresoDiario i WHERE i.clinicaId = :clinicaId AND i.medicoId = :medicoId "
+         + "AND i.dia BETWEEN :desde AND :hasta GROUP BY i.dia ORDER BY i.dia")
+    List<IngresoPeriodoDto> totalesPorDiaDeMedico(@Param("clinicaId") Integer clinicaId,
+                                                  @Param("medicoId") Integer medicoId,
+                                                  @Param("desde") LocalDate desde,
+                                                  @Param("hasta") LocalDate hasta);
+}
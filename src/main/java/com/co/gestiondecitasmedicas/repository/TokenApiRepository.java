@@ -0,0 +1,16 @@
+// src/main/java/com/co/gestiondecitasmedicas/repository/TokenApiRepository.java
+package com.co.gestiondecitasmedicas.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.co.gestiondecitasmedicas.models.TokenApi;
+
+public interface TokenApiRepository extends JpaRepository<TokenApi, Integer> {
+
+    Optional<TokenApi> findByHash(String hash);
+
+    List<TokenApi> findByUsuarioIdOrderByIdDesc(Integer usuarioId);
+}
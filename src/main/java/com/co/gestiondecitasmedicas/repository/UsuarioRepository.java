@@ -5,7 +5,12 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.co.gestiondecitasmedicas.dto.CredencialLoginDto;
 import com.co.gestiondecitasmedicas.models.Usuario;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
@@ -13,6 +18,22 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
     Optional<Usuario> findByUsuariologin(String usuariologin);
     Optional<Usuario> findByEmail(String email);
 
+    /**
+     * Lo mínimo para autenticar (id, login, hash y roles) sin cargar la entidad con sus
+     * roles EAGER y la clínica; una fila por rol, sobre el índice único de usuariologin.
+     */
+    @Query("SELECT new com.co.gestiondecitasmedicas.dto.CredencialLoginDto(u.id, u.usuariologin, u.password, r.nombre) "
+         + "FROM Usuario u LEFT JOIN u.roles r WHERE u.usuariologin = :login")
+    List<CredencialLoginDto> credencialesDeLogin(@Param("login") String login);
+
+    /**
+     * Reemplaza el hash de la contraseña (rehash al iniciar sesión con otra fuerza de BCrypt).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.password = :password WHERE u.usuariologin = :login")
+    int actualizarPassword(@Param("login") String login, @Param("password") String password);
+
     /**
      * Consulta derivada: retorna todos los usuarios cuyo campo "clinica.id" = clinicaId, 
      * y que además tengan en su set de roles un Rol con nombre = nombreRol.
@@ -0,0 +1,23 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/AgendaEnVivoService.java
+package com.co.gestiondecitasmedicas.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface AgendaEnVivoService {
+
+    /**
+     * Abre un canal SSE con los cambios de las citas de un médico.
+     * Si llega ultimoEventoId (cabecera Last-Event-ID), primero reenvía lo que se perdió.
+     */
+    SseEmitter suscribirMedico(Integer medicoId, String ultimoEventoId);
+
+    /**
+     * Abre un canal SSE con los cambios de las citas de una clínica.
+     */
+    SseEmitter suscribirClinica(Integer clinicaId, String ultimoEventoId);
+
+    /**
+     * Canales abiertos en este nodo.
+     */
+    int conexionesAbiertas();
+}
@@ -0,0 +1,352 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/AgendaEnVivoServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.co.gestiondecitasmedicas.dto.CambioAgendaDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hub SSE de las agendas en vivo (médico y clínica).
+ *
+ * - Cada conexión es un SseEmitter sobre servlet asíncrono: mientras está ociosa no
+ *   ocupa ningún hilo, solo el socket y unos pocos objetos.
+ * - Las transiciones confirmadas (after commit) y las de otras instancias (CitaEventoAjeno,
+ *   leídas de la bitácora) se numeran y se guardan en un anillo
+ *   de "app.agenda-en-vivo.eventos-guardados" posiciones; un único hilo las reparte
+ *   a los canales del médico y de la clínica, en orden.
+ * - Repartir no escribe en el socket: deja el evento en la cola de la conexión
+ *   ("app.agenda-en-vivo.cola-por-conexion") y un grupo de "app.agenda-en-vivo.hilos-envio"
+ *   hilos la vacía. Una conexión lenta solo demora su propia cola; si se llena, se suelta
+ *   sin esperarla y el navegador, al reconectar, pide lo que le falta con Last-Event-ID.
+ * - El id de cada evento es "época-secuencia". Al reconectar, el navegador manda
+ *   Last-Event-ID y se reenvía lo que falta; si ya salió del anillo (o el servidor se
+ *   reinició) se manda "recargar" para que la página se lea de nuevo.
+ */
+@Service
+public class AgendaEnVivoServiceImpl implements AgendaEnVivoService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaEnVivoServiceImpl.class);
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private enum Ambito { MEDICO, CLINICA }
+
+    private record Canal(Ambito ambito, Integer id) { }
+
+    private record Entrada(long secuencia, Integer medicoId, Integer clinicaId, CambioAgendaDto cambio) { }
+
+    /**
+     * Conexión abierta. ultimoEnviado (solo lo toca el hilo difusor) evita mandar
+     * por difusión un evento que ya va en el reenvío de la suscripción. La cola la
+     * vacía un hilo de envío a la vez (marca "enviando"), así los eventos salen en orden.
+     */
+    private static final class Suscripcion {
+        final Canal canal;
+        final SseEmitter emitter;
+        final BlockingQueue<SseEmitter.SseEventBuilder> cola;
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean cerrada;
+        long ultimoEnviado;
+
+        Suscripcion(Canal canal, SseEmitter emitter, int capacidadCola, long ultimoEnviado) {
+            this.canal = canal;
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(capacidadCola);
+            this.ultimoEnviado = ultimoEnviado;
+        }
+    }
+
+    @Value("${app.agenda-en-vivo.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.agenda-en-vivo.eventos-guardados:1024}")
+    private int capacidad;
+
+    @Value("${app.agenda-en-vivo.cola-por-conexion:256}")
+    private int colaPorConexion;
+
+    @Value("${app.agenda-en-vivo.hilos-envio:4}")
+    private int hilosEnvio;
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Canal, Set<Suscripcion>> canales = new ConcurrentHashMap<>();
+
+    // Anillo de eventos recientes; se lee y escribe con el lock de "anilloLock"
+    private final Object anilloLock = new Object();
+    private Entrada[] anillo;
+    private long ultimaSecuencia;
+
+    // Un solo hilo reparte, así cada conexión recibe los eventos en orden
+    private final ExecutorService difusor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "agenda-en-vivo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Escriben en los sockets; uno bloqueado por un cliente lento no frena al difusor
+    private ExecutorService envios;
+
+    @PostConstruct
+    void iniciar() {
+        anillo = new Entrada[Math.max(16, capacidad)];
+        AtomicInteger numero = new AtomicInteger();
+        envios = Executors.newFixedThreadPool(Math.max(1, hilosEnvio), r -> {
+            Thread hilo = new Thread(r, "agenda-en-vivo-envio-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @Override
+    public SseEmitter suscribirMedico(Integer medicoId, String ultimoEventoId) {
+        return suscribir(new Canal(Ambito.MEDICO, medicoId), ultimoEventoId);
+    }
+
+    @Override
+    public SseEmitter suscribirClinica(Integer clinicaId, String ultimoEventoId) {
+        return suscribir(new Canal(Ambito.CLINICA, clinicaId), ultimoEventoId);
+    }
+
+    @Override
+    public int conexionesAbiertas() {
+        return canales.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        publicar(evento);
+    }
+
+    @EventListener
+    public void alCambiarCitaEnOtraInstancia(CitaEventoAjeno ajeno) {
+        publicar(ajeno.evento());
+    }
+
+    private void publicar(CitaEvento evento) {
+        CambioAgendaDto cambio = new CambioAgendaDto(
+            evento.tipo().name(),
+            evento.citaId(),
+            evento.estado() == null ? null : evento.estado().name(),
+            evento.fechaHora() == null ? null : FORMATO_FECHA.format(evento.fechaHora()),
+            evento.pacienteNombre(),
+            evento.medicoNombre()
+        );
+        synchronized (anilloLock) {
+            Entrada entrada = new Entrada(++ultimaSecuencia, evento.medicoId(), evento.clinicaId(), cambio);
+            anillo[(int) (entrada.secuencia() % anillo.length)] = entrada;
+            // Se encola dentro del lock para que el orden de la cola sea el de las secuencias
+            difusor.execute(() -> {
+                difundir(new Canal(Ambito.MEDICO, entrada.medicoId()), entrada);
+                difundir(new Canal(Ambito.CLINICA, entrada.clinicaId()), entrada);
+            });
+        }
+    }
+
+    /**
+     * Comentario periódico: mantiene vivos los proxies y descubre conexiones muertas.
+     */
+    @Scheduled(fixedDelayString = "${app.agenda-en-vivo.latido-ms:25000}")
+    public void latido() {
+        difusor.execute(() -> canales.forEach((canal, suscripciones) -> {
+            for (Suscripcion s : suscripciones) {
+                enviar(canal, s, SseEmitter.event().comment("latido"));
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        difusor.shutdownNow();
+        envios.shutdownNow();
+        canales.values().forEach(suscripciones -> suscripciones.forEach(s -> s.emitter.complete()));
+        canales.clear();
+    }
+
+    private SseEmitter suscribir(Canal canal, String ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+
+        synchronized (anilloLock) {
+            long desde = secuenciaDe(ultimoEventoId);
+            long masAntigua = Math.max(1, ultimaSecuencia - anillo.length + 1);
+            boolean reenviar = ultimoEventoId != null && desde >= 0 && desde + 1 >= masAntigua;
+            boolean recargar = ultimoEventoId != null && !reenviar;
+
+            List<Entrada> perdidas = new ArrayList<>();
+            if (reenviar) {
+                for (long seq = desde + 1; seq <= ultimaSecuencia; seq++) {
+                    Entrada e = anillo[(int) (seq % anillo.length)];
+                    if (e != null && e.secuencia() == seq && pertenece(canal, e)) {
+                        perdidas.add(e);
+                    }
+                }
+            }
+            if (perdidas.size() >= colaPorConexion) {
+                // No caben en la cola de la conexión: es más barato que la página se vuelva a leer
+                perdidas.clear();
+                recargar = true;
+            }
+            boolean mandarRecargar = recargar;
+            // Lo que ya está en el anillo llega solo por el reenvío (o la página ya lo muestra);
+            // las difusiones pendientes de esos eventos se saltan
+            Suscripcion s = new Suscripcion(canal, emitter, colaPorConexion, ultimaSecuencia);
+            canales.compute(canal, (k, suscripciones) -> {
+                Set<Suscripcion> set = suscripciones != null ? suscripciones : ConcurrentHashMap.newKeySet();
+                set.add(s);
+                return set;
+            });
+
+            // También por el difusor: queda ordenado respecto de los eventos que vengan después
+            difusor.execute(() -> {
+                if (mandarRecargar) {
+                    enviar(canal, s, SseEmitter.event().name("recargar").data("{}", MediaType.APPLICATION_JSON));
+                }
+                for (Entrada e : perdidas) {
+                    enviarEvento(canal, s, e);
+                }
+            });
+        }
+
+        Runnable quitar = () -> quitar(canal, emitter);
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> quitar.run());
+        return emitter;
+    }
+
+    private void difundir(Canal canal, Entrada entrada) {
+        Set<Suscripcion> suscripciones = canales.get(canal);
+        if (suscripciones == null) {
+            return;
+        }
+        for (Suscripcion s : suscripciones) {
+            enviarEntrada(canal, s, entrada);
+        }
+    }
+
+    private void enviarEntrada(Canal canal, Suscripcion s, Entrada entrada) {
+        if (entrada.secuencia() <= s.ultimoEnviado) {
+            return;
+        }
+        s.ultimoEnviado = entrada.secuencia();
+        enviarEvento(canal, s, entrada);
+    }
+
+    private void enviarEvento(Canal canal, Suscripcion s, Entrada entrada) {
+        enviar(canal, s, SseEmitter.event()
+            .id(epoca + "-" + entrada.secuencia())
+            .name("cita")
+            .data(entrada.cambio(), MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * Deja el evento en la cola de la conexión (nunca espera). Si la cola está llena el
+     * cliente no da abasto: se suelta y el hilo de envío cierra la conexión.
+     */
+    private void enviar(Canal canal, Suscripcion s, SseEmitter.SseEventBuilder evento) {
+        if (s.cerrada) {
+            return;
+        }
+        if (!s.cola.offer(evento)) {
+            s.cerrada = true;
+            quitar(canal, s.emitter);
+            log.info("Conexión de agenda en vivo ({} {}) soltada: no recibe los eventos a tiempo",
+                canal.ambito(), canal.id());
+        }
+        programar(s);
+    }
+
+    private void programar(Suscripcion s) {
+        if (s.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> vaciarCola(s));
+        }
+    }
+
+    // En un hilo de envío; send() puede bloquearse mientras el cliente no lee
+    private void vaciarCola(Suscripcion s) {
+        try {
+            SseEmitter.SseEventBuilder evento;
+            while (!s.cerrada && (evento = s.cola.poll()) != null) {
+                try {
+                    s.emitter.send(evento);
+                } catch (IOException | IllegalStateException ex) {
+                    // El cliente se fue o la conexión ya terminó
+                    s.cerrada = true;
+                    quitar(s.canal, s.emitter);
+                }
+            }
+            if (s.cerrada) {
+                s.cola.clear();
+                cerrar(s.emitter);
+            }
+        } finally {
+            s.enviando.set(false);
+        }
+        // Lo que se encoló mientras se soltaba la marca
+        if (!s.cerrada && !s.cola.isEmpty()) {
+            programar(s);
+        }
+    }
+
+    private static void cerrar(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (IllegalStateException ex) {
+            // Ya estaba terminada
+        }
+    }
+
+    private void quitar(Canal canal, SseEmitter emitter) {
+        canales.computeIfPresent(canal, (k, suscripciones) -> {
+            suscripciones.removeIf(s -> s.emitter == emitter);
+            return suscripciones.isEmpty() ? null : suscripciones;
+        });
+    }
+
+    private static boolean pertenece(Canal canal, Entrada e) {
+        return canal.ambito() == Ambito.MEDICO
+            ? canal.id().equals(e.medicoId())
+            : canal.id().equals(e.clinicaId());
+    }
+
+    /**
+     * Secuencia de un Last-Event-ID de esta misma época; -1 si no se puede usar.
+     */
+    private long secuenciaDe(String ultimoEventoId) {
+        if (ultimoEventoId == null || !ultimoEventoId.startsWith(epoca + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(ultimoEventoId.substring(epoca.length() + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+
+public interface AgendaMedicoService {
+
+    /**
+     * Citas del médico en un día (todas, también las canceladas), por hora.
+     */
+    List<CitaResumenDto> dia(Integer medicoId, LocalDate dia);
+
+    /**
+     * Siete días desde "desde", cada uno con sus citas, en orden.
+     */
+    Map<LocalDate, List<CitaResumenDto>> semana(Integer medicoId, LocalDate desde);
+
+    /**
+     * Próxima cita por atender (RESERVADA o FACTURADA) desde "desde", buscando unos pocos días adelante.
+     */
+    Optional<CitaResumenDto> siguiente(Integer medicoId, LocalDateTime desde);
+}
@@ -0,0 +1,186 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/AgendaMedicoServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.repository.CitaRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Agenda del médico por día, con cache por (médico, día).
+ *
+ * - Un día se lee una vez con un rango del índice (medico_id, fecha_hora): cuesta lo
+ *   mismo tenga el médico diez años de citas o ninguna. La semana son siete días del cache.
+ * - Una transición borra solo los días que toca: el de la fecha nueva y, si se movió, el
+ *   de la anterior. La consulta se hace fuera del mapa (no retiene a nadie más) y el día
+ *   se publica solo si su generación no cambió mientras se leía: el borrado sube la
+ *   generación antes de quitar el día, y la carga la vuelve a mirar después de guardarlo,
+ *   así un día leído antes del commit no queda en el cache.
+ * - Por si algún borrado no llega (un evento perdido), cada día vence a los
+ *   "app.agenda-medico.ttl-ms".
+ * - Cada "app.agenda-medico.sincronizacion-ms" se reproduce la bitácora para borrar
+ *   también los días que cambiaron en otras instancias.
+ * - Se guardan como máximo "app.agenda-medico.max-dias" días; al pasarse se descarta alguno.
+ */
+@Service
+public class AgendaMedicoServiceImpl implements AgendaMedicoService, ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaMedicoServiceImpl.class);
+
+    private record Clave(Integer medicoId, LocalDate dia) { }
+
+    private record Dia(List<CitaResumenDto> citas, long venceEn) { }
+
+    // Generaciones por franja de claves: un borrado sube la de su franja
+    private static final int FRANJAS = 64;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private BitacoraCitasService bitacora;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.agenda-medico.max-dias:50000}")
+    private int maxDias;
+
+    @Value("${app.agenda-medico.dias-siguiente:7}")
+    private int diasSiguiente;
+
+    @Value("${app.agenda-medico.ttl-ms:60000}")
+    private long ttlMs;
+
+    private final Map<Clave, Dia> dias = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray generaciones = new AtomicLongArray(FRANJAS);
+
+    private volatile CursorBitacora cursor;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Lo anterior ya está en la BD: el cache arranca vacío y solo interesa lo que venga
+        cursor = new CursorBitacora(bitacora.ultimoOffset());
+    }
+
+    @Override
+    public List<CitaResumenDto> dia(Integer medicoId, LocalDate dia) {
+        Clave clave = new Clave(medicoId, dia);
+        Dia guardado = dias.get(clave);
+        if (guardado != null && guardado.venceEn() > System.currentTimeMillis()) {
+            return guardado.citas();
+        }
+
+        int franja = franja(clave);
+        long generacion = generaciones.get(franja);
+        Dia cargado = new Dia(cargar(clave), System.currentTimeMillis() + ttlMs);
+        if (dias.size() >= maxDias && !dias.containsKey(clave)) {
+            descartarAlguno();
+        }
+        dias.put(clave, cargado);
+        if (generaciones.get(franja) != generacion) {
+            // Hubo un borrado mientras se leía: lo leído puede ser de antes del commit
+            dias.remove(clave, cargado);
+        }
+        return cargado.citas();
+    }
+
+    @Override
+    public Map<LocalDate, List<CitaResumenDto>> semana(Integer medicoId, LocalDate desde) {
+        Map<LocalDate, List<CitaResumenDto>> semana = new LinkedHashMap<>();
+        for (int i = 0; i < 7; i++) {
+            semana.put(desde.plusDays(i), dia(medicoId, desde.plusDays(i)));
+        }
+        return semana;
+    }
+
+    @Override
+    public Optional<CitaResumenDto> siguiente(Integer medicoId, LocalDateTime desde) {
+        for (int i = 0; i <= diasSiguiente; i++) {
+            for (CitaResumenDto cita : dia(medicoId, desde.toLocalDate().plusDays(i))) {
+                if (!cita.fechaHora().isBefore(desde) && porAtender(cita.estado())) {
+                    return Optional.of(cita);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Borra los días de la cita (fecha nueva y anterior) al confirmarse la transición.
+     */
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        invalidar(evento);
+    }
+
+    @Scheduled(fixedDelayString = "${app.agenda-medico.sincronizacion-ms:5000}")
+    public void sincronizar() {
+        if (cursor == null) {
+            return;
+        }
+        try {
+            bitacora.reproducir(cursor, (o, evento) -> invalidar(evento));
+        } catch (RuntimeException ex) {
+            log.error("No se pudo reproducir la bitácora para la agenda de médicos; se reintentará", ex);
+        }
+    }
+
+    private List<CitaResumenDto> cargar(Clave clave) {
+        registry.counter("agenda.medico.cargas").increment();
+        LocalDateTime inicio = clave.dia().atStartOfDay();
+        return List.copyOf(citaRepository.resumenesDeMedicoEntre(clave.medicoId(), inicio, inicio.plusDays(1)));
+    }
+
+    private void invalidar(CitaEvento evento) {
+        if (evento.fechaHora() != null) {
+            borrar(new Clave(evento.medicoId(), evento.fechaHora().toLocalDate()));
+        }
+        if (evento.fechaHoraAnterior() != null) {
+            borrar(new Clave(evento.medicoId(), evento.fechaHoraAnterior().toLocalDate()));
+        }
+    }
+
+    private void borrar(Clave clave) {
+        generaciones.incrementAndGet(franja(clave));
+        dias.remove(clave);
+    }
+
+    private static int franja(Clave clave) {
+        return Math.floorMod(clave.hashCode(), FRANJAS);
+    }
+
+    private void descartarAlguno() {
+        Iterator<Clave> it = dias.keySet().iterator();
+        if (it.hasNext()) {
+            dias.remove(it.next());
+        }
+    }
+
+    private static boolean porAtender(Cita.Estado estado) {
+        return estado == Cita.Estado.RESERVADA || estado == Cita.Estado.FACTURADA;
+    }
+}
@@ -0,0 +1,31 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/ArriendoTareasService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ArriendoTareasService {
+
+    /**
+     * Intenta tomar la tarea por "duracion". Devuelve true si esta instancia queda como
+     * dueña (estaba libre, vencida o ya era suya).
+     */
+    boolean tomar(String tarea, Duration duracion);
+
+    /**
+     * Extiende el arriendo y guarda el progreso (null lo deja igual). Devuelve false si
+     * esta instancia ya no es dueña (venció y otra la tomó): hay que dejar de trabajar.
+     */
+    boolean renovar(String tarea, Duration duracion, LocalDateTime progreso);
+
+    /**
+     * Progreso guardado por la última dueña de la tarea.
+     */
+    Optional<LocalDateTime> progreso(String tarea);
+
+    /**
+     * Libera la tarea para que cualquier instancia la tome en la próxima vuelta.
+     */
+    void soltar(String tarea);
+}
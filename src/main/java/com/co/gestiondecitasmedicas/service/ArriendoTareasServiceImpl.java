@@ -0,0 +1,87 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/ArriendoTareasServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Arriendos de tareas programadas sobre la tabla arriendos_tareas.
+ *
+ * - Tomar es un UPDATE condicionado (libre, vencido o propio) o, si la fila no existe,
+ *   un INSERT IGNORE: en ambos casos la base de datos decide quién gana, sin locks largos.
+ * - El vencimiento se calcula con el reloj de la base de datos, así no importa la
+ *   diferencia de hora entre instancias.
+ * - El dueño es host + un id aleatorio por arranque: dos procesos en el mismo host
+ *   no se confunden.
+ */
+@Service
+public class ArriendoTareasServiceImpl implements ArriendoTareasService {
+
+    private static final String SQL_TOMAR =
+        "UPDATE arriendos_tareas SET duenio = ?, vence_en = TIMESTAMPADD(SECOND, ?, NOW(6)) "
+      + "WHERE tarea = ? AND (vence_en < NOW(6) OR duenio = ?)";
+
+    private static final String SQL_CREAR =
+        "INSERT IGNORE INTO arriendos_tareas (tarea, duenio, vence_en) "
+      + "VALUES (?, ?, TIMESTAMPADD(SECOND, ?, NOW(6)))";
+
+    private static final String SQL_RENOVAR =
+        "UPDATE arriendos_tareas SET vence_en = TIMESTAMPADD(SECOND, ?, NOW(6)), progreso = COALESCE(?, progreso) "
+      + "WHERE tarea = ? AND duenio = ?";
+
+    private static final String SQL_PROGRESO =
+        "SELECT progreso FROM arriendos_tareas WHERE tarea = ?";
+
+    private static final String SQL_SOLTAR =
+        "UPDATE arriendos_tareas SET vence_en = NOW(6) WHERE tarea = ? AND duenio = ?";
+
+    private final String duenio = host() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean tomar(String tarea, Duration duracion) {
+        long segundos = duracion.toSeconds();
+        if (jdbcTemplate.update(SQL_TOMAR, duenio, segundos, tarea, duenio) == 1) {
+            return true;
+        }
+        return jdbcTemplate.update(SQL_CREAR, tarea, duenio, segundos) == 1;
+    }
+
+    @Override
+    public boolean renovar(String tarea, Duration duracion, LocalDateTime progreso) {
+        return jdbcTemplate.update(SQL_RENOVAR, duracion.toSeconds(),
+            progreso == null ? null : Timestamp.valueOf(progreso), tarea, duenio) == 1;
+    }
+
+    @Override
+    public Optional<LocalDateTime> progreso(String tarea) {
+        List<LocalDateTime> filas = jdbcTemplate.query(SQL_PROGRESO,
+            (rs, i) -> rs.getObject("progreso", LocalDateTime.class), tarea);
+        return filas.isEmpty() ? Optional.empty() : Optional.ofNullable(filas.get(0));
+    }
+
+    @Override
+    public void soltar(String tarea) {
+        jdbcTemplate.update(SQL_SOLTAR, tarea, duenio);
+    }
+
+    private static String host() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "desconocido";
+        }
+    }
+}
@@ -0,0 +1,20 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/BitacoraCitasService.java
+package com.co.gestiondecitasmedicas.service;
+
+import com.co.gestiondecitasmedicas.eventos.ProyeccionCitas;
+
+public interface BitacoraCitasService {
+
+    /**
+     * Aplica a la proyección los eventos posteriores al cursor, en orden de offset, y lo avanza.
+     * Antes vuelve a buscar los huecos que el cursor aún espera (ids que se confirmaron
+     * después de otros mayores); los que aparecen se entregan con aplicarTardio.
+     */
+    void reproducir(CursorBitacora cursor, ProyeccionCitas proyeccion);
+
+    /**
+     * Offset del último evento escrito (0 si la bitácora está vacía).
+     * Una proyección que se carga desde la BD lo toma antes de leer y reproduce desde ahí.
+     */
+    long ultimoOffset();
+}
@@ -0,0 +1,267 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/BitacoraCitasServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+import com.co.gestiondecitasmedicas.eventos.ProyeccionCitas;
+import com.co.gestiondecitasmedicas.models.Cita;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bitácora de solo inserción (tabla citas_eventos) con todas las transiciones de citas.
+ *
+ * - Los eventos se escriben dentro de la misma transacción que cambia la cita: se juntan
+ *   los de la transacción y se insertan con un único batch JDBC justo antes del commit.
+ *   Si la cita se confirma, sus eventos también; si el INSERT falla, la transacción se
+ *   deshace entera. Ningún evento confirmado se pierde por una caída ni se descarta.
+ * - El id autoincremental de la tabla es el offset del evento. Los ids se asignan al
+ *   insertar pero las transacciones se confirman en cualquier orden: al reproducir, los
+ *   ids que faltan por debajo del último leído quedan en el cursor como huecos y se
+ *   vuelven a buscar durante "app.bitacora.espera-huecos-ms".
+ * - Los nombres y el documento no se guardan: al reproducir se leen de la cita (null si
+ *   la cita ya no existe).
+ * - Cada evento lleva el origen (instancia que lo escribió). Cada "app.bitacora.ajenos-ms"
+ *   se reproducen los de otras instancias y se publican como CitaEventoAjeno, para los
+ *   modelos en memoria que solo escuchan las transiciones propias.
+ */
+@Service
+public class BitacoraCitasServiceImpl implements BitacoraCitasService {
+
+    private static final Logger log = LoggerFactory.getLogger(BitacoraCitasServiceImpl.class);
+
+    private static final String SQL_INSERTAR =
+        "INSERT INTO citas_eventos (tipo, cita_id, clinica_id, medico_id, paciente_id, actor, "
+      + "estado_anterior, estado_nuevo, fecha_hora_anterior, fecha_hora, valor_pagar, ocurrido_en, origen) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_COLUMNAS =
+        "SELECT e.id, e.tipo, e.cita_id, e.clinica_id, e.medico_id, e.paciente_id, e.actor, "
+      + "e.estado_anterior, e.estado_nuevo, e.fecha_hora_anterior, e.fecha_hora, e.valor_pagar, "
+      + "e.ocurrido_en, e.origen, c.paciente_nombre, c.documento_identidad, c.medico_nombre, c.clinica_nombre "
+      + "FROM citas_eventos e LEFT JOIN citas c ON c.id = e.cita_id ";
+
+    private static final String SQL_LEER = SQL_COLUMNAS + "WHERE e.id > ? ORDER BY e.id LIMIT ?";
+
+    private static final String SQL_ULTIMO = "SELECT COALESCE(MAX(id), 0) FROM citas_eventos";
+
+    private static final int PAGINA_REPRODUCCION = 1000;
+
+    // Más ids seguidos que esto no son un lote a medio confirmar sino un salto del autoincremento
+    private static final int MAX_HUECO = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.bitacora.espera-huecos-ms:60000}")
+    private long esperaHuecosMs;
+
+    private final String origen = UUID.randomUUID().toString();
+
+    // Posición de lo ya publicado como CitaEventoAjeno (solo lo usa la tarea programada)
+    private CursorBitacora ajenos;
+
+    /**
+     * Se escucha dentro de la transacción que publica el evento (no after commit): el
+     * primero de la transacción registra la escritura del lote antes del commit.
+     */
+    @EventListener
+    public void alCambiarCita(CitaEvento evento) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            escribir(List.of(evento)); // sin transacción: se escribe en el momento
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<CitaEvento> lote = (List<CitaEvento>) TransactionSynchronizationManager.getResource(this);
+        if (lote == null) {
+            List<CitaEvento> nuevo = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, nuevo);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean soloLectura) {
+                    escribir(nuevo);
+                }
+
+                @Override
+                public void afterCompletion(int estado) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BitacoraCitasServiceImpl.this);
+                }
+            });
+            lote = nuevo;
+        }
+        lote.add(evento);
+    }
+
+    /**
+     * Publica como CitaEventoAjeno lo que escribieron otras instancias desde la vuelta anterior.
+     */
+    @Scheduled(fixedDelayString = "${app.bitacora.ajenos-ms:1000}")
+    public synchronized void publicarAjenos() {
+        try {
+            if (ajenos == null) {
+                // Lo anterior al arranque ya está en la BD: los modelos lo leen al cargarse
+                ajenos = new CursorBitacora(ultimoOffset());
+                return;
+            }
+            reproducir(ajenos, new ProyeccionCitas() {
+                @Override
+                public void aplicar(long offset, CitaEvento evento) {
+                    eventPublisher.publishEvent(new CitaEventoAjeno(offset, evento, false));
+                }
+
+                @Override
+                public void aplicarTardio(long offset, CitaEvento evento) {
+                    eventPublisher.publishEvent(new CitaEventoAjeno(offset, evento, true));
+                }
+            }, true);
+        } catch (RuntimeException ex) {
+            log.error("No se pudieron publicar los eventos de otras instancias; se reintentará", ex);
+        }
+    }
+
+    @Override
+    public void reproducir(CursorBitacora cursor, ProyeccionCitas proyeccion) {
+        reproducir(cursor, proyeccion, false);
+    }
+
+    private void reproducir(CursorBitacora cursor, ProyeccionCitas proyeccion, boolean soloAjenos) {
+        rellenarHuecos(cursor, proyeccion, soloAjenos);
+        long ultimo = cursor.offset();
+        while (true) {
+            List<EventoLeido> pagina = jdbcTemplate.query(SQL_LEER, this::leerFila, ultimo, PAGINA_REPRODUCCION);
+            for (EventoLeido leido : pagina) {
+                anotarHuecos(cursor, ultimo, leido.offset());
+                if (!soloAjenos || !leido.propio()) {
+                    proyeccion.aplicar(leido.offset(), leido.evento());
+                }
+                ultimo = leido.offset();
+                cursor.avanzar(ultimo);
+            }
+            if (pagina.size() < PAGINA_REPRODUCCION) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long ultimoOffset() {
+        Long ultimo = jdbcTemplate.queryForObject(SQL_ULTIMO, Long.class);
+        return ultimo == null ? 0 : ultimo;
+    }
+
+    /**
+     * Busca los huecos que el cursor espera; los que aparecieron se entregan como tardíos y
+     * los que pasaron la espera se olvidan (una transacción que se deshizo o un id que nunca se usó).
+     */
+    private void rellenarHuecos(CursorBitacora cursor, ProyeccionCitas proyeccion, boolean soloAjenos) {
+        Map<Long, Long> huecos = cursor.huecos();
+        long limite = System.currentTimeMillis() - esperaHuecosMs;
+        huecos.values().removeIf(visto -> visto < limite);
+        if (huecos.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(huecos.keySet());
+        for (int i = 0; i < ids.size(); i += PAGINA_REPRODUCCION) {
+            List<Long> parte = ids.subList(i, Math.min(ids.size(), i + PAGINA_REPRODUCCION));
+            String sql = SQL_COLUMNAS + "WHERE e.id IN (" + String.join(",", Collections.nCopies(parte.size(), "?"))
+                + ") ORDER BY e.id";
+            for (EventoLeido leido : jdbcTemplate.query(sql, this::leerFila, parte.toArray())) {
+                huecos.remove(leido.offset());
+                if (!soloAjenos || !leido.propio()) {
+                    proyeccion.aplicarTardio(leido.offset(), leido.evento());
+                }
+                registry.counter("bitacora.eventos.tardios").increment();
+            }
+        }
+    }
+
+    private void anotarHuecos(CursorBitacora cursor, long anterior, long leido) {
+        long faltantes = leido - anterior - 1;
+        if (faltantes <= 0) {
+            return;
+        }
+        if (faltantes > MAX_HUECO) {
+            log.warn("Salto de {} ids en la bitácora de citas (de {} a {}); no se esperan", faltantes, anterior, leido);
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        for (long id = anterior + 1; id < leido; id++) {
+            cursor.huecos().putIfAbsent(id, ahora);
+        }
+    }
+
+    private void escribir(List<CitaEvento> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, lote, lote.size(), (ps, e) -> {
+            ps.setString(1, e.tipo().name());
+            ps.setObject(2, e.citaId());
+            ps.setObject(3, e.clinicaId());
+            ps.setObject(4, e.medicoId());
+            ps.setObject(5, e.pacienteId());
+            ps.setString(6, e.actor());
+            ps.setString(7, e.estadoAnterior() == null ? null : e.estadoAnterior().name());
+            ps.setString(8, e.estado() == null ? null : e.estado().name());
+            ps.setTimestamp(9, e.fechaHoraAnterior() == null ? null : Timestamp.valueOf(e.fechaHoraAnterior()));
+            ps.setTimestamp(10, e.fechaHora() == null ? null : Timestamp.valueOf(e.fechaHora()));
+            ps.setBigDecimal(11, e.valorPagar());
+            ps.setTimestamp(12, Timestamp.valueOf(e.instante()));
+            ps.setString(13, origen);
+        });
+    }
+
+    private EventoLeido leerFila(ResultSet rs, int fila) throws SQLException {
+        String estadoAnterior = rs.getString("estado_anterior");
+        String estadoNuevo = rs.getString("estado_nuevo");
+        CitaEvento evento = new CitaEvento(
+            CitaEvento.Tipo.valueOf(rs.getString("tipo")),
+            rs.getObject("cita_id", Integer.class),
+            rs.getObject("clinica_id", Integer.class),
+            rs.getObject("medico_id", Integer.class),
+            rs.getObject("paciente_id", Integer.class),
+            rs.getString("paciente_nombre"),
+            rs.getString("documento_identidad"),
+            rs.getString("medico_nombre"),
+            rs.getString("clinica_nombre"),
+            estadoAnterior == null ? null : Cita.Estado.valueOf(estadoAnterior),
+            estadoNuevo == null ? null : Cita.Estado.valueOf(estadoNuevo),
+            rs.getObject("fecha_hora_anterior", LocalDateTime.class),
+            rs.getObject("fecha_hora", LocalDateTime.class),
+            rs.getBigDecimal("valor_pagar"),
+            rs.getString("actor"),
+            rs.getObject("ocurrido_en", LocalDateTime.class)
+        );
+        return new EventoLeido(rs.getLong("id"), evento, origen.equals(rs.getString("origen")));
+    }
+
+    private record EventoLeido(long offset, CitaEvento evento, boolean propio) { }
+}
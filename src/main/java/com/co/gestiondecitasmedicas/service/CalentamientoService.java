@@ -0,0 +1,18 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/CalentamientoService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.Map;
+
+public interface CalentamientoService {
+
+    /**
+     * Resultado del calentamiento: duración total, si se completaron todos los pasos
+     * dentro del presupuesto y cuánto tardó cada paso (ms).
+     */
+    record Resultado(long duracionMs, boolean completo, Map<String, Long> pasosMs) { }
+
+    /**
+     * Ejecuta los pasos de calentamiento respetando "app.calentamiento.presupuesto-ms".
+     */
+    Resultado calentar();
+}
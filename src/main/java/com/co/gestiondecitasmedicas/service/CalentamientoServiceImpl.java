@@ -0,0 +1,425 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/CalentamientoServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import com.co.gestiondecitasmedicas.dto.CitaDto;
+import com.co.gestiondecitasmedicas.dto.HistorialDto;
+import com.co.gestiondecitasmedicas.dto.ResumenCitasDto;
+import com.co.gestiondecitasmedicas.dto.UsuarioDto;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.models.Clinica;
+import com.co.gestiondecitasmedicas.models.HistorialMedico;
+import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.repository.ClinicaRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Calentamiento al arrancar, antes de que la sonda de readiness pase a verde.
+ *
+ * Corre como ApplicationRunner: Spring Boot publica ReadinessState.ACCEPTING_TRAFFIC
+ * recién cuando terminan los runners, así los primeros usuarios no pagan la
+ * inicialización en frío. Pasos, en orden:
+ * - jasper: genera cada informe con una fila sintética (fuentes, extensiones, exportador PDF).
+ *   InformeService sigue siendo perezoso: no se crea al levantar el contexto (ni en la corrida
+ *   de entrenamiento de CDS), sino acá, antes de la readiness. Con
+ *   "app.calentamiento.informes=false" se salta y Jasper se carga con el primer PDF;
+ * - vistas: renderiza cada plantilla de "templates/" con la vista de Thymeleaf de la
+ *   aplicación, un modelo sintético y una petición sintética (parseo y cache de las
+ *   plantillas, SpEL, enlace de formularios). Las listas del modelo van vacías: lo que
+ *   está dentro de un th:each se parsea pero no se evalúa;
+ * - consultas: ejecuta cada consulta declarada en los repositorios de la aplicación
+ *   (salvo las @Modifying), con ids que no existen, en una transacción de solo lectura
+ *   (planes de Hibernate, sentencias del driver, pool). La lista sale de los repositorios
+ *   por reflexión, así una consulta nueva se calienta sin tocar esta clase;
+ * - caches: carga los contadores y el directorio de pacientes de cada clínica.
+ *
+ * Se respeta "app.calentamiento.presupuesto-ms": al agotarse no se empiezan más pasos
+ * y la aplicación queda lista igual.
+ */
+@Service
+public class CalentamientoServiceImpl implements CalentamientoService, ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CalentamientoServiceImpl.class);
+
+    // Id que no existe: las consultas recorren el índice y no devuelven filas
+    private static final int ID_INEXISTENTE = -1;
+    private static final Pageable UNA_FILA = PageRequest.of(0, 1);
+
+    private static final String PAQUETE_REPOSITORIOS = ClinicaRepository.class.getPackageName();
+
+    @Autowired @Lazy private InformeService informeService;
+    @Autowired private EstadisticasCitasService estadisticasCitas;
+    @Autowired private DirectorioPacientesService directorioPacientes;
+    @Autowired private ClinicaRepository clinicaRepository;
+    @Autowired private List<Repository<?, ?>> repositorios;
+    @Autowired private ThymeleafViewResolver vistas;
+    @Autowired private WebApplicationContext contexto;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private MeterRegistry registry;
+    @Autowired private Environment env;
+
+    @Value("${app.calentamiento.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.calentamiento.presupuesto-ms:30000}")
+    private long presupuestoMs;
+
+    @Value("${app.calentamiento.informes:true}")
+    private boolean informes;
+
+    private volatile long limite;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado) {
+            return;
+        }
+        // En un hilo aparte: si un paso se cuelga, el arranque no queda esperando más que el presupuesto
+        ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "calentamiento");
+            t.setDaemon(true);
+            return t;
+        });
+        Future<Resultado> futuro = hilo.submit(this::calentar);
+        try {
+            Resultado r = futuro.get(presupuestoMs, TimeUnit.MILLISECONDS);
+            log.info("Calentamiento {} en {} ms: {}", r.completo() ? "terminado" : "cortado por presupuesto",
+                r.duracionMs(), r.pasosMs());
+        } catch (TimeoutException ex) {
+            log.warn("Calentamiento sin terminar tras {} ms; la aplicación queda lista igual", presupuestoMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            log.warn("Falló el calentamiento; la aplicación queda lista igual", ex.getCause());
+        } finally {
+            hilo.shutdownNow();
+        }
+    }
+
+    @Override
+    public Resultado calentar() {
+        long inicio = System.nanoTime();
+        limite = inicio + TimeUnit.MILLISECONDS.toNanos(presupuestoMs);
+        Map<String, Long> pasos = new LinkedHashMap<>();
+        boolean completo = (!informes || paso("jasper", this::calentarInformes, pasos))
+            && paso("vistas", this::calentarVistas, pasos)
+            && paso("consultas", this::calentarConsultas, pasos)
+            && paso("caches", this::calentarCaches, pasos);
+        long duracion = System.nanoTime() - inicio;
+        Timer.builder("calentamiento.duracion")
+            .description("Duración del calentamiento al arrancar")
+            .register(registry)
+            .record(duracion, TimeUnit.NANOSECONDS);
+        return new Resultado(TimeUnit.NANOSECONDS.toMillis(duracion), completo, pasos);
+    }
+
+    /**
+     * Ejecuta un paso si queda presupuesto; un paso que falla no detiene a los demás.
+     */
+    private boolean paso(String nombre, Runnable accion, Map<String, Long> pasos) {
+        if (System.nanoTime() - limite >= 0) {
+            return false;
+        }
+        long inicio = System.nanoTime();
+        try {
+            accion.run();
+        } catch (RuntimeException ex) {
+            log.warn("Paso de calentamiento '{}' con errores: {}", nombre, ex.getMessage());
+        }
+        pasos.put(nombre, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        return true;
+    }
+
+    private boolean hayTiempo() {
+        return System.nanoTime() - limite < 0;
+    }
+
+    private void calentarInformes() {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        Map<String, Object> historial = new HashMap<>();
+        historial.put("pacienteNombre", "Paciente");
+        historial.put("medicoNombre",   "Médico");
+        historial.put("clinicaNombre",  "Clínica");
+        historial.put("fechaCita",      ahora);
+        historial.put("fechaImpresion", ahora);
+        historial.put("diagnostico",    "Diagnóstico");
+        historial.put("receta",         "Receta");
+        informeService.generarPdf(InformeService.HISTORIAL_MEDICO, historial);
+
+        Map<String, Object> factura = new HashMap<>();
+        factura.put("clinicaNombre",  "Clínica");
+        factura.put("fechaHora",      ahora);
+        factura.put("medicoNombre",   "Médico");
+        factura.put("pacienteNombre", "Paciente");
+        factura.put("documento",      "0");
+        factura.put("motivo",         "Motivo");
+        factura.put("valorPagar",     BigDecimal.ONE);
+        informeService.generarPdf(InformeService.FACTURACION, factura);
+    }
+
+    private void calentarVistas() {
+        List<String> fallidas = renderizarPlantillas();
+        if (!fallidas.isEmpty()) {
+            log.warn("Plantillas de calentamiento con errores: {}", fallidas);
+        }
+    }
+
+    /**
+     * Renderiza cada plantilla con el modelo sintético; devuelve las que fallaron.
+     */
+    List<String> renderizarPlantillas() {
+        List<String> fallidas = new ArrayList<>();
+        for (String plantilla : plantillas()) {
+            if (!hayTiempo()) {
+                break;
+            }
+            try {
+                View vista = vistas.resolveViewName(plantilla, Locale.getDefault());
+                Map<String, Object> atributos = Map.of(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, contexto);
+                vista.render(modeloSintetico(), PeticionSintetica.peticion(contexto.getServletContext(), atributos),
+                    PeticionSintetica.respuesta());
+            } catch (Exception ex) {
+                fallidas.add(plantilla + ": " + ex.getMessage());
+            }
+        }
+        return fallidas;
+    }
+
+    /**
+     * Nombres de vista (ruta relativa sin ".html") de todas las plantillas de Thymeleaf.
+     */
+    List<String> plantillas() {
+        String prefijo = env.getProperty("spring.thymeleaf.prefix", "classpath:/templates/");
+        String sufijo = env.getProperty("spring.thymeleaf.suffix", ".html");
+        String carpeta = prefijo.substring(prefijo.indexOf(':') + 1); // "/templates/"
+        List<String> nombres = new ArrayList<>();
+        try {
+            for (Resource recurso : contexto.getResources(prefijo + "**/*" + sufijo)) {
+                String ruta = recurso.getURL().toString();
+                String relativa = ruta.substring(ruta.lastIndexOf(carpeta) + carpeta.length());
+                nombres.add(relativa.substring(0, relativa.length() - sufijo.length()));
+            }
+        } catch (IOException ex) {
+            log.debug("No se pudieron listar las plantillas", ex);
+        }
+        nombres.sort(Comparator.naturalOrder());
+        return nombres;
+    }
+
+    /**
+     * Lo que los controladores ponen en el modelo, con valores de mentira. Un solo modelo
+     * sirve para todas las vistas: cada una toma lo que usa.
+     */
+    private Map<String, Object> modeloSintetico() {
+        LocalDate hoy = LocalDate.now();
+        Clinica clinica = new Clinica();
+        clinica.setId(ID_INEXISTENTE);
+        clinica.setNombre("Clínica");
+        Cita cita = new Cita();
+        cita.setId(ID_INEXISTENTE);
+        cita.setFechaHora(LocalDateTime.now());
+        cita.setClinica(clinica);
+        cita.setMedico(usuarioSintetico("Médico"));
+        cita.setPaciente(usuarioSintetico("Paciente"));
+        cita.setClinicaNombre("Clínica");
+        cita.setMedicoNombre("Médico");
+        cita.setPacienteNombre("Paciente");
+        cita.setMotivo("Motivo");
+        cita.setCorreoContacto("calentamiento@localhost");
+        cita.setDocumento("0");
+        cita.setValorPagar(BigDecimal.ONE);
+        HistorialMedico historial = new HistorialMedico();
+        historial.setId(ID_INEXISTENTE);
+        historial.setCita(cita);
+        historial.setDiagnostico("Diagnóstico");
+        historial.setReceta("Receta");
+
+        Map<String, Object> modelo = new HashMap<>();
+        modelo.put("nombreUsuario", "calentamiento");
+        modelo.put("claveIdempotencia", "calentamiento");
+        modelo.put("estadisticas", new ResumenCitasDto(0, 0, 0, 0, BigDecimal.ZERO));
+        modelo.put("citasHoy", 0L);
+        modelo.put("citasProximas", 0L);
+        modelo.put("totalProximas", 0);
+        modelo.put("cita", cita);
+        modelo.put("historial", historial);
+        modelo.put("citaDto", new CitaDto());
+        modelo.put("historialDto", new HistorialDto());
+        modelo.put("usuarioDto", new UsuarioDto());
+        modelo.put("clinicaSeleccionada", clinica.getId());
+        modelo.put("clinicaSeleccionadaObjeto", clinica);
+        modelo.put("hoy", hoy);
+        modelo.put("dia", hoy);
+        modelo.put("desde", hoy);
+        modelo.put("hasta", hoy);
+        modelo.put("semana", Map.of(hoy, List.of()));
+        modelo.put("granularidad", IngresosService.Granularidad.DIA);
+        modelo.put("totalIngresos", BigDecimal.ZERO);
+        modelo.put("totalCitas", 0L);
+        modelo.put("primeraPagina", true);
+        for (String lista : List.of("citas", "medicos", "clinicas", "medicosDeLaClinica", "historiales",
+                "historialesPrevios", "ingresos", "etiquetas", "valores", "roles", "rolesDisponibles", "rolesUsuario")) {
+            modelo.put(lista, List.of());
+        }
+        return modelo;
+    }
+
+    private static Usuario usuarioSintetico(String nombre) {
+        Usuario u = new Usuario();
+        u.setId(ID_INEXISTENTE);
+        u.setNombre(nombre);
+        u.setDocumento("0");
+        return u;
+    }
+
+    private void calentarConsultas() {
+        List<String> fallidas = ejecutarConsultas();
+        if (!fallidas.isEmpty()) {
+            log.warn("Consultas de calentamiento con errores: {}", fallidas);
+        }
+    }
+
+    /**
+     * Ejecuta cada consulta de los repositorios; devuelve las que fallaron.
+     */
+    List<String> ejecutarConsultas() {
+        TransactionTemplate soloLectura = new TransactionTemplate(transactionManager);
+        soloLectura.setReadOnly(true);
+        List<String> fallidas = new ArrayList<>();
+        for (Map.Entry<Method, Repository<?, ?>> consulta : consultas().entrySet()) {
+            if (!hayTiempo()) {
+                break;
+            }
+            Method metodo = consulta.getKey();
+            String nombre = metodo.getDeclaringClass().getSimpleName() + "." + metodo.getName();
+            try {
+                Object[] args = Arrays.stream(metodo.getParameterTypes()).map(CalentamientoServiceImpl::argumento).toArray();
+                soloLectura.executeWithoutResult(estado -> invocar(metodo, consulta.getValue(), args));
+            } catch (RuntimeException ex) {
+                fallidas.add(nombre + ": " + ex.getMessage());
+            }
+        }
+        return fallidas;
+    }
+
+    /**
+     * Consultas declaradas en los repositorios de la aplicación (no las heredadas de
+     * JpaRepository), sin las @Modifying, en un orden fijo.
+     */
+    Map<Method, Repository<?, ?>> consultas() {
+        Map<Method, Repository<?, ?>> consultas = new LinkedHashMap<>();
+        for (Repository<?, ?> repositorio : repositorios) {
+            for (Class<?> interfaz : AopProxyUtils.proxiedUserInterfaces(repositorio)) {
+                if (!interfaz.getPackageName().equals(PAQUETE_REPOSITORIOS)) {
+                    continue;
+                }
+                Arrays.stream(interfaz.getDeclaredMethods())
+                    .filter(m -> !m.isDefault() && !m.isSynthetic() && !Modifier.isStatic(m.getModifiers()))
+                    .filter(m -> !m.isAnnotationPresent(Modifying.class))
+                    .sorted(Comparator.comparing(Method::toGenericString))
+                    .forEach(m -> consultas.put(m, repositorio));
+            }
+        }
+        return consultas;
+    }
+
+    private static void invocar(Method metodo, Object repositorio, Object[] args) {
+        try {
+            metodo.invoke(repositorio, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause() instanceof RuntimeException re ? re : new IllegalStateException(ex.getCause());
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Valor que no encuentra filas para cada tipo de parámetro de las consultas
+    private static Object argumento(Class<?> tipo) {
+        if (tipo == Integer.class || tipo == int.class) {
+            return ID_INEXISTENTE;
+        }
+        if (tipo == Long.class || tipo == long.class) {
+            return (long) ID_INEXISTENTE;
+        }
+        if (tipo == String.class) {
+            return "";
+        }
+        if (tipo == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (tipo == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (tipo == BigDecimal.class) {
+            return BigDecimal.ZERO;
+        }
+        if (tipo == Pageable.class) {
+            return UNA_FILA;
+        }
+        if (Collection.class.isAssignableFrom(tipo)) {
+            return List.of(ID_INEXISTENTE);
+        }
+        if (tipo.isEnum()) {
+            return tipo.getEnumConstants()[0];
+        }
+        throw new IllegalArgumentException("sin valor de calentamiento para " + tipo.getSimpleName());
+    }
+
+    private void calentarCaches() {
+        for (Clinica clinica : clinicaRepository.findAll()) {
+            if (!hayTiempo()) {
+                return;
+            }
+            estadisticasCitas.resumenClinica(clinica.getId());
+            directorioPacientes.buscar(clinica.getId(), "", 1);
+        }
+    }
+}
@@ -4,7 +4,10 @@ package com.co.gestiondecitasmedicas.service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.co.gestiondecitasmedicas.dto.CitaApiDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
 import com.co.gestiondecitasmedicas.models.Cita;
 import com.co.gestiondecitasmedicas.models.Usuario;
 
@@ -24,6 +27,7 @@ public interface CitaService {
 
     /**
      * Modifica la fecha de una cita (si está RESERVADA, y en la nueva fecha/hora no hay otra cita en esa clínica).
+     * Si otro la cambió al mismo tiempo no se repite: ConflictoConcurrenciaException.
      */
     Cita modificarFechaCita(Integer citaId, LocalDateTime nuevaFechaHora);
 
@@ -62,4 +66,31 @@ public interface CitaService {
     Cita facturarCita(Integer citaId, BigDecimal valorPagar);
     
 
+
+    /**
+     * Página de citas de un paciente para la API, a partir del cursor recibido (null = primera página).
+     */
+    PaginaApiDto<CitaApiDto> paginaCitasPorPaciente(Integer pacienteId, String cursor, int limite);
+
+    /**
+     * Página de citas de un médico para la API.
+     */
+    PaginaApiDto<CitaApiDto> paginaCitasPorMedico(Integer medicoId, String cursor, int limite);
+
+    /**
+     * Página de citas de una clínica para la API.
+     */
+    PaginaApiDto<CitaApiDto> paginaCitasPorClinica(Integer clinicaId, String cursor, int limite);
+
+    /**
+     * Entrega al consumidor, una por una y por páginas leídas de la BD, todas las citas
+     * de una clínica (ordenadas por id). No acumula el resultado en memoria ni retiene
+     * la conexión mientras el consumidor escribe. No debe llamarse dentro de una transacción.
+     */
+    void recorrerCitasPorClinica(Integer clinicaId, Consumer<CitaApiDto> destino);
+
+    /**
+     * Igual que recorrerCitasPorClinica, para las citas de un médico.
+     */
+    void recorrerCitasPorMedico(Integer medicoId, Consumer<CitaApiDto> destino);
 }
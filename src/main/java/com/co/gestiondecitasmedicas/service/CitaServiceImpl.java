@@ -5,11 +5,24 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.co.gestiondecitasmedicas.dto.CitaApiDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
 import com.co.gestiondecitasmedicas.models.Cita;
 import com.co.gestiondecitasmedicas.models.Clinica;
 import com.co.gestiondecitasmedicas.models.HistorialMedico;
@@ -18,9 +31,26 @@ import com.co.gestiondecitasmedicas.repository.CitaRepository;
 import com.co.gestiondecitasmedicas.repository.ClinicaRepository;
 import com.co.gestiondecitasmedicas.repository.HistorialMedicoRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Reglas de las citas. Las transiciones (cancelar, cambiar fecha, facturar, realizar,
+ * eliminar) usan la versión de la cita (@Version): si otro la cambió entre la lectura
+ * y el UPDATE, la transición se repite sobre el estado nuevo hasta
+ * "app.citas.reintentos-concurrencia" veces, volviendo a validar las reglas. Eliminar
+ * y cambiar la fecha no se repiten: borrar algo que otro acaba de cambiar, o mover una
+ * cita que otro acaba de mover (repetirlo dejaría ganar al último), se decide de nuevo
+ * en pantalla.
+ */
 @Service
 public class CitaServiceImpl implements CitaService {
 
+    // Columnas de CitaApiDto para los recorridos por streaming de la API
+    private static final String SQL_RECORRER =
+        "SELECT id, fecha_hora, estado, clinica_id, clinica_nombre, medico_id, medico_nombre, "
+      + "paciente_id, paciente_nombre, motivo, valor_pagar FROM citas ";
+
     @Autowired
     private CitaRepository citaRepository;
 
@@ -30,6 +60,32 @@ public class CitaServiceImpl implements CitaService {
     @Autowired
     private ClinicaRepository clinicaRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Filas por consulta al recorrer; entre una consulta y otra la conexión vuelve al pool
+    @Value("${app.api.filas-por-consulta:500}")
+    private int filasPorConsulta;
+
+    @Value("${app.citas.reintentos-concurrencia:3}")
+    private int reintentos;
+
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
     @Override
     @Transactional
     public Cita reservarCita(Usuario paciente, Usuario medico,LocalDateTime fechaHora,String correo, String motivo) {
@@ -39,7 +95,7 @@ public class CitaServiceImpl implements CitaService {
             clinicaId, fechaHora, Cita.Estado.CANCELADA);
 
         if (existe.isPresent()) {
-            throw new RuntimeException("Ya existe otra cita en la misma fecha/hora para esta clínica.");
+            throw new HorarioOcupadoException(clinicaId);
         }
 
         Cita cita = new Cita();
@@ -56,14 +112,19 @@ public class CitaServiceImpl implements CitaService {
         cita.setMotivo(motivo);
         cita.setEstado(Cita.Estado.RESERVADA);
 
-        return citaRepository.save(cita);
+        Cita guardada = citaRepository.save(cita);
+        eventPublisher.publishEvent(CitaEvento.de(CitaEvento.Tipo.RESERVADA, guardada, null, null));
+        return guardada;
     }
 
     @Override
-    @Transactional
     public Cita cancelarCita(Integer citaId, Usuario quienCancela) {
+        return conReintento("cancelar", reintentos, () -> cancelar(citaId, quienCancela));
+    }
+
+    private Cita cancelar(Integer citaId, Usuario quienCancela) {
         Cita cita = citaRepository.findById(citaId)
-            .orElseThrow(() -> new RuntimeException("Cita no encontrada: " + citaId));
+            .orElseThrow(() -> new NoEncontradoException("Cita no encontrada: " + citaId));
 
         if (!cita.getEstado().equals(Cita.Estado.RESERVADA)) {
             throw new RuntimeException("Solo se puede cancelar una cita en estado RESERVADA.");
@@ -72,18 +133,24 @@ public class CitaServiceImpl implements CitaService {
         boolean esPaciente = cita.getPaciente().getId().equals(quienCancela.getId());
         boolean esMedico   = cita.getMedico().getId().equals(quienCancela.getId());
         if (!esPaciente && !esMedico) {
-            throw new RuntimeException("No tienes permiso para cancelar esta cita.");
+            throw new SinPermisoException("No tienes permiso para cancelar esta cita.");
         }
 
         cita.setEstado(Cita.Estado.CANCELADA);
-        return citaRepository.save(cita);
+        Cita guardada = citaRepository.saveAndFlush(cita);
+        eventPublisher.publishEvent(
+            CitaEvento.de(CitaEvento.Tipo.CANCELADA, guardada, Cita.Estado.RESERVADA, guardada.getFechaHora()));
+        return guardada;
     }
 
     @Override
-    @Transactional
     public Cita modificarFechaCita(Integer citaId, LocalDateTime nuevaFechaHora) {
+        return conReintento("modificar", 1, () -> modificarFecha(citaId, nuevaFechaHora));
+    }
+
+    private Cita modificarFecha(Integer citaId, LocalDateTime nuevaFechaHora) {
         Cita cita = citaRepository.findById(citaId)
-            .orElseThrow(() -> new RuntimeException("Cita no encontrada: " + citaId));
+            .orElseThrow(() -> new NoEncontradoException("Cita no encontrada: " + citaId));
 
         if (!cita.getEstado().equals(Cita.Estado.RESERVADA)) {
             throw new RuntimeException("Solo se puede modificar la fecha de una cita que esté en estado RESERVADA.");
@@ -94,17 +161,25 @@ public class CitaServiceImpl implements CitaService {
             clinicaId, nuevaFechaHora, Cita.Estado.CANCELADA);
 
         if (conflicto.isPresent() && !conflicto.get().getId().equals(citaId)) {
-            throw new RuntimeException("Ya existe otra cita en la misma fecha/hora para esta clínica.");
+            throw new HorarioOcupadoException(clinicaId);
         }
 
+        LocalDateTime fechaAnterior = cita.getFechaHora();
         cita.setFechaHora(nuevaFechaHora);
-        return citaRepository.save(cita);
+        Cita guardada = citaRepository.saveAndFlush(cita);
+        eventPublisher.publishEvent(
+            CitaEvento.de(CitaEvento.Tipo.FECHA_MODIFICADA, guardada, guardada.getEstado(), fechaAnterior));
+        return guardada;
     }
+
     @Override
-    @Transactional
     public Cita realizarCita(Integer citaId, String diagnostico, String receta) {
+        return conReintento("realizar", reintentos, () -> realizar(citaId, diagnostico, receta));
+    }
+
+    private Cita realizar(Integer citaId, String diagnostico, String receta) {
         Cita cita = citaRepository.findById(citaId)
-            .orElseThrow(() -> new RuntimeException("Cita no encontrada: " + citaId));
+            .orElseThrow(() -> new NoEncontradoException("Cita no encontrada: " + citaId));
 
         if (!cita.getEstado().equals(Cita.Estado.FACTURADA)) {
             throw new RuntimeException(
@@ -112,6 +187,11 @@ public class CitaServiceImpl implements CitaService {
             );
         }
 
+        // Primero el estado: si otro la realizó a la vez, choca aquí por la versión y no
+        // en el INSERT del historial (Hibernate ejecuta los INSERT antes que los UPDATE)
+        cita.setEstado(Cita.Estado.REALIZADA);
+        citaRepository.saveAndFlush(cita);
+
         HistorialMedico historial = new HistorialMedico();
         historial.setDiagnostico(diagnostico);
         historial.setReceta(receta);
@@ -119,8 +199,10 @@ public class CitaServiceImpl implements CitaService {
         // Nota: fechaRealizacion ya se inicializa con LocalDateTime.now()
 
         cita.setHistorial(historial);
-        cita.setEstado(Cita.Estado.REALIZADA);
-        return citaRepository.save(cita);
+        Cita guardada = citaRepository.saveAndFlush(cita);
+        eventPublisher.publishEvent(
+            CitaEvento.de(CitaEvento.Tipo.REALIZADA, guardada, Cita.Estado.FACTURADA, guardada.getFechaHora()));
+        return guardada;
     }
 
 
@@ -137,43 +219,137 @@ public class CitaServiceImpl implements CitaService {
 
     @Override
     public List<Cita> listarCitasPorClinica(Integer clinicaId) {
-        return citaRepository.findByClinicaId(clinicaId);
+        return citaRepository.findByClinicaIdConHistorial(clinicaId);
     }
 
     @Override
     public Cita findById(Integer citaId) {
         return citaRepository.findById(citaId)
-            .orElseThrow(() -> new RuntimeException("Cita no encontrada: " + citaId));
+            .orElseThrow(() -> new NoEncontradoException("Cita no encontrada: " + citaId));
     }
 
     @Override
-    @Transactional
     public void eliminarCitaDeClinica(Integer citaId, Integer clinicaId) {
+        conReintento("eliminar", 1, () -> {
+            eliminar(citaId, clinicaId);
+            return null;
+        });
+    }
+
+    private void eliminar(Integer citaId, Integer clinicaId) {
         Cita cita = citaRepository.findById(citaId)
-            .orElseThrow(() -> new RuntimeException("Cita no encontrada: " + citaId));
+            .orElseThrow(() -> new NoEncontradoException("Cita no encontrada: " + citaId));
 
         if (!cita.getClinica().getId().equals(clinicaId)) {
-            throw new RuntimeException("No puedes eliminar una cita que no pertenece a tu clínica.");
+            throw new SinPermisoException("No puedes eliminar una cita que no pertenece a tu clínica.");
         }
         citaRepository.delete(cita);
+        citaRepository.flush();
+        eventPublisher.publishEvent(
+            CitaEvento.de(CitaEvento.Tipo.ELIMINADA, cita, cita.getEstado(), cita.getFechaHora()));
     }
     
     @Override
-    @Transactional
     public Cita facturarCita(Integer citaId, BigDecimal valorPagar) {
+        return conReintento("facturar", reintentos, () -> facturar(citaId, valorPagar));
+    }
+
+    private Cita facturar(Integer citaId, BigDecimal valorPagar) {
         Cita cita = citaRepository.findById(citaId)
-            .orElseThrow(() -> new RuntimeException("Cita no encontrada: " + citaId));
+            .orElseThrow(() -> new NoEncontradoException("Cita no encontrada: " + citaId));
         if (cita.getEstado() != Cita.Estado.RESERVADA) {
             throw new RuntimeException("Solo se puede facturar una cita RESERVADA.");
         }
         cita.setValorPagar(valorPagar);
         cita.setEstado(Cita.Estado.FACTURADA);
-        return citaRepository.save(cita);
+        Cita guardada = citaRepository.saveAndFlush(cita);
+        eventPublisher.publishEvent(
+            CitaEvento.de(CitaEvento.Tipo.FACTURADA, guardada, Cita.Estado.RESERVADA, guardada.getFechaHora()));
+        return guardada;
+    }
+
+    @Override
+    public PaginaApiDto<CitaApiDto> paginaCitasPorPaciente(Integer pacienteId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        return PaginaApiDto.de(citaRepository.paginaApiDePaciente(
+            pacienteId, PaginaApiDto.decodificar(cursor), PageRequest.of(0, cantidad + 1)), cantidad, CitaApiDto::id);
+    }
+
+    @Override
+    public PaginaApiDto<CitaApiDto> paginaCitasPorMedico(Integer medicoId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        return PaginaApiDto.de(citaRepository.paginaApiDeMedico(
+            medicoId, PaginaApiDto.decodificar(cursor), PageRequest.of(0, cantidad + 1)), cantidad, CitaApiDto::id);
+    }
+
+    @Override
+    public PaginaApiDto<CitaApiDto> paginaCitasPorClinica(Integer clinicaId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        return PaginaApiDto.de(citaRepository.paginaApiDeClinica(
+            clinicaId, PaginaApiDto.decodificar(cursor), PageRequest.of(0, cantidad + 1)), cantidad, CitaApiDto::id);
+    }
+
+    @Override
+    public void recorrerCitasPorClinica(Integer clinicaId, Consumer<CitaApiDto> destino) {
+        recorrer("clinica_id", clinicaId, destino);
     }
-    
-    
-    
-    
-    
 
+    @Override
+    public void recorrerCitasPorMedico(Integer medicoId, Consumer<CitaApiDto> destino) {
+        recorrer("medico_id", medicoId, destino);
+    }
+
+    /**
+     * Ejecuta la transición en su propia transacción y la repite si chocó con otra
+     * (OptimisticLockingFailureException). Cada intento vuelve a leer la cita, así las
+     * reglas se validan contra el estado nuevo. Dentro de una transacción que abrió
+     * quien llama no se puede repetir: el conflicto sale en el primer intento.
+     */
+    private <T> T conReintento(String operacion, int intentos, Supplier<T> transicion) {
+        int maximo = TransactionSynchronizationManager.isActualTransactionActive() ? 1 : Math.max(1, intentos);
+        for (int intento = 1; ; intento++) {
+            try {
+                return transaccion.execute(estado -> transicion.get());
+            } catch (OptimisticLockingFailureException ex) {
+                if (intento >= maximo) {
+                    throw new ConflictoConcurrenciaException(ex);
+                }
+                registry.counter("citas.reintentos", "operacion", operacion).increment();
+            }
+        }
+    }
+
+    /**
+     * Lee con JDBC plano por páginas de "app.api.filas-por-consulta" filas (id > último
+     * entregado): cada página se consulta, se suelta la conexión y solo después se entrega,
+     * así un cliente lento no retiene una conexión del pool y la memoria no crece con el
+     * tamaño del resultado.
+     */
+    private void recorrer(String columna, Integer id, Consumer<CitaApiDto> destino) {
+        String sql = SQL_RECORRER + "WHERE " + columna + " = ? AND id > ? ORDER BY id LIMIT ?";
+        int desde = 0;
+        List<CitaApiDto> pagina;
+        do {
+            pagina = jdbcTemplate.query(sql, (rs, n) -> {
+                String estado = rs.getString("estado");
+                return new CitaApiDto(
+                    rs.getInt("id"),
+                    rs.getObject("fecha_hora", LocalDateTime.class),
+                    estado == null ? null : Cita.Estado.valueOf(estado),
+                    rs.getInt("clinica_id"),
+                    rs.getString("clinica_nombre"),
+                    rs.getInt("medico_id"),
+                    rs.getString("medico_nombre"),
+                    rs.getInt("paciente_id"),
+                    rs.getString("paciente_nombre"),
+                    rs.getString("motivo"),
+                    rs.getBigDecimal("valor_pagar")
+                );
+            }, id, desde, filasPorConsulta);
+            pagina.forEach(destino);
+            if (!pagina.isEmpty()) {
+                desde = pagina.get(pagina.size() - 1).id();
+            }
+        } while (pagina.size() == filasPorConsulta);
+    }
 }
@@ -0,0 +1,14 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/ConflictoConcurrenciaException.java
+package com.co.gestiondecitasmedicas.service;
+
+/**
+ * Otra persona cambió la cita mientras se guardaba este cambio y no se pudo aplicar
+ * encima de la versión nueva. No se guardó nada.
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    public ConflictoConcurrenciaException(Throwable causa) {
+        super("La cita fue modificada por otra persona al mismo tiempo. Revise su estado actual e intente de nuevo.",
+            causa);
+    }
+}
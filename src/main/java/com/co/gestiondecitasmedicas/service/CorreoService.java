@@ -0,0 +1,25 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/CorreoService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.mail.internet.MimeMessage;
+
+public interface CorreoService {
+
+    /**
+     * Mensaje vacío sobre la sesión SMTP configurada (para armarlo con MimeMessageHelper).
+     */
+    MimeMessage crearMensaje();
+
+    /**
+     * Pone el mensaje en la cola de envío. El futuro se completa al entregarlo al
+     * servidor SMTP, o con error si la cola está llena o el envío falla.
+     */
+    CompletableFuture<Void> encolar(MimeMessage mensaje);
+
+    /**
+     * Encola y espera el resultado; lanza RuntimeException si no se pudo enviar.
+     */
+    void enviar(MimeMessage mensaje);
+}
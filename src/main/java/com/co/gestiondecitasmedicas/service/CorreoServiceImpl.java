@@ -0,0 +1,342 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/CorreoServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import com.co.gestiondecitasmedicas.jfr.EnvioCorreoEvento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Envío de correo con conexiones SMTP reutilizadas.
+ *
+ * JavaMailSender.send abre una conexión (y su STARTTLS y AUTH) por cada mensaje. Aquí
+ * "app.correo.conexiones" hilos toman mensajes de una cola acotada y cada uno mantiene
+ * su propio Transport autenticado:
+ * - Al despertar, un hilo se lleva hasta "app.correo.lote" mensajes y los manda por la
+ *   misma conexión.
+ * - La conexión se renueva tras "app.correo.mensajes-por-conexion" envíos (los
+ *   servidores cortan sesiones largas) y se cierra tras "app.correo.inactividad-ms" sin uso.
+ * - Si un envío falla por la conexión, se reconecta y se reintenta una vez; un
+ *   destinatario rechazado (SendFailedException) solo hace fallar ese mensaje.
+ *
+ * Métricas: correo.envio (por resultado), correo.errores (por tipo), correo.conexiones,
+ * correo.reconexiones, correo.lote y correo.pendientes. Cada entrega es además una
+ * observación "correo.entrega" hija de la que estaba en curso al encolar.
+ */
+@Service
+@Lazy
+public class CorreoServiceImpl implements CorreoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CorreoServiceImpl.class);
+
+    // padre: observación en curso al encolar (la petición), para que el envío quede en su traza
+    private record Pendiente(MimeMessage mensaje, CompletableFuture<Void> resultado, Observation padre) { }
+
+    private final JavaMailSenderImpl mailSender;
+    private final int tamanoLote;
+    private final int mensajesPorConexion;
+    private final long inactividadNanos;
+    private final long esperaMs;
+    private final BlockingQueue<Pendiente> cola;
+    private final ExecutorService hilos;
+    private volatile boolean cerrado;
+
+    private final Timer enviados;
+    private final Timer fallidos;
+    private final Counter conexionesAbiertas;
+    private final Counter reconexiones;
+    private final DistributionSummary lotes;
+    private final MeterRegistry registry;
+    private final ObservationRegistry observaciones;
+
+    @Autowired
+    public CorreoServiceImpl(JavaMailSenderImpl mailSender,
+                             @Value("${app.correo.conexiones:2}") int conexiones,
+                             @Value("${app.correo.lote:50}") int tamanoLote,
+                             @Value("${app.correo.mensajes-por-conexion:100}") int mensajesPorConexion,
+                             @Value("${app.correo.inactividad-ms:30000}") long inactividadMs,
+                             @Value("${app.correo.cola:5000}") int capacidadCola,
+                             @Value("${app.correo.espera-ms:30000}") long esperaMs,
+                             MeterRegistry registry,
+                             ObservationRegistry observaciones) {
+        this.mailSender = mailSender;
+        this.tamanoLote = tamanoLote;
+        this.mensajesPorConexion = mensajesPorConexion;
+        this.inactividadNanos = TimeUnit.MILLISECONDS.toNanos(inactividadMs);
+        this.esperaMs = esperaMs;
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.registry = registry;
+        this.observaciones = observaciones;
+
+        this.enviados = timerEnvio("ok");
+        this.fallidos = timerEnvio("error");
+        this.conexionesAbiertas = Counter.builder("correo.conexiones")
+            .description("Conexiones SMTP abiertas")
+            .register(registry);
+        this.reconexiones = Counter.builder("correo.reconexiones")
+            .description("Conexiones SMTP rehechas tras un error")
+            .register(registry);
+        this.lotes = DistributionSummary.builder("correo.lote")
+            .description("Mensajes enviados por cada vuelta de un hilo de correo")
+            .register(registry);
+        Gauge.builder("correo.pendientes", cola, BlockingQueue::size)
+            .description("Mensajes esperando en la cola de envío")
+            .register(registry);
+
+        AtomicInteger numero = new AtomicInteger();
+        this.hilos = Executors.newFixedThreadPool(conexiones, r -> {
+            Thread hilo = new Thread(r, "correo-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        for (int i = 0; i < conexiones; i++) {
+            hilos.execute(this::trabajar);
+        }
+    }
+
+    @Override
+    public MimeMessage crearMensaje() {
+        return mailSender.createMimeMessage();
+    }
+
+    @Override
+    public CompletableFuture<Void> encolar(MimeMessage mensaje) {
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        if (cerrado || !cola.offer(new Pendiente(mensaje, resultado, observaciones.getCurrentObservation()))) {
+            error("cola");
+            resultado.completeExceptionally(
+                new RuntimeException("La cola de correo está llena; intente de nuevo más tarde."));
+        }
+        return resultado;
+    }
+
+    @Override
+    public void enviar(MimeMessage mensaje) {
+        try {
+            encolar(mensaje).get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            Throwable causa = ex.getCause();
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("No se pudo enviar el correo: " + causa.getMessage(), causa);
+        } catch (TimeoutException ex) {
+            // Sigue en la cola: puede llegar igual
+            throw new RuntimeException("El correo sigue en cola tras " + esperaMs + " ms.");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Envío de correo interrumpido.");
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        cerrado = true;
+        hilos.shutdown();
+        if (!hilos.awaitTermination(10, TimeUnit.SECONDS)) {
+            hilos.shutdownNow();
+        }
+        Pendiente p;
+        while ((p = cola.poll()) != null) {
+            p.resultado().completeExceptionally(new RuntimeException("Aplicación detenida antes de enviar el correo."));
+        }
+    }
+
+    /**
+     * Bucle de cada hilo: una conexión propia, lotes tomados de la cola.
+     */
+    private void trabajar() {
+        Conexion conexion = new Conexion();
+        List<Pendiente> lote = new ArrayList<>(tamanoLote);
+        try {
+            while (true) {
+                Pendiente primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    if (cerrado) {
+                        return;
+                    }
+                    conexion.cerrarSiOciosa();
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                lotes.record(lote.size());
+                for (Pendiente p : lote) {
+                    Observation envio = Observation.createNotStarted("correo.entrega", observaciones)
+                        .parentObservation(p.padre())
+                        .start();
+                    EnvioCorreoEvento evento = new EnvioCorreoEvento();
+                    evento.begin();
+                    int aperturas = conexion.aperturas;
+                    Exception error = entregar(conexion, p);
+                    if (error != null) {
+                        envio.error(error);
+                    }
+                    envio.stop();
+                    evento.end();
+                    if (evento.shouldCommit()) {
+                        evento.destinatarios = destinatarios(p.mensaje());
+                        evento.resultado = error == null ? "ok" : error.getClass().getSimpleName();
+                        evento.conexionNueva = conexion.aperturas != aperturas;
+                        evento.commit();
+                    }
+                }
+                lote.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Pendiente p : lote) {
+                p.resultado().completeExceptionally(new RuntimeException("Envío de correo interrumpido."));
+            }
+            conexion.cerrar();
+        }
+    }
+
+    /**
+     * Entrega un mensaje y completa su futuro. Devuelve el error, o null si salió.
+     */
+    private Exception entregar(Conexion conexion, Pendiente p) {
+        long inicio = System.nanoTime();
+        try {
+            conexion.enviar(p.mensaje());
+        } catch (SendFailedException ex) {
+            return fallo(p, inicio, "destinatario", ex);
+        } catch (MessagingException ex) {
+            // La conexión pudo caerse (timeout, reinicio del servidor): se rehace y se reintenta una vez
+            log.debug("Reconectando SMTP tras error: {}", ex.getMessage());
+            conexion.cerrar();
+            reconexiones.increment();
+            try {
+                conexion.enviar(p.mensaje());
+            } catch (MessagingException ex2) {
+                conexion.cerrar();
+                return fallo(p, inicio, "smtp", ex2);
+            }
+        } catch (RuntimeException ex) {
+            return fallo(p, inicio, "mensaje", ex);
+        }
+        enviados.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        p.resultado().complete(null);
+        return null;
+    }
+
+    private Exception fallo(Pendiente p, long inicio, String tipo, Exception ex) {
+        fallidos.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        error(tipo);
+        log.warn("No se pudo enviar un correo ({}): {}", tipo, ex.getMessage());
+        p.resultado().completeExceptionally(
+            new RuntimeException("No se pudo enviar el correo: " + ex.getMessage(), ex));
+        return ex;
+    }
+
+    private static int destinatarios(MimeMessage mensaje) {
+        try {
+            Address[] todos = mensaje.getAllRecipients();
+            return todos == null ? 0 : todos.length;
+        } catch (MessagingException ex) {
+            return 0;
+        }
+    }
+
+    private void error(String tipo) {
+        Counter.builder("correo.errores")
+            .description("Correos que no se pudieron enviar")
+            .tag("tipo", tipo)
+            .register(registry)
+            .increment();
+    }
+
+    private Timer timerEnvio(String resultado) {
+        return Timer.builder("correo.envio")
+            .description("Duración de la entrega de cada correo al servidor SMTP")
+            .tag("resultado", resultado)
+            .register(registry);
+    }
+
+    /**
+     * Transport autenticado de un hilo (no se comparte: Transport no es seguro entre hilos).
+     */
+    private final class Conexion {
+        private Transport transport;
+        private int usos;
+        int aperturas;
+        private long ultimoUso;
+
+        void enviar(MimeMessage mensaje) throws MessagingException {
+            if (transport != null && usos >= mensajesPorConexion) {
+                cerrar();
+            }
+            if (transport == null) {
+                abrir();
+            }
+            // Lo mismo que hace JavaMailSenderImpl antes de mandar
+            if (mensaje.getSentDate() == null) {
+                mensaje.setSentDate(new Date());
+            }
+            mensaje.saveChanges();
+            usos++;
+            ultimoUso = System.nanoTime();
+            transport.sendMessage(mensaje, mensaje.getAllRecipients());
+        }
+
+        void cerrarSiOciosa() {
+            if (transport != null && System.nanoTime() - ultimoUso > inactividadNanos) {
+                cerrar();
+            }
+        }
+
+        void cerrar() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException ex) {
+                    log.debug("Error al cerrar la conexión SMTP", ex);
+                }
+                transport = null;
+            }
+        }
+
+        private void abrir() throws MessagingException {
+            String protocolo = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+            Transport t = mailSender.getSession().getTransport(protocolo);
+            t.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = t;
+            usos = 0;
+            aperturas++;
+            conexionesAbiertas.increment();
+        }
+    }
+}
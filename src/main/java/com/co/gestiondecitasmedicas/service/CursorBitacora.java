@@ -0,0 +1,50 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/CursorBitacora.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Posición de una proyección en la bitácora de citas.
+ *
+ * Los ids de citas_eventos se asignan al insertar pero se confirman en cualquier orden:
+ * un id menor puede aparecer después de que se leyó uno mayor. Por eso, además del
+ * último offset leído, el cursor recuerda los ids que faltaban por debajo ("huecos") y
+ * cuándo se vieron; BitacoraCitasService los vuelve a buscar hasta que aparecen o
+ * vence la espera. Lo maneja BitacoraCitasService; cada proyección guarda el suyo y lo usa
+ * desde un hilo a la vez (el de su sincronización).
+ */
+public final class CursorBitacora {
+
+    private long offset;
+
+    // id faltante → momento (ms) en que se notó el hueco
+    private final TreeMap<Long, Long> huecos = new TreeMap<>();
+
+    public CursorBitacora(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Último offset leído.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Offset desde el que conviene reproducir si se pierde el cursor (por ejemplo al
+     * guardarlo en disco): antes del hueco más antiguo que aún se espera.
+     */
+    public long offsetSeguro() {
+        return huecos.isEmpty() ? offset : huecos.firstKey() - 1;
+    }
+
+    void avanzar(long nuevoOffset) {
+        offset = nuevoOffset;
+    }
+
+    Map<Long, Long> huecos() {
+        return huecos;
+    }
+}
@@ -0,0 +1,26 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/DirectorioPacientesService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.List;
+
+import com.co.gestiondecitasmedicas.dto.PacienteDirectorioDto;
+
+public interface DirectorioPacientesService {
+
+    /**
+     * Busca pacientes de la clínica cuyo documento o alguna palabra del nombre
+     * empiece por el texto escrito (sin tildes ni mayúsculas).
+     * Solo aparecen pacientes que tengan o hayan tenido citas en esa clínica.
+     */
+    List<PacienteDirectorioDto> buscar(Integer clinicaId, String texto, int limite);
+
+    /**
+     * Agrega (o actualiza) un paciente en el índice de la clínica.
+     */
+    void registrarPacienteEnClinica(Integer clinicaId, Integer pacienteId, String nombre, String documento);
+
+    /**
+     * Refresca nombre y documento de un paciente en todas las clínicas ya cargadas.
+     */
+    void actualizarPaciente(Integer pacienteId, String nombre, String documento);
+}
@@ -0,0 +1,195 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/DirectorioPacientesServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.dto.PacienteDirectorioDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+import com.co.gestiondecitasmedicas.repository.CitaRepository;
+
+/**
+ * Directorio en memoria para el buscador de pacientes de recepción.
+ *
+ * Por cada clínica se mantiene un mapa ordenado de términos normalizados
+ * (documento y palabras del nombre, sin tildes y en minúsculas); buscar por
+ * prefijo es un subMap, sin ir a la base de datos.
+ * El índice de una clínica se carga la primera vez que se consulta y luego
+ * se mantiene al día con las reservas, propias y de otras instancias (CitaEventoAjeno).
+ * Los cambios de nombre o documento hechos en otra instancia no pasan por la bitácora:
+ * aparecen al recargarse el índice, a más tardar "app.directorio.ttl-s" después.
+ */
+@Service
+public class DirectorioPacientesServiceImpl implements DirectorioPacientesService {
+
+    private static final int LIMITE_MAXIMO = 50;
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^\\p{Alnum}]");
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Value("${app.directorio.ttl-s:600}")
+    private long ttlSegundos;
+
+    private final Map<Integer, IndiceClinica> indices = new ConcurrentHashMap<>();
+
+    @Override
+    public List<PacienteDirectorioDto> buscar(Integer clinicaId, String texto, int limite) {
+        String prefijo = normalizar(texto);
+        if (clinicaId == null || prefijo.isEmpty()) {
+            return List.of();
+        }
+        int max = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        IndiceClinica indice = indices.get(clinicaId);
+        if (indice == null || indice.vencido()) {
+            indice = indices.compute(clinicaId,
+                (id, actual) -> actual == null || actual.vencido() ? cargarIndice(id) : actual);
+        }
+        return indice.buscar(prefijo, max);
+    }
+
+    @Override
+    public void registrarPacienteEnClinica(Integer clinicaId, Integer pacienteId, String nombre, String documento) {
+        PacienteDirectorioDto fila = new PacienteDirectorioDto(clinicaId, pacienteId, nombre, documento);
+        // Si la clínica aún no está cargada no hace falta: se leerá completa al primer uso
+        indices.computeIfPresent(clinicaId, (id, indice) -> {
+            indice.agregar(fila);
+            return indice;
+        });
+    }
+
+    @Override
+    public void actualizarPaciente(Integer pacienteId, String nombre, String documento) {
+        indices.forEach((clinicaId, indice) -> {
+            if (indice.contiene(pacienteId)) {
+                indice.agregar(new PacienteDirectorioDto(clinicaId, pacienteId, nombre, documento));
+            }
+        });
+    }
+
+    /**
+     * Mantiene el directorio al día con cada reserva confirmada.
+     */
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        if (evento.tipo() == CitaEvento.Tipo.RESERVADA) {
+            registrarPacienteEnClinica(
+                evento.clinicaId(), evento.pacienteId(), evento.pacienteNombre(), evento.documento());
+        }
+    }
+
+    @EventListener
+    public void alCambiarCitaEnOtraInstancia(CitaEventoAjeno ajeno) {
+        alCambiarCita(ajeno.evento());
+    }
+
+    private IndiceClinica cargarIndice(Integer clinicaId) {
+        IndiceClinica indice = new IndiceClinica(System.currentTimeMillis() + ttlSegundos * 1000);
+        for (PacienteDirectorioDto fila : citaRepository.findPacientesDeClinica(clinicaId)) {
+            indice.agregar(fila);
+        }
+        return indice;
+    }
+
+    /**
+     * Quita tildes, pasa a minúsculas y colapsa espacios.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinTildes.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Índice de prefijos de una clínica.
+     * Cada clave es "término\0idPaciente" para permitir varios pacientes con el mismo término.
+     */
+    static final class IndiceClinica {
+
+        private static final char SEPARADOR = '\u0000';
+
+        private final ConcurrentSkipListMap<String, Integer> terminos = new ConcurrentSkipListMap<>();
+        private final Map<Integer, PacienteDirectorioDto> pacientes = new ConcurrentHashMap<>();
+        private final long vence;
+
+        IndiceClinica(long vence) {
+            this.vence = vence;
+        }
+
+        boolean vencido() {
+            return System.currentTimeMillis() >= vence;
+        }
+
+        synchronized void agregar(PacienteDirectorioDto fila) {
+            PacienteDirectorioDto anterior = pacientes.put(fila.pacienteId(), fila);
+            if (anterior != null) {
+                for (String termino : terminosDe(anterior)) {
+                    terminos.remove(termino + SEPARADOR + anterior.pacienteId());
+                }
+            }
+            for (String termino : terminosDe(fila)) {
+                terminos.put(termino + SEPARADOR + fila.pacienteId(), fila.pacienteId());
+            }
+        }
+
+        boolean contiene(Integer pacienteId) {
+            return pacientes.containsKey(pacienteId);
+        }
+
+        List<PacienteDirectorioDto> buscar(String prefijo, int limite) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (Integer id : terminos.subMap(prefijo, true, prefijo + '\uffff', false).values()) {
+                ids.add(id);
+                if (ids.size() >= limite) {
+                    break;
+                }
+            }
+            List<PacienteDirectorioDto> resultado = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                PacienteDirectorioDto fila = pacientes.get(id);
+                if (fila != null) {
+                    resultado.add(fila);
+                }
+            }
+            return resultado;
+        }
+
+        private static Set<String> terminosDe(PacienteDirectorioDto fila) {
+            Set<String> terminos = new LinkedHashSet<>();
+            String documento = normalizar(fila.documento());
+            if (!documento.isEmpty()) {
+                terminos.add(documento);
+                // "1.234.567" también se encuentra escribiendo "1234"
+                terminos.add(NO_ALFANUMERICO.matcher(documento).replaceAll(""));
+            }
+            String nombre = normalizar(fila.nombre());
+            if (!nombre.isEmpty()) {
+                terminos.add(nombre);
+                for (String palabra : nombre.split(" ")) {
+                    terminos.add(palabra);
+                }
+            }
+            terminos.remove("");
+            return terminos;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/EstadisticasCitasService.java
+package com.co.gestiondecitasmedicas.service;
+
+import com.co.gestiondecitasmedicas.dto.ResumenCitasDto;
+
+public interface EstadisticasCitasService {
+
+    /**
+     * Conteo de citas por estado y total facturado de una clínica.
+     */
+    ResumenCitasDto resumenClinica(Integer clinicaId);
+
+    /**
+     * Conteo de citas por estado y total facturado de un médico.
+     */
+    ResumenCitasDto resumenMedico(Integer medicoId);
+
+    /**
+     * Conteo de citas por estado y total facturado de un paciente.
+     */
+    ResumenCitasDto resumenPaciente(Integer pacienteId);
+
+    /**
+     * Vuelve a calcular desde la base de datos los contadores que están en memoria.
+     */
+    void reconciliar();
+}
@@ -0,0 +1,264 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/EstadisticasCitasServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.dto.ConteoEstadoAgrupadoDto;
+import com.co.gestiondecitasmedicas.dto.ConteoEstadoDto;
+import com.co.gestiondecitasmedicas.dto.ResumenCitasDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.repository.CitaRepository;
+
+/**
+ * Contadores de citas por estado (y total facturado) para los dashboards.
+ *
+ * - Cada clínica, médico o paciente se carga desde la BD (un GROUP BY) la primera vez que se pide.
+ * - Después se actualiza en memoria con LongAdder en cada transición confirmada (after commit),
+ *   así leer el dashboard es O(1) y no vuelve a contar la tabla citas.
+ * - Un cambio de otra instancia (CitaEventoAjeno) descarta las claves que toca: se vuelven a
+ *   contar al próximo uso. Sumarlo acá podría contarlo dos veces si llega fuera de orden.
+ * - Se guardan como máximo "app.estadisticas.max-claves" claves; al llegar al tope se descarta
+ *   una cualquiera antes de cargar otra (se vuelve a contar si se pide de nuevo).
+ * - Una tarea nocturna recalcula lo cargado con una sola consulta agrupada para corregir
+ *   cualquier desvío.
+ */
+@Service
+public class EstadisticasCitasServiceImpl implements EstadisticasCitasService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasCitasServiceImpl.class);
+
+    private enum Ambito { CLINICA, MEDICO, PACIENTE }
+
+    private record Clave(Ambito ambito, Integer id) { }
+
+    private record Foto(Contadores contadores, long cambios) { }
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Value("${app.estadisticas.max-claves:20000}")
+    private int maxClaves;
+
+    private final Map<Clave, Contadores> contadores = new ConcurrentHashMap<>();
+
+    @Override
+    public ResumenCitasDto resumenClinica(Integer clinicaId) {
+        return obtener(new Clave(Ambito.CLINICA, clinicaId)).resumen();
+    }
+
+    @Override
+    public ResumenCitasDto resumenMedico(Integer medicoId) {
+        return obtener(new Clave(Ambito.MEDICO, medicoId)).resumen();
+    }
+
+    @Override
+    public ResumenCitasDto resumenPaciente(Integer pacienteId) {
+        return obtener(new Clave(Ambito.PACIENTE, pacienteId)).resumen();
+    }
+
+    /**
+     * Aplica el cambio de estado a los contadores ya cargados de la clínica, el médico y el paciente.
+     */
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        aplicar(new Clave(Ambito.CLINICA, evento.clinicaId()), evento);
+        aplicar(new Clave(Ambito.MEDICO, evento.medicoId()), evento);
+        aplicar(new Clave(Ambito.PACIENTE, evento.pacienteId()), evento);
+    }
+
+    @EventListener
+    public void alCambiarCitaEnOtraInstancia(CitaEventoAjeno ajeno) {
+        CitaEvento evento = ajeno.evento();
+        contadores.remove(new Clave(Ambito.CLINICA, evento.clinicaId()));
+        contadores.remove(new Clave(Ambito.MEDICO, evento.medicoId()));
+        contadores.remove(new Clave(Ambito.PACIENTE, evento.pacienteId()));
+    }
+
+    /**
+     * Reconciliación nocturna: una consulta agrupada recalcula todas las claves cargadas.
+     * Una clave que recibió un evento (o se volvió a cargar) entre la foto y el reemplazo se
+     * deja como está, porque el conteo leído podría no incluirlo; la corrige la vuelta siguiente.
+     */
+    @Override
+    @Scheduled(cron = "${app.estadisticas.reconciliacion-cron:0 30 3 * * *}")
+    public void reconciliar() {
+        Map<Clave, Foto> foto = new HashMap<>();
+        contadores.forEach((clave, c) -> foto.put(clave, new Foto(c, c.cambios.sum())));
+        if (foto.isEmpty()) {
+            return;
+        }
+        Map<Clave, Contadores> recalculados = recalcular(foto.keySet());
+
+        LongAdder corregidos = new LongAdder();
+        LongAdder omitidos = new LongAdder();
+        recalculados.forEach((clave, recalculado) -> contadores.computeIfPresent(clave, (k, anterior) -> {
+            Foto vista = foto.get(k);
+            if (anterior != vista.contadores() || anterior.cambios.sum() != vista.cambios()) {
+                omitidos.increment();
+                return anterior;
+            }
+            if (!anterior.resumen().equals(recalculado.resumen())) {
+                corregidos.increment();
+                log.warn("Contadores de {} {} corregidos: {} -> {}",
+                    k.ambito(), k.id(), anterior.resumen(), recalculado.resumen());
+            }
+            return recalculado;
+        }));
+        log.info("Reconciliación de estadísticas: {} claves revisadas, {} corregidas, {} con cambios durante la revisión",
+            foto.size(), corregidos.sum(), omitidos.sum());
+    }
+
+    private Contadores obtener(Clave clave) {
+        Contadores c = contadores.get(clave);
+        if (c != null) {
+            return c;
+        }
+        if (contadores.size() >= maxClaves) {
+            descartarAlguna();
+        }
+        return contadores.computeIfAbsent(clave, this::cargar);
+    }
+
+    private void descartarAlguna() {
+        Iterator<Clave> it = contadores.keySet().iterator();
+        if (it.hasNext()) {
+            contadores.remove(it.next());
+        }
+    }
+
+    private void aplicar(Clave clave, CitaEvento evento) {
+        // Si la clave no está en memoria no hace falta: se contará completa al primer uso
+        contadores.computeIfPresent(clave, (k, c) -> {
+            c.aplicar(evento);
+            return c;
+        });
+    }
+
+    private Contadores cargar(Clave clave) {
+        List<ConteoEstadoDto> filas = switch (clave.ambito()) {
+            case CLINICA  -> citaRepository.contarPorEstadoDeClinica(clave.id());
+            case MEDICO   -> citaRepository.contarPorEstadoDeMedico(clave.id());
+            case PACIENTE -> citaRepository.contarPorEstadoDePaciente(clave.id());
+        };
+        Contadores c = new Contadores();
+        for (ConteoEstadoDto fila : filas) {
+            sumar(c, fila.estado(), fila.cantidad(), fila.total());
+        }
+        return c;
+    }
+
+    /**
+     * Cuenta de una vez todas las claves pedidas: cada fila (clínica, médico, paciente, estado)
+     * suma a las tres claves que toca, si están entre las pedidas. Las que no tienen citas
+     * quedan en cero.
+     */
+    private Map<Clave, Contadores> recalcular(Set<Clave> claves) {
+        Map<Ambito, Set<Integer>> ids = new HashMap<>();
+        for (Ambito ambito : Ambito.values()) {
+            ids.put(ambito, new HashSet<>());
+        }
+        Map<Clave, Contadores> recalculados = new HashMap<>();
+        for (Clave clave : claves) {
+            ids.get(clave.ambito()).add(clave.id());
+            recalculados.put(clave, new Contadores());
+        }
+        List<ConteoEstadoAgrupadoDto> filas = citaRepository.contarPorEstadoAgrupado(
+            noVacio(ids.get(Ambito.CLINICA)), noVacio(ids.get(Ambito.MEDICO)), noVacio(ids.get(Ambito.PACIENTE)));
+        for (ConteoEstadoAgrupadoDto fila : filas) {
+            sumar(recalculados.get(new Clave(Ambito.CLINICA, fila.clinicaId())), fila.estado(), fila.cantidad(), fila.total());
+            sumar(recalculados.get(new Clave(Ambito.MEDICO, fila.medicoId())), fila.estado(), fila.cantidad(), fila.total());
+            sumar(recalculados.get(new Clave(Ambito.PACIENTE, fila.pacienteId())), fila.estado(), fila.cantidad(), fila.total());
+        }
+        return recalculados;
+    }
+
+    // "IN ()" no es SQL válido: un id que no existe deja la condición en falso
+    private static Set<Integer> noVacio(Set<Integer> ids) {
+        return ids.isEmpty() ? Set.of(-1) : ids;
+    }
+
+    private static void sumar(Contadores c, Cita.Estado estado, long cantidad, BigDecimal total) {
+        if (c == null) {
+            return; // la fila coincidió por otro ámbito
+        }
+        c.porEstado[estado.ordinal()].add(cantidad);
+        if (cuentaComoFacturada(estado)) {
+            c.centavosFacturados.add(centavos(total));
+        }
+    }
+
+    private static boolean cuentaComoFacturada(Cita.Estado estado) {
+        return estado == Cita.Estado.FACTURADA || estado == Cita.Estado.REALIZADA;
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor == null ? 0 : valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * Contadores de una clave. LongAdder reparte la contención entre hilos.
+     */
+    private static final class Contadores {
+
+        final LongAdder[] porEstado = new LongAdder[Cita.Estado.values().length];
+        final LongAdder centavosFacturados = new LongAdder();
+        // Eventos aplicados desde que se cargó; la reconciliación lo usa para no pisar uno
+        final LongAdder cambios = new LongAdder();
+
+        Contadores() {
+            for (int i = 0; i < porEstado.length; i++) {
+                porEstado[i] = new LongAdder();
+            }
+        }
+
+        void aplicar(CitaEvento evento) {
+            if (evento.estadoAnterior() == evento.estado()) {
+                return; // p. ej. cambio de fecha: no cambia ningún contador
+            }
+            cambios.increment();
+            long centavos = centavos(evento.valorPagar());
+            if (evento.estadoAnterior() != null) {
+                porEstado[evento.estadoAnterior().ordinal()].decrement();
+                if (cuentaComoFacturada(evento.estadoAnterior())) {
+                    centavosFacturados.add(-centavos);
+                }
+            }
+            if (evento.estado() != null) {
+                porEstado[evento.estado().ordinal()].increment();
+                if (cuentaComoFacturada(evento.estado())) {
+                    centavosFacturados.add(centavos);
+                }
+            }
+        }
+
+        ResumenCitasDto resumen() {
+            return new ResumenCitasDto(
+                porEstado[Cita.Estado.RESERVADA.ordinal()].sum(),
+                porEstado[Cita.Estado.FACTURADA.ordinal()].sum(),
+                porEstado[Cita.Estado.REALIZADA.ordinal()].sum(),
+                porEstado[Cita.Estado.CANCELADA.ordinal()].sum(),
+                BigDecimal.valueOf(centavosFacturados.sum(), 2)
+            );
+        }
+    }
+}
@@ -1,13 +1,20 @@
 // src/main/java/com/co/gestiondecitasmedicas/service/HistorialMedicoService.java
 package com.co.gestiondecitasmedicas.service;
 
-import java.util.List;
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
+import com.co.gestiondecitasmedicas.dto.HistorialResumenDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
 import com.co.gestiondecitasmedicas.models.HistorialMedico;
 
 public interface HistorialMedicoService {
 
-    List<HistorialMedico> listarHistorialesPorPaciente(Integer pacienteId);
-    List<HistorialMedico> listarHistorialesPorMedico(Integer medicoId);
+    // Listados por páginas, más recientes primero, sin diagnóstico ni receta (cursor null = primera página)
+    PaginaApiDto<HistorialResumenDto> resumenesPorPaciente(Integer pacienteId, String cursor, int limite);
+    PaginaApiDto<HistorialResumenDto> resumenesPorMedico(Integer medicoId, String cursor, int limite);
     
     HistorialMedico findByCitaId(Integer citaId);
+
+    // Páginas por cursor para la API (cursor null = primera página)
+    PaginaApiDto<HistorialApiDto> paginaHistorialesPorPaciente(Integer pacienteId, String cursor, int limite);
+    PaginaApiDto<HistorialApiDto> paginaHistorialesPorMedico(Integer medicoId, String cursor, int limite);
 }
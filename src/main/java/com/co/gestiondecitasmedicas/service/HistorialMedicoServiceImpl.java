@@ -1,11 +1,13 @@
 // src/main/java/com/co/gestiondecitasmedicas/service/impl/HistorialMedicoServiceImpl.java
 package com.co.gestiondecitasmedicas.service;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
+import com.co.gestiondecitasmedicas.dto.HistorialResumenDto;
+import com.co.gestiondecitasmedicas.dto.PaginaApiDto;
 import com.co.gestiondecitasmedicas.models.HistorialMedico;
 import com.co.gestiondecitasmedicas.repository.HistorialMedicoRepository;
 
@@ -16,17 +18,39 @@ public class HistorialMedicoServiceImpl implements HistorialMedicoService {
     private HistorialMedicoRepository historialRepository;
 
     @Override
-    public List<HistorialMedico> listarHistorialesPorPaciente(Integer pacienteId) {
-        return historialRepository.findAllByPacienteId(pacienteId);
+    public PaginaApiDto<HistorialResumenDto> resumenesPorPaciente(Integer pacienteId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        PaginaApiDto.Posicion desde = PaginaApiDto.decodificarPorFecha(cursor);
+        return PaginaApiDto.dePorFecha(historialRepository.resumenesDePaciente(
+            pacienteId, desde.fecha(), desde.id(), PageRequest.of(0, cantidad + 1)), cantidad,
+            HistorialResumenDto::fechaRealizacion, HistorialResumenDto::id);
     }
 
     @Override
-    public List<HistorialMedico> listarHistorialesPorMedico(Integer medicoId) {
-        return historialRepository.findAllByMedicoId(medicoId);
+    public PaginaApiDto<HistorialResumenDto> resumenesPorMedico(Integer medicoId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        PaginaApiDto.Posicion desde = PaginaApiDto.decodificarPorFecha(cursor);
+        return PaginaApiDto.dePorFecha(historialRepository.resumenesDeMedico(
+            medicoId, desde.fecha(), desde.id(), PageRequest.of(0, cantidad + 1)), cantidad,
+            HistorialResumenDto::fechaRealizacion, HistorialResumenDto::id);
     }
 
     @Override
     public HistorialMedico findByCitaId(Integer citaId) {
         return historialRepository.findByCitaId(citaId);
     }
+
+    @Override
+    public PaginaApiDto<HistorialApiDto> paginaHistorialesPorPaciente(Integer pacienteId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        return PaginaApiDto.de(historialRepository.paginaApiDePaciente(
+            pacienteId, PaginaApiDto.decodificar(cursor), PageRequest.of(0, cantidad + 1)), cantidad, HistorialApiDto::id);
+    }
+
+    @Override
+    public PaginaApiDto<HistorialApiDto> paginaHistorialesPorMedico(Integer medicoId, String cursor, int limite) {
+        int cantidad = PaginaApiDto.acotar(limite);
+        return PaginaApiDto.de(historialRepository.paginaApiDeMedico(
+            medicoId, PaginaApiDto.decodificar(cursor), PageRequest.of(0, cantidad + 1)), cantidad, HistorialApiDto::id);
+    }
 }
@@ -0,0 +1,25 @@
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
+import com.co.gestiondecitasmedicas.dto.HistorialPrevioDto;
+
+public interface HistorialPrevioService {
+
+    /**
+     * Historiales anteriores del paciente (resumen), más recientes primero.
+     */
+    List<HistorialPrevioDto> dePaciente(Integer pacienteId);
+
+    /**
+     * Diagnóstico y receta completos de un historial, si es del paciente indicado.
+     */
+    Optional<HistorialApiDto> detalle(Integer pacienteId, Integer historialId);
+
+    /**
+     * Carga en segundo plano los historiales de los pacientes de las próximas citas del médico.
+     */
+    void precargarDeMedico(Integer medicoId);
+}
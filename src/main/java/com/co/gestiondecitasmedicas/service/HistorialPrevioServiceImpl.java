@@ -0,0 +1,186 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/HistorialPrevioServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.dto.CitaProximaDto;
+import com.co.gestiondecitasmedicas.dto.HistorialApiDto;
+import com.co.gestiondecitasmedicas.dto.HistorialPrevioDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.repository.HistorialMedicoRepository;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Historiales anteriores del paciente para la vista de atender una cita.
+ *
+ * - Por paciente se guarda por poco tiempo ("app.historial-previo.ttl-s") la lista de
+ *   resúmenes, leída con una sola proyección; el texto completo se pide al abrir uno.
+ * - Al abrir el tablero, la agenda o una consulta, los pacientes de las próximas citas
+ *   del médico (según la ventana de citas, sin ir a la BD) se cargan en un hilo aparte;
+ *   lo mismo al facturarse una cita. Así la consulta abre con el historial ya listo.
+ * - Una cita realizada o eliminada borra la lista del paciente. Los cambios de otras
+ *   instancias se notan cuando vence la entrada.
+ * - Se guardan como máximo "app.historial-previo.max-pacientes" listas.
+ *   Con "app.historial-previo.precarga-citas=0" no se precarga nada.
+ */
+@Service
+public class HistorialPrevioServiceImpl implements HistorialPrevioService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialPrevioServiceImpl.class);
+
+    private record Entrada(List<HistorialPrevioDto> historiales, long vence) { }
+
+    @Autowired
+    private HistorialMedicoRepository historialRepository;
+
+    @Autowired
+    private VentanaCitasService ventanaCitas;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.historial-previo.maximo:20}")
+    private int maximo;
+
+    @Value("${app.historial-previo.ttl-s:300}")
+    private long ttlS;
+
+    @Value("${app.historial-previo.max-pacientes:5000}")
+    private int maxPacientes;
+
+    @Value("${app.historial-previo.precarga-citas:5}")
+    private int precargaCitas;
+
+    private final Map<Integer, Entrada> pacientes = new ConcurrentHashMap<>();
+
+    // Pacientes ya encolados: la misma agenda abierta varias veces no repite cargas
+    private final Set<Integer> encolados = ConcurrentHashMap.newKeySet();
+
+    // Un hilo y cola acotada: si se llena, el rechazo omite esa precarga y la vista la lee al abrirse
+    private final ThreadPoolExecutor precargador = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(200), r -> {
+            Thread hilo = new Thread(r, "historial-previo-precarga");
+            hilo.setDaemon(true);
+            return hilo;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+    // Con el contexto de quien encola: la precarga queda en la traza de la petición que la pidió
+    private final ExecutorService precargadorConContexto =
+        ContextExecutorService.wrap(precargador, ContextSnapshotFactory.builder().build());
+
+    @Override
+    public List<HistorialPrevioDto> dePaciente(Integer pacienteId) {
+        return obtener(pacienteId, "vista");
+    }
+
+    @Override
+    public Optional<HistorialApiDto> detalle(Integer pacienteId, Integer historialId) {
+        return historialRepository.detalleDePaciente(historialId, pacienteId);
+    }
+
+    @Override
+    public void precargarDeMedico(Integer medicoId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        // Desde una hora atrás: la cita en curso puede haber empezado hace un rato
+        List<CitaProximaDto> proximas = ventanaCitas.deMedico(medicoId, ahora.minusHours(1), ahora.plusDays(1));
+        proximas.stream()
+            .filter(c -> c.estado() == Cita.Estado.RESERVADA || c.estado() == Cita.Estado.FACTURADA)
+            .map(CitaProximaDto::pacienteId)
+            .distinct()
+            .limit(precargaCitas)
+            .forEach(this::precargar);
+    }
+
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        switch (evento.tipo()) {
+            case REALIZADA, ELIMINADA -> pacientes.remove(evento.pacienteId());
+            case FACTURADA -> precargar(evento.pacienteId());
+            default -> { }
+        }
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        precargador.shutdownNow();
+    }
+
+    private void precargar(Integer pacienteId) {
+        if (precargaCitas <= 0 || vigente(pacientes.get(pacienteId)) || !encolados.add(pacienteId)) {
+            return;
+        }
+        try {
+            precargadorConContexto.execute(() -> {
+                try {
+                    obtener(pacienteId, "precarga");
+                } catch (RuntimeException ex) {
+                    log.warn("No se pudo precargar el historial del paciente {}", pacienteId, ex);
+                } finally {
+                    encolados.remove(pacienteId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // La tarea no va a correr: sin esto el paciente quedaría encolado para siempre
+            encolados.remove(pacienteId);
+            registry.counter("historial.previo.precargas.omitidas").increment();
+        }
+    }
+
+    private List<HistorialPrevioDto> obtener(Integer pacienteId, String origen) {
+        Entrada entrada = pacientes.get(pacienteId);
+        if (vigente(entrada)) {
+            return entrada.historiales();
+        }
+        if (entrada != null) {
+            pacientes.remove(pacienteId, entrada);
+        }
+        if (pacientes.size() >= maxPacientes) {
+            descartar();
+        }
+        // La carga y el borrado por evento de un mismo paciente se ordenan en el mapa
+        return pacientes.computeIfAbsent(pacienteId, id -> cargar(id, origen)).historiales();
+    }
+
+    private Entrada cargar(Integer pacienteId, String origen) {
+        registry.counter("historial.previo.cargas", "origen", origen).increment();
+        List<HistorialPrevioDto> historiales =
+            List.copyOf(historialRepository.previosDePaciente(pacienteId, PageRequest.of(0, maximo)));
+        return new Entrada(historiales, System.currentTimeMillis() + ttlS * 1000);
+    }
+
+    private static boolean vigente(Entrada entrada) {
+        return entrada != null && entrada.vence() > System.currentTimeMillis();
+    }
+
+    private void descartar() {
+        pacientes.values().removeIf(e -> !vigente(e));
+        Iterator<Integer> it = pacientes.keySet().iterator();
+        if (pacientes.size() >= maxPacientes && it.hasNext()) {
+            pacientes.remove(it.next());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/HorarioOcupadoException.java
+package com.co.gestiondecitasmedicas.service;
+
+/**
+ * La clínica ya tiene otra cita (no cancelada) en esa fecha y hora.
+ * Se distingue de los demás rechazos para contarla como conflicto en las métricas.
+ */
+public class HorarioOcupadoException extends RuntimeException {
+
+    private final Integer clinicaId;
+
+    public HorarioOcupadoException(Integer clinicaId) {
+        super("Ya existe otra cita en la misma fecha/hora para esta clínica.");
+        this.clinicaId = clinicaId;
+    }
+
+    public Integer getClinicaId() {
+        return clinicaId;
+    }
+}
@@ -0,0 +1,36 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/IdempotenciaService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.Optional;
+
+public interface IdempotenciaService {
+
+    /**
+     * Respuesta de un envío ya atendido: la redirección y los mensajes flash que mostró.
+     */
+    record Resultado(String redireccion, String successMsg, String errorMsg) { }
+
+    /**
+     * Clave nueva para los formularios de una página.
+     */
+    String nuevaClave();
+
+    /**
+     * Toma la clave para (usuario, clave, ruta). Vacío si es la primera vez: quien llama
+     * hace el trabajo y después llama a terminar o soltar. Si el envío ya se atendió,
+     * devuelve su resultado; si sigue en curso espera a que termine y, pasado
+     * "app.idempotencia.espera-ms", lanza SolicitudEnCursoException.
+     */
+    Optional<Resultado> tomar(Integer usuarioId, String clave, String ruta);
+
+    /**
+     * Guarda el resultado de un envío tomado; los repetidos lo reciben tal cual.
+     */
+    void terminar(Integer usuarioId, String clave, String ruta, Resultado resultado);
+
+    /**
+     * Libera la clave sin resultado (el envío falló o no terminó en redirección):
+     * el siguiente envío con la misma clave vuelve a hacer el trabajo.
+     */
+    void soltar(Integer usuarioId, String clave, String ruta);
+}
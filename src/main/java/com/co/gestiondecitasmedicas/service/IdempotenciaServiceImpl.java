@@ -0,0 +1,223 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/IdempotenciaServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Claves de idempotencia de los formularios, en memoria con respaldo en la tabla
+ * solicitudes_idempotentes.
+ *
+ * - La memoria resuelve el caso común (doble clic a la misma instancia) sin tocar la BD:
+ *   el segundo envío espera al primero y recibe su resultado.
+ * - Con "app.idempotencia.bd=true" tomar la clave es además un INSERT IGNORE: si otra
+ *   instancia (o un arranque anterior) ya la tomó, se espera su resultado en la tabla.
+ * - Las claves viven "app.idempotencia.ttl-s"; la limpieza las descarta de la memoria y
+ *   de la tabla por lotes.
+ */
+@Service
+public class IdempotenciaServiceImpl implements IdempotenciaService {
+
+    private static final String SQL_TOMAR =
+        "INSERT IGNORE INTO solicitudes_idempotentes (usuario_id, clave, ruta, creado_en) VALUES (?, ?, ?, NOW(6))";
+
+    private static final String SQL_TERMINAR =
+        "UPDATE solicitudes_idempotentes SET redireccion = ?, mensaje_exito = ?, mensaje_error = ?, terminado_en = NOW(6) "
+      + "WHERE usuario_id = ? AND clave = ? AND ruta = ?";
+
+    private static final String SQL_BUSCAR =
+        "SELECT redireccion, mensaje_exito, mensaje_error, terminado_en FROM solicitudes_idempotentes "
+      + "WHERE usuario_id = ? AND clave = ? AND ruta = ?";
+
+    private static final String SQL_SOLTAR =
+        "DELETE FROM solicitudes_idempotentes WHERE usuario_id = ? AND clave = ? AND ruta = ? AND terminado_en IS NULL";
+
+    private static final String SQL_LIMPIAR =
+        "DELETE FROM solicitudes_idempotentes WHERE creado_en < TIMESTAMPADD(SECOND, ?, NOW(6)) LIMIT ?";
+
+    // Largo de las columnas de mensajes y redirección
+    private static final int LARGO_COLUMNA = 500;
+
+    // Cada cuánto se vuelve a mirar la tabla mientras otra instancia atiende el envío
+    private static final long SONDEO_MS = 100;
+
+    /**
+     * Envío tomado en esta instancia. resultado queda null mientras está en curso y
+     * también si se soltó; listo se abre en ambos casos.
+     */
+    private static final class Entrada {
+        final CountDownLatch listo = new CountDownLatch(1);
+        final long creadaEn = System.currentTimeMillis();
+        volatile Resultado resultado;
+    }
+
+    // Fila de la tabla: terminada = false mientras el envío sigue en curso
+    private record Fila(boolean terminada, Resultado resultado) { }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.idempotencia.bd:true}")
+    private boolean conBd;
+
+    @Value("${app.idempotencia.ttl-s:600}")
+    private long ttlSegundos;
+
+    @Value("${app.idempotencia.espera-ms:35000}")
+    private long esperaMs;
+
+    @Value("${app.idempotencia.limpieza-lote:1000}")
+    private int loteLimpieza;
+
+    private final Map<String, Entrada> enMemoria = new ConcurrentHashMap<>();
+
+    @Override
+    public String nuevaClave() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public Optional<Resultado> tomar(Integer usuarioId, String clave, String ruta) {
+        String llave = llave(usuarioId, clave, ruta);
+        long limite = System.currentTimeMillis() + esperaMs;
+        while (true) {
+            Entrada nueva = new Entrada();
+            Entrada previa = enMemoria.putIfAbsent(llave, nueva);
+            if (previa == null) {
+                if (!conBd || jdbcTemplate.update(SQL_TOMAR, usuarioId, clave, ruta) == 1) {
+                    return Optional.empty();
+                }
+                // Otra instancia ya la tomó: su resultado llega por la tabla
+                Optional<Resultado> remoto;
+                try {
+                    remoto = esperarEnBd(usuarioId, clave, ruta, limite);
+                } catch (RuntimeException ex) {
+                    enMemoria.remove(llave, nueva);
+                    nueva.listo.countDown();
+                    throw ex;
+                }
+                if (remoto.isPresent()) {
+                    nueva.resultado = remoto.get();
+                    nueva.listo.countDown();
+                    contar("repetida");
+                    return remoto;
+                }
+                // La soltó sin resultado: se intenta tomarla de nuevo
+                enMemoria.remove(llave, nueva);
+                nueva.listo.countDown();
+                continue;
+            }
+            esperar(previa, limite);
+            if (previa.resultado != null) {
+                contar("repetida");
+                return Optional.of(previa.resultado);
+            }
+            enMemoria.remove(llave, previa);
+        }
+    }
+
+    @Override
+    public void terminar(Integer usuarioId, String clave, String ruta, Resultado resultado) {
+        if (conBd) {
+            jdbcTemplate.update(SQL_TERMINAR, recortar(resultado.redireccion()), recortar(resultado.successMsg()),
+                recortar(resultado.errorMsg()), usuarioId, clave, ruta);
+        }
+        Entrada entrada = enMemoria.get(llave(usuarioId, clave, ruta));
+        if (entrada != null) {
+            entrada.resultado = resultado;
+            entrada.listo.countDown();
+        }
+    }
+
+    @Override
+    public void soltar(Integer usuarioId, String clave, String ruta) {
+        if (conBd) {
+            jdbcTemplate.update(SQL_SOLTAR, usuarioId, clave, ruta);
+        }
+        Entrada entrada = enMemoria.remove(llave(usuarioId, clave, ruta));
+        if (entrada != null) {
+            entrada.listo.countDown();
+        }
+    }
+
+    /**
+     * Descarta las claves vencidas: de la memoria todas, de la tabla un lote por vuelta.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotencia.limpieza-ms:60000}")
+    public void limpiar() {
+        long vencidas = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(ttlSegundos);
+        enMemoria.values().removeIf(e -> e.creadaEn < vencidas);
+        if (conBd) {
+            jdbcTemplate.update(SQL_LIMPIAR, -ttlSegundos, loteLimpieza);
+        }
+    }
+
+    private void esperar(Entrada entrada, long limite) {
+        try {
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0 || !entrada.listo.await(restante, TimeUnit.MILLISECONDS)) {
+                contar("en-curso");
+                throw new SolicitudEnCursoException();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SolicitudEnCursoException();
+        }
+    }
+
+    /**
+     * Espera a que la fila tenga resultado. Vacío si desapareció (se soltó).
+     */
+    private Optional<Resultado> esperarEnBd(Integer usuarioId, String clave, String ruta, long limite) {
+        while (true) {
+            List<Fila> filas = jdbcTemplate.query(SQL_BUSCAR, (rs, i) -> new Fila(
+                rs.getTimestamp("terminado_en") != null,
+                new Resultado(rs.getString("redireccion"), rs.getString("mensaje_exito"), rs.getString("mensaje_error"))),
+                usuarioId, clave, ruta);
+            if (filas.isEmpty()) {
+                return Optional.empty();
+            }
+            if (filas.get(0).terminada()) {
+                return Optional.of(filas.get(0).resultado());
+            }
+            if (System.currentTimeMillis() + SONDEO_MS > limite) {
+                contar("en-curso");
+                throw new SolicitudEnCursoException();
+            }
+            try {
+                Thread.sleep(SONDEO_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SolicitudEnCursoException();
+            }
+        }
+    }
+
+    private void contar(String resultado) {
+        registry.counter("idempotencia.repetidas", "resultado", resultado).increment();
+    }
+
+    private static String recortar(String texto) {
+        return texto == null || texto.length() <= LARGO_COLUMNA ? texto : texto.substring(0, LARGO_COLUMNA);
+    }
+
+    private static String llave(Integer usuarioId, String clave, String ruta) {
+        return usuarioId + "|" + clave + "|" + ruta;
+    }
+}
@@ -0,0 +1,21 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/InformeService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+public interface InformeService {
+
+    String HISTORIAL_MEDICO = "HistorialMedico";
+    String FACTURACION = "Facturacion";
+
+    /**
+     * Llena el informe "informes/<informe>.jasper" con una única fila y escribe el PDF.
+     */
+    void escribirPdf(String informe, Map<String, Object> fila, OutputStream destino);
+
+    /**
+     * Igual que escribirPdf, pero devuelve el PDF en memoria (para adjuntarlo a un correo).
+     */
+    byte[] generarPdf(String informe, Map<String, Object> fila);
+}
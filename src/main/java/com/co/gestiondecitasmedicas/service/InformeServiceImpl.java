@@ -0,0 +1,153 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/InformeServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import com.co.gestiondecitasmedicas.jfr.InformeEvento;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+/**
+ * Genera los PDF de JasperReports.
+ *
+ * - Es @Lazy (y se inyecta con @Lazy): JasperReports no se carga al levantar el contexto,
+ *   sino con el primer PDF: el del calentamiento antes de la readiness o, si
+ *   "app.calentamiento.informes" está apagado, el primero que pide un usuario.
+ * - Cada .jasper se deserializa una sola vez y queda en memoria; JasperReport es
+ *   inmutable una vez cargado y se puede llenar desde varios hilos a la vez.
+ * - Métricas por informe: informes.generacion (llenado + exportación) e
+ *   informes.pdf.tamano (bytes escritos). Las fases de llenado y exportación son
+ *   observaciones aparte (tramos en la traza) y eventos JFR (InformeEvento).
+ */
+@Service
+@Lazy
+public class InformeServiceImpl implements InformeService {
+
+    private final Map<String, JasperReport> informes = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ObservationRegistry observaciones;
+
+    @Override
+    public void escribirPdf(String informe, Map<String, Object> fila, OutputStream destino) {
+        Timer.Sample muestra = Timer.start(registry);
+        ContadorBytes contador = new ContadorBytes(destino);
+        String resultado = "error";
+        try {
+            // Un tramo por fase, para ver en la traza si el tiempo se va en llenar o en exportar
+            // (y un evento JFR por fase, para cruzarlo con GC y bloqueos en el perfil)
+            InformeEvento llenado = new InformeEvento();
+            llenado.begin();
+            JasperPrint impreso = Observation.createNotStarted("informe.llenado", observaciones)
+                .lowCardinalityKeyValue("informe", informe)
+                .observeChecked(() -> llenar(informe, fila));
+            registrar(llenado, informe, "llenado", 0);
+
+            InformeEvento exportacion = new InformeEvento();
+            exportacion.begin();
+            Observation.createNotStarted("informe.exportacion", observaciones)
+                .lowCardinalityKeyValue("informe", informe)
+                .observeChecked(() -> JasperExportManager.exportReportToPdfStream(impreso, contador));
+            registrar(exportacion, informe, "exportacion", contador.bytes);
+            resultado = "ok";
+        } catch (JRException ex) {
+            throw new RuntimeException("No se pudo generar el informe " + informe + ".", ex);
+        } finally {
+            muestra.stop(Timer.builder("informes.generacion")
+                .description("Duración del llenado y la exportación a PDF")
+                .tag("informe", informe)
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .register(registry));
+            if ("ok".equals(resultado)) {
+                DistributionSummary.builder("informes.pdf.tamano")
+                    .description("Tamaño de los PDF generados")
+                    .baseUnit("bytes")
+                    .tag("informe", informe)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(contador.bytes);
+            }
+        }
+    }
+
+    @Override
+    public byte[] generarPdf(String informe, Map<String, Object> fila) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        escribirPdf(informe, fila, baos);
+        return baos.toByteArray();
+    }
+
+    private static void registrar(InformeEvento evento, String informe, String fase, long bytes) {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.informe = informe;
+            evento.fase = fase;
+            evento.bytes = bytes;
+            evento.commit();
+        }
+    }
+
+    private JasperPrint llenar(String informe, Map<String, Object> fila) throws JRException {
+        JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(List.of(fila));
+        return JasperFillManager.fillReport(cargar(informe), new HashMap<>(), ds);
+    }
+
+    private JasperReport cargar(String informe) {
+        return informes.computeIfAbsent(informe, nombre -> {
+            try (InputStream in = new ClassPathResource("informes/" + nombre + ".jasper").getInputStream()) {
+                return (JasperReport) JRLoader.loadObject(in);
+            } catch (IOException | JRException ex) {
+                throw new RuntimeException("No se encontró el informe " + nombre + ".", ex);
+            }
+        });
+    }
+
+    // Cuenta lo que se escribe en el destino (que puede ser la respuesta HTTP)
+    private static final class ContadorBytes extends FilterOutputStream {
+        long bytes;
+
+        ContadorBytes(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+}
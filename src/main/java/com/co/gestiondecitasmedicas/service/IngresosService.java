@@ -0,0 +1,24 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/IngresosService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.co.gestiondecitasmedicas.dto.IngresoPeriodoDto;
+
+public interface IngresosService {
+
+    enum Granularidad {
+        DIA,
+        SEMANA,
+        MES
+    }
+
+    /**
+     * Ingresos de una clínica entre dos fechas (inclusive), agrupados por día, semana o mes.
+     * Si medicoId no es null, solo los de ese médico.
+     * Se calcula sobre los acumulados diarios, nunca sobre la tabla citas.
+     */
+    List<IngresoPeriodoDto> consultar(Integer clinicaId, Integer medicoId,
+                                      LocalDate desde, LocalDate hasta, Granularidad granularidad);
+}
@@ -0,0 +1,77 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/IngresosServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.co.gestiondecitasmedicas.dto.IngresoPeriodoDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.repository.IngresoDiarioRepository;
+
+@Service
+public class IngresosServiceImpl implements IngresosService {
+
+    @Autowired
+    private IngresoDiarioRepository ingresoDiarioRepository;
+
+    @Override
+    public List<IngresoPeriodoDto> consultar(Integer clinicaId, Integer medicoId,
+                                             LocalDate desde, LocalDate hasta, Granularidad granularidad) {
+        if (desde.isAfter(hasta)) {
+            throw new RuntimeException("La fecha inicial no puede ser posterior a la final.");
+        }
+        List<IngresoPeriodoDto> dias = medicoId == null
+            ? ingresoDiarioRepository.totalesPorDia(clinicaId, desde, hasta)
+            : ingresoDiarioRepository.totalesPorDiaDeMedico(clinicaId, medicoId, desde, hasta);
+        if (granularidad == Granularidad.DIA) {
+            return dias;
+        }
+
+        // Semanas y meses se suman en memoria sobre las filas diarias (ya vienen ordenadas)
+        Map<LocalDate, IngresoPeriodoDto> periodos = new LinkedHashMap<>();
+        for (IngresoPeriodoDto dia : dias) {
+            LocalDate inicio = granularidad == Granularidad.SEMANA
+                ? dia.inicio().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : dia.inicio().withDayOfMonth(1);
+            periodos.merge(inicio, new IngresoPeriodoDto(inicio, dia.total(), dia.cantidad()),
+                (a, b) -> new IngresoPeriodoDto(inicio, a.total().add(b.total()), a.cantidad() + b.cantidad()));
+        }
+        return new ArrayList<>(periodos.values());
+    }
+
+    /**
+     * Mantiene los acumulados diarios dentro de la misma transacción que factura
+     * o elimina la cita, para que nunca se desalineen.
+     */
+    @EventListener
+    public void alCambiarCita(CitaEvento evento) {
+        if (evento.valorPagar() == null) {
+            return;
+        }
+        if (evento.tipo() == CitaEvento.Tipo.FACTURADA) {
+            acumular(evento, evento.valorPagar(), 1);
+        } else if (evento.tipo() == CitaEvento.Tipo.ELIMINADA && fueFacturada(evento.estadoAnterior())) {
+            acumular(evento, evento.valorPagar().negate(), -1);
+        }
+    }
+
+    private void acumular(CitaEvento evento, BigDecimal valor, int cantidad) {
+        ingresoDiarioRepository.acumular(
+            evento.clinicaId(), evento.medicoId(), evento.fechaHora().toLocalDate(), valor, cantidad);
+    }
+
+    private static boolean fueFacturada(Cita.Estado estado) {
+        return estado == Cita.Estado.FACTURADA || estado == Cita.Estado.REALIZADA;
+    }
+}
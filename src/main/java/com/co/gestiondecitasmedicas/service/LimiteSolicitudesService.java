@@ -0,0 +1,43 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/LimiteSolicitudesService.java
+package com.co.gestiondecitasmedicas.service;
+
+public interface LimiteSolicitudesService {
+
+    /**
+     * Grupos de endpoints caros; cada uno tiene su cuota en "app.limites.<grupo>.*".
+     */
+    enum Grupo {
+        RESERVA("reserva"),
+        PDF("pdf"),
+        FACTURACION("facturacion"),
+        EXPORTACION("exportacion"),
+        LOGIN("login"),
+        // Intentos de login desde una misma IP (varias personas detrás de un NAT)
+        LOGIN_IP("login-ip");
+
+        private final String propiedad;
+
+        Grupo(String propiedad) { this.propiedad = propiedad; }
+
+        public String getPropiedad() { return propiedad; }
+    }
+
+    /**
+     * Consume un permiso de la cuota de un usuario (o de una IP, o IP y login, en el login).
+     * Devuelve 0 si se admite; si no, los nanosegundos que faltan para que haya cupo.
+     */
+    long consumirUsuario(Grupo grupo, String clave);
+
+    /**
+     * Igual que consumirUsuario, contra la cuota compartida por toda una clínica.
+     */
+    long consumirClinica(Grupo grupo, Integer clinicaId);
+
+    /**
+     * Clínica a la que se carga una petición, leída de la BD: la del usuario si es de una
+     * clínica o médico; si no (paciente), la de la cita o el médico al que se refiere.
+     * null si no se puede saber o el grupo no tiene cuota por clínica. Nunca se usa un
+     * "clinicaId" mandado por el cliente.
+     */
+    Integer clinicaDe(Grupo grupo, Integer usuarioId, Integer citaId, Integer medicoId);
+}
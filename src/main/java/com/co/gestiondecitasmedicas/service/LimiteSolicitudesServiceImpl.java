@@ -0,0 +1,194 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/LimiteSolicitudesServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Limitador de solicitudes por token bucket, en memoria y sin locks.
+ *
+ * - Cada cubeta es un único AtomicLong con el instante teórico en que volvería a
+ *   estar llena (algoritmo GCRA, equivalente a un token bucket). Consumir es leer,
+ *   sumar y un compareAndSet: no hay locks ni hilos de recarga.
+ * - Cuota por grupo: "por-minuto" permisos por minuto con ráfagas de hasta "rafaga";
+ *   la cuota por clínica usa "clinica-por-minuto" y "clinica-rafaga".
+ * - Con varias instancias, "app.limites.nodos" reparte la cuota entre ellas: cada una
+ *   admite su parte sin consultar a las demás.
+ * - Las cubetas llenas no aportan nada y se descartan periódicamente. Además hay como
+ *   máximo "app.limites.max-claves" cubetas: las claves del login las elige quien llama,
+ *   y sin tope un barrido de logins inventados haría crecer el mapa sin fin.
+ * - La clínica de cada petición se busca en la BD (usuario, cita o médico) fuera del
+ *   mapa, sin bloquear a quien busca otra clave, y se recuerda durante
+ *   "app.limites.clinicas-ttl-ms" (con el mismo tope de claves).
+ */
+@Service
+public class LimiteSolicitudesServiceImpl implements LimiteSolicitudesService {
+
+    private static final long NANOS_MINUTO = TimeUnit.MINUTES.toNanos(1);
+
+    private static final String SQL_CLINICA_USUARIO =
+        "SELECT id FROM clinicas WHERE usuario_id = ? "
+      + "UNION ALL SELECT clinica_id FROM usuarios WHERE id = ? AND clinica_id IS NOT NULL";
+
+    private static final String SQL_CLINICA_CITA = "SELECT clinica_id FROM citas WHERE id = ?";
+
+    private static final String SQL_CLINICA_MEDICO =
+        "SELECT clinica_id FROM usuarios WHERE id = ? AND clinica_id IS NOT NULL";
+
+    private enum Ambito { USUARIO, CLINICA }
+
+    private record Clave(Grupo grupo, Ambito ambito, Object id) { }
+
+    // Clínica encontrada (null: ninguna, p. ej. un paciente) y hasta cuándo vale
+    private record ClinicaRecordada(Integer clinicaId, long venceEn) { }
+
+    /**
+     * intervalo: nanos que "cuesta" un permiso; tolerancia: cuánto puede adelantarse
+     * la cubeta (rafaga * intervalo). Sin cuota configurada no se limita.
+     */
+    private record Cuota(long intervalo, long tolerancia) {
+        static final Cuota SIN_LIMITE = new Cuota(0, 0);
+    }
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.limites.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.limites.nodos:1}")
+    private int nodos;
+
+    @Value("${app.limites.max-claves:100000}")
+    private int maxClaves;
+
+    @Value("${app.limites.clinicas-ttl-ms:300000}")
+    private long clinicasTtlMs;
+
+    private final Map<Clave, AtomicLong> cubetas = new ConcurrentHashMap<>();
+    private final Map<String, ClinicaRecordada> clinicas = new ConcurrentHashMap<>();
+    private final Cuota[] cuotasUsuario = new Cuota[Grupo.values().length];
+    private final Cuota[] cuotasClinica = new Cuota[Grupo.values().length];
+
+    @PostConstruct
+    void iniciar() {
+        for (Grupo g : Grupo.values()) {
+            String prefijo = "app.limites." + g.getPropiedad() + ".";
+            cuotasUsuario[g.ordinal()] = cuota(prefijo + "por-minuto", prefijo + "rafaga");
+            cuotasClinica[g.ordinal()] = cuota(prefijo + "clinica-por-minuto", prefijo + "clinica-rafaga");
+        }
+    }
+
+    @Override
+    public long consumirUsuario(Grupo grupo, String clave) {
+        return consumir(new Clave(grupo, Ambito.USUARIO, clave), cuotasUsuario[grupo.ordinal()]);
+    }
+
+    @Override
+    public long consumirClinica(Grupo grupo, Integer clinicaId) {
+        return consumir(new Clave(grupo, Ambito.CLINICA, clinicaId), cuotasClinica[grupo.ordinal()]);
+    }
+
+    @Override
+    public Integer clinicaDe(Grupo grupo, Integer usuarioId, Integer citaId, Integer medicoId) {
+        if (!habilitado || cuotasClinica[grupo.ordinal()] == Cuota.SIN_LIMITE) {
+            return null;
+        }
+        Integer clinica = usuarioId == null ? null : buscar("u:" + usuarioId, SQL_CLINICA_USUARIO, usuarioId, usuarioId);
+        if (clinica == null && citaId != null) {
+            clinica = buscar("c:" + citaId, SQL_CLINICA_CITA, citaId);
+        }
+        if (clinica == null && medicoId != null) {
+            clinica = buscar("m:" + medicoId, SQL_CLINICA_MEDICO, medicoId);
+        }
+        return clinica;
+    }
+
+    /**
+     * Descarta las cubetas que ya se recargaron por completo; volver a crearlas da el mismo resultado.
+     * También las clínicas recordadas que vencieron.
+     */
+    @Scheduled(fixedDelayString = "${app.limites.limpieza-ms:60000}")
+    public void descartarLlenas() {
+        long ahora = System.nanoTime();
+        cubetas.values().removeIf(tat -> tat.get() - ahora <= 0);
+        long ahoraMs = System.currentTimeMillis();
+        clinicas.values().removeIf(c -> c.venceEn() <= ahoraMs);
+    }
+
+    // La consulta va fuera del mapa: dos búsquedas de la misma clave a la vez leen las dos, y da igual
+    private Integer buscar(String clave, String sql, Object... args) {
+        long ahora = System.currentTimeMillis();
+        ClinicaRecordada recordada = clinicas.get(clave);
+        if (recordada == null || recordada.venceEn() <= ahora) {
+            List<Integer> filas = jdbcTemplate.queryForList(sql, Integer.class, args);
+            recordada = new ClinicaRecordada(filas.isEmpty() ? null : filas.get(0), ahora + clinicasTtlMs);
+            hacerLugar(clinicas, clave);
+            clinicas.put(clave, recordada);
+        }
+        return recordada.clinicaId();
+    }
+
+    private long consumir(Clave clave, Cuota cuota) {
+        if (!habilitado || cuota == Cuota.SIN_LIMITE) {
+            return 0;
+        }
+        long ahora = System.nanoTime();
+        AtomicLong tat = cubetas.get(clave);
+        if (tat == null) {
+            hacerLugar(cubetas, clave);
+            tat = cubetas.computeIfAbsent(clave, k -> new AtomicLong(ahora));
+        }
+        while (true) {
+            long actual = tat.get();
+            long nuevo = Math.max(actual - ahora, 0) + ahora + cuota.intervalo();
+            long exceso = nuevo - ahora - cuota.tolerancia();
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (tat.compareAndSet(actual, nuevo)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Con el mapa en el tope, descarta alguna clave antes de agregar otra. Una cubeta
+     * descartada vuelve llena: a lo sumo esa clave recibe una ráfaga más.
+     */
+    private <K> void hacerLugar(Map<K, ?> mapa, K clave) {
+        if (mapa.size() >= maxClaves && !mapa.containsKey(clave)) {
+            Iterator<K> it = mapa.keySet().iterator();
+            if (it.hasNext()) {
+                mapa.remove(it.next());
+            }
+        }
+    }
+
+    private Cuota cuota(String propPorMinuto, String propRafaga) {
+        long porMinuto = env.getProperty(propPorMinuto, Long.class, 0L);
+        if (porMinuto <= 0) {
+            return Cuota.SIN_LIMITE;
+        }
+        int n = Math.max(1, nodos);
+        long intervalo = Math.max(1, NANOS_MINUTO * n / porMinuto);
+        long rafaga = Math.max(1, env.getProperty(propRafaga, Long.class, porMinuto) / n);
+        return new Cuota(intervalo, rafaga * intervalo);
+    }
+}
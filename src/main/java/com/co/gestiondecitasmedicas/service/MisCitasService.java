@@ -0,0 +1,17 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/MisCitasService.java
+package com.co.gestiondecitasmedicas.service;
+
+import com.co.gestiondecitasmedicas.dto.MisCitasDto;
+
+public interface MisCitasService {
+
+    /**
+     * Citas de un paciente para la página "mis citas", sin cargar entidades Cita.
+     */
+    MisCitasDto citasDePaciente(Integer pacienteId);
+
+    /**
+     * Citas asignadas a un médico para la página "mis citas", sin cargar entidades Cita.
+     */
+    MisCitasDto citasDeMedico(Integer medicoId);
+}
@@ -0,0 +1,232 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/MisCitasServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+import com.co.gestiondecitasmedicas.dto.MisCitasDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+import com.co.gestiondecitasmedicas.repository.CitaRepository;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Modelo de lectura de "mis citas" (paciente y médico).
+ *
+ * - Por cada usuario se guarda en memoria la lista inmutable de sus citas ya
+ *   formateadas, ordenada por fecha. Leer la página es partir esa lista en
+ *   próximas y pasadas; no se carga ninguna entidad Cita.
+ * - La lista se llena la primera vez desde una proyección sobre un único rango
+ *   del índice (paciente_id|medico_id, fecha_hora).
+ * - La lista de quien hizo el cambio se descarta en el mismo hilo, al confirmarse: la
+ *   redirección que sigue al POST la relee ya con el cambio.
+ * - Para el otro usuario de la cita la transición se aplica en un hilo propio, en orden,
+ *   y reemplaza la lista completa (copy-on-write). Cada evento lleva un número y cada lista
+ *   el último número que había al leerla: un evento que ya estaba en la BD cuando se leyó
+ *   la lista no se vuelve a aplicar.
+ * - Las de otras instancias (CitaEventoAjeno, ver BitacoraCitasServiceImpl) descartan
+ *   las listas de ambos usuarios, que se releen al próximo uso.
+ * - Se guardan como máximo "app.mis-citas.max-usuarios" listas; al pasarse se
+ *   descarta alguna y se volverá a leer si hace falta.
+ */
+@Service
+public class MisCitasServiceImpl implements MisCitasService {
+
+    private static final Logger log = LoggerFactory.getLogger(MisCitasServiceImpl.class);
+
+    private static final Comparator<CitaResumenDto> POR_FECHA =
+        Comparator.comparing(CitaResumenDto::fechaHora).thenComparing(CitaResumenDto::id);
+
+    private enum Rol { PACIENTE, MEDICO }
+
+    private record Clave(Rol rol, Integer id) { }
+
+    private record Lista(List<CitaResumenDto> citas, long leidaEn) { }
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private VersionesService versiones;
+
+    @Value("${app.mis-citas.max-usuarios:10000}")
+    private int maxUsuarios;
+
+    private final Map<Clave, Lista> listas = new ConcurrentHashMap<>();
+
+    // Número del último evento confirmado; se toma y se encola con el lock de "encolado"
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Object encolado = new Object();
+
+    // Un solo hilo: los eventos se aplican en el orden en que se confirmaron. Cada tarea
+    // lleva el contexto de quien la encoló, así la proyección queda en la traza del cambio
+    private final ExecutorService proyector = ContextExecutorService.wrap(Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "mis-citas-proyeccion");
+        hilo.setDaemon(true);
+        return hilo;
+    }), ContextSnapshotFactory.builder().build());
+
+    @Override
+    public MisCitasDto citasDePaciente(Integer pacienteId) {
+        return separar(obtener(new Clave(Rol.PACIENTE, pacienteId)));
+    }
+
+    @Override
+    public MisCitasDto citasDeMedico(Integer medicoId) {
+        return separar(obtener(new Clave(Rol.MEDICO, medicoId)));
+    }
+
+    /**
+     * Descarta la lista de quien hizo el cambio y encola la transición para el otro usuario.
+     */
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        Integer actor = usuarioActual();
+        List<Clave> claves = List.of(new Clave(Rol.PACIENTE, evento.pacienteId()), new Clave(Rol.MEDICO, evento.medicoId()));
+        List<Clave> otros = new ArrayList<>(2);
+        for (Clave clave : claves) {
+            if (clave.id().equals(actor)) {
+                listas.remove(clave);
+                versiones.tocarUsuario(clave.id());
+            } else {
+                otros.add(clave);
+            }
+        }
+        synchronized (encolado) {
+            long numero = secuencia.incrementAndGet();
+            proyector.execute(() -> {
+                for (Clave clave : otros) {
+                    try {
+                        aplicar(clave, evento, numero);
+                    } catch (RuntimeException ex) {
+                        // Ante la duda se descarta la lista; se relee completa al próximo uso
+                        listas.remove(clave);
+                        log.error("No se pudo aplicar {} de la cita {} a mis citas", evento.tipo(), evento.citaId(), ex);
+                    } finally {
+                        // Recién ahora la página refleja el cambio: invalida su ETag
+                        versiones.tocarUsuario(clave.id());
+                    }
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void alCambiarCitaEnOtraInstancia(CitaEventoAjeno ajeno) {
+        CitaEvento evento = ajeno.evento();
+        listas.remove(new Clave(Rol.PACIENTE, evento.pacienteId()));
+        listas.remove(new Clave(Rol.MEDICO, evento.medicoId()));
+        versiones.tocarUsuario(evento.pacienteId());
+        versiones.tocarUsuario(evento.medicoId());
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        proyector.shutdownNow();
+    }
+
+    private List<CitaResumenDto> obtener(Clave clave) {
+        Lista lista = listas.get(clave);
+        if (lista != null) {
+            return lista.citas();
+        }
+        if (listas.size() >= maxUsuarios) {
+            descartarAlguna();
+        }
+        return listas.computeIfAbsent(clave, this::cargar).citas();
+    }
+
+    private Lista cargar(Clave clave) {
+        // Lo confirmado hasta este número ya está en la BD que se va a leer
+        long leidaEn = secuencia.get();
+        List<CitaResumenDto> filas = switch (clave.rol()) {
+            case PACIENTE -> citaRepository.resumenesDePaciente(clave.id());
+            case MEDICO   -> citaRepository.resumenesDeMedico(clave.id());
+        };
+        return new Lista(List.copyOf(filas), leidaEn); // la consulta ya viene ordenada por fecha
+    }
+
+    private void aplicar(Clave clave, CitaEvento evento, long numero) {
+        // Si el usuario no está en memoria no hace falta: se leerá completo al primer uso
+        listas.computeIfPresent(clave, (k, lista) -> {
+            if (numero <= lista.leidaEn()) {
+                return lista;
+            }
+            List<CitaResumenDto> actual = lista.citas();
+            List<CitaResumenDto> nueva = new ArrayList<>(actual.size() + 1);
+            for (CitaResumenDto fila : actual) {
+                if (!fila.id().equals(evento.citaId())) {
+                    nueva.add(fila);
+                }
+            }
+            if (evento.estado() != null) {
+                nueva.add(new CitaResumenDto(evento.citaId(), evento.fechaHora(), evento.estado(),
+                    evento.pacienteNombre(), evento.medicoNombre(), evento.clinicaNombre()));
+                nueva.sort(POR_FECHA);
+            }
+            return new Lista(List.copyOf(nueva), lista.leidaEn());
+        });
+    }
+
+    private void descartarAlguna() {
+        Iterator<Clave> it = listas.keySet().iterator();
+        if (it.hasNext()) {
+            listas.remove(it.next());
+        }
+    }
+
+    private static Integer usuarioActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof UsuarioAutenticado u ? u.getId() : null;
+    }
+
+    /**
+     * Parte la lista (ordenada por fecha) en próximas, de la más cercana a la más
+     * lejana, y pasadas, de la más reciente a la más antigua.
+     */
+    private static MisCitasDto separar(List<CitaResumenDto> lista) {
+        int corte = primeraDesde(lista, LocalDateTime.now());
+        List<CitaResumenDto> pasadas = new ArrayList<>(lista.subList(0, corte));
+        Collections.reverse(pasadas);
+        return new MisCitasDto(lista.subList(corte, lista.size()), pasadas);
+    }
+
+    // Búsqueda binaria de la primera cita con fechaHora >= ahora
+    private static int primeraDesde(List<CitaResumenDto> lista, LocalDateTime ahora) {
+        int bajo = 0;
+        int alto = lista.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (lista.get(medio).fechaHora().isBefore(ahora)) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
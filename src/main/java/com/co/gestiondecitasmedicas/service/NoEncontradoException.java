@@ -0,0 +1,12 @@
+package com.co.gestiondecitasmedicas.service;
+
+/**
+ * Lo pedido (cita, token, usuario, clínica...) no existe o no es visible para quien lo pide.
+ * Las vistas lo muestran como cualquier otro errorMsg; la API responde 404.
+ */
+public class NoEncontradoException extends RuntimeException {
+
+    public NoEncontradoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,83 @@
+package com.co.gestiondecitasmedicas.service;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Petición GET y respuesta mínimas para renderizar vistas fuera de una petición real
+ * (calentamiento). La petición guarda atributos; la respuesta descarta lo que se escribe.
+ * Cualquier otro método devuelve el valor "vacío" de su tipo (null, 0, false, colección vacía).
+ */
+final class PeticionSintetica {
+
+    private PeticionSintetica() { }
+
+    static HttpServletRequest peticion(ServletContext servletContext, Map<String, Object> atributos) {
+        Map<String, Object> guardados = new HashMap<>(atributos);
+        return (HttpServletRequest) Proxy.newProxyInstance(PeticionSintetica.class.getClassLoader(),
+            new Class<?>[] { HttpServletRequest.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                case "getMethod" -> "GET";
+                case "getContextPath", "getServletPath" -> servletContext.getContextPath();
+                case "getRequestURI" -> servletContext.getContextPath() + "/";
+                case "getCharacterEncoding" -> "UTF-8";
+                case "getLocale" -> Locale.getDefault();
+                case "getLocales" -> Collections.enumeration(List.of(Locale.getDefault()));
+                case "getDispatcherType" -> DispatcherType.REQUEST;
+                case "getServletContext" -> servletContext;
+                case "getAttribute" -> guardados.get((String) args[0]);
+                case "setAttribute" -> guardados.put((String) args[0], args[1]);
+                case "removeAttribute" -> guardados.remove((String) args[0]);
+                case "getAttributeNames" -> Collections.enumeration(List.copyOf(guardados.keySet()));
+                case "toString" -> "PeticionSintetica";
+                default -> vacio(metodo.getReturnType());
+            });
+    }
+
+    static HttpServletResponse respuesta() {
+        PrintWriter descarte = new PrintWriter(Writer.nullWriter());
+        return (HttpServletResponse) Proxy.newProxyInstance(PeticionSintetica.class.getClassLoader(),
+            new Class<?>[] { HttpServletResponse.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                case "getWriter" -> descarte;
+                case "encodeURL", "encodeRedirectURL" -> args[0];
+                case "getCharacterEncoding" -> "UTF-8";
+                case "getLocale" -> Locale.getDefault();
+                case "toString" -> "RespuestaSintetica";
+                default -> vacio(metodo.getReturnType());
+            });
+    }
+
+    private static Object vacio(Class<?> tipo) {
+        if (tipo == boolean.class) {
+            return false;
+        }
+        if (tipo == int.class) {
+            return 0;
+        }
+        if (tipo == long.class) {
+            return 0L;
+        }
+        if (tipo == Enumeration.class) {
+            return Collections.emptyEnumeration();
+        }
+        if (tipo == Map.class) {
+            return Map.of();
+        }
+        if (Collection.class.isAssignableFrom(tipo)) {
+            return List.of();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/RecordatoriosService.java
+package com.co.gestiondecitasmedicas.service;
+
+public interface RecordatoriosService {
+
+    /**
+     * Recorre cada ventana de "app.recordatorios.ventanas" (por ejemplo 24 h y 2 h antes)
+     * y encola un correo por cada cita RESERVADA que entró en ella y aún no se avisó.
+     * Solo procesa las ventanas cuyo arriendo toma esta instancia.
+     */
+    void enviarPendientes();
+}
@@ -0,0 +1,341 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/RecordatoriosServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Recordatorios por correo de las citas RESERVADA.
+ *
+ * - Cada ventana ("24h", "2h") es una tarea con su arriendo en arriendos_tareas: en
+ *   cada vuelta la procesa una sola instancia, y si esa instancia cae otra sigue desde
+ *   el progreso guardado cuando el arriendo vence.
+ * - La ventana avanza: se leen las citas con fecha entre el progreso anterior y
+ *   "ahora + anticipación", por páginas de "app.recordatorios.lote" ordenadas por
+ *   (fecha_hora, id) sobre el índice idx_citas_estado_fecha. Ninguna consulta recorre
+ *   la tabla completa y no hay transacciones largas (cada sentencia es autocommit).
+ * - Antes de encolar, cada recordatorio se anota en recordatorios_enviados (INSERT
+ *   IGNORE sobre la clave cita + ventana + fecha): una cita no recibe dos veces el mismo
+ *   aviso, aunque una página se relea tras una caída. Si el envío falla, se borra la
+ *   anotación y el progreso guardado no pasa de esa cita: la vuelta siguiente relee
+ *   desde ella (saltando las ya anotadas) y la reintenta; las páginas de después se
+ *   siguen enviando. Lo mismo con los que aún no salieron al vencer la espera de la página.
+ * - Se espera a que salga cada página antes de leer la siguiente, así la cola de
+ *   CorreoService no crece sin límite.
+ * - Tras una interrupción larga no se recupera más de "app.recordatorios.atraso-maximo-min"
+ *   hacia atrás: un aviso de 24 h no se manda con la cita a pocas horas. Un corte del
+ *   servidor de correo más largo que eso deja sin aviso a las citas que quedaron atrás.
+ */
+@Service
+public class RecordatoriosServiceImpl implements RecordatoriosService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordatoriosServiceImpl.class);
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    // Keyset (fecha_hora, id): el rango del índice empieza en la fecha del cursor
+    private static final String SQL_PAGINA =
+        "SELECT id, fecha_hora, correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, motivo "
+      + "FROM citas WHERE estado = 'RESERVADA' AND fecha_hora >= ? AND fecha_hora <= ? "
+      + "AND (fecha_hora > ? OR id > ?) ORDER BY fecha_hora, id LIMIT ?";
+
+    private static final String SQL_ENVIADOS =
+        "SELECT cita_id, fecha_hora FROM recordatorios_enviados WHERE ventana = ? AND cita_id IN (%s)";
+
+    private static final String SQL_ANOTAR =
+        "INSERT IGNORE INTO recordatorios_enviados (cita_id, ventana, fecha_hora, enviado_en) "
+      + "VALUES (?, ?, ?, NOW(6))";
+
+    private static final String SQL_DESANOTAR =
+        "DELETE FROM recordatorios_enviados WHERE cita_id = ? AND ventana = ? AND fecha_hora = ?";
+
+    private record Ventana(String nombre, Duration anticipacion, Counter enviados, Counter fallidos) {
+        String tarea() {
+            return "recordatorios-" + nombre;
+        }
+    }
+
+    private record Fila(Integer id, LocalDateTime fechaHora, String correo, String paciente,
+                        String medico, String clinica, String motivo) { }
+
+    /** Resultado de una página: cuántos se encolaron y la fecha del primero que no salió (o null). */
+    private record Envio(int encolados, LocalDateTime primerPendiente) { }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ArriendoTareasService arriendos;
+    @Autowired @Lazy private CorreoService correoService;
+    @Autowired private MeterRegistry registry;
+
+    @Value("${app.recordatorios.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.recordatorios.ventanas:24h,2h}")
+    private List<String> nombresVentanas;
+
+    @Value("${app.recordatorios.lote:500}")
+    private int lote;
+
+    @Value("${app.recordatorios.arriendo-s:300}")
+    private long arriendoSegundos;
+
+    @Value("${app.recordatorios.atraso-maximo-min:60}")
+    private long atrasoMaximoMin;
+
+    @Value("${app.recordatorios.espera-lote-ms:120000}")
+    private long esperaLoteMs;
+
+    private List<Ventana> ventanas = List.of();
+
+    @PostConstruct
+    void crearVentanas() {
+        List<Ventana> lista = new ArrayList<>();
+        for (String nombre : nombresVentanas) {
+            String n = nombre.trim();
+            lista.add(new Ventana(n, anticipacion(n), contador("recordatorios.enviados", n),
+                contador("recordatorios.fallidos", n)));
+        }
+        ventanas = List.copyOf(lista);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.recordatorios.intervalo-ms:60000}",
+               initialDelayString = "${app.recordatorios.intervalo-ms:60000}")
+    public void enviarPendientes() {
+        if (!habilitado) {
+            return;
+        }
+        for (Ventana ventana : ventanas) {
+            try {
+                int encolados = procesar(ventana);
+                if (encolados > 0) {
+                    log.info("Recordatorios {} enviados: {}", ventana.nombre(), encolados);
+                }
+            } catch (RuntimeException ex) {
+                log.error("Fallaron los recordatorios de la ventana {}", ventana.nombre(), ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        // Otra instancia puede seguir enseguida, sin esperar a que venza el arriendo
+        for (Ventana ventana : ventanas) {
+            try {
+                arriendos.soltar(ventana.tarea());
+            } catch (RuntimeException ex) {
+                log.debug("No se pudo soltar el arriendo {}", ventana.tarea(), ex);
+            }
+        }
+    }
+
+    private int procesar(Ventana ventana) {
+        Duration arriendo = Duration.ofSeconds(arriendoSegundos);
+        if (!arriendos.tomar(ventana.tarea(), arriendo)) {
+            return 0; // la tiene otra instancia
+        }
+        LocalDateTime hasta = LocalDateTime.now().plus(ventana.anticipacion());
+        LocalDateTime minimo = hasta.minusMinutes(atrasoMaximoMin);
+        LocalDateTime cursorFecha = arriendos.progreso(ventana.tarea())
+            .filter(p -> p.isAfter(minimo))
+            .orElse(minimo);
+        int cursorId = Integer.MIN_VALUE;
+        int total = 0;
+        // Se siguen leyendo las páginas, pero el progreso guardado no pasa del primer aviso
+        // que no salió: la próxima vuelta lo reintenta (las filas ya anotadas se saltan)
+        LocalDateTime primerPendiente = null;
+        while (true) {
+            List<Fila> pagina = jdbcTemplate.query(SQL_PAGINA, this::leerFila,
+                Timestamp.valueOf(cursorFecha), Timestamp.valueOf(hasta),
+                Timestamp.valueOf(cursorFecha), cursorId, lote);
+            Envio envio = enviar(ventana, pagina);
+            total += envio.encolados();
+            if (primerPendiente == null) {
+                primerPendiente = envio.primerPendiente();
+            }
+            if (pagina.size() < lote) {
+                break;
+            }
+            Fila ultima = pagina.get(pagina.size() - 1);
+            cursorFecha = ultima.fechaHora();
+            cursorId = ultima.id();
+            if (!arriendos.renovar(ventana.tarea(), arriendo, primerPendiente != null ? primerPendiente : cursorFecha)) {
+                log.warn("Se perdió el arriendo de {}; la sigue otra instancia", ventana.tarea());
+                return total;
+            }
+        }
+        arriendos.renovar(ventana.tarea(), arriendo, primerPendiente != null ? primerPendiente : hasta);
+        return total;
+    }
+
+    /**
+     * Anota y encola los recordatorios de una página que aún no se enviaron, y espera a
+     * que salgan. Devuelve cuántos se encolaron y la fecha del primero que falló o no
+     * terminó a tiempo.
+     */
+    private Envio enviar(Ventana ventana, List<Fila> pagina) {
+        if (pagina.isEmpty()) {
+            return new Envio(0, null);
+        }
+        Set<String> yaEnviados = enviados(ventana, pagina);
+        List<Fila> nuevas = new ArrayList<>();
+        for (Fila f : pagina) {
+            if (!yaEnviados.contains(clave(f.id(), f.fechaHora()))) {
+                nuevas.add(f);
+            }
+        }
+        if (nuevas.isEmpty()) {
+            return new Envio(0, null);
+        }
+        jdbcTemplate.batchUpdate(SQL_ANOTAR, nuevas, nuevas.size(), (ps, f) -> {
+            ps.setInt(1, f.id());
+            ps.setString(2, ventana.nombre());
+            ps.setTimestamp(3, Timestamp.valueOf(f.fechaHora()));
+        });
+
+        List<CompletableFuture<Void>> envios = new ArrayList<>(nuevas.size());
+        for (Fila f : nuevas) {
+            CompletableFuture<Void> envio;
+            try {
+                envio = correoService.encolar(mensaje(f));
+            } catch (MessagingException | RuntimeException ex) {
+                envio = CompletableFuture.failedFuture(ex);
+            }
+            envios.add(envio.whenComplete((r, ex) -> {
+                if (ex == null) {
+                    ventana.enviados().increment();
+                } else {
+                    ventana.fallidos().increment();
+                    desanotar(ventana, f);
+                }
+            }));
+        }
+        esperar(envios);
+        // Las filas vienen por (fecha_hora, id): el primer pendiente es el de menor fecha
+        for (int i = 0; i < nuevas.size(); i++) {
+            CompletableFuture<Void> envio = envios.get(i);
+            if (!envio.isDone() || envio.isCompletedExceptionally()) {
+                return new Envio(nuevas.size(), nuevas.get(i).fechaHora());
+            }
+        }
+        return new Envio(nuevas.size(), null);
+    }
+
+    private Set<String> enviados(Ventana ventana, List<Fila> pagina) {
+        String marcas = String.join(", ", Collections.nCopies(pagina.size(), "?"));
+        List<Object> parametros = new ArrayList<>(pagina.size() + 1);
+        parametros.add(ventana.nombre());
+        for (Fila f : pagina) {
+            parametros.add(f.id());
+        }
+        Set<String> claves = new HashSet<>();
+        jdbcTemplate.query(String.format(SQL_ENVIADOS, marcas),
+            rs -> { claves.add(clave(rs.getInt("cita_id"), rs.getObject("fecha_hora", LocalDateTime.class))); },
+            parametros.toArray());
+        return claves;
+    }
+
+    private void desanotar(Ventana ventana, Fila f) {
+        try {
+            jdbcTemplate.update(SQL_DESANOTAR, f.id(), ventana.nombre(), Timestamp.valueOf(f.fechaHora()));
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo desanotar el recordatorio {} de la cita {}", ventana.nombre(), f.id(), ex);
+        }
+    }
+
+    private void esperar(List<CompletableFuture<Void>> envios) {
+        try {
+            CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new))
+                .get(esperaLoteMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            // Cada fallo ya quedó contado y desanotado
+        } catch (TimeoutException ex) {
+            log.warn("Recordatorios aún en cola tras {} ms; se sigue con la página siguiente", esperaLoteMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MimeMessage mensaje(Fila f) throws MessagingException {
+        MimeMessage mensaje = correoService.crearMensaje();
+        MimeMessageHelper helper = new MimeMessageHelper(mensaje, false, "UTF-8");
+        helper.setTo(f.correo());
+        helper.setSubject("Recordatorio de su cita del " + f.fechaHora().format(FORMATO_FECHA));
+        helper.setText(
+            "Estimado/a " + f.paciente() + ",\n\n"
+            + "Le recordamos su cita del " + f.fechaHora().format(FORMATO_FECHA)
+            + " a las " + f.fechaHora().format(FORMATO_HORA)
+            + " con " + f.medico() + " en " + f.clinica() + ".\n"
+            + "Motivo: " + f.motivo() + "\n\n"
+            + "Si no puede asistir, cancele la cita desde su cuenta.\n\n"
+            + "Saludos,\n" + f.clinica(),
+            false
+        );
+        return mensaje;
+    }
+
+    private Fila leerFila(ResultSet rs, int fila) throws SQLException {
+        return new Fila(
+            rs.getInt("id"),
+            rs.getObject("fecha_hora", LocalDateTime.class),
+            rs.getString("correo_contacto"),
+            rs.getString("paciente_nombre"),
+            rs.getString("medico_nombre"),
+            rs.getString("clinica_nombre"),
+            rs.getString("motivo")
+        );
+    }
+
+    private Counter contador(String nombre, String ventana) {
+        return Counter.builder(nombre)
+            .description("Recordatorios de citas por ventana")
+            .tag("ventana", ventana)
+            .register(registry);
+    }
+
+    private static String clave(Integer citaId, LocalDateTime fechaHora) {
+        return citaId + "|" + fechaHora;
+    }
+
+    /**
+     * "24h" → 24 horas, "90m" → 90 minutos.
+     */
+    private static Duration anticipacion(String nombre) {
+        long cantidad = Long.parseLong(nombre.substring(0, nombre.length() - 1));
+        return switch (nombre.charAt(nombre.length() - 1)) {
+            case 'h' -> Duration.ofHours(cantidad);
+            case 'm' -> Duration.ofMinutes(cantidad);
+            default -> throw new IllegalArgumentException("Ventana de recordatorio inválida: " + nombre);
+        };
+    }
+}
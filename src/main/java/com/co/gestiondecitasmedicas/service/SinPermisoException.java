@@ -0,0 +1,12 @@
+package com.co.gestiondecitasmedicas.service;
+
+/**
+ * Quien pide el cambio no puede hacerlo sobre ese recurso (no es su cita, no es su clínica).
+ * Las vistas lo muestran como cualquier otro errorMsg; la API responde 403.
+ */
+public class SinPermisoException extends RuntimeException {
+
+    public SinPermisoException(String mensaje) {
+        super(mensaje);
+    }
+}
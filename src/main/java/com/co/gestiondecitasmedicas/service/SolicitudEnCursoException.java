@@ -0,0 +1,13 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/SolicitudEnCursoException.java
+package com.co.gestiondecitasmedicas.service;
+
+/**
+ * El mismo envío (misma clave de idempotencia) sigue en proceso y no terminó dentro
+ * de la espera máxima: no se rehace ni se puede repetir su resultado todavía.
+ */
+public class SolicitudEnCursoException extends RuntimeException {
+
+    public SolicitudEnCursoException() {
+        super("Su solicitud anterior todavía se está procesando; espere unos segundos y recargue la página.");
+    }
+}
@@ -0,0 +1,32 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/TokenApiService.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.co.gestiondecitasmedicas.dto.TokenApiDto;
+
+public interface TokenApiService {
+
+    /**
+     * Emite un token nuevo para el usuario. El valor en claro solo viene en el resultado de este método.
+     */
+    TokenApiDto emitir(Integer usuarioId, String nombre, int diasVigencia);
+
+    /**
+     * Tokens del usuario (sin el valor en claro).
+     */
+    List<TokenApiDto> listar(Integer usuarioId);
+
+    /**
+     * Revoca un token del usuario; deja de aceptarse de inmediato.
+     */
+    void revocar(Integer tokenId, Integer usuarioId);
+
+    /**
+     * Usuario dueño del token si es válido (existe, no venció y no fue revocado).
+     */
+    Optional<UserDetails> autenticar(String token);
+}
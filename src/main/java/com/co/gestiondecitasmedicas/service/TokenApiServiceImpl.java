@@ -0,0 +1,150 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/TokenApiServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.co.gestiondecitasmedicas.dto.TokenApiDto;
+import com.co.gestiondecitasmedicas.models.TokenApi;
+import com.co.gestiondecitasmedicas.models.Usuario;
+import com.co.gestiondecitasmedicas.repository.TokenApiRepository;
+import com.co.gestiondecitasmedicas.repository.UsuarioRepository;
+
+/**
+ * Tokens "Bearer" de la API.
+ *
+ * - Se guarda el SHA-256 del token; el valor en claro no queda en la BD.
+ * - Los tokens ya validados se recuerdan en memoria "app.api.token-cache-segundos",
+ *   así un cliente que hace muchas llamadas no consulta tokens_api ni usuarios en cada una.
+ */
+@Service
+public class TokenApiServiceImpl implements TokenApiService {
+
+    private static final String PREFIJO = "gcm_";
+    private static final int MAX_DIAS_VIGENCIA = 365;
+    private static final int MAX_EN_MEMORIA = 10_000;
+
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    @Autowired
+    private TokenApiRepository tokenRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Value("${app.api.token-cache-segundos:60}")
+    private long segundosEnMemoria;
+
+    private record Validado(Integer tokenId, UserDetails usuario, LocalDateTime expiraEn, long recordarHasta) { }
+
+    private final Map<String, Validado> validados = new ConcurrentHashMap<>();
+
+    @Override
+    @Transactional
+    public TokenApiDto emitir(Integer usuarioId, String nombre, int diasVigencia) {
+        if (nombre == null || nombre.isBlank()) {
+            throw new RuntimeException("El nombre del token es obligatorio.");
+        }
+        if (diasVigencia < 1 || diasVigencia > MAX_DIAS_VIGENCIA) {
+            throw new RuntimeException("La vigencia debe estar entre 1 y " + MAX_DIAS_VIGENCIA + " días.");
+        }
+        byte[] bytes = new byte[32];
+        aleatorio.nextBytes(bytes);
+        String token = PREFIJO + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        TokenApi entidad = new TokenApi();
+        entidad.setUsuarioId(usuarioId);
+        entidad.setNombre(nombre.trim());
+        entidad.setHash(sha256(token));
+        entidad.setExpiraEn(LocalDateTime.now().plusDays(diasVigencia));
+        TokenApi guardado = tokenRepository.save(entidad);
+        return new TokenApiDto(guardado.getId(), guardado.getNombre(), token,
+            guardado.getCreadoEn(), guardado.getExpiraEn(), false);
+    }
+
+    @Override
+    public List<TokenApiDto> listar(Integer usuarioId) {
+        return tokenRepository.findByUsuarioIdOrderByIdDesc(usuarioId).stream()
+            .map(t -> new TokenApiDto(t.getId(), t.getNombre(), null, t.getCreadoEn(), t.getExpiraEn(), t.isRevocado()))
+            .toList();
+    }
+
+    @Override
+    @Transactional
+    public void revocar(Integer tokenId, Integer usuarioId) {
+        TokenApi token = tokenRepository.findById(tokenId)
+            .filter(t -> t.getUsuarioId().equals(usuarioId))
+            .orElseThrow(() -> new NoEncontradoException("Token no encontrado: " + tokenId));
+        token.setRevocado(true);
+        tokenRepository.save(token);
+        validados.values().removeIf(v -> v.tokenId().equals(tokenId));
+    }
+
+    @Override
+    public Optional<UserDetails> autenticar(String token) {
+        if (token == null || !token.startsWith(PREFIJO)) {
+            return Optional.empty();
+        }
+        String hash = sha256(token);
+        long ahora = System.nanoTime();
+        Validado v = validados.get(hash);
+        if (v != null && ahora - v.recordarHasta() < 0 && v.expiraEn().isAfter(LocalDateTime.now())) {
+            return Optional.of(v.usuario());
+        }
+        validados.remove(hash);
+
+        Optional<TokenApi> encontrado = tokenRepository.findByHash(hash)
+            .filter(t -> !t.isRevocado() && t.getExpiraEn().isAfter(LocalDateTime.now()));
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
+        }
+        TokenApi t = encontrado.get();
+        Optional<UserDetails> usuario = usuarioRepository.findById(t.getUsuarioId())
+            .map(Usuario::getUsuariologin)
+            .flatMap(this::cargarUsuario);
+        usuario.ifPresent(ud -> {
+            if (validados.size() >= MAX_EN_MEMORIA) {
+                validados.clear();
+            }
+            validados.put(hash, new Validado(t.getId(), ud, t.getExpiraEn(), ahora + segundosEnMemoria * 1_000_000_000L));
+        });
+        return usuario;
+    }
+
+    private Optional<UserDetails> cargarUsuario(String login) {
+        try {
+            return Optional.of(userDetailsService.loadUserByUsername(login));
+        } catch (UsernameNotFoundException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static String sha256(String texto) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
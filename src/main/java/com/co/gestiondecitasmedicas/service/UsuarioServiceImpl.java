@@ -51,6 +51,9 @@ public class UsuarioServiceImpl implements UsuarioService {
     // <<< INYECCIÓN QUE FALTABA >>>
     @Autowired
     private CitaService citaService;
+
+    @Autowired
+    private DirectorioPacientesService directorioPacientes;
     /**
      * Crea un nuevo usuario o agrega roles faltantes, y si incluye el rol CLINICA,
      * crea la entidad Clinica asociada.
@@ -87,6 +90,7 @@ public class UsuarioServiceImpl implements UsuarioService {
         }
 
         usuario = usuarioRepository.save(usuario);
+        directorioPacientes.actualizarPaciente(usuario.getId(), usuario.getNombre(), usuario.getDocumento());
 
         // Si el DTO incluye el rol CLINICA, creamos la fila en clinicas
         Optional<Rol> rolClinicaOpt = rolRepository.findByNombre("CLINICA");
@@ -0,0 +1,30 @@
+package com.co.gestiondecitasmedicas.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.co.gestiondecitasmedicas.dto.CitaProximaDto;
+
+public interface VentanaCitasService {
+
+    /**
+     * Citas no canceladas de la clínica con fechaHora en [desde, hasta), por fecha.
+     * Dentro de la ventana se leen de memoria; fuera de ella, de la BD.
+     */
+    List<CitaProximaDto> deClinica(Integer clinicaId, LocalDateTime desde, LocalDateTime hasta);
+
+    /**
+     * Igual que deClinica, para las citas asignadas a un médico.
+     */
+    List<CitaProximaDto> deMedico(Integer medicoId, LocalDateTime desde, LocalDateTime hasta);
+
+    /**
+     * Igual que deClinica, para las citas de un paciente.
+     */
+    List<CitaProximaDto> dePaciente(Integer pacienteId, LocalDateTime desde, LocalDateTime hasta);
+
+    /**
+     * Descarta la ventana y la vuelve a leer de la BD.
+     */
+    void recargar();
+}
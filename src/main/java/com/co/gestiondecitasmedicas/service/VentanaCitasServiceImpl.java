@@ -0,0 +1,624 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/VentanaCitasServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.dto.CitaProximaDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.ProyeccionCitas;
+import com.co.gestiondecitasmedicas.models.Cita;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ventana de citas de hoy y los próximos "app.ventana-citas.dias" días, fuera del heap.
+ *
+ * - Cada cita no cancelada de la ventana es un registro de 32 bytes (ids, fecha y estado)
+ *   en un archivo mapeado en memoria ("app.ventana-citas.archivo"), o en un buffer directo
+ *   si no hay archivo. El heap solo guarda los índices: por cita, y por clínica, médico y
+ *   paciente un int[] de posiciones ordenado por fecha.
+ * - Las transiciones confirmadas se aplican al momento (after commit). Cada
+ *   "app.ventana-citas.sincronizacion-ms" se reproduce la bitácora desde el último offset,
+ *   así llegan también los cambios hechos en otras instancias, y al cambiar el día se
+ *   descartan las citas pasadas y se leen de la BD los días que entran a la ventana.
+ * - Al apagar se anota en la cabecera el offset y se marca el archivo como limpio. Al
+ *   arrancar, un archivo limpio se vuelve a mapear y solo se reproduce la bitácora desde
+ *   ese offset; si no está limpio (caída, otro formato u otra capacidad) se lee todo de la BD.
+ * - Mientras la ventana no está lista, o si el rango pedido se sale de ella, se lee de la BD.
+ * - Si se llena ("app.ventana-citas.capacidad"), deja de estar lista, se anota en el log y en
+ *   la métrica "ventana.citas.desbordes". Cada sincronización cuenta en la BD las citas de la
+ *   ventana (el cambio de día y las cancelaciones liberan lugar) y, cuando caben, la vuelve a
+ *   leer completa, lo que además compacta los registros.
+ */
+@Service
+public class VentanaCitasServiceImpl implements VentanaCitasService, ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(VentanaCitasServiceImpl.class);
+
+    // Cabecera del archivo
+    private static final int MAGICO = 0x56434954; // "VCIT"
+    private static final int FORMATO = 1;
+    private static final int CABECERA = 64;
+    private static final int CAB_MAGICO = 0;
+    private static final int CAB_FORMATO = 4;
+    private static final int CAB_CAPACIDAD = 8;
+    private static final int CAB_LIMPIO = 12;
+    private static final int CAB_OFFSET = 16;
+    private static final int CAB_DESDE = 24;
+    private static final int CAB_HASTA = 32;
+
+    // Registro de una cita; cita_id = 0 marca un registro libre
+    private static final int REGISTRO = 32;
+    private static final int REG_CITA = 0;
+    private static final int REG_CLINICA = 4;
+    private static final int REG_MEDICO = 8;
+    private static final int REG_PACIENTE = 12;
+    private static final int REG_FECHA = 16;
+    private static final int REG_ESTADO = 24;
+
+    private static final Cita.Estado[] ESTADOS = Cita.Estado.values();
+
+    private static final String SQL_RANGO =
+        "SELECT id, fecha_hora, estado, clinica_id, medico_id, paciente_id FROM citas "
+      + "WHERE fecha_hora >= ? AND fecha_hora < ? AND estado <> 'CANCELADA' ";
+
+    private static final String SQL_CONTAR =
+        "SELECT COUNT(*) FROM citas WHERE fecha_hora >= ? AND fecha_hora < ? AND estado <> 'CANCELADA'";
+
+    private static final String SQL_CITA =
+        "SELECT id, fecha_hora, estado, clinica_id, medico_id, paciente_id FROM citas WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BitacoraCitasService bitacora;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.ventana-citas.dias:30}")
+    private int dias;
+
+    @Value("${app.ventana-citas.capacidad:200000}")
+    private int capacidad;
+
+    @Value("${app.ventana-citas.archivo:}")
+    private String archivo;
+
+    // Lecturas en paralelo; las escrituras (eventos, carga, cambio de día) de a una
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    // Una sola sincronización, recarga o cierre a la vez
+    private final ReentrantLock mantenimiento = new ReentrantLock();
+
+    private final Map<Integer, Integer> posiciones = new HashMap<>();
+    private final Map<Integer, int[]> porClinica = new HashMap<>();
+    private final Map<Integer, int[]> porMedico = new HashMap<>();
+    private final Map<Integer, int[]> porPaciente = new HashMap<>();
+    private final BitSet ocupados = new BitSet();
+
+    private ByteBuffer datos;
+    private FileChannel canal;
+    private FileLock bloqueo;
+
+    private CursorBitacora cursor;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private volatile boolean lista;
+    private volatile boolean desbordada;
+
+    // Un evento que llegó tarde puede ser más viejo que lo ya aplicado: la cita se vuelve a leer
+    private final ProyeccionCitas proyeccion = new ProyeccionCitas() {
+        @Override
+        public void aplicar(long offset, CitaEvento evento) {
+            aplicarBloqueado(evento);
+        }
+
+        @Override
+        public void aplicarTardio(long offset, CitaEvento evento) {
+            releer(evento.citaId());
+        }
+    };
+
+    @PostConstruct
+    public void abrir() {
+        long tamano = CABECERA + (long) capacidad * REGISTRO;
+        if (!archivo.isBlank()) {
+            try {
+                Path ruta = Path.of(archivo).toAbsolutePath();
+                Files.createDirectories(ruta.getParent());
+                canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                bloqueo = canal.tryLock();
+                if (bloqueo != null) {
+                    datos = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+                } else {
+                    log.warn("La ventana de citas {} está en uso por otro proceso; se usa memoria sin archivo", ruta);
+                    canal.close();
+                    canal = null;
+                }
+            } catch (IOException ex) {
+                log.warn("No se pudo mapear la ventana de citas {}; se usa memoria sin archivo", archivo, ex);
+                canal = null;
+            }
+        }
+        if (datos == null) {
+            datos = ByteBuffer.allocateDirect((int) tamano);
+        }
+        Gauge.builder("ventana.citas.registros", ocupados, o -> registros()).register(registry);
+    }
+
+    /**
+     * Antes de aceptar tráfico: mapea la ventana guardada o la lee de la BD, y la pone al día.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        mantenimiento.lock();
+        try {
+            long inicio = System.currentTimeMillis();
+            boolean guardada = datos instanceof MappedByteBuffer && cabeceraValida();
+            marcarLimpio(false);
+            if (guardada) {
+                reconstruir();
+            } else {
+                cargarTodo();
+            }
+            ponerAlDia();
+            lista = !desbordada;
+            log.info("Ventana de citas {} en {} ms: {} citas entre {} y {}",
+                guardada ? "mapeada del archivo" : "leída de la BD", System.currentTimeMillis() - inicio,
+                registros(), desde, hasta);
+        } catch (RuntimeException ex) {
+            log.error("No se pudo preparar la ventana de citas; se leerá de la BD", ex);
+        } finally {
+            mantenimiento.unlock();
+        }
+    }
+
+    @Override
+    public List<CitaProximaDto> deClinica(Integer clinicaId, LocalDateTime desde, LocalDateTime hasta) {
+        return leer(porClinica, "clinica_id", clinicaId, desde, hasta);
+    }
+
+    @Override
+    public List<CitaProximaDto> deMedico(Integer medicoId, LocalDateTime desde, LocalDateTime hasta) {
+        return leer(porMedico, "medico_id", medicoId, desde, hasta);
+    }
+
+    @Override
+    public List<CitaProximaDto> dePaciente(Integer pacienteId, LocalDateTime desde, LocalDateTime hasta) {
+        return leer(porPaciente, "paciente_id", pacienteId, desde, hasta);
+    }
+
+    @Override
+    public void recargar() {
+        mantenimiento.lock();
+        try {
+            lista = false;
+            cargarTodo();
+            ponerAlDia();
+            lista = !desbordada;
+        } finally {
+            mantenimiento.unlock();
+        }
+    }
+
+    /**
+     * Aplica la transición recién confirmada; la bitácora la volverá a traer y da lo mismo:
+     * cada evento deja la cita con su fecha y estado, no suma ni resta.
+     */
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        if (lista) {
+            aplicarBloqueado(evento);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ventana-citas.sincronizacion-ms:5000}")
+    public void sincronizar() {
+        if (!(lista || desbordada) || !mantenimiento.tryLock()) {
+            return;
+        }
+        try {
+            if (desbordada) {
+                reintentarDesborde();
+            } else if (lista) {
+                ponerAlDia();
+            }
+        } catch (RuntimeException ex) {
+            log.error("No se pudo sincronizar la ventana de citas; se reintentará", ex);
+        } finally {
+            mantenimiento.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        mantenimiento.lock();
+        try {
+            if (lista) {
+                marcarLimpio(true);
+            }
+            lista = false;
+            if (canal != null) {
+                bloqueo.release();
+                canal.close();
+            }
+        } catch (IOException ex) {
+            log.warn("No se pudo cerrar la ventana de citas", ex);
+        } finally {
+            mantenimiento.unlock();
+        }
+    }
+
+    // ---------- Lectura ----------
+
+    private List<CitaProximaDto> leer(Map<Integer, int[]> indice, String columna, Integer id,
+                                      LocalDateTime rangoDesde, LocalDateTime rangoHasta) {
+        candado.readLock().lock();
+        try {
+            if (lista && !rangoDesde.isBefore(desde.atStartOfDay()) && !rangoHasta.isAfter(hasta.atStartOfDay())) {
+                registry.counter("ventana.citas.lecturas", "origen", "memoria").increment();
+                int[] orden = indice.getOrDefault(id, new int[0]);
+                long tope = segundos(rangoHasta);
+                List<CitaProximaDto> citas = new ArrayList<>();
+                for (int i = primeraDesde(orden, segundos(rangoDesde)); i < orden.length && fecha(orden[i]) < tope; i++) {
+                    citas.add(leerRegistro(orden[i]));
+                }
+                return citas;
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        registry.counter("ventana.citas.lecturas", "origen", "bd").increment();
+        return jdbcTemplate.query(SQL_RANGO + "AND " + columna + " = ? ORDER BY fecha_hora, id",
+            VentanaCitasServiceImpl::leerFila, Timestamp.valueOf(rangoDesde), Timestamp.valueOf(rangoHasta), id);
+    }
+
+    // Búsqueda binaria de la primera posición con fecha >= minimo
+    private int primeraDesde(int[] orden, long minimo) {
+        int bajo = 0;
+        int alto = orden.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (fecha(orden[medio]) < minimo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    // ---------- Mantenimiento (con "mantenimiento" tomado) ----------
+
+    /**
+     * Descarta los días pasados, lee de la BD los que entran y reproduce la bitácora.
+     * La carga va antes: lo que cambie mientras se lee queda después del offset y la
+     * reproducción lo corrige.
+     */
+    private void ponerAlDia() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate nuevoHasta = hoy.plusDays(dias);
+        if (hoy.isAfter(desde)) {
+            conEscritura(() -> {
+                desde = hoy;
+                long minimo = segundos(hoy.atStartOfDay());
+                for (int pos = ocupados.nextSetBit(0); pos >= 0; pos = ocupados.nextSetBit(pos + 1)) {
+                    if (fecha(pos) < minimo) {
+                        quitar(datos.getInt(base(pos) + REG_CITA));
+                    }
+                }
+            });
+        }
+        if (nuevoHasta.isAfter(hasta)) {
+            cargarDias(hasta.isAfter(hoy) ? hasta : hoy, nuevoHasta);
+            conEscritura(() -> hasta = nuevoHasta);
+        }
+        bitacora.reproducir(cursor, proyeccion);
+    }
+
+    /**
+     * La ventana se llenó: se vuelve a leer de la BD solo cuando las citas de hoy en adelante
+     * ya caben. Mientras tanto basta un COUNT por sincronización.
+     */
+    private void reintentarDesborde() {
+        LocalDate hoy = LocalDate.now();
+        Integer citas = jdbcTemplate.queryForObject(SQL_CONTAR, Integer.class,
+            Timestamp.valueOf(hoy.atStartOfDay()), Timestamp.valueOf(hoy.plusDays(dias).atStartOfDay()));
+        if (citas == null || citas > capacidad) {
+            return;
+        }
+        cargarTodo();
+        ponerAlDia();
+        lista = !desbordada;
+        if (lista) {
+            log.info("La ventana de citas vuelve a caber: {} citas entre {} y {}", registros(), desde, hasta);
+        }
+    }
+
+    private void cargarTodo() {
+        // El offset se toma antes de leer las citas: lo que se confirme durante la carga se reproduce
+        long ultimo = bitacora.ultimoOffset();
+        LocalDate hoy = LocalDate.now();
+        desbordada = false;
+        conEscritura(() -> {
+            for (int pos = 0; pos < capacidad; pos++) {
+                datos.putInt(base(pos) + REG_CITA, 0);
+            }
+            ocupados.clear();
+            posiciones.clear();
+            porClinica.clear();
+            porMedico.clear();
+            porPaciente.clear();
+            cursor = new CursorBitacora(ultimo);
+            desde = hoy;
+            hasta = hoy;
+        });
+        cargarDias(hoy, hoy.plusDays(dias));
+        conEscritura(() -> hasta = hoy.plusDays(dias));
+    }
+
+    private void cargarDias(LocalDate primero, LocalDate fin) {
+        jdbcTemplate.query(SQL_RANGO, rs -> {
+            CitaProximaDto cita = leerFila(rs, 0);
+            conEscritura(() -> {
+                quitar(cita.id());
+                poner(cita);
+            });
+        }, Timestamp.valueOf(primero.atStartOfDay()), Timestamp.valueOf(fin.atStartOfDay()));
+    }
+
+    /**
+     * Reconstruye los índices recorriendo los registros del archivo mapeado.
+     */
+    private void reconstruir() {
+        conEscritura(() -> {
+            cursor = new CursorBitacora(datos.getLong(CAB_OFFSET));
+            desde = LocalDate.ofEpochDay(datos.getLong(CAB_DESDE));
+            hasta = LocalDate.ofEpochDay(datos.getLong(CAB_HASTA));
+            Map<Integer, List<Integer>> clinicas = new HashMap<>();
+            Map<Integer, List<Integer>> medicos = new HashMap<>();
+            Map<Integer, List<Integer>> pacientes = new HashMap<>();
+            for (int pos = 0; pos < capacidad; pos++) {
+                int citaId = datos.getInt(base(pos) + REG_CITA);
+                if (citaId != 0) {
+                    ocupados.set(pos);
+                    posiciones.put(citaId, pos);
+                    clinicas.computeIfAbsent(datos.getInt(base(pos) + REG_CLINICA), k -> new ArrayList<>()).add(pos);
+                    medicos.computeIfAbsent(datos.getInt(base(pos) + REG_MEDICO), k -> new ArrayList<>()).add(pos);
+                    pacientes.computeIfAbsent(datos.getInt(base(pos) + REG_PACIENTE), k -> new ArrayList<>()).add(pos);
+                }
+            }
+            ordenar(clinicas, porClinica);
+            ordenar(medicos, porMedico);
+            ordenar(pacientes, porPaciente);
+        });
+    }
+
+    private void ordenar(Map<Integer, List<Integer>> origen, Map<Integer, int[]> destino) {
+        Comparator<Integer> porFecha = Comparator.comparingLong(this::fecha)
+            .thenComparingInt(pos -> datos.getInt(base(pos) + REG_CITA));
+        origen.forEach((id, lista) -> destino.put(id, lista.stream().sorted(porFecha).mapToInt(Integer::intValue).toArray()));
+    }
+
+    private boolean cabeceraValida() {
+        return datos.getInt(CAB_MAGICO) == MAGICO
+            && datos.getInt(CAB_FORMATO) == FORMATO
+            && datos.getInt(CAB_CAPACIDAD) == capacidad
+            && datos.getInt(CAB_LIMPIO) == 1
+            && LocalDate.ofEpochDay(datos.getLong(CAB_HASTA)).isAfter(LocalDate.now());
+    }
+
+    /**
+     * Limpio = el archivo refleja la bitácora hasta el offset de la cabecera. Se marca al
+     * apagar y se desmarca al arrancar, antes de tocar un registro: si el proceso cae, al
+     * volver se lee todo de la BD.
+     */
+    private void marcarLimpio(boolean limpio) {
+        if (!(datos instanceof MappedByteBuffer mapeado)) {
+            return;
+        }
+        conEscritura(() -> {
+            if (limpio) {
+                datos.putInt(CAB_MAGICO, MAGICO);
+                datos.putInt(CAB_FORMATO, FORMATO);
+                datos.putInt(CAB_CAPACIDAD, capacidad);
+                datos.putLong(CAB_OFFSET, cursor.offsetSeguro());
+                datos.putLong(CAB_DESDE, desde.toEpochDay());
+                datos.putLong(CAB_HASTA, hasta.toEpochDay());
+                mapeado.force(); // primero los registros, después la marca
+            }
+            datos.putInt(CAB_LIMPIO, limpio ? 1 : 0);
+            mapeado.force();
+        });
+    }
+
+    // ---------- Escritura (con el candado de escritura tomado) ----------
+
+    private void releer(Integer citaId) {
+        List<CitaProximaDto> filas = jdbcTemplate.query(SQL_CITA, VentanaCitasServiceImpl::leerFila, citaId);
+        conEscritura(() -> {
+            quitar(citaId);
+            for (CitaProximaDto cita : filas) {
+                if (cita.estado() != Cita.Estado.CANCELADA && !cita.fechaHora().isBefore(desde.atStartOfDay())
+                        && cita.fechaHora().isBefore(hasta.atStartOfDay())) {
+                    poner(cita);
+                }
+            }
+        });
+    }
+
+    private void aplicarBloqueado(CitaEvento evento) {
+        conEscritura(() -> {
+            quitar(evento.citaId());
+            LocalDateTime fecha = evento.fechaHora();
+            if (evento.estado() != null && evento.estado() != Cita.Estado.CANCELADA && fecha != null
+                    && !fecha.isBefore(desde.atStartOfDay()) && fecha.isBefore(hasta.atStartOfDay())) {
+                poner(new CitaProximaDto(evento.citaId(), fecha, evento.estado(),
+                    evento.clinicaId(), evento.medicoId(), evento.pacienteId()));
+            }
+        });
+    }
+
+    private void poner(CitaProximaDto cita) {
+        int pos = ocupados.nextClearBit(0);
+        if (pos >= capacidad) {
+            lista = false;
+            if (!desbordada) {
+                desbordada = true;
+                registry.counter("ventana.citas.desbordes").increment();
+                log.error("La ventana de citas se llenó ({} registros); se leerá de la BD hasta que vuelva a caber. "
+                    + "Aumente app.ventana-citas.capacidad", capacidad);
+            }
+            return;
+        }
+        int base = base(pos);
+        datos.putInt(base + REG_CLINICA, cita.clinicaId());
+        datos.putInt(base + REG_MEDICO, cita.medicoId());
+        datos.putInt(base + REG_PACIENTE, cita.pacienteId());
+        datos.putLong(base + REG_FECHA, segundos(cita.fechaHora()));
+        datos.put(base + REG_ESTADO, (byte) cita.estado().ordinal());
+        datos.putInt(base + REG_CITA, cita.id());
+        ocupados.set(pos);
+        posiciones.put(cita.id(), pos);
+        insertar(porClinica, cita.clinicaId(), pos);
+        insertar(porMedico, cita.medicoId(), pos);
+        insertar(porPaciente, cita.pacienteId(), pos);
+    }
+
+    private void quitar(Integer citaId) {
+        Integer pos = posiciones.remove(citaId);
+        if (pos == null) {
+            return;
+        }
+        int base = base(pos);
+        retirar(porClinica, datos.getInt(base + REG_CLINICA), pos);
+        retirar(porMedico, datos.getInt(base + REG_MEDICO), pos);
+        retirar(porPaciente, datos.getInt(base + REG_PACIENTE), pos);
+        datos.putInt(base + REG_CITA, 0);
+        ocupados.clear(pos);
+    }
+
+    // Copy-on-write del int[] de la clave, manteniendo el orden por fecha
+    private void insertar(Map<Integer, int[]> indice, Integer id, int pos) {
+        int[] actual = indice.getOrDefault(id, new int[0]);
+        long fecha = fecha(pos);
+        int cita = datos.getInt(base(pos) + REG_CITA);
+        int donde = actual.length;
+        for (int i = primeraDesde(actual, fecha); i < actual.length; i++) {
+            if (fecha(actual[i]) > fecha || datos.getInt(base(actual[i]) + REG_CITA) > cita) {
+                donde = i;
+                break;
+            }
+        }
+        int[] nueva = new int[actual.length + 1];
+        System.arraycopy(actual, 0, nueva, 0, donde);
+        nueva[donde] = pos;
+        System.arraycopy(actual, donde, nueva, donde + 1, actual.length - donde);
+        indice.put(id, nueva);
+    }
+
+    private void retirar(Map<Integer, int[]> indice, Integer id, int pos) {
+        int[] actual = indice.get(id);
+        if (actual == null) {
+            return;
+        }
+        if (actual.length == 1) {
+            indice.remove(id);
+            return;
+        }
+        int[] nueva = Arrays.stream(actual).filter(p -> p != pos).toArray();
+        indice.put(id, nueva);
+    }
+
+    // ---------- Utilidades ----------
+
+    private void conEscritura(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private int registros() {
+        candado.readLock().lock();
+        try {
+            return posiciones.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private CitaProximaDto leerRegistro(int pos) {
+        int base = base(pos);
+        return new CitaProximaDto(
+            datos.getInt(base + REG_CITA),
+            LocalDateTime.ofEpochSecond(datos.getLong(base + REG_FECHA), 0, ZoneOffset.UTC),
+            ESTADOS[datos.get(base + REG_ESTADO)],
+            datos.getInt(base + REG_CLINICA),
+            datos.getInt(base + REG_MEDICO),
+            datos.getInt(base + REG_PACIENTE));
+    }
+
+    private long fecha(int pos) {
+        return datos.getLong(base(pos) + REG_FECHA);
+    }
+
+    private static int base(int pos) {
+        return CABECERA + pos * REGISTRO;
+    }
+
+    // La fecha se guarda como segundos de la hora local (sin zona), igual que en la BD
+    private static long segundos(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static CitaProximaDto leerFila(ResultSet rs, int fila) throws SQLException {
+        return new CitaProximaDto(
+            rs.getInt("id"),
+            rs.getTimestamp("fecha_hora").toLocalDateTime(),
+            Cita.Estado.valueOf(rs.getString("estado")),
+            rs.getInt("clinica_id"),
+            rs.getInt("medico_id"),
+            rs.getInt("paciente_id"));
+    }
+}
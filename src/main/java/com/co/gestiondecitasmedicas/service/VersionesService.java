@@ -0,0 +1,31 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/VersionesService.java
+package com.co.gestiondecitasmedicas.service;
+
+public interface VersionesService {
+
+    /**
+     * Versión de los datos de una página: cambia cada vez que algo de lo que muestra cambia.
+     * modificadoEn es el instante (epoch ms) del último cambio.
+     */
+    record Sello(long version, long modificadoEn) { }
+
+    /**
+     * Sello de las citas de un usuario (paciente o médico), usado por "mis citas".
+     */
+    Sello selloUsuario(Integer usuarioId);
+
+    /**
+     * Sello de una cita y su historial.
+     */
+    Sello selloCita(Integer citaId);
+
+    /**
+     * Marca como cambiadas las citas de un usuario.
+     */
+    void tocarUsuario(Integer usuarioId);
+
+    /**
+     * Marca como cambiada una cita.
+     */
+    void tocarCita(Integer citaId);
+}
@@ -0,0 +1,108 @@
+// src/main/java/com/co/gestiondecitasmedicas/service/VersionesServiceImpl.java
+package com.co.gestiondecitasmedicas.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+
+/**
+ * Sellos de versión en memoria para los GET condicionales (ETag / Last-Modified).
+ *
+ * - Cada cambio toma el siguiente valor de un contador global.
+ * - Lo que no cambió desde el arranque tiene versión 0 y fecha de arranque; las ETag
+ *   llevan además un secreto aleatorio por arranque (ver GetCondicional), así un
+ *   reinicio invalida todo lo que los navegadores tengan guardado.
+ * - Las citas se tocan después del commit, y también con los cambios de otras instancias
+ *   (CitaEventoAjeno). Las de cada usuario las toca
+ *   MisCitasServiceImpl después de aplicar el cambio a su modelo de lectura, para
+ *   que una versión nueva nunca se entregue con datos viejos.
+ */
+@Service
+public class VersionesServiceImpl implements VersionesService {
+
+    private final long arranque = System.currentTimeMillis();
+    private final Sello inicial = new Sello(0, arranque);
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Value("${app.versiones.max-claves:50000}")
+    private int maxClaves;
+
+    private final Sellos usuarios = new Sellos();
+    private final Sellos citas = new Sellos();
+
+    @Override
+    public Sello selloUsuario(Integer usuarioId) {
+        return usuarios.de(usuarioId);
+    }
+
+    @Override
+    public Sello selloCita(Integer citaId) {
+        return citas.de(citaId);
+    }
+
+    @Override
+    public void tocarUsuario(Integer usuarioId) {
+        usuarios.tocar(usuarioId, nuevo());
+    }
+
+    @Override
+    public void tocarCita(Integer citaId) {
+        citas.tocar(citaId, nuevo());
+    }
+
+    @TransactionalEventListener
+    public void alCambiarCita(CitaEvento evento) {
+        tocarCita(evento.citaId());
+    }
+
+    @EventListener
+    public void alCambiarCitaEnOtraInstancia(CitaEventoAjeno ajeno) {
+        tocarCita(ajeno.evento().citaId());
+    }
+
+    private Sello nuevo() {
+        return new Sello(secuencia.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    /**
+     * Sellos de un tipo de clave (usuarios o citas) con tope y piso.
+     */
+    private final class Sellos {
+
+        private final Map<Integer, Sello> porClave = new ConcurrentHashMap<>();
+        private final AtomicReference<Sello> piso = new AtomicReference<>(inicial);
+
+        Sello de(Integer clave) {
+            Sello sello = porClave.get(clave);
+            return sello != null ? sello : piso.get();
+        }
+
+        void tocar(Integer clave, Sello sello) {
+            if (porClave.size() >= maxClaves && !porClave.containsKey(clave)) {
+                descartarAlguna();
+            }
+            porClave.put(clave, sello);
+        }
+
+        // El piso sube antes de quitar la clave: nunca se ve una versión menor que la que tenía
+        private void descartarAlguna() {
+            Iterator<Map.Entry<Integer, Sello>> it = porClave.entrySet().iterator();
+            if (it.hasNext()) {
+                Map.Entry<Integer, Sello> descartada = it.next();
+                Sello sello = descartada.getValue();
+                piso.accumulateAndGet(sello, (actual, otro) -> otro.version() > actual.version() ? otro : actual);
+                porClave.remove(descartada.getKey(), sello);
+            }
+        }
+    }
+}
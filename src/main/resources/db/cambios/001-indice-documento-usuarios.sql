@@ -0,0 +1,2 @@
+-- Índice para buscar pacientes por documento (directorio de recepción)
+CREATE INDEX IF NOT EXISTS idx_usuarios_documento ON usuarios (documento);
@@ -0,0 +1,19 @@
+-- Acumulados diarios de facturación por clínica y médico (reporte de ingresos)
+CREATE TABLE IF NOT EXISTS ingresos_diarios (
+    id         INT AUTO_INCREMENT PRIMARY KEY,
+    clinica_id INT            NOT NULL,
+    medico_id  INT            NOT NULL,
+    dia        DATE           NOT NULL,
+    total      DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    cantidad   INT            NOT NULL DEFAULT 0,
+    CONSTRAINT uk_ingresos_clinica_medico_dia UNIQUE (clinica_id, medico_id, dia),
+    INDEX idx_ingresos_clinica_dia (clinica_id, dia)
+);
+
+-- Carga inicial a partir de las citas ya facturadas
+INSERT INTO ingresos_diarios (clinica_id, medico_id, dia, total, cantidad)
+SELECT clinica_id, medico_id, DATE(fecha_hora), SUM(valor_pagar), COUNT(*)
+FROM citas
+WHERE estado IN ('FACTURADA', 'REALIZADA') AND valor_pagar IS NOT NULL
+GROUP BY clinica_id, medico_id, DATE(fecha_hora)
+ON DUPLICATE KEY UPDATE total = VALUES(total), cantidad = VALUES(cantidad);
@@ -0,0 +1,17 @@
+-- Bitácora de solo inserción con las transiciones de citas (el id es el offset)
+CREATE TABLE IF NOT EXISTS citas_eventos (
+    id                  BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tipo                VARCHAR(20)    NOT NULL,
+    cita_id             INT            NOT NULL,
+    clinica_id          INT            NOT NULL,
+    medico_id           INT            NOT NULL,
+    paciente_id         INT            NOT NULL,
+    actor               VARCHAR(100)   NOT NULL,
+    estado_anterior     VARCHAR(10),
+    estado_nuevo        VARCHAR(10),
+    fecha_hora_anterior DATETIME,
+    fecha_hora          DATETIME,
+    valor_pagar         DECIMAL(12, 2),
+    ocurrido_en         DATETIME(6)    NOT NULL,
+    INDEX idx_citas_eventos_cita (cita_id)
+);
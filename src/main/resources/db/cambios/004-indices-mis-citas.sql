@@ -0,0 +1,4 @@
+-- Índices para las páginas "mis citas" de paciente y médico: el listado
+-- ordenado por fecha sale de un único rango del índice
+CREATE INDEX IF NOT EXISTS idx_citas_paciente_fecha ON citas (paciente_id, fecha_hora);
+CREATE INDEX IF NOT EXISTS idx_citas_medico_fecha ON citas (medico_id, fecha_hora);
@@ -0,0 +1,13 @@
+-- Tokens de acceso a la API REST (/api/v1); solo se guarda el SHA-256 del token
+CREATE TABLE IF NOT EXISTS tokens_api (
+    id          INT AUTO_INCREMENT PRIMARY KEY,
+    usuario_id  INT          NOT NULL,
+    nombre      VARCHAR(100) NOT NULL,
+    hash        VARCHAR(64)  NOT NULL,
+    creado_en   DATETIME(6)  NOT NULL,
+    expira_en   DATETIME(6)  NOT NULL,
+    revocado    BIT          NOT NULL DEFAULT 0,
+    CONSTRAINT uk_tokens_api_hash UNIQUE (hash),
+    INDEX idx_tokens_api_usuario (usuario_id),
+    CONSTRAINT fk_tokens_api_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
@@ -0,0 +1,22 @@
+-- Citas reservadas por rango de fecha (recordatorios): el recorrido por ventana es un
+-- único rango del índice, sin leer el resto de la tabla
+CREATE INDEX IF NOT EXISTS idx_citas_estado_fecha ON citas (estado, fecha_hora);
+
+-- Recordatorios ya enviados. La clave incluye la fecha de la cita: si se reprograma,
+-- se vuelve a avisar
+CREATE TABLE IF NOT EXISTS recordatorios_enviados (
+    cita_id    INT          NOT NULL,
+    ventana    VARCHAR(10)  NOT NULL,
+    fecha_hora DATETIME     NOT NULL,
+    enviado_en DATETIME(6)  NOT NULL,
+    PRIMARY KEY (cita_id, ventana, fecha_hora)
+);
+
+-- Arriendos de tareas programadas: solo la instancia dueña (y hasta que vence) la ejecuta.
+-- "progreso" guarda hasta dónde llegó, para que otra instancia siga desde ahí
+CREATE TABLE IF NOT EXISTS arriendos_tareas (
+    tarea    VARCHAR(50)   NOT NULL PRIMARY KEY,
+    duenio   VARCHAR(100)  NOT NULL,
+    vence_en DATETIME(6)   NOT NULL,
+    progreso DATETIME(6)
+);
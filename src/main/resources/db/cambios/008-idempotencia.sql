@@ -0,0 +1,15 @@
+-- Envíos de formularios ya atendidos (clave de un solo uso por usuario y ruta): un
+-- doble clic o un reenvío repite la respuesta guardada en vez de rehacer el trabajo.
+-- terminado_en NULL = en curso
+CREATE TABLE IF NOT EXISTS solicitudes_idempotentes (
+    usuario_id    INT           NOT NULL,
+    clave         VARCHAR(64)   NOT NULL,
+    ruta          VARCHAR(200)  NOT NULL,
+    redireccion   VARCHAR(500),
+    mensaje_exito VARCHAR(500),
+    mensaje_error VARCHAR(500),
+    creado_en     DATETIME(6)   NOT NULL,
+    terminado_en  DATETIME(6),
+    PRIMARY KEY (usuario_id, clave, ruta),
+    INDEX idx_solicitudes_idempotentes_creado (creado_en)
+);
@@ -0,0 +1,3 @@
+-- Versión para la concurrencia optimista (@Version): cada UPDATE compara y suma uno
+ALTER TABLE citas ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE historiales_medicos ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
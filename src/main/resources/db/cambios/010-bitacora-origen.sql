@@ -0,0 +1,2 @@
+-- Instancia que escribió cada evento: las demás lo reproducen para poner al día sus modelos en memoria
+ALTER TABLE citas_eventos ADD COLUMN IF NOT EXISTS origen VARCHAR(64);
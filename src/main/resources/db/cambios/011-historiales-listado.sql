@@ -0,0 +1,10 @@
+-- Listados de historiales por páginas (más recientes primero): el paciente y el médico
+-- se copian de la cita para que el cursor (fecha_realizacion, id) recorra un índice de
+-- historiales_medicos en vez de ordenar todos los del usuario después del JOIN
+ALTER TABLE historiales_medicos ADD COLUMN IF NOT EXISTS paciente_id INT;
+ALTER TABLE historiales_medicos ADD COLUMN IF NOT EXISTS medico_id INT;
+UPDATE historiales_medicos h JOIN citas c ON c.id = h.cita_id
+   SET h.paciente_id = c.paciente_id, h.medico_id = c.medico_id
+ WHERE h.paciente_id IS NULL;
+CREATE INDEX IF NOT EXISTS idx_historiales_paciente_fecha ON historiales_medicos (paciente_id, fecha_realizacion, id);
+CREATE INDEX IF NOT EXISTS idx_historiales_medico_fecha ON historiales_medicos (medico_id, fecha_realizacion, id);
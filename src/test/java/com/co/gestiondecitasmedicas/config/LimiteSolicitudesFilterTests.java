@@ -0,0 +1,92 @@
+package com.co.gestiondecitasmedicas.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.co.gestiondecitasmedicas.service.LimiteSolicitudesService;
+import com.co.gestiondecitasmedicas.service.LimiteSolicitudesService.Grupo;
+
+/**
+ * La cuota de clínica se carga a la clínica que resuelve el servidor, no al "clinicaId"
+ * que manda el cliente; la del login, a la IP y al login intentado desde ella.
+ */
+class LimiteSolicitudesFilterTests {
+
+    private final LimiteSolicitudesService limites = mock(LimiteSolicitudesService.class);
+    private final LimiteSolicitudesFilter filtro = new LimiteSolicitudesFilter(limites);
+
+    @BeforeEach
+    void comoPaciente() {
+        UsuarioAutenticado ua = new UsuarioAutenticado(201, "paciente201", "",
+            List.of(new SimpleGrantedAuthority("ROLE_PACIENTE")));
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(ua, null, ua.getAuthorities()));
+        when(limites.consumirUsuario(any(), anyString())).thenReturn(0L);
+    }
+
+    @AfterEach
+    void salir() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void laReservaSeCargaALaClinicaDelMedicoAunqueElClienteMandeOtra() throws Exception {
+        when(limites.clinicaDe(Grupo.RESERVA, 201, null, 101)).thenReturn(1);
+        when(limites.consumirClinica(Grupo.RESERVA, 1)).thenReturn(0L);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/paciente/nueva-cita");
+        request.setParameter("medicoId", "101");
+        request.setParameter("clinicaId", "2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtro.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        verify(limites).consumirClinica(Grupo.RESERVA, 1);
+        verify(limites, never()).consumirClinica(Grupo.RESERVA, 2);
+    }
+
+    @Test
+    void elPdfSeCargaALaClinicaDeLaCitaDeLaRuta() throws Exception {
+        when(limites.clinicaDe(Grupo.PDF, 201, 55, null)).thenReturn(3);
+        when(limites.consumirClinica(Grupo.PDF, 3)).thenReturn(5_000_000_000L);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/paciente/historial/pdf/55");
+        request.setParameter("clinicaId", "2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtro.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        assertEquals("5", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void elLoginSeCargaALaIpYAlLoginDesdeEsaIp() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setRemoteAddr("10.0.0.7");
+        request.setParameter("usuariologin", " Paciente201 ");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtro.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        verify(limites).consumirUsuario(Grupo.LOGIN_IP, "10.0.0.7");
+        verify(limites).consumirUsuario(Grupo.LOGIN, "login:10.0.0.7/paciente201");
+    }
+}
@@ -0,0 +1,54 @@
+package com.co.gestiondecitasmedicas.config;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pool de BCrypt saturado: con la cola llena o la espera vencida el login falla enseguida
+ * con LoginOcupadoException (503), sin retener el hilo de la petición.
+ */
+class VerificadorBcryptTests {
+
+    // Fuerza 14: cada verificación tarda bastante más que las esperas de estas pruebas
+    private static final String HASH_LENTO = new BCryptPasswordEncoder(14).encode("clave");
+
+    @Test
+    void conLaColaLlenaFallaSinEsperar() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VerificadorBcrypt verificador = new VerificadorBcrypt(14, 1, 1, 30_000, registry);
+        try {
+            CompletableFuture.runAsync(() -> verificador.matches("clave", HASH_LENTO)); // en el hilo
+            CompletableFuture.runAsync(() -> verificador.matches("clave", HASH_LENTO)); // en la cola
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.get("login.bcrypt.pendientes").gauge().value() < 1 && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+
+            long inicio = System.nanoTime();
+            assertThrows(LoginOcupadoException.class, () -> verificador.matches("clave", HASH_LENTO));
+            assertTrue(System.nanoTime() - inicio < TimeUnit.MILLISECONDS.toNanos(500), "no esperó a tener hilo");
+        } finally {
+            verificador.close();
+        }
+    }
+
+    @Test
+    void siNoTerminaATiempoFalla() {
+        VerificadorBcrypt verificador = new VerificadorBcrypt(14, 1, 2, 50, new SimpleMeterRegistry());
+        try {
+            long inicio = System.nanoTime();
+            assertThrows(LoginOcupadoException.class, () -> verificador.matches("clave", HASH_LENTO));
+            assertTrue(System.nanoTime() - inicio < TimeUnit.MILLISECONDS.toNanos(500), "esperó solo la espera máxima");
+        } finally {
+            verificador.close();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.co.gestiondecitasmedicas.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.co.gestiondecitasmedicas.service.TokenApiService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * API REST: un token Bearer no sirve para emitir otros, lo que no existe es 404 y lo
+ * ajeno 403, y el NDJSON entrega todas las citas aunque se lean en varias consultas.
+ */
+@SpringBootTest(properties = "app.api.filas-por-consulta=2") // contexto (y BD) propio
+@AutoConfigureMockMvc
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ApiRestTests {
+
+    private static final String SOLICITUD_TOKEN = "{\"nombre\":\"integracion\",\"diasVigencia\":30}";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TokenApiService tokenApiService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL), "
+            + "(2, 'Clínica 2', 'clinica2', 'C2', 'clinica2@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1), (2, 'Clínica 2', 2)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(102, 'Médico 102', 'medico102', 'M102', 'medico102@prueba.co', ?, 2), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL), "
+            + "(202, 'Paciente 202', 'paciente202', '10202', 'paciente202@prueba.co', ?, NULL)", hash, hash, hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES "
+            + "(1, 3), (2, 3), (101, 2), (102, 2), (201, 1), (202, 1)");
+
+        // Cinco citas en la clínica 1 (tres consultas de a 2) y una en la 2 que no debe salir
+        LocalDateTime base = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.HOURS);
+        for (int id = 1; id <= 6; id++) {
+            int clinica = id == 6 ? 2 : 1;
+            jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+                + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+                + "VALUES (?, ?, 'RESERVADA', 201, ?, ?, 'Control', 'p@prueba.co', "
+                + "'Paciente 201', 'Médico', 'Clínica', '10201')",
+                id, Timestamp.valueOf(base.plusHours(id)), 100 + clinica, clinica);
+        }
+    }
+
+    @Test
+    void conUnTokenNoSeEmitenOtros() throws Exception {
+        String token = tokenApiService.emitir(201, "inicial", 30).token();
+
+        mvc.perform(post("/api/v1/tokens").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON).content(SOLICITUD_TOKEN))
+            .andExpect(status().isForbidden());
+
+        mvc.perform(post("/api/v1/tokens").with(user("paciente201").roles("PACIENTE"))
+                .contentType(MediaType.APPLICATION_JSON).content(SOLICITUD_TOKEN))
+            .andExpect(status().isCreated());
+
+        assertEquals(2, tokenApiService.listar(201).size());
+    }
+
+    @Test
+    void loQueNoExisteEs404YLoAjeno403() throws Exception {
+        mvc.perform(delete("/api/v1/tokens/9999").with(user("paciente201").roles("PACIENTE")))
+            .andExpect(status().isNotFound());
+        mvc.perform(post("/api/v1/paciente/citas/9999/cancelacion").with(user("paciente201").roles("PACIENTE")))
+            .andExpect(status().isNotFound());
+        mvc.perform(post("/api/v1/paciente/citas/1/cancelacion").with(user("paciente202").roles("PACIENTE")))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void elNdjsonEntregaTodasLasCitasPorPaginas() throws Exception {
+        MvcResult inicio = mvc.perform(get("/api/v1/clinica/citas").accept(MediaType.APPLICATION_NDJSON)
+                .with(user("clinica1").roles("CLINICA")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String cuerpo = mvc.perform(asyncDispatch(inicio))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<Integer> ids = Arrays.stream(cuerpo.split("\n"))
+            .map(linea -> {
+                try {
+                    return objectMapper.readTree(linea).get("id").asInt();
+                } catch (Exception ex) {
+                    throw new IllegalStateException(linea, ex);
+                }
+            })
+            .toList();
+        assertEquals(List.of(1, 2, 3, 4, 5), ids);
+    }
+}
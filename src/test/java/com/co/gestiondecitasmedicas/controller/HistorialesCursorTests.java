@@ -0,0 +1,121 @@
+package com.co.gestiondecitasmedicas.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.dto.HistorialResumenDto;
+
+/**
+ * Historiales del médico por páginas: siguiendo el cursor se recorren todos, en orden
+ * (fecha de realización y, en empate, id de mayor a menor), sin repetidos ni saltos.
+ * Un cursor inválido vuelve a la primera página con el mensaje de error.
+ */
+@SpringBootTest(properties = "app.historial-previo.max-pacientes=100") // contexto (y BD) propio
+@AutoConfigureMockMvc
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HistorialesCursorTests {
+
+    private static final int HISTORIALES = 11;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    // Ids de los historiales en el orden del listado
+    private final List<Integer> esperados = new ArrayList<>();
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(102, 'Médico 102', 'medico102', 'M102', 'medico102@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (102, 2), (201, 1)");
+
+        // Del cuarto al octavo de cada médico comparten fecha de realización (el empate lo
+        // decide el id); los ids pares son del médico 102 y no deben aparecer en el del 101
+        LocalDateTime base = LocalDateTime.now().minusDays(30).truncatedTo(ChronoUnit.MINUTES);
+        for (int id = 1; id <= HISTORIALES * 2; id++) {
+            int medico = id % 2 == 0 ? 102 : 101;
+            int orden = (id + 1) / 2;
+            LocalDateTime fecha = orden >= 4 && orden <= 8 ? base.plusDays(4) : base.plusDays(orden);
+            jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+                + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+                + "VALUES (?, ?, 'REALIZADA', 201, ?, 1, 'Control', 'p@prueba.co', "
+                + "'Paciente 201', ?, 'Clínica 1', '10201')", id, Timestamp.valueOf(fecha), medico, "Médico " + medico);
+            jdbc.update("INSERT INTO historiales_medicos (id, cita_id, paciente_id, medico_id, fecha_realizacion, "
+                + "diagnostico, receta) VALUES (?, ?, 201, ?, ?, 'Diagnóstico', 'Receta')",
+                id, id, medico, Timestamp.valueOf(fecha.plusMinutes(30)));
+        }
+        esperados.addAll(jdbc.queryForList("SELECT id FROM historiales_medicos WHERE medico_id = 101 "
+            + "ORDER BY fecha_realizacion DESC, id DESC", Integer.class));
+    }
+
+    @Test
+    void elCursorRecorreTodosSinRepetirNiSaltar() throws Exception {
+        List<Integer> vistos = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            MockHttpServletRequestBuilder peticion = get("/medico/historiales").param("limite", "2").with(comoMedico(101));
+            if (cursor != null) {
+                peticion.param("cursor", cursor);
+            }
+            Map<String, Object> modelo = mvc.perform(peticion).andReturn().getModelAndView().getModel();
+            @SuppressWarnings("unchecked")
+            List<HistorialResumenDto> pagina = (List<HistorialResumenDto>) modelo.get("historiales");
+            assertTrue(pagina.size() <= 2);
+            pagina.forEach(h -> vistos.add(h.id()));
+            cursor = (String) modelo.get("siguienteCursor");
+            paginas++;
+        } while (cursor != null && paginas <= HISTORIALES);
+
+        assertEquals(HISTORIALES, esperados.size());
+        assertEquals(esperados, vistos, "cada historial una vez, en orden, también dentro del empate");
+        assertEquals((HISTORIALES + 1) / 2, paginas);
+    }
+
+    @Test
+    void unCursorInvalidoVuelveALaPrimeraPagina() throws Exception {
+        mvc.perform(get("/medico/historiales").param("cursor", "no-es-un-cursor").with(comoMedico(101)))
+            .andExpect(redirectedUrl("/medico/historiales"))
+            .andExpect(flash().attributeExists("errorMsg"));
+    }
+
+    private static RequestPostProcessor comoMedico(int id) {
+        return user(new UsuarioAutenticado(id, "medico" + id, "", List.of(new SimpleGrantedAuthority("ROLE_MEDICO"))));
+    }
+}
@@ -0,0 +1,223 @@
+package com.co.gestiondecitasmedicas.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.service.CitaService;
+import com.co.gestiondecitasmedicas.service.IdempotenciaService;
+import com.co.gestiondecitasmedicas.service.IdempotenciaServiceImpl;
+
+/**
+ * Reserva con clave de idempotencia: el envío repetido recibe la respuesta del primero
+ * sin crear otra cita, también si llega mientras el primero sigue en curso o si lo
+ * atendió otra instancia (tabla solicitudes_idempotentes). Una clave nueva o vencida
+ * se atiende como un envío nuevo.
+ */
+@SpringBootTest(properties = {
+    "app.idempotencia.bd=true",
+    "app.idempotencia.limpieza-ms=3600000" // la prueba llama a limpiar por su cuenta
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IdempotenciaTests {
+
+    private static final DateTimeFormatter FORMULARIO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final String RESERVADA = "Cita reservada exitosamente.";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private IdempotenciaService idempotencia;
+
+    @SpyBean
+    private CitaService citaService;
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.DAYS).withHour(8);
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1)");
+    }
+
+    @Test
+    void elEnvioRepetidoRecibeLaRespuestaDelPrimero() throws Exception {
+        String clave = UUID.randomUUID().toString();
+        int antes = citas();
+
+        mvc.perform(reservar(clave, 1))
+            .andExpect(redirectedUrl("/paciente/mis-citas"))
+            .andExpect(flash().attribute("successMsg", RESERVADA));
+        mvc.perform(reservar(clave, 1))
+            .andExpect(redirectedUrl("/paciente/mis-citas"))
+            .andExpect(flash().attribute("successMsg", RESERVADA));
+
+        assertEquals(antes + 1, citas(), "el repetido no reserva otra vez");
+    }
+
+    @Test
+    void elDobleEnvioSimultaneoEsperaAlPrimeroYLoRepite() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        doAnswer(i -> {
+            dentro.countDown();
+            seguir.await(10, TimeUnit.SECONDS);
+            return i.callRealMethod();
+        }).when(citaService).reservarCita(any(), any(), any(), any(), any());
+        String clave = UUID.randomUUID().toString();
+        int antes = citas();
+
+        CompletableFuture<MvcResult> primero = CompletableFuture.supplyAsync(() -> enviar(reservar(clave, 2)));
+        dentro.await(10, TimeUnit.SECONDS);
+        CompletableFuture<MvcResult> segundo = CompletableFuture.supplyAsync(() -> enviar(reservar(clave, 2)));
+        Thread.sleep(300);
+        assertFalse(segundo.isDone(), "el segundo espera a que el primero termine");
+
+        seguir.countDown();
+        MvcResult r1 = primero.get(10, TimeUnit.SECONDS);
+        MvcResult r2 = segundo.get(10, TimeUnit.SECONDS);
+
+        assertEquals("/paciente/mis-citas", r1.getResponse().getRedirectedUrl());
+        assertEquals("/paciente/mis-citas", r2.getResponse().getRedirectedUrl());
+        assertEquals(RESERVADA, r2.getFlashMap().get("successMsg"));
+        assertEquals(antes + 1, citas());
+        verify(citaService, times(1)).reservarCita(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void unaClaveNuevaOVencidaSeAtiendeComoEnvioNuevo() throws Exception {
+        String clave = UUID.randomUUID().toString();
+        mvc.perform(reservar(clave, 3)).andExpect(flash().attribute("successMsg", RESERVADA));
+
+        // Otra clave con los mismos datos es otro envío: el horario ya está ocupado
+        mvc.perform(reservar(UUID.randomUUID().toString(), 3))
+            .andExpect(redirectedUrl("/paciente/nueva-cita?clinicaId=1"))
+            .andExpect(flash().attributeExists("errorMsg"));
+
+        // Vencida la clave, la limpieza la descarta de la memoria y de la tabla
+        IdempotenciaServiceImpl impl = AopTestUtils.getTargetObject(idempotencia);
+        ReflectionTestUtils.setField(impl, "ttlSegundos", 0L);
+        try {
+            Thread.sleep(5);
+            impl.limpiar();
+        } finally {
+            ReflectionTestUtils.setField(impl, "ttlSegundos", 600L);
+        }
+        assertEquals(0, filas(clave));
+
+        int antes = citas();
+        mvc.perform(reservar(clave, 3))
+            .andExpect(redirectedUrl("/paciente/nueva-cita?clinicaId=1"))
+            .andExpect(flash().attributeExists("errorMsg"));
+        assertEquals(antes, citas());
+    }
+
+    @Test
+    void otraInstanciaRepiteElResultadoGuardadoEnLaTabla() throws Exception {
+        String clave = UUID.randomUUID().toString();
+        mvc.perform(reservar(clave, 4)).andExpect(flash().attribute("successMsg", RESERVADA));
+        assertEquals(1, filas(clave));
+        int antes = citas();
+
+        // Otra instancia (o esta después de reiniciar) no tiene la clave en memoria
+        IdempotenciaServiceImpl impl = AopTestUtils.getTargetObject(idempotencia);
+        ((Map<?, ?>) ReflectionTestUtils.getField(impl, "enMemoria")).clear();
+
+        mvc.perform(reservar(clave, 4))
+            .andExpect(redirectedUrl("/paciente/mis-citas"))
+            .andExpect(flash().attribute("successMsg", RESERVADA));
+        assertEquals(antes, citas());
+
+        // Un envío que otra instancia sigue atendiendo: se espera su resultado en la tabla
+        String enCurso = UUID.randomUUID().toString();
+        String ruta = jdbc.queryForObject("SELECT ruta FROM solicitudes_idempotentes WHERE clave = ?", String.class, clave);
+        jdbc.update("INSERT INTO solicitudes_idempotentes (usuario_id, clave, ruta, creado_en) "
+            + "VALUES (201, ?, ?, CURRENT_TIMESTAMP)", enCurso, ruta);
+        CompletableFuture<MvcResult> repetido = CompletableFuture.supplyAsync(() -> enviar(reservar(enCurso, 4)));
+        Thread.sleep(300);
+        assertFalse(repetido.isDone(), "espera a que la otra instancia termine");
+
+        jdbc.update("UPDATE solicitudes_idempotentes SET redireccion = '/paciente/mis-citas', mensaje_exito = ?, "
+            + "terminado_en = CURRENT_TIMESTAMP WHERE clave = ?", RESERVADA, enCurso);
+        MvcResult r = repetido.get(10, TimeUnit.SECONDS);
+
+        assertEquals("/paciente/mis-citas", r.getResponse().getRedirectedUrl());
+        assertEquals(RESERVADA, r.getFlashMap().get("successMsg"));
+        assertEquals(antes, citas());
+    }
+
+    private MockHttpServletRequestBuilder reservar(String clave, int hora) {
+        return post("/paciente/nueva-cita")
+            .param("clinicaId", "1")
+            .param("medicoId", "101")
+            .param("fechaHora", base.plusHours(hora).format(FORMULARIO))
+            .param("motivo", "Control")
+            .param("correoContacto", "paciente201@prueba.co")
+            .param("idempotencia", clave)
+            .with(user(new UsuarioAutenticado(201, "paciente201", "",
+                List.of(new SimpleGrantedAuthority("ROLE_PACIENTE")))));
+    }
+
+    private MvcResult enviar(MockHttpServletRequestBuilder peticion) {
+        try {
+            return mvc.perform(peticion).andReturn();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private int citas() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM citas", Integer.class);
+    }
+
+    private int filas(String clave) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM solicitudes_idempotentes WHERE clave = ?", Integer.class, clave);
+    }
+}
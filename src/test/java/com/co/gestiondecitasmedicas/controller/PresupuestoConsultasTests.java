@@ -0,0 +1,421 @@
+package com.co.gestiondecitasmedicas.controller;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.service.CorreoService;
+import com.co.gestiondecitasmedicas.service.InformeService;
+import com.co.gestiondecitasmedicas.service.VentanaCitasService;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Presupuesto de consultas por flujo: cada endpoint de las vistas y de la API se pide
+ * contra una BD en memoria con volúmenes parecidos a los de producción y se compara
+ * lo que hizo con su tope:
+ *
+ * - sentencias SQL (Hibernate y JdbcTemplate, ver RegistroSql),
+ * - entidades cargadas por Hibernate,
+ * - memoria asignada por el hilo de la petición.
+ *
+ * Se mide la primera petición de cada usuario (caches de lectura vacíos), que es la que
+ * llega a la BD. Los flujos que comparten cache usan usuarios distintos.
+ * Si un flujo se pasa, el mensaje lista las sentencias agrupadas y marca las repetidas,
+ * que suelen ser un N+1.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("pruebas")
+@Import(RegistroSql.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PresupuestoConsultasTests {
+
+    private static final Logger log = LoggerFactory.getLogger(PresupuestoConsultasTests.class);
+
+    private static final int CLINICAS = 6;
+    private static final int MEDICOS_POR_CLINICA = 6;
+    private static final int PACIENTES = 600;
+    private static final int CITAS = 9000;
+
+    // Ids fijos: usuario de clínica = id de la clínica, médicos desde 101, pacientes desde 1001
+    private static final int PRIMER_MEDICO = 101;
+    private static final int PRIMER_PACIENTE = 1001;
+
+    private static final DateTimeFormatter FORMULARIO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private VentanaCitasService ventanaCitas;
+
+    @Autowired
+    private InformeService informeService;
+
+    // El flujo que factura envía la factura por correo: aquí no hay servidor SMTP
+    @MockBean(reset = MockReset.NONE)
+    private CorreoService correoService;
+
+    private final LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    /**
+     * Tope de un flujo. memoriaKb es la memoria asignada por el hilo de la petición
+     * (incluye el render de la vista o del JSON).
+     */
+    record Flujo(String nombre, RequestBuilder peticion, int sentencias, int entidades, int memoriaKb) {
+        @Override
+        public String toString() {
+            return nombre;
+        }
+    }
+
+    @BeforeAll
+    void sembrar() throws Exception {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+
+        List<Object[]> usuarios = new ArrayList<>();
+        List<Object[]> roles = new ArrayList<>();
+        for (int c = 1; c <= CLINICAS; c++) {
+            usuarios.add(new Object[] {c, "Clínica " + c, "clinica" + c, "C" + c, "clinica" + c + "@prueba.co", hash, null});
+            roles.add(new Object[] {c, 3});
+        }
+        jdbc.batchUpdate("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)", usuarios);
+        List<Object[]> clinicas = new ArrayList<>();
+        for (int c = 1; c <= CLINICAS; c++) {
+            clinicas.add(new Object[] {c, "Clínica " + c, c});
+        }
+        jdbc.batchUpdate("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (?, ?, ?)", clinicas);
+
+        usuarios.clear();
+        for (int c = 1; c <= CLINICAS; c++) {
+            for (int k = 0; k < MEDICOS_POR_CLINICA; k++) {
+                int id = medico(c, k);
+                usuarios.add(new Object[] {id, "Médico " + id, "medico" + id, "M" + id, "medico" + id + "@prueba.co", hash, c});
+                roles.add(new Object[] {id, 2});
+            }
+        }
+        for (int p = 0; p < PACIENTES; p++) {
+            int id = PRIMER_PACIENTE + p;
+            usuarios.add(new Object[] {id, "Paciente " + id + " Prueba", "paciente" + id, "10" + id,
+                "paciente" + id + "@prueba.co", hash, null});
+            roles.add(new Object[] {id, 1});
+        }
+        jdbc.batchUpdate("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)", usuarios);
+        jdbc.batchUpdate("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (?, ?)", roles);
+
+        // Citas repartidas desde hace 180 días hasta unas semanas adelante: las pasadas
+        // realizadas (con historial), facturadas o canceladas; las futuras reservadas
+        LocalDateTime inicio = ahora.minusDays(180);
+        List<Object[]> citas = new ArrayList<>();
+        List<Object[]> historiales = new ArrayList<>();
+        for (int i = 1; i <= CITAS; i++) {
+            int paciente = PRIMER_PACIENTE + (i - 1) % PACIENTES;
+            int clinica = 1 + ((i - 1) / 7) % CLINICAS;
+            int medico = medico(clinica, (i - 1) % MEDICOS_POR_CLINICA);
+            LocalDateTime fecha = inicio.plusMinutes((i - 1) * 37L);
+            String estado;
+            BigDecimal valor = null;
+            if (fecha.isAfter(ahora)) {
+                estado = "RESERVADA";
+            } else if (i % 10 == 0) {
+                estado = "CANCELADA";
+            } else {
+                estado = i % 10 == 1 ? "FACTURADA" : "REALIZADA";
+                valor = BigDecimal.valueOf(50000 + (i % 20) * 1000L);
+            }
+            citas.add(new Object[] {i, Timestamp.valueOf(fecha), estado, paciente, medico, clinica,
+                "Control " + i, "paciente" + paciente + "@prueba.co", "Paciente " + paciente + " Prueba",
+                "Médico " + medico, "Clínica " + clinica, "10" + paciente, valor});
+            if ("REALIZADA".equals(estado)) {
+                historiales.add(new Object[] {i, i, paciente, medico, Timestamp.valueOf(fecha.plusMinutes(30)),
+                    "Diagnóstico de la cita " + i, "Receta de la cita " + i});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+            + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad, valor_pagar) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", citas);
+        jdbc.batchUpdate("INSERT INTO historiales_medicos (id, cita_id, paciente_id, medico_id, fecha_realizacion, "
+            + "diagnostico, receta) VALUES (?, ?, ?, ?, ?, ?, ?)", historiales);
+        jdbc.update("INSERT INTO ingresos_diarios (clinica_id, medico_id, dia, total, cantidad) "
+            + "SELECT clinica_id, medico_id, CAST(fecha_hora AS DATE), SUM(valor_pagar), COUNT(*) FROM citas "
+            + "WHERE valor_pagar IS NOT NULL GROUP BY clinica_id, medico_id, CAST(fecha_hora AS DATE)");
+
+        // Los pacientes de las facturadas no tienen consultas anteriores: se les pasan tres
+        // realizadas del penúltimo paciente, así la vista de atender mide también el historial previo
+        int pacienteFacturada = jdbc.queryForObject(
+            "SELECT paciente_id FROM citas WHERE id = (SELECT MIN(id) FROM citas WHERE clinica_id = 2 AND estado = 'FACTURADA')",
+            Integer.class);
+        List<Integer> realizadas = jdbc.queryForList("SELECT id FROM citas WHERE paciente_id = ? AND estado = 'REALIZADA' "
+            + "ORDER BY id", Integer.class, PRIMER_PACIENTE + PACIENTES - 2).subList(0, 3);
+        for (Integer id : realizadas) {
+            jdbc.update("UPDATE citas SET paciente_id = ?, paciente_nombre = ? WHERE id = ?",
+                pacienteFacturada, "Paciente " + pacienteFacturada + " Prueba", id);
+            jdbc.update("UPDATE historiales_medicos SET paciente_id = ? WHERE cita_id = ?", pacienteFacturada, id);
+        }
+
+        // Las filas nuevas (reservas de la prueba) siguen después de los ids fijos
+        jdbc.execute("ALTER TABLE usuarios ALTER COLUMN id RESTART WITH " + (PRIMER_PACIENTE + PACIENTES));
+        jdbc.execute("ALTER TABLE clinicas ALTER COLUMN id RESTART WITH " + (CLINICAS + 1));
+        jdbc.execute("ALTER TABLE citas ALTER COLUMN id RESTART WITH " + (CITAS + 1));
+        jdbc.execute("ALTER TABLE historiales_medicos ALTER COLUMN id RESTART WITH " + (CITAS + 1));
+
+        // Las citas se sembraron por JDBC, sin eventos: la ventana de los próximos días se relee
+        ventanaCitas.recargar();
+
+        // Una vista pública antes de medir: el arranque de MVC y Thymeleaf no se cuenta en el primer flujo
+        mvc.perform(get("/login"));
+        // Igual con Jasper (se carga con el primer PDF) para el flujo que factura
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("clinicaNombre", "Clínica 1");
+        fila.put("fechaHora", Timestamp.valueOf(ahora));
+        fila.put("medicoNombre", "Médico");
+        fila.put("pacienteNombre", "Paciente");
+        fila.put("documento", "1");
+        fila.put("motivo", "Control");
+        fila.put("valorPagar", BigDecimal.ONE);
+        informeService.generarPdf(InformeService.FACTURACION, fila);
+        when(correoService.crearMensaje()).thenAnswer(i -> new MimeMessage(Session.getInstance(new Properties())));
+    }
+
+    Stream<Flujo> flujos() throws Exception {
+        LocalDate hoy = ahora.toLocalDate();
+        // Las facturadas caen solo en algunos médicos: se toma la primera de la clínica 2
+        int facturada = jdbc.queryForObject(
+            "SELECT MIN(id) FROM citas WHERE clinica_id = 2 AND estado = 'FACTURADA'", Integer.class);
+        int medicoFacturada = jdbc.queryForObject("SELECT medico_id FROM citas WHERE id = ?", Integer.class, facturada);
+        // La segunda página de historiales sigue el cursor que entregó la primera
+        String cursorHistoriales = (String) mvc.perform(get("/medico/historiales").with(comoMedico(medico(3, 1))))
+            .andReturn().getModelAndView().getModel().get("siguienteCursor");
+        assertNotNull(cursorHistoriales, "el médico tiene más de una página de historiales");
+        int previoFacturada = jdbc.queryForObject("SELECT MIN(h.id) FROM historiales_medicos h JOIN citas c ON c.id = h.cita_id "
+            + "WHERE c.paciente_id = (SELECT paciente_id FROM citas WHERE id = ?)", Integer.class, facturada);
+        return Stream.of(
+            // Vistas del paciente
+            new Flujo("paciente/dashboard", get("/paciente/dashboard").with(comoPaciente(1)), 3, 2, 20480),
+            new Flujo("paciente/mis-citas", get("/paciente/mis-citas").with(comoPaciente(2)), 1, 0, 6144),
+            new Flujo("paciente/nueva-cita", get("/paciente/nueva-cita").with(comoPaciente(3)), 7, 13, 4608),
+            new Flujo("paciente/nueva-cita (clínica elegida)",
+                get("/paciente/nueva-cita").param("clinicaId", "1").with(comoPaciente(4)), 14, 20, 1536),
+            new Flujo("paciente/editar-cita", get("/paciente/editar-cita/" + cita(5, "paciente_id", "RESERVADA"))
+                .with(comoPaciente(5)), 6, 8, 3072),
+            new Flujo("paciente/historial", get("/paciente/citas/historial/" + cita(6, "paciente_id", "REALIZADA"))
+                .with(comoPaciente(6)), 4, 4, 1536),
+            new Flujo("paciente/historiales", get("/paciente/historiales").with(comoPaciente(15)), 1, 0, 2048),
+            new Flujo("paciente/reservar", post("/paciente/nueva-cita")
+                .param("clinicaId", "1")
+                .param("medicoId", String.valueOf(medico(1, 0)))
+                .param("fechaHora", ahora.plusDays(90).withHour(10).format(FORMULARIO))
+                .param("motivo", "Control")
+                .param("correoContacto", "paciente@prueba.co")
+                .with(comoPaciente(7)), 7, 7, 16384),
+            new Flujo("paciente/cancelar", post("/paciente/cancelar-cita/" + cita(8, "paciente_id", "RESERVADA"))
+                .with(comoPaciente(8)), 6, 3, 1536),
+            new Flujo("paciente/modificar", post("/paciente/editar-cita/" + cita(16, "paciente_id", "RESERVADA"))
+                .param("fechaHora", ahora.plusDays(91).withHour(10).format(FORMULARIO))
+                .with(comoPaciente(16)), 7, 3, 1024),
+
+            // Vistas del médico
+            new Flujo("medico/dashboard", get("/medico/dashboard").with(comoMedico(medico(1, 0))), 6, 5, 2560),
+            new Flujo("medico/citas", get("/medico/citas").with(comoMedico(medico(1, 1))), 1, 0, 20480),
+            new Flujo("medico/editar-cita", get("/medico/editar-cita/" + cita(medico(1, 2), "medico_id", "RESERVADA"))
+                .with(comoMedico(medico(1, 2))), 6, 8, 2048),
+            new Flujo("medico/realizar-cita", get("/medico/realizar-cita/" + facturada)
+                .with(comoMedico(medicoFacturada)), 8, 8, 3072),
+            new Flujo("medico/realizar-cita/historial previo", get("/medico/realizar-cita/" + facturada
+                + "/historiales/" + previoFacturada).with(comoMedico(medicoFacturada)), 3, 1, 4096),
+            new Flujo("medico/historial", get("/medico/citas/historial/" + cita(medico(1, 4), "medico_id", "REALIZADA"))
+                .with(comoMedico(medico(1, 4))), 5, 7, 1536),
+            new Flujo("medico/historiales", get("/medico/historiales").with(comoMedico(medico(3, 0))), 1, 0, 1536),
+            new Flujo("medico/historiales (página 2)", get("/medico/historiales").param("cursor", cursorHistoriales)
+                .with(comoMedico(medico(3, 1))), 1, 0, 1536),
+            new Flujo("medico/agenda", get("/medico/agenda").with(comoMedico(medico(2, 2))), 2, 0, 2560),
+            new Flujo("medico/agenda/semana", get("/medico/agenda/semana").with(comoMedico(medico(2, 3))), 7, 0, 3072),
+            new Flujo("medico/agenda/siguiente", get("/medico/agenda/siguiente").with(comoMedico(medico(2, 4))), 2, 0, 1024),
+            new Flujo("medico/modificar", post("/medico/editar-cita/" + cita(medico(4, 2), "medico_id", "RESERVADA"))
+                .param("fechaHora", ahora.plusDays(92).withHour(10).format(FORMULARIO))
+                .with(comoMedico(medico(4, 2))), 8, 6, 1024),
+            new Flujo("medico/cancelar", post("/medico/cancelar-cita/" + cita(medico(4, 3), "medico_id", "RESERVADA"))
+                .with(comoMedico(medico(4, 3))), 7, 6, 1024),
+
+            // Vistas de la clínica
+            new Flujo("clinica/dashboard", get("/clinica/dashboard").with(comoClinica(1)), 4, 3, 2560),
+            new Flujo("clinica/medicos", get("/clinica/medicos").with(comoClinica(2)), 10, 10, 2048),
+            new Flujo("clinica/citas", get("/clinica/citas").with(comoClinica(3)), 4, 2435, 176128),
+            new Flujo("clinica/pacientes/buscar", get("/clinica/pacientes/buscar").param("q", "Paciente 10")
+                .with(comoClinica(4)), 4, 3, 7680),
+            new Flujo("clinica/ingresos", get("/clinica/ingresos").with(comoClinica(5)), 11, 10, 4096),
+            new Flujo("clinica/ingresos/datos", get("/clinica/ingresos/datos")
+                .param("desde", hoy.minusDays(180).toString()).param("hasta", hoy.toString())
+                .with(comoClinica(6)), 4, 3, 1536),
+            new Flujo("clinica/facturar", get("/clinica/citas/facturar/" + cita(1, "clinica_id", "RESERVADA"))
+                .with(comoClinica(1)), 5, 4, 1536),
+            new Flujo("clinica/historial", get("/clinica/citas/historial/" + cita(2, "clinica_id", "REALIZADA"))
+                .with(comoClinica(2)), 5, 5, 1536),
+            new Flujo("clinica/facturar (enviar)", post("/clinica/citas/facturar/" + cita(5, "clinica_id", "RESERVADA"))
+                .param("valorPagar", "80000")
+                .with(comoClinica(5)), 8, 4, 8192),
+
+            // API REST
+            new Flujo("api/paciente/citas", api("/api/v1/paciente/citas").with(comoPaciente(9)), 3, 2, 1024),
+            new Flujo("api/paciente/historiales", api("/api/v1/paciente/historiales").with(comoPaciente(10)), 3, 2, 1024),
+            new Flujo("api/medico/citas", api("/api/v1/medico/citas").with(comoMedico(medico(1, 5))), 4, 5, 1024),
+            new Flujo("api/medico/historiales", api("/api/v1/medico/historiales").with(comoMedico(medico(1, 6))), 4, 5, 1024),
+            new Flujo("api/clinica/citas", api("/api/v1/clinica/citas").with(comoClinica(4)), 4, 3, 1024),
+            new Flujo("api/paciente/agenda", api("/api/v1/paciente/agenda").param("dias", "30").with(comoPaciente(14)),
+                0, 0, 1024),
+            new Flujo("api/medico/agenda", api("/api/v1/medico/agenda").param("dias", "7").with(comoMedico(medico(2, 1))),
+                0, 0, 1024),
+            new Flujo("api/clinica/agenda", api("/api/v1/clinica/agenda").param("dias", "7").with(comoClinica(5)),
+                1, 0, 1024),
+            new Flujo("api/yo", api("/api/v1/yo").with(comoPaciente(11)), 2, 2, 1024),
+            new Flujo("api/clinicas", api("/api/v1/clinicas").with(comoPaciente(12)), 7, 13, 1024),
+            new Flujo("api/clinicas/medicos", api("/api/v1/clinicas/1/medicos").with(comoPaciente(13)), 8, 10, 1024)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("flujos")
+    void respetaSuPresupuesto(Flujo flujo) throws Exception {
+        Statistics estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        estadisticas.clear();
+        RegistroSql.iniciar();
+        long memoriaAntes = hilos.getCurrentThreadAllocatedBytes();
+        MvcResult resultado;
+        try {
+            resultado = mvc.perform(flujo.peticion()).andReturn();
+        } finally {
+            long memoriaKb = (hilos.getCurrentThreadAllocatedBytes() - memoriaAntes) / 1024;
+            List<String> sentencias = RegistroSql.terminar();
+            long entidades = estadisticas.getEntityLoadCount();
+            log.debug("Presupuesto {}: {} sentencias, {} entidades, {} KB",
+                flujo.nombre(), sentencias.size(), entidades, memoriaKb);
+            if (sentencias.size() > flujo.sentencias() || entidades > flujo.entidades() || memoriaKb > flujo.memoriaKb()) {
+                fail(informe(flujo, sentencias, entidades, memoriaKb));
+            }
+        }
+        int estado = resultado.getResponse().getStatus();
+        assertTrue(estado < 400, () -> flujo.nombre() + " respondió " + estado);
+        // Los POST redirigen también cuando fallan: el mensaje de error dice que no hicieron su trabajo
+        assertNull(resultado.getFlashMap().get("errorMsg"), () -> flujo.nombre() + " falló");
+    }
+
+    /**
+     * Mensaje de falla: los topes superados y las sentencias agrupadas por texto, de la
+     * más repetida a la menos.
+     */
+    private static String informe(Flujo flujo, List<String> sentencias, long entidades, long memoriaKb) {
+        StringBuilder sb = new StringBuilder("El flujo \"").append(flujo.nombre()).append("\" superó su presupuesto:\n");
+        linea(sb, "sentencias SQL", sentencias.size(), flujo.sentencias(), "");
+        linea(sb, "entidades cargadas", entidades, flujo.entidades(), "");
+        linea(sb, "memoria asignada", memoriaKb, flujo.memoriaKb(), " KB");
+
+        Map<String, Integer> agrupadas = new LinkedHashMap<>();
+        for (String sql : sentencias) {
+            agrupadas.merge(sql.replaceAll("\\s+", " ").trim(), 1, Integer::sum);
+        }
+        sb.append("Sentencias (").append(sentencias.size()).append("):\n");
+        agrupadas.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .forEach(e -> sb.append(String.format("  %4d× %s%s%n", e.getValue(), e.getKey(),
+                e.getValue() > 1 ? "   <-- repetida (¿N+1?)" : "")));
+        return sb.toString();
+    }
+
+    private static void linea(StringBuilder sb, String que, long real, long tope, String unidad) {
+        sb.append(String.format("  %-20s %8d%s (tope %d%s)%s%n", que, real, unidad, tope, unidad,
+            real > tope ? "  <-- +" + (real - tope) : ""));
+    }
+
+    private static MockHttpServletRequestBuilder api(String ruta) {
+        return get(ruta).accept(MediaType.APPLICATION_JSON);
+    }
+
+    private Integer cita(int usuarioId, String columna, String estado) {
+        if ("paciente_id".equals(columna)) {
+            usuarioId = PRIMER_PACIENTE + usuarioId - 1;
+        }
+        return jdbc.queryForObject("SELECT MIN(id) FROM citas WHERE " + columna + " = ? AND estado = ?",
+            Integer.class, usuarioId, estado);
+    }
+
+    private static int medico(int clinica, int k) {
+        return PRIMER_MEDICO + (clinica - 1) * MEDICOS_POR_CLINICA + k;
+    }
+
+    private static RequestPostProcessor comoPaciente(int n) {
+        int id = PRIMER_PACIENTE + n - 1;
+        return autenticado(id, "paciente" + id, "PACIENTE");
+    }
+
+    private static RequestPostProcessor comoMedico(int id) {
+        return autenticado(id, "medico" + id, "MEDICO");
+    }
+
+    private static RequestPostProcessor comoClinica(int c) {
+        return autenticado(c, "clinica" + c, "CLINICA");
+    }
+
+    private static RequestPostProcessor autenticado(
+            int id, String login, String rol) {
+        return user(new UsuarioAutenticado(id, login, "", List.of(new SimpleGrantedAuthority("ROLE_" + rol))));
+    }
+}
@@ -0,0 +1,102 @@
+package com.co.gestiondecitasmedicas.controller;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Envuelve el DataSource de la prueba para anotar cada sentencia SQL que se prepara o
+ * ejecuta, venga de Hibernate o de JdbcTemplate.
+ *
+ * Solo se anota en el hilo que abrió una medición (iniciar/terminar): las tareas de
+ * fondo (bitácora, agenda en vivo) no se mezclan con la petición que se mide.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class RegistroSql implements BeanPostProcessor {
+
+    private static final ThreadLocal<List<String>> SENTENCIAS = new ThreadLocal<>();
+
+    static void iniciar() {
+        SENTENCIAS.set(new ArrayList<>());
+    }
+
+    static List<String> terminar() {
+        List<String> sentencias = SENTENCIAS.get();
+        SENTENCIAS.remove();
+        return sentencias == null ? List.of() : sentencias;
+    }
+
+    private static void anotar(Object sql) {
+        List<String> sentencias = SENTENCIAS.get();
+        if (sentencias != null && sql instanceof String texto) {
+            sentencias.add(texto);
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && !(bean instanceof DelegatingDataSource)) {
+            return new DelegatingDataSource(ds) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return envolver(Connection.class, super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String usuario, String clave) throws SQLException {
+                    return envolver(Connection.class, super.getConnection(usuario, clave));
+                }
+            };
+        }
+        return bean;
+    }
+
+    /**
+     * Proxy de Connection o Statement: anota el SQL de prepareStatement/prepareCall y de
+     * los execute y addBatch; createStatement devuelve a su vez un Statement envuelto.
+     */
+    private static <T> T envolver(Class<T> tipo, T destino) {
+        InvocationHandler manejador = (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement", "prepareCall", "execute", "executeQuery", "executeUpdate",
+                     "executeLargeUpdate", "addBatch":
+                    if (args != null && args.length > 0) {
+                        anotar(args[0]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            Object resultado = invocar(metodo, destino, args);
+            if ("createStatement".equals(metodo.getName())) {
+                return envolver(Statement.class, (Statement) resultado);
+            }
+            return resultado;
+        };
+        return tipo.cast(Proxy.newProxyInstance(RegistroSql.class.getClassLoader(), new Class<?>[] {tipo}, manejador));
+    }
+
+    private static Object invocar(Method metodo, Object destino, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.repository.CitaRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Agenda del médico: un día leído mientras una transición lo borraba no queda en el
+ * cache, y un día guardado vence a los "app.agenda-medico.ttl-ms" aunque nadie lo borre.
+ */
+class AgendaMedicoServiceImplTests {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(3);
+
+    private final CitaRepository citaRepository = mock(CitaRepository.class);
+
+    private AgendaMedicoServiceImpl agenda;
+
+    @BeforeEach
+    void crear() {
+        agenda = new AgendaMedicoServiceImpl();
+        ReflectionTestUtils.setField(agenda, "citaRepository", citaRepository);
+        ReflectionTestUtils.setField(agenda, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(agenda, "maxDias", 100);
+        ReflectionTestUtils.setField(agenda, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void loLeidoDuranteUnBorradoNoQuedaGuardado() throws Exception {
+        CountDownLatch leyendo = new CountDownLatch(1);
+        CountDownLatch borrado = new CountDownLatch(1);
+        when(citaRepository.resumenesDeMedicoEntre(eq(101), any(), any()))
+            .thenAnswer(inv -> {
+                leyendo.countDown();
+                borrado.await(10, TimeUnit.SECONDS);
+                return List.of(); // leído antes del commit
+            })
+            .thenReturn(List.of(resumen(1)));
+
+        CompletableFuture<List<CitaResumenDto>> primera = CompletableFuture.supplyAsync(() -> agenda.dia(101, DIA));
+        leyendo.await(10, TimeUnit.SECONDS);
+        agenda.alCambiarCita(reserva(1));
+        borrado.countDown();
+
+        assertEquals(List.of(), primera.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of(resumen(1)), agenda.dia(101, DIA), "se vuelve a leer, ya con la cita");
+        assertEquals(List.of(resumen(1)), agenda.dia(101, DIA));
+        verify(citaRepository, times(2)).resumenesDeMedicoEntre(eq(101), any(), any());
+    }
+
+    @Test
+    void unDiaGuardadoVenceSinBorrados() throws Exception {
+        ReflectionTestUtils.setField(agenda, "ttlMs", 50L);
+        when(citaRepository.resumenesDeMedicoEntre(eq(101), any(), any()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(resumen(1)));
+
+        assertEquals(List.of(), agenda.dia(101, DIA));
+        Thread.sleep(100);
+
+        assertEquals(List.of(resumen(1)), agenda.dia(101, DIA));
+    }
+
+    private static CitaResumenDto resumen(int citaId) {
+        return new CitaResumenDto(citaId, DIA.atTime(9, 0), Cita.Estado.RESERVADA,
+            "Paciente 201", "Médico 101", "Clínica 1");
+    }
+
+    private static CitaEvento reserva(int citaId) {
+        return new CitaEvento(CitaEvento.Tipo.RESERVADA, citaId, 1, 101, 201, "Paciente 201", "10201",
+            "Médico 101", "Clínica 1", null, Cita.Estado.RESERVADA, null, DIA.atTime(9, 0), null,
+            "paciente201", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,196 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.co.gestiondecitasmedicas.eventos.CitaEvento;
+import com.co.gestiondecitasmedicas.eventos.CitaEventoAjeno;
+import com.co.gestiondecitasmedicas.eventos.ProyeccionCitas;
+import com.co.gestiondecitasmedicas.models.Cita;
+
+/**
+ * Reproducción de la bitácora: un id que se confirma después de otros mayores llega
+ * como tardío en la vuelta siguiente, los nombres se leen de la cita y solo los eventos
+ * de otras instancias se publican como CitaEventoAjeno. Los eventos se escriben con la
+ * transacción de la cita: están en la tabla al confirmarse y no quedan si se deshace.
+ */
+@SpringBootTest(properties = {
+    "app.bitacora.espera-huecos-ms=60000",
+    "app.bitacora.ajenos-ms=3600000" // la prueba llama a publicarAjenos por su cuenta
+})
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@RecordApplicationEvents
+class BitacoraCitasServiceImplTests {
+
+    @Autowired
+    private BitacoraCitasService bitacora;
+
+    @Autowired
+    private EstadisticasCitasService estadisticas;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationEvents eventos;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private ApplicationEventPublisher publicador;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1)");
+        jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+            + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+            + "VALUES (1, CURRENT_TIMESTAMP, 'RESERVADA', 201, 101, 1, 'Control', 'p@prueba.co', "
+            + "'Paciente 201', 'Médico 101', 'Clínica 1', '10201')");
+        // La cita 2 es de otra clínica: sus cambios no tocan los contadores de la clínica 1
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (2, 'Clínica 2', 'clinica2', 'C2', 'clinica2@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (2, 'Clínica 2', 2)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (102, 'Médico 102', 'medico102', 'M102', 'medico102@prueba.co', ?, 2)", hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (2, 3), (102, 2)");
+        jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+            + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+            + "VALUES (2, TIMESTAMPADD(DAY, 3, CURRENT_TIMESTAMP), 'RESERVADA', 201, 102, 2, 'Control', 'p@prueba.co', "
+            + "'Paciente 201', 'Médico 102', 'Clínica 2', '10201')");
+    }
+
+    @Test
+    void elEventoSeEscribeConLaTransaccionDeLaCita() {
+        citaService.facturarCita(2, new BigDecimal("30000"));
+        assertEquals(1, eventosDe(2, "FACTURADA"), "en la tabla en cuanto se confirma, sin esperar a otra escritura");
+
+        LocalDateTime ahora = LocalDateTime.now();
+        CitaEvento cancelada = new CitaEvento(CitaEvento.Tipo.CANCELADA, 2, 2, 102, 201, null, null, null, null,
+            Cita.Estado.FACTURADA, Cita.Estado.CANCELADA, null, ahora, null, "prueba", ahora);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            publicador.publishEvent(cancelada);
+            estado.setRollbackOnly();
+        });
+        assertEquals(0, eventosDe(2, "CANCELADA"), "una transacción deshecha no deja su evento");
+    }
+
+    @Test
+    void elHuecoQueSeConfirmaDespuesLlegaComoTardio() {
+        long base = bitacora.ultimoOffset();
+        CursorBitacora cursor = new CursorBitacora(base);
+        evento(base + 1);
+        evento(base + 3); // base + 2 todavía no se confirmó
+
+        Registro primera = new Registro();
+        bitacora.reproducir(cursor, primera);
+
+        assertEquals(List.of(base + 1, base + 3), primera.aplicados);
+        assertEquals(base + 3, cursor.offset());
+        assertEquals(base + 1, cursor.offsetSeguro(), "al guardarlo, el cursor vuelve antes del hueco");
+
+        evento(base + 2);
+        Registro segunda = new Registro();
+        bitacora.reproducir(cursor, segunda);
+
+        assertEquals(List.of(base + 2), segunda.tardios);
+        assertTrue(segunda.aplicados.isEmpty());
+        assertEquals(base + 3, cursor.offsetSeguro());
+
+        CitaEvento leido = segunda.eventos.get(0);
+        assertEquals("Paciente 201", leido.pacienteNombre());
+        assertEquals("10201", leido.documento());
+        assertEquals("Médico 101", leido.medicoNombre());
+        assertEquals("Clínica 1", leido.clinicaNombre());
+    }
+
+    @Test
+    void soloLosEventosDeOtraInstanciaSePublicanComoAjenos() {
+        BitacoraCitasServiceImpl impl = AopTestUtils.getTargetObject(bitacora);
+        impl.publicarAjenos(); // deja el cursor al final, por si la tarea programada aún no corrió
+        assertEquals(1, estadisticas.resumenClinica(1).reservadas());
+
+        long base = bitacora.ultimoOffset();
+        // Otra instancia factura la cita; esta escribe un evento propio (ya aplicado al confirmarse)
+        jdbc.update("UPDATE citas SET estado = 'FACTURADA' WHERE id = 1");
+        evento(base + 1, "FACTURADA", "otra-instancia");
+        evento(base + 2, "FACTURADA", (String) ReflectionTestUtils.getField(impl, "origen"));
+        eventos.clear();
+
+        impl.publicarAjenos();
+
+        List<CitaEventoAjeno> publicados = eventos.stream(CitaEventoAjeno.class).toList();
+        assertEquals(1, publicados.size());
+        assertEquals(base + 1, publicados.get(0).offset());
+        assertEquals(0, estadisticas.resumenClinica(1).reservadas(), "los contadores se vuelven a contar");
+        assertEquals(1, estadisticas.resumenClinica(1).facturadas());
+        jdbc.update("UPDATE citas SET estado = 'RESERVADA' WHERE id = 1");
+    }
+
+    private int eventosDe(int citaId, String tipo) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM citas_eventos WHERE cita_id = ? AND tipo = ?",
+            Integer.class, citaId, tipo);
+    }
+
+    private void evento(long id) {
+        evento(id, "RESERVADA", null);
+    }
+
+    private void evento(long id, String tipo, String origen) {
+        jdbc.update("INSERT INTO citas_eventos (id, tipo, cita_id, clinica_id, medico_id, paciente_id, actor, "
+            + "estado_nuevo, fecha_hora, ocurrido_en, origen) "
+            + "VALUES (?, ?, 1, 1, 101, 201, 'paciente201', ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?)",
+            id, tipo, tipo, origen);
+    }
+
+    private static class Registro implements ProyeccionCitas {
+        final List<Long> aplicados = new ArrayList<>();
+        final List<Long> tardios = new ArrayList<>();
+        final List<CitaEvento> eventos = new ArrayList<>();
+
+        @Override
+        public void aplicar(long offset, CitaEvento evento) {
+            aplicados.add(offset);
+            eventos.add(evento);
+        }
+
+        @Override
+        public void aplicarTardio(long offset, CitaEvento evento) {
+            tardios.add(offset);
+            eventos.add(evento);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Calentamiento: renderiza todas las plantillas con el modelo sintético y ejecuta todas las
+ * consultas declaradas en los repositorios (salvo las que modifican), sin errores.
+ */
+@SpringBootTest(properties = "app.calentamiento.presupuesto-ms=60000") // contexto (y BD) propio
+@ActiveProfiles("pruebas")
+class CalentamientoServiceImplTests {
+
+    @Autowired
+    private CalentamientoService calentamiento;
+
+    private CalentamientoServiceImpl impl;
+
+    @BeforeEach
+    void conPresupuesto() {
+        impl = AopTestUtils.getTargetObject(calentamiento);
+        ReflectionTestUtils.setField(impl, "limite", System.nanoTime() + TimeUnit.MINUTES.toNanos(1));
+    }
+
+    @Test
+    void renderizaTodasLasPlantillas() throws IOException {
+        Path carpeta = Path.of("src/main/resources/templates");
+        List<String> enDisco;
+        try (Stream<Path> archivos = Files.walk(carpeta)) {
+            enDisco = archivos.map(p -> carpeta.relativize(p).toString().replace('\\', '/'))
+                .filter(p -> p.endsWith(".html"))
+                .map(p -> p.substring(0, p.length() - ".html".length()))
+                .sorted()
+                .toList();
+        }
+
+        assertEquals(enDisco, impl.plantillas());
+        assertEquals(List.of(), impl.renderizarPlantillas());
+    }
+
+    @Test
+    void ejecutaLasConsultasDeLosRepositorios() {
+        List<String> nombres = impl.consultas().keySet().stream()
+            .map(m -> m.getDeclaringClass().getSimpleName() + "." + m.getName())
+            .toList();
+
+        assertTrue(nombres.contains("CitaRepository.contarPorEstadoAgrupado"));
+        assertTrue(nombres.contains("CitaRepository.resumenesDeMedicoEntre"));
+        assertTrue(nombres.contains("CitaRepository.resumenesDePaciente"));
+        assertTrue(nombres.contains("HistorialMedicoRepository.resumenesDePaciente"));
+        assertFalse(nombres.contains("IngresoDiarioRepository.acumular"), "las @Modifying no se ejecutan");
+        assertFalse(nombres.contains("UsuarioRepository.actualizarPassword"), "las @Modifying no se ejecutan");
+        assertEquals(List.of(), impl.ejecutarConsultas());
+    }
+}
@@ -0,0 +1,210 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Varias personas cambian la misma cita a la vez (la clínica factura mientras el médico
+ * la mueve, dos médicos la marcan realizada, el paciente y el médico la mueven). Cada par
+ * de hilos arranca junto en una barrera; al final ningún cambio informado como hecho
+ * puede faltar en la fila, y la versión avanza una vez por cada cambio hecho.
+ */
+@SpringBootTest
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConcurrenciaCitasTests {
+
+    private static final int HILOS = 16;
+    private static final int CITAS = 80;
+
+    // Reservadas 1..CITAS, facturadas desde PRIMERA_FACTURADA, reservadas para mover dos veces desde PRIMERA_A_MOVER
+    private static final int PRIMERA_FACTURADA = 1001;
+    private static final int PRIMERA_A_MOVER = 2001;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+    private final LocalDateTime inicio = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.HOURS);
+
+    /** Resultado de una llamada: ok, o el mensaje con el que se rechazó. */
+    record Intento(boolean ok, String error) { }
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1)");
+
+        List<Object[]> citas = new ArrayList<>();
+        for (int i = 0; i < CITAS; i++) {
+            citas.add(new Object[] {1 + i, Timestamp.valueOf(inicio.plusMinutes(30L * i)), "RESERVADA", null});
+            citas.add(new Object[] {PRIMERA_FACTURADA + i, Timestamp.valueOf(inicio.minusDays(5).plusMinutes(30L * i)),
+                "FACTURADA", BigDecimal.valueOf(60000)});
+            citas.add(new Object[] {PRIMERA_A_MOVER + i, Timestamp.valueOf(inicio.plusDays(20).plusMinutes(30L * i)),
+                "RESERVADA", null});
+        }
+        jdbc.batchUpdate("INSERT INTO citas (id, fecha_hora, estado, valor_pagar, paciente_id, medico_id, clinica_id, "
+            + "motivo, correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+            + "VALUES (?, ?, ?, ?, 201, 101, 1, 'Control', 'paciente201@prueba.co', 'Paciente 201', 'Médico 101', "
+            + "'Clínica 1', '10201')", citas);
+    }
+
+    @AfterAll
+    void cerrar() throws InterruptedException {
+        hilos.shutdownNow();
+        hilos.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void moverYFacturarLaMismaCitaNoPierdeNingunCambio() throws Exception {
+        List<Future<Intento>> mover = new ArrayList<>();
+        List<Future<Intento>> facturar = new ArrayList<>();
+        for (int i = 0; i < CITAS; i++) {
+            int citaId = 1 + i;
+            LocalDateTime nuevaFecha = inicio.plusDays(30).plusMinutes(30L * i);
+            BigDecimal valor = BigDecimal.valueOf(50000 + i);
+            CyclicBarrier juntos = new CyclicBarrier(2);
+            mover.add(hilos.submit(() -> intentar(juntos, () -> citaService.modificarFechaCita(citaId, nuevaFecha))));
+            facturar.add(hilos.submit(() -> intentar(juntos, () -> citaService.facturarCita(citaId, valor))));
+        }
+
+        for (int i = 0; i < CITAS; i++) {
+            int citaId = 1 + i;
+            Intento movida = mover.get(i).get(60, TimeUnit.SECONDS);
+            Intento facturada = facturar.get(i).get(60, TimeUnit.SECONDS);
+            Map<String, Object> fila = jdbc.queryForMap(
+                "SELECT fecha_hora, estado, valor_pagar, version FROM citas WHERE id = ?", citaId);
+
+            // Mover no cambia el estado: facturar siempre termina, con un reintento a lo sumo
+            assertTrue(facturada.ok(), "cita " + citaId + ": " + facturada.error());
+            assertEquals("FACTURADA", fila.get("estado"), "cita " + citaId);
+            assertEquals(0, BigDecimal.valueOf(50000 + i).compareTo((BigDecimal) fila.get("valor_pagar")),
+                "cita " + citaId);
+
+            // Mover pierde si la factura llegó antes (no se repite), y entonces lo dice
+            LocalDateTime esperada = movida.ok() ? inicio.plusDays(30).plusMinutes(30L * i) : inicio.plusMinutes(30L * i);
+            assertEquals(esperada, ((Timestamp) fila.get("fecha_hora")).toLocalDateTime(), "cita " + citaId);
+            if (!movida.ok()) {
+                assertTrue(movida.error().startsWith("Solo se puede modificar la fecha")
+                        || movida.error().startsWith("La cita fue modificada por otra persona"),
+                    "cita " + citaId + ": " + movida.error());
+            }
+            assertEquals(movida.ok() ? 2L : 1L, ((Number) fila.get("version")).longValue(), "cita " + citaId);
+        }
+    }
+
+    @Test
+    void dosMedicosRealizanLaMismaCitaUnaSolaVez() throws Exception {
+        List<Future<Intento>> primeros = new ArrayList<>();
+        List<Future<Intento>> segundos = new ArrayList<>();
+        for (int i = 0; i < CITAS; i++) {
+            int citaId = PRIMERA_FACTURADA + i;
+            CyclicBarrier juntos = new CyclicBarrier(2);
+            primeros.add(hilos.submit(() -> intentar(juntos,
+                () -> citaService.realizarCita(citaId, "Diagnóstico A", "Receta A"))));
+            segundos.add(hilos.submit(() -> intentar(juntos,
+                () -> citaService.realizarCita(citaId, "Diagnóstico B", "Receta B"))));
+        }
+
+        for (int i = 0; i < CITAS; i++) {
+            int citaId = PRIMERA_FACTURADA + i;
+            Intento a = primeros.get(i).get(60, TimeUnit.SECONDS);
+            Intento b = segundos.get(i).get(60, TimeUnit.SECONDS);
+            assertTrue(a.ok() != b.ok(), "cita " + citaId + ": " + a + " / " + b);
+            String perdedor = a.ok() ? b.error() : a.error();
+            assertTrue(perdedor.startsWith("Solo se puede marcar como REALIZADA")
+                    || perdedor.startsWith("La cita fue modificada por otra persona"),
+                "cita " + citaId + ": " + perdedor);
+
+            Map<String, Object> fila = jdbc.queryForMap("SELECT c.estado, c.version, h.diagnostico, h.version AS vh "
+                + "FROM citas c JOIN historiales_medicos h ON h.cita_id = c.id WHERE c.id = ?", citaId);
+            assertEquals("REALIZADA", fila.get("estado"), "cita " + citaId);
+            assertEquals(a.ok() ? "Diagnóstico A" : "Diagnóstico B", fila.get("diagnostico"), "cita " + citaId);
+            assertEquals(1L, ((Number) fila.get("version")).longValue(), "cita " + citaId);
+            assertEquals(0L, ((Number) fila.get("vh")).longValue(), "cita " + citaId);
+        }
+    }
+
+    @Test
+    void dosPersonasMuevenLaMismaCitaYNingunaPisaALaOtra() throws Exception {
+        List<Future<Intento>> primeros = new ArrayList<>();
+        List<Future<Intento>> segundos = new ArrayList<>();
+        for (int i = 0; i < CITAS; i++) {
+            int citaId = PRIMERA_A_MOVER + i;
+            LocalDateTime fechaA = inicio.plusDays(60).plusMinutes(30L * i);
+            LocalDateTime fechaB = inicio.plusDays(90).plusMinutes(30L * i);
+            CyclicBarrier juntos = new CyclicBarrier(2);
+            primeros.add(hilos.submit(() -> intentar(juntos, () -> citaService.modificarFechaCita(citaId, fechaA))));
+            segundos.add(hilos.submit(() -> intentar(juntos, () -> citaService.modificarFechaCita(citaId, fechaB))));
+        }
+
+        for (int i = 0; i < CITAS; i++) {
+            int citaId = PRIMERA_A_MOVER + i;
+            LocalDateTime fechaA = inicio.plusDays(60).plusMinutes(30L * i);
+            LocalDateTime fechaB = inicio.plusDays(90).plusMinutes(30L * i);
+            Intento a = primeros.get(i).get(60, TimeUnit.SECONDS);
+            Intento b = segundos.get(i).get(60, TimeUnit.SECONDS);
+            Map<String, Object> fila = jdbc.queryForMap("SELECT fecha_hora, version FROM citas WHERE id = ?", citaId);
+            LocalDateTime fecha = ((Timestamp) fila.get("fecha_hora")).toLocalDateTime();
+            long version = ((Number) fila.get("version")).longValue();
+
+            // Sin reintento, el que choca se entera en vez de pisar al otro
+            for (Intento perdido : List.of(a, b)) {
+                if (!perdido.ok()) {
+                    assertTrue(perdido.error().startsWith("La cita fue modificada por otra persona"),
+                        "cita " + citaId + ": " + perdido.error());
+                }
+            }
+            assertTrue(a.ok() || b.ok(), "cita " + citaId + ": alguno de los dos la mueve");
+            assertEquals((a.ok() ? 1 : 0) + (b.ok() ? 1 : 0), version, "cita " + citaId + ": una versión por cambio hecho");
+            if (a.ok() != b.ok()) {
+                assertEquals(a.ok() ? fechaA : fechaB, fecha, "cita " + citaId + ": queda la del que se informó como hecho");
+            } else {
+                assertTrue(fecha.equals(fechaA) || fecha.equals(fechaB), "cita " + citaId + ": uno después del otro");
+            }
+        }
+    }
+
+    private static Intento intentar(CyclicBarrier juntos, Supplier<?> cambio) throws Exception {
+        juntos.await(30, TimeUnit.SECONDS);
+        try {
+            cambio.get();
+            return new Intento(true, null);
+        } catch (RuntimeException ex) {
+            return new Intento(false, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.mail.internet.MimeMessage;
+
+class CorreoServiceImplTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private SimpleMeterRegistry registry;
+    private CorreoServiceImpl correo;
+
+    @BeforeEach
+    void crear() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        registry = new SimpleMeterRegistry();
+        // Un solo hilo: todos los mensajes van por la misma conexión
+        correo = new CorreoServiceImpl(mailSender, 1, 50, 100, 30000, 100, 10000, registry,
+            ObservationRegistry.NOOP);
+    }
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        correo.cerrar();
+    }
+
+    @Test
+    void mandaLaRafagaPorUnaConexion() throws Exception {
+        List<CompletableFuture<Void>> envios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            envios.add(correo.encolar(mensaje("paciente" + i + "@example.com", "Recordatorio " + i)));
+        }
+        CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(20, greenMail.getReceivedMessages().length);
+        assertEquals(1.0, registry.get("correo.conexiones").counter().count());
+        assertEquals(20, registry.get("correo.envio").tag("resultado", "ok").timer().count());
+    }
+
+    @Test
+    void reconectaSiElServidorSeReinicia() throws Exception {
+        correo.enviar(mensaje("a@example.com", "Antes"));
+
+        // Corta la conexión abierta por el hilo de correo
+        greenMail.reset();
+
+        correo.enviar(mensaje("b@example.com", "Después"));
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertTrue(registry.get("correo.reconexiones").counter().count() >= 1.0);
+        assertEquals(2.0, registry.get("correo.conexiones").counter().count());
+    }
+
+    private MimeMessage mensaje(String para, String asunto) throws Exception {
+        MimeMessage mensaje = correo.crearMensaje();
+        MimeMessageHelper helper = new MimeMessageHelper(mensaje, false, "UTF-8");
+        helper.setFrom("clinica@example.com");
+        helper.setTo(para);
+        helper.setSubject(asunto);
+        helper.setText("Texto", false);
+        return mensaje;
+    }
+}
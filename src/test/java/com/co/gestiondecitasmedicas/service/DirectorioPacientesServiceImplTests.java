@@ -0,0 +1,111 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.co.gestiondecitasmedicas.dto.PacienteDirectorioDto;
+import com.co.gestiondecitasmedicas.service.DirectorioPacientesServiceImpl.IndiceClinica;
+
+/**
+ * Buscador de recepción: la normalización (tildes, mayúsculas, espacios) y el índice de
+ * prefijos de una clínica (palabras del nombre, documento con o sin puntos, cambios de datos).
+ */
+class DirectorioPacientesServiceImplTests {
+
+    private static final long NUNCA = Long.MAX_VALUE;
+
+    @Test
+    void normalizarQuitaTildesMayusculasYEspacios() {
+        assertEquals("jose perez", DirectorioPacientesServiceImpl.normalizar("  José   PÉREZ "));
+        assertEquals("nunez", DirectorioPacientesServiceImpl.normalizar("Núñez"));
+        assertEquals("muller", DirectorioPacientesServiceImpl.normalizar("MÜLLER"));
+        assertEquals("1.234.567", DirectorioPacientesServiceImpl.normalizar("1.234.567"));
+        assertEquals("", DirectorioPacientesServiceImpl.normalizar(null));
+        assertEquals("", DirectorioPacientesServiceImpl.normalizar(" \t "));
+    }
+
+    @Test
+    void encuentraPorCualquierPalabraDelNombreSinTildesNiMayusculas() {
+        IndiceClinica indice = indice(
+            paciente(1, "José Pérez Gómez", "1.234.567"),
+            paciente(2, "María Peña", "89012345"));
+
+        assertEquals(List.of(1), ids(indice, "jos"));
+        assertEquals(List.of(1), ids(indice, buscado("GÓM")));
+        assertEquals(List.of(2, 1), ids(indice, "pe"), "pena antes que perez: orden de los términos");
+        assertEquals(List.of(1), ids(indice, buscado("José Pé")), "el nombre completo también es un término");
+        assertEquals(List.of(), ids(indice, "gomez perez"), "las palabras no se buscan en otro orden");
+        assertEquals(List.of(), ids(indice, "ez"), "solo prefijos");
+    }
+
+    @Test
+    void encuentraPorDocumentoParcialConYSinPuntos() {
+        IndiceClinica indice = indice(
+            paciente(1, "José Pérez", "1.234.567"),
+            paciente(2, "María Peña", "12-998"));
+
+        assertEquals(List.of(1), ids(indice, "1234"));
+        assertEquals(List.of(1), ids(indice, "1.23"));
+        assertEquals(List.of(2, 1), ids(indice, "12"), "\"12-998\" antes que \"1234567\": orden de los términos");
+        assertEquals(List.of(2), ids(indice, "1299"));
+        assertEquals(List.of(), ids(indice, "234"), "tampoco por el medio del documento");
+    }
+
+    @Test
+    void cadaPacienteUnaVezYHastaElLimite() {
+        IndiceClinica indice = indice(
+            paciente(1, "Ana Andrade", "A1"),
+            paciente(2, "Andrés Anaya", "A2"),
+            paciente(3, "Antonio Ángel", "A3"));
+
+        assertEquals(List.of(1, 2, 3), ids(indice, "an"), "sin repetir aunque coincidan varias palabras");
+        assertEquals(2, indice.buscar("an", 2).size());
+    }
+
+    @Test
+    void unCambioDeDatosReemplazaLosTerminosAnteriores() {
+        IndiceClinica indice = indice(paciente(1, "José Pérez", "1.234.567"));
+
+        indice.agregar(paciente(1, "José Ramírez", "7654321"));
+
+        assertEquals(List.of(), ids(indice, "perez"));
+        assertEquals(List.of(), ids(indice, "1234"));
+        assertEquals(List.of(1), ids(indice, "ramirez"));
+        assertEquals(List.of(1), ids(indice, "765"));
+        assertEquals("José Ramírez", indice.buscar("jose", 5).get(0).nombre());
+        assertTrue(indice.contiene(1));
+        assertFalse(indice.contiene(2));
+    }
+
+    @Test
+    void elIndiceVence() {
+        assertTrue(new IndiceClinica(System.currentTimeMillis() - 1).vencido());
+        assertFalse(new IndiceClinica(NUNCA).vencido());
+    }
+
+    private static IndiceClinica indice(PacienteDirectorioDto... filas) {
+        IndiceClinica indice = new IndiceClinica(NUNCA);
+        for (PacienteDirectorioDto fila : filas) {
+            indice.agregar(fila);
+        }
+        return indice;
+    }
+
+    private static PacienteDirectorioDto paciente(int id, String nombre, String documento) {
+        return new PacienteDirectorioDto(1, id, nombre, documento);
+    }
+
+    // buscar() recibe el texto ya normalizado, como lo pasa el servicio
+    private static String buscado(String texto) {
+        return DirectorioPacientesServiceImpl.normalizar(texto);
+    }
+
+    private static List<Integer> ids(IndiceClinica indice, String prefijo) {
+        return indice.buscar(prefijo, 10).stream().map(PacienteDirectorioDto::pacienteId).toList();
+    }
+}
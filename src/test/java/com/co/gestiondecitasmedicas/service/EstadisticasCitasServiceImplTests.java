@@ -0,0 +1,113 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.co.gestiondecitasmedicas.dto.ResumenCitasDto;
+
+/**
+ * Contadores de los dashboards: la reconciliación corrige en una consulta las claves de
+ * los tres ámbitos (también las que se quedaron sin citas) y el mapa no pasa del tope.
+ */
+@SpringBootTest(properties = "app.estadisticas.max-claves=3") // contexto (y BD) propio
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EstadisticasCitasServiceImplTests {
+
+    @Autowired
+    private EstadisticasCitasService estadisticas;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL), "
+            + "(202, 'Paciente 202', 'paciente202', '10202', 'paciente202@prueba.co', ?, NULL)", hash, hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1), (202, 1)");
+    }
+
+    @BeforeEach
+    void limpiar() {
+        jdbc.update("DELETE FROM citas");
+        contadores().clear();
+    }
+
+    @Test
+    void laReconciliacionCorrigeLosTresAmbitos() {
+        cita(1, 201, "RESERVADA", null);
+        cita(2, 202, "FACTURADA", "50000.00");
+        assertEquals(1, estadisticas.resumenClinica(1).reservadas());
+        assertEquals(1, estadisticas.resumenMedico(101).facturadas());
+        assertEquals(1, estadisticas.resumenPaciente(201).reservadas());
+
+        // Cambios que no pasaron por los eventos: los contadores en memoria se desvían
+        jdbc.update("UPDATE citas SET estado = 'REALIZADA', valor_pagar = 20000 WHERE id = 1");
+        jdbc.update("DELETE FROM citas WHERE id = 2");
+        cita(3, 202, "RESERVADA", null);
+        assertEquals(1, estadisticas.resumenClinica(1).reservadas());
+
+        estadisticas.reconciliar();
+
+        assertEquals(new ResumenCitasDto(1, 0, 1, 0, new BigDecimal("20000.00")), estadisticas.resumenClinica(1));
+        assertEquals(new ResumenCitasDto(1, 0, 1, 0, new BigDecimal("20000.00")), estadisticas.resumenMedico(101));
+        assertEquals(new ResumenCitasDto(0, 0, 1, 0, new BigDecimal("20000.00")), estadisticas.resumenPaciente(201));
+    }
+
+    @Test
+    void unaClaveSinCitasQuedaEnCero() {
+        cita(1, 202, "RESERVADA", null);
+        assertEquals(1, estadisticas.resumenPaciente(202).reservadas());
+
+        jdbc.update("DELETE FROM citas");
+        estadisticas.reconciliar();
+
+        assertEquals(new ResumenCitasDto(0, 0, 0, 0, new BigDecimal("0.00")), estadisticas.resumenPaciente(202));
+    }
+
+    @Test
+    void elMapaNoPasaDelTope() {
+        cita(1, 201, "RESERVADA", null);
+        estadisticas.resumenClinica(1);
+        estadisticas.resumenMedico(101);
+        estadisticas.resumenPaciente(201);
+        estadisticas.resumenPaciente(202);
+
+        assertTrue(contadores().size() <= 3);
+        assertEquals(1, estadisticas.resumenPaciente(201).reservadas(), "una clave descartada se vuelve a contar");
+    }
+
+    private void cita(int id, int pacienteId, String estado, String valor) {
+        jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+            + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad, valor_pagar) "
+            + "VALUES (?, CURRENT_TIMESTAMP, ?, ?, 101, 1, 'Control', 'p@prueba.co', "
+            + "'Paciente', 'Médico 101', 'Clínica 1', '10201', ?)",
+            id, estado, pacienteId, valor == null ? null : new BigDecimal(valor));
+    }
+
+    private Map<?, ?> contadores() {
+        EstadisticasCitasServiceImpl impl = AopTestUtils.getTargetObject(estadisticas);
+        return (Map<?, ?>) ReflectionTestUtils.getField(impl, "contadores");
+    }
+}
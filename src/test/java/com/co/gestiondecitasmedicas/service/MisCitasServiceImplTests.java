@@ -0,0 +1,103 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.co.gestiondecitasmedicas.config.UsuarioAutenticado;
+import com.co.gestiondecitasmedicas.dto.CitaResumenDto;
+import com.co.gestiondecitasmedicas.models.Cita;
+import com.co.gestiondecitasmedicas.models.Usuario;
+
+/**
+ * Mis citas después de un cambio: quien lo hizo lo ve en la lectura siguiente (la
+ * redirección tras el POST), sin esperar al hilo de proyección; el otro usuario de la
+ * cita lo recibe por ese hilo.
+ */
+@SpringBootTest(properties = "app.mis-citas.max-usuarios=100") // contexto (y BD) propio
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MisCitasServiceImplTests {
+
+    @Autowired
+    private MisCitasService misCitas;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1)");
+        LocalDateTime base = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.HOURS);
+        for (int id = 1; id <= 3; id++) {
+            jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+                + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+                + "VALUES (?, ?, 'RESERVADA', 201, 101, 1, 'Control', 'p@prueba.co', "
+                + "'Paciente 201', 'Médico 101', 'Clínica 1', '10201')", id, Timestamp.valueOf(base.plusHours(id)));
+        }
+    }
+
+    @AfterEach
+    void salir() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void quienCancelaLoVeEnLaLecturaSiguiente() throws InterruptedException {
+        // Las dos listas ya en memoria, como después de abrir "mis citas"
+        assertEquals(Cita.Estado.RESERVADA, estado(misCitas.citasDePaciente(201).todas(), 2));
+        assertEquals(Cita.Estado.RESERVADA, estado(misCitas.citasDeMedico(101).todas(), 2));
+
+        Usuario paciente = usuarioService.buscarPorLogin("paciente201").orElseThrow();
+        UsuarioAutenticado ua = new UsuarioAutenticado(201, "paciente201", "",
+            List.of(new SimpleGrantedAuthority("ROLE_PACIENTE")));
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(ua, null, ua.getAuthorities()));
+
+        citaService.cancelarCita(2, paciente);
+
+        assertEquals(Cita.Estado.CANCELADA, estado(misCitas.citasDePaciente(201).todas(), 2),
+            "la redirección de quien canceló ya muestra el cambio");
+
+        // El médico lo recibe por el hilo de proyección
+        long limite = System.currentTimeMillis() + 5000;
+        while (estado(misCitas.citasDeMedico(101).todas(), 2) != Cita.Estado.CANCELADA
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals(Cita.Estado.CANCELADA, estado(misCitas.citasDeMedico(101).todas(), 2));
+    }
+
+    private static Cita.Estado estado(List<CitaResumenDto> citas, int citaId) {
+        return citas.stream().filter(c -> c.id() == citaId).findFirst().orElseThrow().estado();
+    }
+}
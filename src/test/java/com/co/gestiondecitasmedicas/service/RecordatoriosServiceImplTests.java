@@ -0,0 +1,155 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Arriendos de tareas entre dos instancias y recordatorios que fallan al enviarse:
+ * el aviso que no salió se reintenta en la vuelta siguiente y los que sí salieron no
+ * se repiten.
+ */
+@SpringBootTest(properties = {
+    "app.recordatorios.habilitado=true",
+    "app.recordatorios.ventanas=24h",
+    "app.recordatorios.intervalo-ms=3600000",
+    "app.recordatorios.lote=2"
+})
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RecordatoriosServiceImplTests {
+
+    private static final String TAREA = "recordatorios-24h";
+
+    @Autowired
+    private RecordatoriosService recordatorios;
+
+    @Autowired
+    private ArriendoTareasService arriendos;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockBean
+    private CorreoService correoService;
+
+    // Correos entregados por el doble de CorreoService, y los que deben fallar una vez
+    private final Map<String, Integer> entregados = new ConcurrentHashMap<>();
+    private final Set<String> fallarUnaVez = ConcurrentHashMap.newKeySet();
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1)");
+    }
+
+    @BeforeEach
+    void limpiar() throws Exception {
+        jdbc.update("DELETE FROM citas");
+        jdbc.update("DELETE FROM recordatorios_enviados");
+        jdbc.update("DELETE FROM arriendos_tareas");
+        entregados.clear();
+        fallarUnaVez.clear();
+        when(correoService.crearMensaje()).thenAnswer(i -> new MimeMessage(Session.getInstance(new Properties())));
+        when(correoService.encolar(any())).thenAnswer(i -> {
+            String para = ((MimeMessage) i.getArgument(0)).getAllRecipients()[0].toString();
+            if (fallarUnaVez.remove(para)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("SMTP caído"));
+            }
+            entregados.merge(para, 1, Integer::sum);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @Test
+    void otraInstanciaNoTomaElArriendoHastaQueSeSuelta() {
+        ArriendoTareasServiceImpl otra = new ArriendoTareasServiceImpl();
+        ReflectionTestUtils.setField(otra, "jdbcTemplate", jdbc);
+        Duration cincoMinutos = Duration.ofMinutes(5);
+        LocalDateTime progreso = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertTrue(arriendos.tomar(TAREA, cincoMinutos));
+        assertTrue(arriendos.tomar(TAREA, cincoMinutos), "la dueña puede volver a tomarla");
+        assertFalse(otra.tomar(TAREA, cincoMinutos), "la otra instancia debe esperar");
+        assertFalse(otra.renovar(TAREA, cincoMinutos, progreso), "quien no es dueña no renueva");
+
+        assertTrue(arriendos.renovar(TAREA, cincoMinutos, progreso));
+        assertEquals(progreso, otra.progreso(TAREA).orElseThrow());
+
+        arriendos.soltar(TAREA);
+        assertTrue(otra.tomar(TAREA, cincoMinutos), "suelta, la toma la otra");
+        assertFalse(arriendos.renovar(TAREA, cincoMinutos, null), "la primera ya no es dueña");
+        assertEquals(progreso, otra.progreso(TAREA).orElseThrow(), "el progreso sigue con la tarea");
+        otra.soltar(TAREA);
+    }
+
+    @Test
+    void elAvisoQueFallaSeReintentaEnLaVueltaSiguiente() {
+        // Cinco citas dentro de la ventana de 24 h (lote de 2: tres páginas); la segunda falla una vez
+        LocalDateTime base = LocalDateTime.now().plusHours(24).minusMinutes(50).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 1; i <= 5; i++) {
+            cita(i, base.plusMinutes(5L * i));
+        }
+        fallarUnaVez.add(correo(2));
+
+        recordatorios.enviarPendientes();
+
+        assertEquals(Map.of(correo(1), 1, correo(3), 1, correo(4), 1, correo(5), 1), entregados,
+            "las páginas de después de la falla se envían igual");
+        assertEquals(base.plusMinutes(10), arriendos.progreso(TAREA).orElseThrow(),
+            "el progreso queda en el aviso que falló");
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM recordatorios_enviados WHERE cita_id = 2",
+            Integer.class));
+
+        recordatorios.enviarPendientes();
+
+        assertEquals(Map.of(correo(1), 1, correo(2), 1, correo(3), 1, correo(4), 1, correo(5), 1), entregados,
+            "el que falló sale en la segunda vuelta y ninguno se repite");
+        assertTrue(arriendos.progreso(TAREA).orElseThrow().isAfter(base.plusMinutes(25)));
+        assertEquals(5, jdbc.queryForObject("SELECT COUNT(*) FROM recordatorios_enviados", Integer.class));
+    }
+
+    private void cita(int id, LocalDateTime fecha) {
+        jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+            + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+            + "VALUES (?, ?, 'RESERVADA', 201, 101, 1, 'Control', ?, 'Paciente 201', 'Médico 101', 'Clínica 1', '10201')",
+            id, Timestamp.valueOf(fecha), correo(id));
+    }
+
+    private static String correo(int cita) {
+        return "cita" + cita + "@prueba.co";
+    }
+}
@@ -0,0 +1,85 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ventana de citas llena: se lee de la BD y se cuenta el desborde; cuando las citas
+ * vuelven a caber, la sincronización la recarga y se lee otra vez de memoria.
+ */
+@SpringBootTest(properties = "app.ventana-citas.capacidad=3") // contexto (y BD) propio
+@ActiveProfiles("pruebas")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VentanaCitasServiceImplTests {
+
+    @Autowired
+    private VentanaCitasService ventana;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS);
+
+    @BeforeAll
+    void sembrar() {
+        jdbc.update("INSERT INTO roles (id, nombre) VALUES (1, 'PACIENTE'), (2, 'MEDICO'), (3, 'CLINICA')");
+        String hash = "$2a$04$Xd1vH5VtM2hB2rWq8mGj0eY1Cq7s4x6m2b9kq3g0t8w5n1p7r2s4u"; // nunca se verifica
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) "
+            + "VALUES (1, 'Clínica 1', 'clinica1', 'C1', 'clinica1@prueba.co', ?, NULL)", hash);
+        jdbc.update("INSERT INTO clinicas (id, nombre, usuario_id) VALUES (1, 'Clínica 1', 1)");
+        jdbc.update("INSERT INTO usuarios (id, nombre, usuariologin, documento, email, password, clinica_id) VALUES "
+            + "(101, 'Médico 101', 'medico101', 'M101', 'medico101@prueba.co', ?, 1), "
+            + "(201, 'Paciente 201', 'paciente201', '10201', 'paciente201@prueba.co', ?, NULL)", hash, hash);
+        jdbc.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (1, 3), (101, 2), (201, 1)");
+        for (int id = 1; id <= 4; id++) {
+            jdbc.update("INSERT INTO citas (id, fecha_hora, estado, paciente_id, medico_id, clinica_id, motivo, "
+                + "correo_contacto, paciente_nombre, medico_nombre, clinica_nombre, documento_identidad) "
+                + "VALUES (?, ?, 'RESERVADA', 201, 101, 1, 'Control', 'p@prueba.co', "
+                + "'Paciente 201', 'Médico 101', 'Clínica 1', '10201')", id, Timestamp.valueOf(base.plusHours(id)));
+        }
+    }
+
+    @Test
+    void trasLlenarseVuelveAMemoriaCuandoLasCitasCaben() {
+        ventana.recargar(); // 4 citas en 3 registros
+        assertEquals(1.0, registry.counter("ventana.citas.desbordes").count());
+        double deBd = lecturas("bd");
+        assertEquals(4, ventana.deClinica(1, base, base.plusDays(1)).size());
+        assertEquals(deBd + 1, lecturas("bd"), "llena, se lee de la BD");
+
+        VentanaCitasServiceImpl impl = AopTestUtils.getTargetObject(ventana);
+        impl.sincronizar();
+        assertEquals(deBd + 1, lecturas("bd"));
+        assertEquals(4, ventana.deClinica(1, base, base.plusDays(1)).size());
+        assertEquals(deBd + 2, lecturas("bd"), "todavía no caben: sigue en la BD");
+
+        jdbc.update("UPDATE citas SET estado = 'CANCELADA' WHERE id = 2");
+        impl.sincronizar();
+
+        double deMemoria = lecturas("memoria");
+        assertEquals(3, ventana.deClinica(1, base, base.plusDays(1)).size());
+        assertEquals(deMemoria + 1, lecturas("memoria"), "ya caben: se lee de memoria");
+        assertEquals(1.0, registry.counter("ventana.citas.desbordes").count(), "un desborde, un aviso");
+    }
+
+    private double lecturas(String origen) {
+        return registry.counter("ventana.citas.lecturas", "origen", origen).count();
+    }
+}
@@ -0,0 +1,55 @@
+package com.co.gestiondecitasmedicas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.co.gestiondecitasmedicas.service.VersionesService.Sello;
+
+/**
+ * Sellos de versión con tope: el mapa no pasa de "app.versiones.max-claves" y la versión
+ * de ninguna clave baja al descartarla (si bajara, un GET condicional respondería 304
+ * a quien tiene una copia vieja).
+ */
+class VersionesServiceImplTests {
+
+    @Test
+    void conTopeNingunaVersionBaja() {
+        VersionesServiceImpl versiones = new VersionesServiceImpl();
+        ReflectionTestUtils.setField(versiones, "maxClaves", 3);
+
+        Map<Integer, Long> vistas = new HashMap<>();
+        for (int citaId = 1; citaId <= 10; citaId++) {
+            versiones.tocarCita(citaId);
+            for (int otra = 1; otra <= 12; otra++) {
+                long version = versiones.selloCita(otra).version();
+                long antes = vistas.getOrDefault(otra, 0L);
+                assertTrue(version >= antes, "la cita " + otra + " bajó de " + antes + " a " + version);
+                vistas.put(otra, version);
+            }
+        }
+
+        Object sellos = ReflectionTestUtils.getField(versiones, "citas");
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(sellos, "porClave")).size() <= 3);
+        assertEquals(10, versiones.selloCita(10).version(), "la última tocada conserva su versión");
+        assertTrue(versiones.selloCita(12).version() > 0, "una cita nunca tocada responde con el piso");
+    }
+
+    @Test
+    void sinDescartesLoNoTocadoSigueEnCero() {
+        VersionesServiceImpl versiones = new VersionesServiceImpl();
+        ReflectionTestUtils.setField(versiones, "maxClaves", 3);
+
+        versiones.tocarUsuario(1);
+        versiones.tocarCita(1);
+
+        Sello usuario = versiones.selloUsuario(2);
+        assertEquals(0, usuario.version(), "los mapas de usuarios y citas tienen cada uno su piso");
+        assertEquals(0, versiones.selloCita(2).version());
+    }
+}